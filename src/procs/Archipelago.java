@@ -0,0 +1,248 @@
+package procs;
+
+/**
+ * Runs a number of independent islands, each a CPU with its own
+ * Core, on a thread of its own. The islands share no mutable state,
+ * apart from the queues through which migrants pass. Islands are
+ * arranged in a ring, and at regular intervals each island sends the
+ * genome of one of its Processes, chosen at random, to the next
+ * island, which innoculates its Core with the genome in the same
+ * way as the ancestor.
+ *
+ * Each queue has a single producer and a single consumer, so it
+ * needs no locks. Migrants which arrive at a full queue, or find
+ * no room in the Core of the next island, are lost.
+ *
+ * The islands are only independent if their generators are. CPUs
+ * constructed without a generator are seeded from the clock, and
+ * CPUs constructed together are likely to share a seed and so to
+ * run identically, so each island should be given a generator
+ * with a distinct seed of its own.
+ *
+ * @author richpl
+ */
+public class Archipelago
+{
+	/**
+	 * Default number of migrants each queue can hold
+	 */
+	public static final int QUEUE_CAPACITY = 64;
+	
+	// Islands, each run on its own thread
+	private CPU[] islands;
+	
+	// Queue of migrants arriving at each island
+	private MigrationQueue[] arrivals;
+	
+	// Number of cycles between migrations from each island
+	private int interval;
+	
+	// Numbers of migrants sent, lost on the way, and
+	// innoculated, by island. Each is written only by
+	// the thread running the island
+	private long[] emigrants;
+	private long[] lost;
+	private long[] immigrants;
+	
+	/**
+	 * Constructs an archipelago from the specified islands.
+	 *
+	 * @param islands The CPUs to be run as islands, each of which
+	 * must not be shared with any other archipelago or thread, and
+	 * should draw its decisions from a distinctly seeded generator
+	 * @param interval The number of cycles between migrations
+	 * from each island
+	 *
+	 * @throws NumberFormatException Signals that no islands
+	 * or a non-positive interval were specified
+	 */
+	public Archipelago(final CPU[] islands, final int interval)
+		throws NumberFormatException
+	{
+		this(islands, interval, QUEUE_CAPACITY);
+	}
+	
+	/**
+	 * Constructs an archipelago from the specified islands.
+	 *
+	 * @param islands The CPUs to be run as islands, each of which
+	 * must not be shared with any other archipelago or thread, and
+	 * should draw its decisions from a distinctly seeded generator
+	 * @param interval The number of cycles between migrations
+	 * from each island
+	 * @param capacity The number of migrants each queue can hold
+	 *
+	 * @throws NumberFormatException Signals that no islands, a
+	 * non-positive interval or a non-positive capacity were specified
+	 */
+	public Archipelago(final CPU[] islands, final int interval,
+			           final int capacity)
+		throws NumberFormatException
+	{
+		if (islands.length == 0 || interval <= 0)
+		{
+			throw new NumberFormatException("Invalid archipelago specified");
+		}
+		
+		this.islands = islands.clone();
+		this.interval = interval;
+		
+		arrivals = new MigrationQueue[islands.length];
+		
+		for (int island=0; island<islands.length; island++)
+		{
+			arrivals[island] = new MigrationQueue(capacity);
+		}
+		
+		emigrants = new long[islands.length];
+		lost = new long[islands.length];
+		immigrants = new long[islands.length];
+	}
+	
+	/**
+	 * Runs every island for the specified number of cycles,
+	 * returning once all of them have finished.
+	 *
+	 * @param cycles The number of cycles to run each island for
+	 *
+	 * @throws InterruptedException Signals that the calling thread
+	 * was interrupted while waiting for the islands
+	 */
+	public void run(final long cycles) throws InterruptedException
+	{
+		Thread[] threads = new Thread[islands.length];
+		
+		for (int island=0; island<islands.length; island++)
+		{
+			final int index = island;
+			
+			threads[island] = new Thread(() -> runIsland(index, cycles),
+					                     "island-" + island);
+			threads[island].start();
+		}
+		
+		try
+		{
+			for (Thread thread: threads)
+			{
+				thread.join();
+			}
+		}
+		finally
+		{
+			for (Thread thread: threads)
+			{
+				thread.interrupt();
+			}
+		}
+	}
+	
+	/**
+	 * Runs a single island, on the thread dedicated to it.
+	 *
+	 * @param island The index of the island
+	 * @param cycles The number of cycles to run the island for
+	 */
+	private void runIsland(final int island, final long cycles)
+	{
+		CPU cpu = islands[island];
+		
+		MigrationQueue incoming = arrivals[island];
+		MigrationQueue outgoing = arrivals[(island + 1) % islands.length];
+		
+		for (long cycle=1; cycle<=cycles; cycle++)
+		{
+			if (Thread.currentThread().isInterrupted())
+			{
+				return;
+			}
+			
+			// Innoculate any migrants that have arrived
+			for (String[] genome=incoming.poll(); genome!=null;
+				 genome=incoming.poll())
+			{
+				if (cpu.immigrate(genome))
+				{
+					immigrants[island]++;
+				}
+				else
+				{
+					lost[island]++;
+				}
+			}
+			
+			cpu.execute();
+			
+			// A lone island has no neighbours to migrate to
+			if (cycle % interval == 0 && islands.length > 1)
+			{
+				String[] genome = cpu.sampleGenome();
+				
+				if (genome != null)
+				{
+					if (outgoing.offer(genome))
+					{
+						emigrants[island]++;
+					}
+					else
+					{
+						lost[island]++;
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * @param island The index of the island
+	 *
+	 * @return The CPU running the island
+	 */
+	public CPU island(final int island)
+	{
+		return (islands[island]);
+	}
+	
+	/**
+	 * @return The number of islands
+	 */
+	public int size()
+	{
+		return (islands.length);
+	}
+	
+	/**
+	 * @param island The index of the island
+	 *
+	 * @return The number of migrants sent from the island.
+	 * Only accurate once the islands have finished running.
+	 */
+	public long emigrants(final int island)
+	{
+		return (emigrants[island]);
+	}
+	
+	/**
+	 * @param island The index of the island
+	 *
+	 * @return The number of migrants innoculated into the island.
+	 * Only accurate once the islands have finished running.
+	 */
+	public long immigrants(final int island)
+	{
+		return (immigrants[island]);
+	}
+	
+	/**
+	 * @param island The index of the island
+	 *
+	 * @return The number of migrants lost by the island, either
+	 * because the queue to the next island was full or because no
+	 * room was found for them in its Core. Only accurate once the
+	 * islands have finished running.
+	 */
+	public long lost(final int island)
+	{
+		return (lost[island]);
+	}
+}
@@ -0,0 +1,68 @@
+package procs;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ArchipelagoTest
+{
+	private final long SEED = 17;
+	
+	@Test
+	public final void testMigration() throws Exception
+	{
+		CPU[] islands = new CPU[3];
+		
+		for (int island=0; island<islands.length; island++)
+		{
+			islands[island] = 
+					new CPU(new Random(SEED + island), new ExactStatistics());
+		}
+		
+		Archipelago archipelago = new Archipelago(islands, 5);
+		archipelago.run(20);
+		
+		long emigrants = 0;
+		long immigrants = 0;
+		
+		for (int island=0; island<archipelago.size(); island++)
+		{
+			assertEquals("Island not run", 20, archipelago.island(island).cycle());
+			
+			emigrants += archipelago.emigrants(island);
+			immigrants += archipelago.immigrants(island);
+		}
+		
+		// Each island migrates at most four times, and the islands
+		// run at their own pace, so not every migrant need arrive
+		assertTrue("No migrants sent", emigrants > 0);
+		assertTrue("Too many migrants", emigrants <= 12);
+		assertTrue("More migrants received than sent", immigrants <= emigrants);
+		
+		// Islands with distinct seeds evolve independently
+		for (int island=0; island<islands.length; island++)
+		{
+			for (int other=island+1; other<islands.length; other++)
+			{
+				assertTrue("Islands ran identically", 
+						   islands[island].checksum() != 
+						   islands[other].checksum());
+			}
+		}
+	}
+	
+	@Test
+	public final void testImmigrate()
+	{
+		CPU cpu = new CPU();
+		
+		String[] genome = cpu.sampleGenome();
+		
+		assertNotNull("Ancestor not sampled", genome);
+		
+		assertTrue("Genome not innoculated", cpu.immigrate(genome));
+		assertFalse("Empty genome innoculated", cpu.immigrate(new String[0]));
+	}
+}
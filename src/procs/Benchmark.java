@@ -0,0 +1,707 @@
+package procs;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Suite of end to end simulations, each run from a fixed seed so
+ * that every run of the suite does the same work, measuring the
+ * throughput and memory behaviour of the CPU as a whole. The results
+ * are written as JSON, and can be compared with those of an earlier
+ * run, stored as a baseline, to find any scenario whose throughput
+ * or allocation has regressed.
+ *
+ * Each scenario is run once to warm up the JVM before being measured.
+ * Allocation is measured on the thread running the simulation, where
+ * the JVM supports it, and collection time and the peak usage of each
+ * heap memory pool across the whole JVM. The pools reach their peaks
+ * at different times, so the sum of their peaks reported overstates
+ * the peak usage of the heap as a whole, but bounds it.
+ *
+ * @author richpl
+ */
+public class Benchmark
+{
+	/**
+	 * Seed from which every scenario is run
+	 */
+	public static final long SEED = 1;
+	
+	/**
+	 * Default fraction by which a throughput may fall, or an
+	 * allocation rise, before it is reported as a regression
+	 */
+	public static final double TOLERANCE = 0.1;
+	
+	/**
+	 * A canned simulation.
+	 */
+	public static class Scenario
+	{
+		// Name under which the results are reported
+		private final String name;
+		
+		// Number of cycles measured
+		private final int cycles;
+		
+		// Prepares the CPU before it is run
+		private final Consumer<CPU> setup;
+		
+		/**
+		 * Constructs a scenario.
+		 *
+		 * @param name The name under which the results are reported
+		 * @param cycles The number of cycles measured
+		 * @param setup Prepares the CPU, innoculated with its ancestor,
+		 * before it is run
+		 */
+		public Scenario(final String name, final int cycles,
+				        final Consumer<CPU> setup)
+		{
+			this.name = name;
+			this.cycles = cycles;
+			this.setup = setup;
+		}
+		
+		/**
+		 * @return The name under which the results are reported
+		 */
+		public String name()
+		{
+			return (name);
+		}
+	}
+	
+	/**
+	 * The measurements of a single scenario.
+	 */
+	public static class Result
+	{
+		// Name of the scenario
+		private final String name;
+		
+		// Number of cycles run
+		private final long cycles;
+		
+		// Number of instructions executed
+		private final long instructions;
+		
+		// Elapsed time, in nanoseconds
+		private final long nanos;
+		
+		// Bytes allocated by the simulation, or -1 if unknown
+		private final long allocated;
+		
+		// Time spent in garbage collection, in milliseconds
+		private final long gcMillis;
+		
+		// Sum of the peak usage of each heap memory pool, in bytes
+		private final long poolPeaks;
+		
+		/**
+		 * Constructs a set of measurements.
+		 *
+		 * @param name The name of the scenario
+		 * @param cycles The number of cycles run
+		 * @param instructions The number of instructions executed
+		 * @param nanos The elapsed time, in nanoseconds
+		 * @param allocated The number of bytes allocated,
+		 * or -1 if unknown
+		 * @param gcMillis The time spent in garbage collection,
+		 * in milliseconds
+		 * @param poolPeaks The sum of the peak usage of each
+		 * heap memory pool, in bytes
+		 */
+		Result(final String name, final long cycles, final long instructions,
+			   final long nanos, final long allocated, final long gcMillis,
+			   final long poolPeaks)
+		{
+			this.name = name;
+			this.cycles = cycles;
+			this.instructions = instructions;
+			this.nanos = nanos;
+			this.allocated = allocated;
+			this.gcMillis = gcMillis;
+			this.poolPeaks = poolPeaks;
+		}
+		
+		/**
+		 * @return The name of the scenario
+		 */
+		public String name()
+		{
+			return (name);
+		}
+		
+		/**
+		 * @return The number of cycles completed per second
+		 */
+		public double cyclesPerSecond()
+		{
+			return (cycles * 1e9 / Math.max(nanos, 1));
+		}
+		
+		/**
+		 * @return The number of instructions executed per second
+		 */
+		public double instructionsPerSecond()
+		{
+			return (instructions * 1e9 / Math.max(nanos, 1));
+		}
+		
+		/**
+		 * @return The number of bytes allocated per cycle,
+		 * or -1 if unknown
+		 */
+		public double bytesPerCycle()
+		{
+			return (allocated < 0 ? -1 : (double) allocated / cycles);
+		}
+		
+		/**
+		 * @return The time spent in garbage collection, in milliseconds
+		 */
+		public long gcMillis()
+		{
+			return (gcMillis);
+		}
+		
+		/**
+		 * @return The sum of the peak usage of each heap memory
+		 * pool, in bytes, which is at least the peak usage of
+		 * the heap as a whole
+		 */
+		public long poolPeaks()
+		{
+			return (poolPeaks);
+		}
+		
+		/**
+		 * @return The measurements as a JSON object
+		 */
+		public String toJson()
+		{
+			return (String.format("{\"name\": \"%s\", \"cycles\": %d, " +
+					              "\"instructions\": %d, \"seconds\": %.3f, " +
+					              "\"cyclesPerSecond\": %.1f, " +
+					              "\"instructionsPerSecond\": %.1f, " +
+					              "\"bytesPerCycle\": %.1f, " +
+					              "\"gcPauseMillis\": %d, \"heapPoolPeakBytes\": %d}",
+					              name, cycles, instructions, nanos / 1e9,
+					              cyclesPerSecond(), instructionsPerSecond(),
+					              bytesPerCycle(), gcMillis, poolPeaks));
+		}
+	}
+	
+	/**
+	 * The change in a single measurement of a scenario
+	 * from its baseline.
+	 */
+	public static class Change
+	{
+		// Name of the scenario
+		private final String name;
+		
+		// Name of the measurement
+		private final String field;
+		
+		// Values of the baseline and of this run
+		private final double base;
+		private final double value;
+		
+		// Whether the change is a regression
+		private final boolean regressed;
+		
+		/**
+		 * Constructs a change.
+		 *
+		 * @param name The name of the scenario
+		 * @param field The name of the measurement
+		 * @param base The value in the baseline
+		 * @param value The value measured by this run
+		 * @param regressed True if the change is a regression
+		 */
+		Change(final String name, final String field, final double base,
+			   final double value, final boolean regressed)
+		{
+			this.name = name;
+			this.field = field;
+			this.base = base;
+			this.value = value;
+			this.regressed = regressed;
+		}
+		
+		/**
+		 * @return The name of the scenario
+		 */
+		public String name()
+		{
+			return (name);
+		}
+		
+		/**
+		 * @return The name of the measurement
+		 */
+		public String field()
+		{
+			return (field);
+		}
+		
+		/**
+		 * @return The fractional change from the baseline
+		 */
+		public double change()
+		{
+			return (value / base - 1);
+		}
+		
+		/**
+		 * @return True if the change is a regression
+		 */
+		public boolean regressed()
+		{
+			return (regressed);
+		}
+		
+		/**
+		 * @return The change as a line of the comparison table
+		 */
+		@Override
+		public String toString()
+		{
+			return (String.format("%-10s %-22s %14.1f %14.1f %+7.1f%%%s",
+					              name, field, base, value, change() * 100,
+					              regressed ? "  REGRESSION" : ""));
+		}
+	}
+	
+	// Matches a field of a flat JSON object with a string or number value
+	private static final Pattern FIELD =
+			Pattern.compile("\"(\\w+)\"\\s*:\\s*(?:\"([^\"]*)\"|(-?[0-9.eE+-]+))");
+	
+	/**
+	 * @return The standard scenarios
+	 */
+	public static List<Scenario> scenarios()
+	{
+		List<Scenario> scenarios = new ArrayList<Scenario>();
+		
+		// The ancestor alone, multiplying to fill the Core
+		scenarios.add(new Scenario("bootstrap", 150, cpu -> {}));
+		
+		// A Core nine tenths full, of Processes which never spawn
+		scenarios.add(new Scenario("saturated", 100, cpu ->
+		{
+			String[] genome = repeat(Instructions.NOP, 9);
+			
+			for (int address=0; address<CPU.CORE_SIZE; address+=10)
+			{
+				cpu.immigrate(genome, address);
+			}
+		}));
+		
+		// Frequent mutation of every copy
+		scenarios.add(new Scenario("mutation", 150, cpu ->
+		{
+			cpu.setMutationProbability(20);
+		}));
+		
+		// Replicators which bomb their neighbours with NOPs
+		scenarios.add(new Scenario("bombs", 100, cpu ->
+		{
+			String[] genome = {Instructions.CPN, Instructions.NOP,
+				               Instructions.SPW, Instructions.CPN,
+				               Instructions.NOP};
+			
+			for (int address=0; address<CPU.CORE_SIZE; address+=500)
+			{
+				cpu.immigrate(genome, address);
+			}
+		}));
+		
+		// Replicators a hundred instructions long
+		scenarios.add(new Scenario("long", 150, cpu ->
+		{
+			String[] genome = repeat(Instructions.NOP, 100);
+			genome[50] = Instructions.SPW;
+			
+			for (int address=0; address<CPU.CORE_SIZE; address+=1000)
+			{
+				cpu.immigrate(genome, address);
+			}
+		}));
+		
+		return (scenarios);
+	}
+	
+	/**
+	 * Runs a scenario, once to warm up and once to be measured.
+	 *
+	 * @param scenario The scenario to run
+	 *
+	 * @return The measurements of the scenario
+	 */
+	public static Result run(final Scenario scenario)
+	{
+		simulate(scenario);
+		
+		System.gc();
+		
+		List<MemoryPoolMXBean> pools = new ArrayList<MemoryPoolMXBean>();
+		
+		for (MemoryPoolMXBean pool: ManagementFactory.getMemoryPoolMXBeans())
+		{
+			if (pool.getType() == MemoryType.HEAP && pool.isValid())
+			{
+				pool.resetPeakUsage();
+				pools.add(pool);
+			}
+		}
+		
+		long gcStart = collectionTime();
+		long allocatedStart = allocatedBytes();
+		long start = System.nanoTime();
+		
+		long instructions = simulate(scenario);
+		
+		long nanos = System.nanoTime() - start;
+		long allocatedEnd = allocatedBytes();
+		long gcMillis = collectionTime() - gcStart;
+		
+		// Each pool peaks at its own time, so this is an upper
+		// bound on the peak usage of the heap
+		long poolPeaks = 0;
+		
+		for (MemoryPoolMXBean pool: pools)
+		{
+			poolPeaks += pool.getPeakUsage().getUsed();
+		}
+		
+		long allocated = allocatedStart < 0 ? -1 : allocatedEnd - allocatedStart;
+		
+		return (new Result(scenario.name, scenario.cycles, instructions,
+				           nanos, allocated, gcMillis, poolPeaks));
+	}
+	
+	/**
+	 * Writes a set of results as a JSON document.
+	 *
+	 * @param results The results to be written
+	 * @param file The file to which to write them
+	 *
+	 * @throws IOException Signals that the file could not be written
+	 */
+	public static void write(final List<Result> results, final File file)
+		throws IOException
+	{
+		StringBuilder json = new StringBuilder("{\"scenarios\": [\n");
+		
+		for (int index=0; index<results.size(); index++)
+		{
+			json.append("  ").append(results.get(index).toJson());
+			json.append(index < results.size() - 1 ? ",\n" : "\n");
+		}
+		
+		json.append("]}\n");
+		
+		Files.write(file.toPath(), json.toString().getBytes(StandardCharsets.UTF_8));
+	}
+	
+	/**
+	 * Reads the fields of each scenario from a JSON document
+	 * written by write(List, File).
+	 *
+	 * @param file The file from which to read
+	 *
+	 * @return The numeric fields of each scenario, by name
+	 *
+	 * @throws IOException Signals that the file could not be read
+	 */
+	public static Map<String, Map<String, Double>> read(final File file)
+		throws IOException
+	{
+		String json = new String(Files.readAllBytes(file.toPath()),
+				                 StandardCharsets.UTF_8);
+		
+		Map<String, Map<String, Double>> scenarios =
+				new LinkedHashMap<String, Map<String, Double>>();
+		
+		Map<String, Double> fields = null;
+		
+		Matcher matcher = FIELD.matcher(json);
+		
+		while (matcher.find())
+		{
+			// Each scenario begins with its name
+			if (matcher.group(1).equals("name") && matcher.group(2) != null)
+			{
+				fields = new LinkedHashMap<String, Double>();
+				scenarios.put(matcher.group(2), fields);
+			}
+			else if (fields != null && matcher.group(3) != null)
+			{
+				try
+				{
+					fields.put(matcher.group(1), Double.valueOf(matcher.group(3)));
+				}
+				catch (NumberFormatException e)
+				{
+					throw new IOException("Invalid value for " + matcher.group(1) +
+							              " in " + file);
+				}
+			}
+		}
+		
+		return (scenarios);
+	}
+	
+	/**
+	 * Compares a set of results with a baseline. Scenarios and
+	 * measurements missing from the baseline are not compared.
+	 *
+	 * @param results The results of this run
+	 * @param baseline The fields of each scenario of the baseline
+	 * @param tolerance The fraction by which a throughput may fall,
+	 * or an allocation rise, before it is reported as a regression
+	 *
+	 * @return The change in each measurement compared
+	 */
+	public static List<Change> compare(final List<Result> results,
+			                           final Map<String, Map<String, Double>> baseline,
+			                           final double tolerance)
+	{
+		List<Change> changes = new ArrayList<Change>();
+		
+		for (Result result: results)
+		{
+			Map<String, Double> fields = baseline.get(result.name());
+			
+			if (fields == null)
+			{
+				continue;
+			}
+			
+			change(changes, result.name(), "cyclesPerSecond",
+				   result.cyclesPerSecond(), fields, -tolerance);
+			change(changes, result.name(), "instructionsPerSecond",
+				   result.instructionsPerSecond(), fields, -tolerance);
+			
+			if (result.bytesPerCycle() >= 0)
+			{
+				change(changes, result.name(), "bytesPerCycle",
+					   result.bytesPerCycle(), fields, tolerance);
+			}
+		}
+		
+		return (changes);
+	}
+	
+	/**
+	 * @param changes The changes found by compare
+	 *
+	 * @return The names of the scenarios with a measurement
+	 * which regressed, in the order they were compared
+	 */
+	public static List<String> regressions(final List<Change> changes)
+	{
+		List<String> regressions = new ArrayList<String>();
+		
+		for (Change change: changes)
+		{
+			if (change.regressed() && !regressions.contains(change.name()))
+			{
+				regressions.add(change.name());
+			}
+		}
+		
+		return (regressions);
+	}
+	
+	/**
+	 * Adds the change in a measurement from its baseline
+	 * to a list, if the baseline has a value for it.
+	 *
+	 * @param changes The list to which to add the change
+	 * @param name The name of the scenario
+	 * @param field The name of the measurement
+	 * @param value The value measured by this run
+	 * @param fields The fields of the scenario in the baseline
+	 * @param limit The largest fractional fall, if negative,
+	 * or rise, if positive, which is not a regression
+	 */
+	private static void change(final List<Change> changes, final String name,
+			                   final String field, final double value,
+			                   final Map<String, Double> fields, final double limit)
+	{
+		Double base = fields.get(field);
+		
+		if (base == null || base <= 0)
+		{
+			return;
+		}
+		
+		double change = value / base - 1;
+		
+		boolean regressed = limit < 0 ? change < limit : change > limit;
+		
+		changes.add(new Change(name, field, base, value, regressed));
+	}
+	
+	/**
+	 * Runs a scenario from its seed.
+	 *
+	 * @param scenario The scenario to run
+	 *
+	 * @return The number of instructions executed
+	 */
+	private static long simulate(final Scenario scenario)
+	{
+		CPU cpu = new CPU(new Random(SEED), new ExactStatistics());
+		
+		scenario.setup.accept(cpu);
+		
+		long instructions = 0;
+		
+		for (int cycle=0; cycle<scenario.cycles; cycle++)
+		{
+			// Every Process executes one instruction in each cycle
+			instructions += cpu.processCount();
+			
+			cpu.execute();
+		}
+		
+		return (instructions);
+	}
+	
+	/**
+	 * @return The total time spent in garbage collection
+	 * since the JVM started, in milliseconds
+	 */
+	private static long collectionTime()
+	{
+		long millis = 0;
+		
+		for (GarbageCollectorMXBean collector:
+			 ManagementFactory.getGarbageCollectorMXBeans())
+		{
+			millis += Math.max(collector.getCollectionTime(), 0);
+		}
+		
+		return (millis);
+	}
+	
+	/**
+	 * @return The number of bytes allocated by the current thread,
+	 * or -1 if the JVM cannot measure it
+	 */
+	private static long allocatedBytes()
+	{
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		
+		if (threads instanceof com.sun.management.ThreadMXBean)
+		{
+			return (((com.sun.management.ThreadMXBean) threads)
+					.getThreadAllocatedBytes(Thread.currentThread().getId()));
+		}
+		
+		return (-1);
+	}
+	
+	/**
+	 * @param instruction An instruction
+	 * @param length The number of instructions
+	 *
+	 * @return A genome repeating the instruction
+	 */
+	private static String[] repeat(final String instruction, final int length)
+	{
+		String[] genome = new String[length];
+		
+		for (int index=0; index<length; index++)
+		{
+			genome[index] = instruction;
+		}
+		
+		return (genome);
+	}
+	
+	/**
+	 * Runs the standard scenarios, writes their results, and
+	 * compares them with a baseline if one is specified. Exits
+	 * with a non-zero status if any scenario regressed.
+	 *
+	 * @param args The file to which to write the results, optionally
+	 * followed by the baseline and the tolerance as a percentage
+	 */
+	public static void main(String[] args)
+	{
+		File output = new File(args.length > 0 ? args[0] : "benchmark.json");
+		File baseline = args.length > 1 ? new File(args[1]) : null;
+		double tolerance = args.length > 2 ?
+				Double.parseDouble(args[2]) / 100 : TOLERANCE;
+		
+		try
+		{
+			List<Result> results = new ArrayList<Result>();
+			
+			for (Scenario scenario: scenarios())
+			{
+				Result result = run(scenario);
+				
+				System.out.println(result.toJson());
+				
+				results.add(result);
+			}
+			
+			write(results, output);
+			
+			if (baseline != null)
+			{
+				Map<String, Map<String, Double>> fields = read(baseline);
+				
+				for (Result result: results)
+				{
+					if (!fields.containsKey(result.name()))
+					{
+						System.out.println(result.name() + ": no baseline");
+					}
+				}
+				
+				List<Change> changes = compare(results, fields, tolerance);
+				
+				for (Change change: changes)
+				{
+					System.out.println(change);
+				}
+				
+				List<String> regressions = regressions(changes);
+				
+				if (!regressions.isEmpty())
+				{
+					System.out.println("Regressed: " + regressions);
+					System.exit(1);
+				}
+			}
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+			System.exit(2);
+		}
+	}
+}
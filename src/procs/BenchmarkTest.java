@@ -0,0 +1,93 @@
+package procs;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class BenchmarkTest 
+{
+	@Test
+	public final void testRun() 
+	{
+		Benchmark.Scenario scenario = new Benchmark.Scenario("tiny", 10, 
+				cpu -> cpu.setMutationProbability(20));
+		
+		Benchmark.Result result = Benchmark.run(scenario);
+		
+		assertEquals("Incorrect name", "tiny", result.name());
+		assertTrue("No cycles run", result.cyclesPerSecond() > 0);
+		assertTrue("No instructions executed", result.instructionsPerSecond() > 0);
+		assertTrue("No heap used", result.poolPeaks() > 0);
+	}
+	
+	@Test
+	public final void testBaseline() throws Exception 
+	{
+		File file = File.createTempFile("benchmark", ".json");
+		
+		try
+		{
+			// One second for 100 cycles of 1000 instructions, 
+			// allocating 500 bytes per cycle
+			Benchmark.Result baseline = 
+					new Benchmark.Result("steady", 100, 100000, 
+							             1000000000L, 50000, 5, 1 << 20);
+			
+			Benchmark.write(Arrays.asList(baseline), file);
+			
+			Map<String, Map<String, Double>> fields = Benchmark.read(file);
+			
+			assertEquals("Incorrect cycle rate", 100.0, 
+					     fields.get("steady").get("cyclesPerSecond"), 0.01);
+			assertEquals("Incorrect allocation", 500.0, 
+					     fields.get("steady").get("bytesPerCycle"), 0.01);
+			
+			// Slightly faster, so no regression
+			Benchmark.Result faster = 
+					new Benchmark.Result("steady", 100, 100000, 
+							             950000000L, 50000, 5, 1 << 20);
+			
+			List<Benchmark.Change> changes = 
+					Benchmark.compare(Arrays.asList(faster), fields, 0.1);
+			
+			assertEquals("Incorrect number of changes", 3, changes.size());
+			assertEquals("Incorrect measurement", 
+					     "cyclesPerSecond", changes.get(0).field());
+			assertEquals("Incorrect change", 
+					     1 / 0.95 - 1, changes.get(0).change(), 1e-9);
+			assertTrue("Improvement reported as regression", 
+					   Benchmark.regressions(changes).isEmpty());
+			
+			// Half the speed
+			Benchmark.Result slower = 
+					new Benchmark.Result("steady", 100, 100000, 
+							             2000000000L, 50000, 5, 1 << 20);
+			
+			changes = Benchmark.compare(Arrays.asList(slower), fields, 0.1);
+			
+			assertTrue("Regression not flagged", changes.get(0).regressed());
+			assertEquals("Incorrect change", -0.5, changes.get(0).change(), 1e-9);
+			
+			List<String> regressions = Benchmark.regressions(changes);
+			
+			assertEquals("Regression not found", 
+					     Arrays.asList("steady"), regressions);
+		}
+		finally
+		{
+			file.delete();
+		}
+	}
+	
+	@Test
+	public final void testScenarios() 
+	{
+		assertEquals("Incorrect number of scenarios", 
+				     5, Benchmark.scenarios().size());
+	}
+}
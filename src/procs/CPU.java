@@ -1,17 +1,20 @@
 package procs;
 
+import java.lang.management.ManagementFactory;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Date;
-import java.util.HashMap;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
-import java.util.Set;
 import java.util.Vector;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
+
 /**
  * The CPU class is responsible for keeping track of, 
  * and executing Processes in the core. This is done
@@ -24,7 +27,7 @@ import java.util.Vector;
  * 
  * @author richpl
  */
-public class CPU 
+public class CPU implements Engine
 {
 	/**
 	 * Process lifetime, defined as the number of 
@@ -45,12 +48,18 @@ public class CPU
 	public static final int RANGE = 100;
 	
 	/**
-	 * Probability, expressed as a percentage, that
-	 * two nearby processes will swap instructions
+	 * Default probability, expressed as a percentage, that
+	 * two neighbouring processes will swap instructions
 	 * during a particular execution cycle 
 	 */
 	public static final int SWAP_PROB = 0;
 	
+	/**
+	 * Number of nearest neighbours from which the partner
+	 * of a process swapping instructions is chosen
+	 */
+	public static final int SWAP_NEIGHBOURS = 4;
+	
 	/**
 	 * Probability, expressed as a percentage, that a single
 	 * instruction will be randomly changed when a process
@@ -58,26 +67,63 @@ public class CPU
 	 */
 	public static final int MUTATION_PROB = 1;
 	
+	/**
+	 * Range within which children are spawned around their parents,
+	 * in terms of number of core locations, when spawning is confined
+	 * to the neighbourhood of the parent
+	 */
+	public static final int SPAWN_RANGE = 100;
+	
+	/**
+	 * Number of random addresses tried when looking for room
+	 * for a genome arriving from elsewhere
+	 */
+	public static final int IMMIGRATION_ATTEMPTS = 10;
+	
+	/**
+	 * Execution order in which Processes are stepped in order
+	 * of birth, oldest first
+	 */
+	public static final int BIRTH_ORDER = 0;
+	
+	/**
+	 * Execution order in which Processes are stepped in order
+	 * of Core address, so that instruction fetches sweep through
+	 * the Core rather than jumping about it
+	 */
+	public static final int ADDRESS_ORDER = 1;
+	
+	// Orders Processes by the address of their first instruction
+	private static final Comparator<Process> BY_ADDRESS =
+			Comparator.comparingInt(Process::address);
+	
 	// List of current Processes, defined as a list 
 	// of core addresses that hold their first instruction
 	private List<Process> processes;
 	
-	// Map to hold details of unique Processes. Keys
-	// are created by hashing the string derived by
-	// concatenating the ordered Process instructions together,
-	// while the values are the instructions lists themselves
-	private Map<Integer, String[]> genomes;
-
-	// Map to hold details of the population size of 
-	// unique processes. Keys are created by hashing the string
-	// derived by concatenating the ordered Process instructions
-	// together, while the values are the association population
-	// size
-	private Map<Integer, Integer> population;
+	// Processes in the order in which they are stepped during
+	// the current cycle, reused from one cycle to the next
+	private Process[] stepping;
+	
+	// Processes of the current cycle grouped by genome and
+	// instruction pointer, and whether each has already been
+	// stepped with its group, or so reached the end of its lifetime
+	private CloneGroups clones;
+	private boolean[] lockstepped;
+	private boolean[] expired;
+	
+	// Statistics on unique Processes, identified by
+	// hashing the string derived by concatenating the
+	// ordered Process instructions together
+	private GenomeStatistics statistics;
 	
 	// Core in which to execute Processes
 	private Core core;
 	
+	// Processes ordered by address, so that the
+	// neighbours of a Process can be found
+	private ProcessIndex neighbourhood;
+	
 	// The digest algorithm to be used to hash lists of 
 	// instructions
 	private MessageDigest md;
@@ -92,21 +138,125 @@ public class CPU
 	// of methods
 	private Random random;
 	
+	// Optional Reaper which evicts the oldest Processes
+	// when the Core is under memory pressure
+	private Reaper reaper;
+	
+	// Optional Compactor which slides Processes together
+	// to gather free space into long runs
+	private Compactor compactor;
+	
+	// Optional profile counting the work done in each cycle
+	private ExecutionProfile profile;
+	
+	// Account of the infections of NOP sleds by parasites
+	private InfectionIndex infections;
+	
+	// Address of the infection made by each spawn request
+	// of the current cycle, reused from one cycle to the next
+	private int[] infected;
+	
+	// Batch in which births, deaths, mutations, NOP bombs
+	// and infections are recorded during each cycle
+	private EventBatch events;
+	
+	// Number of execution cycles completed
+	private long cycle;
+	
+	// Optional monitor through which metrics are published
+	// to the platform MBean server, and the name under which
+	// it is registered
+	private SimulationMonitor monitor;
+	private ObjectName monitorName;
+	
+	// Order in which Processes are stepped during each cycle
+	private int executionOrder;
+	
+	// Range within which children are spawned around their
+	// parents, or zero to spawn them anywhere in the Core
+	private int spawnRange;
+	
+	// Probability, expressed as a percentage, that two
+	// neighbouring Processes swap instructions in a cycle
+	private int swapProb;
+	
+	// Indicates whether Processes have been born since the
+	// execution list was last put into address order
+	private boolean unordered;
+	
+	/**
+	 * Initialises the system, innoculating the Core
+	 * with a predefined ancestor Process. Exact statistics
+	 * are kept on every genome.
+	 * 
+	 * @param listeners Listeners to be notified of the events
+	 * occurring during each execution cycle
+	 */
+	public CPU(final EventListener... listeners)
+	{
+		this(new ExactStatistics(), listeners);
+	}
+	
 	/**
 	 * Initialises the system, innoculating the Core
 	 * with a predefined ancestor Process.
+	 * 
+	 * @param statistics The statistics to be kept on genomes
+	 * @param listeners Listeners to be notified of the events
+	 * occurring during each execution cycle
 	 */
-	public CPU()
+	public CPU(final GenomeStatistics statistics, 
+			   final EventListener... listeners)
 	{
+		this(new Random(new Date().getTime()), statistics, listeners);
+	}
+	
+	/**
+	 * Initialises the system, innoculating the Core
+	 * with a predefined ancestor Process. Every random decision, 
+	 * including those of the Core, is drawn from the specified
+	 * generator, so a seeded generator makes the run reproducible.
+	 * 
+	 * @param random The generator from which decisions are drawn
+	 * @param statistics The statistics to be kept on genomes
+	 * @param listeners Listeners to be notified of the events
+	 * occurring during each execution cycle
+	 */
+	public CPU(final Random random, final GenomeStatistics statistics, 
+			   final EventListener... listeners)
+	{
+		this.random = random;
+		
+		// Only record events if someone is listening
+		if (listeners.length > 0)
+		{
+			events = new EventBatch(listeners);
+		}
+		else
+		{
+			events = EventBatch.DISABLED;
+		}
+		
+		cycle = 0;
+		
 		processes = new Vector<Process>();
+		stepping = new Process[0];
+		clones = new CloneGroups();
+		lockstepped = new boolean[0];
+		expired = new boolean[0];
+		
+		executionOrder = BIRTH_ORDER;
+		unordered = false;
 		
-		genomes = new HashMap<Integer, String[]>();
+		spawnRange = 0;
 		
-		population = new HashMap<Integer, Integer>();
+		swapProb = SWAP_PROB;
+		
+		this.statistics = statistics;
 		
 		try
 		{
-			core = new Core(CORE_SIZE, MUTATION_PROB);
+			core = new Core(CORE_SIZE, MUTATION_PROB, random);
 		}
 		catch (NumberFormatException e)
 		{
@@ -114,6 +264,13 @@ public class CPU
 			assert false;
 		}
 		
+		core.setEvents(events);
+		
+		neighbourhood = new ProcessIndex(CORE_SIZE);
+		
+		infections = new InfectionIndex(CORE_SIZE);
+		infected = new int[0];
+		
 		// Define the message digest algorithm to use
 		try 
 		{
@@ -133,24 +290,9 @@ public class CPU
 		try
 		{
 			// Get a random location in the Core
-			random = new Random(new Date().getTime());
 			int address = random.nextInt(CORE_SIZE);
 		
-			// Create a corresponding Process and add it to the list
-			// of current processes
-			Process process = new Process(address, ancestor.length);
-			processes.add(process);
-		
-			// Add the process at that location
-			core.addProcess(ancestor, address, process);
-			
-			// Register in the table of unique processes and process 
-			// lifetimes
-			int hashVal = hash(ancestor);
-						
-			genomes.put(hashVal, ancestor);
-			
-			population.put(hashVal,  1);
+			inoculate(ancestor, address);
 		}
 		catch (IndexOutOfBoundsException e)
 		{
@@ -163,54 +305,618 @@ public class CPU
 		
 	}
 	
+	/**
+	 * Innoculates the Core with a genome at the specified address,
+	 * creating a corresponding Process and registering its birth.
+	 * 
+	 * @param genome The ordered list of instructions of the genome
+	 * @param address The address at which to add the genome
+	 * 
+	 * @return The new Process
+	 * 
+	 * @throws IndexOutOfBoundsException Signals that an invalid core
+	 * address was specified
+	 */
+	private Process inoculate(final String[] genome, final int address)
+		throws IndexOutOfBoundsException
+	{
+		return (inoculate(genome, address, true));
+	}
+	
+	/**
+	 * Creates a Process for a genome at the specified address,
+	 * and registers its birth.
+	 * 
+	 * @param genome The ordered list of instructions of the genome
+	 * @param address The address of the genome
+	 * @param copy True to copy the genome into the Core, or false
+	 * if its instructions are already in place
+	 * 
+	 * @return The new Process
+	 * 
+	 * @throws IndexOutOfBoundsException Signals that an invalid core
+	 * address was specified
+	 */
+	private Process inoculate(final String[] genome, final int address,
+			                  final boolean copy)
+		throws IndexOutOfBoundsException
+	{
+		// Create a corresponding Process and add it to the list
+		// of current processes
+		Process process = new Process(address, genome.length);
+		processes.add(process);
+		neighbourhood.add(process);
+		unordered = true;
+		
+		if (reaper != null)
+		{
+			reaper.born(process);
+		}
+	
+		// Add the process at that location
+		if (copy)
+		{
+			core.addProcess(genome, address, process);
+		}
+		
+		// Register in the table of unique processes and process 
+		// lifetimes
+		GenomeView view = GenomeView.of(genome);
+		int hashVal = hash(view);
+		
+		process.setGenome(hashVal);
+		
+		if (profile != null)
+		{
+			profile.born(process, hashVal);
+		}
+		
+		events.record(EventBatch.BIRTH, address, 
+				      process.length(), address, hashVal);
+					
+		statistics.birth(hashVal, view);
+		
+		return (process);
+	}
+	
+	/**
+	 * Innoculates the Core with a genome arriving from elsewhere,
+	 * in the same way as the ancestor, at a random address. A few
+	 * addresses are tried, and the genome is only added if there
+	 * is enough empty space at one of them.
+	 * 
+	 * @param genome The ordered list of instructions of the genome
+	 * 
+	 * @return True if the genome was added, or false if
+	 * no room was found for it
+	 */
+	@Override
+	public boolean immigrate(final String[] genome)
+	{
+		if (genome.length == 0 || genome.length > CORE_SIZE)
+		{
+			return (false);
+		}
+		
+		for (int attempts=0; attempts<IMMIGRATION_ATTEMPTS; attempts++)
+		{
+			int address = random.nextInt(CORE_SIZE);
+			
+			if (core.occupied(address, genome.length) == 0)
+			{
+				inoculate(genome, address);
+				
+				return (true);
+			}
+		}
+		
+		return (false);
+	}
+	
+	/**
+	 * Innoculates the Core with a genome at the specified address,
+	 * in the same way as the ancestor, if the addresses it would
+	 * occupy are empty.
+	 * 
+	 * @param genome The ordered list of instructions of the genome
+	 * @param address The address at which to add the genome
+	 * 
+	 * @return True if the genome was added, or false if
+	 * there was no room for it at the address
+	 * 
+	 * @throws IndexOutOfBoundsException Signals that an invalid core
+	 * address was specified
+	 */
+	public boolean immigrate(final String[] genome, final int address)
+		throws IndexOutOfBoundsException
+	{
+		if (address < 0 || address >= CORE_SIZE)
+		{
+			throw new IndexOutOfBoundsException("Invalid core address " + address);
+		}
+		
+		if (genome.length == 0 || genome.length > CORE_SIZE ||
+			core.occupied(address, genome.length) != 0)
+		{
+			return (false);
+		}
+		
+		inoculate(genome, address);
+		
+		return (true);
+	}
+	
+	/**
+	 * Restores a Process saved from a CPU, such as by SeedLoader,
+	 * at its own address. Unlike immigrate, the genome may overlap
+	 * the instructions of Processes already restored, so long as
+	 * every address it would occupy is either empty or already holds
+	 * the same instruction, as when two saved Processes overlapped.
+	 * The genome is placed exactly, without mutation.
+	 * 
+	 * @param genome The ordered list of instructions of the genome
+	 * @param address The address at which to restore the genome
+	 * 
+	 * @return True if the genome was restored, or false if
+	 * other instructions lie in its way
+	 * 
+	 * @throws IndexOutOfBoundsException Signals that an invalid core
+	 * address was specified
+	 */
+	public boolean restore(final String[] genome, final int address)
+		throws IndexOutOfBoundsException
+	{
+		if (address < 0 || address >= CORE_SIZE)
+		{
+			throw new IndexOutOfBoundsException("Invalid core address " + address);
+		}
+		
+		if (genome.length == 0 || genome.length > CORE_SIZE)
+		{
+			return (false);
+		}
+		
+		for (int index=0; index<genome.length; index++)
+		{
+			String instruction = core.getInstruction((address + index) % CORE_SIZE);
+			
+			if (!instruction.equals(Core.EMPTY) && !instruction.equals(genome[index]))
+			{
+				return (false);
+			}
+		}
+		
+		for (int index=0; index<genome.length; index++)
+		{
+			int location = (address + index) % CORE_SIZE;
+			
+			if (core.getInstruction(location).equals(Core.EMPTY))
+			{
+				core.setInstruction(genome[index], location);
+			}
+		}
+		
+		inoculate(genome, address, false);
+		
+		return (true);
+	}
+	
+	/**
+	 * Finds the first run of empty Core addresses long enough to
+	 * hold a genome, searching forwards from the specified address
+	 * to the end of the Core.
+	 * 
+	 * @param start The address from which to search
+	 * @param length The number of empty addresses required
+	 * 
+	 * @return The first address of the run, or -1 if
+	 * there is none
+	 * 
+	 * @throws NumberFormatException Signals that a non-positive
+	 * length was specified
+	 */
+	public int findEmpty(final int start, final int length)
+		throws NumberFormatException
+	{
+		return (core.findEmpty(start, length));
+	}
+	
+	/**
+	 * Evicts every executing Process, leaving the Core empty, so
+	 * that it can be seeded with a population of its own in place
+	 * of the ancestor. The deaths are recorded as evictions.
+	 */
+	public void evictAll()
+	{
+		Map<Process, Integer> victims = 
+				new LinkedHashMap<Process, Integer>();
+		
+		for (Process process: processes)
+		{
+			victims.put(process, EventBatch.CAUSE_REAPED);
+		}
+		
+		killProcesses(victims);
+	}
+	
+	/**
+	 * Copies the genome of a randomly chosen executing Process.
+	 * 
+	 * @return The ordered list of instructions of the genome,
+	 * or null if there are no executing Processes
+	 */
+	public String[] sampleGenome()
+	{
+		if (processes.isEmpty())
+		{
+			return (null);
+		}
+		
+		Process process = processes.get(random.nextInt(processes.size()));
+		
+		return (core.getInstructions(process));
+	}
+	
+	/**
+	 * Installs a Reaper to evict the oldest Processes when the Core
+	 * is under memory pressure. Processes that are already executing
+	 * are handed to the Reaper in order of birth.
+	 * 
+	 * @param reaper The Reaper to be used, or null to disable eviction
+	 */
+	public void setReaper(final Reaper reaper)
+	{
+		this.reaper = reaper;
+		
+		if (reaper != null)
+		{
+			for (Process process: processes)
+			{
+				reaper.born(process);
+			}
+		}
+	}
+	
+	/**
+	 * Installs a Compactor to gather the free space in the Core into
+	 * long runs, a little at a time in each cycle, so that spawning
+	 * does not fail in a fragmented Core.
+	 * 
+	 * @param compactor The Compactor to be used, or null to
+	 * disable compaction
+	 */
+	public void setCompactor(final Compactor compactor)
+	{
+		this.compactor = compactor;
+	}
+	
+	/**
+	 * Installs an ExecutionProfile to count the work done by each
+	 * opcode and genome. Processes that are already executing are
+	 * profiled under the genomes they were born with.
+	 * 
+	 * @param profile The profile to be kept, or null
+	 * to disable profiling
+	 */
+	public void setProfile(final ExecutionProfile profile)
+	{
+		this.profile = profile;
+		
+		if (profile != null)
+		{
+			for (Process process: processes)
+			{
+				profile.born(process, process.genome());
+			}
+		}
+	}
+	
+	/**
+	 * @return The account of the infections of NOP sleds
+	 * by parasites
+	 */
+	public InfectionIndex infections()
+	{
+		return (infections);
+	}
+	
+	/**
+	 * @return The installed ExecutionProfile, or null
+	 * if profiling is disabled
+	 */
+	public ExecutionProfile profile()
+	{
+		return (profile);
+	}
+	
+	/**
+	 * Selects the order in which Processes are stepped during each
+	 * cycle. In birth order, consecutive steps land at unrelated
+	 * addresses, which becomes memory bound once the Core outgrows
+	 * the processor caches. In address order, the execution list is
+	 * sorted by Core address whenever new Processes have been born,
+	 * so that each cycle sweeps through the Core from start to end.
+	 * Since the list is already sorted apart from the newborn, each
+	 * sort costs little more than a single pass.
+	 * 
+	 * Returning to birth order leaves existing Processes in address
+	 * order, with later births appended after them.
+	 * 
+	 * @param executionOrder Either BIRTH_ORDER or ADDRESS_ORDER
+	 * 
+	 * @throws NumberFormatException Signals that an invalid
+	 * execution order was specified
+	 */
+	public void setExecutionOrder(final int executionOrder)
+		throws NumberFormatException
+	{
+		if (executionOrder != BIRTH_ORDER && executionOrder != ADDRESS_ORDER)
+		{
+			throw new NumberFormatException
+				("Invalid execution order specified");
+		}
+		
+		this.executionOrder = executionOrder;
+		unordered = true;
+	}
+	
+	/**
+	 * @return The order in which Processes are stepped during each cycle
+	 */
+	public int executionOrder()
+	{
+		return (executionOrder);
+	}
+	
+	/**
+	 * Confines spawning to the neighbourhood of the parent, so that
+	 * children are placed within the specified number of locations
+	 * before the start or after the end of their parents, rather than
+	 * anywhere in the Core. Placement then only touches nearby memory,
+	 * and populations become spatially structured.
+	 * 
+	 * @param spawnRange The range within which children are placed,
+	 * such as SPAWN_RANGE, or zero to place them anywhere in the Core
+	 * 
+	 * @throws NumberFormatException Signals that a negative
+	 * range was specified
+	 */
+	public void setSpawnRange(final int spawnRange)
+		throws NumberFormatException
+	{
+		if (spawnRange < 0)
+		{
+			throw new NumberFormatException("Invalid spawn range specified");
+		}
+		
+		this.spawnRange = spawnRange;
+	}
+	
+	/**
+	 * Sets the probability with which instructions mutate
+	 * when they are copied, in place of MUTATION_PROB.
+	 * 
+	 * @param mutationProb Probability, expressed as a percentage,
+	 * that an instruction will mutate during a copy
+	 * 
+	 * @throws NumberFormatException Signals that a non-percentage
+	 * mutation probability was specified
+	 */
+	public void setMutationProbability(final int mutationProb)
+		throws NumberFormatException
+	{
+		core.setMutationProbability(mutationProb);
+	}
+	
+	/**
+	 * Sets the probability with which two neighbouring Processes
+	 * swap the tails of their genomes during each cycle, in place
+	 * of SWAP_PROB.
+	 * 
+	 * @param swapProb Probability, expressed as a percentage,
+	 * that a swap takes place during a cycle
+	 * 
+	 * @throws NumberFormatException Signals that a non-percentage
+	 * swap probability was specified
+	 */
+	public void setSwapProbability(final int swapProb)
+		throws NumberFormatException
+	{
+		if (swapProb < 0 || swapProb > 100)
+		{
+			throw new NumberFormatException
+				("Invalid swap probability specified");
+		}
+		
+		this.swapProb = swapProb;
+	}
+	
+	/**
+	 * Registers a SimulationMXBean with the platform MBean server, 
+	 * through which the metrics of this CPU can be watched while 
+	 * it is running. Any MBean previously registered for this CPU
+	 * is unregistered first.
+	 * 
+	 * @param name The name under which to register the MBean,
+	 * distinguishing this CPU from others in the same JVM
+	 * 
+	 * @throws JMException Signals that the MBean could not
+	 * be registered
+	 */
+	public void registerMBean(final String name) throws JMException
+	{
+		unregisterMBean();
+		
+		SimulationMonitor monitor = new SimulationMonitor(core.size());
+		
+		ObjectName objectName = 
+				new ObjectName("procs:type=Simulation,name=" + 
+		                       ObjectName.quote(name));
+		
+		ManagementFactory.getPlatformMBeanServer()
+			.registerMBean(monitor, objectName);
+		
+		this.monitor = monitor;
+		monitorName = objectName;
+		
+		publish();
+	}
+	
+	/**
+	 * Unregisters the SimulationMXBean of this CPU from the
+	 * platform MBean server, if one is registered, so that
+	 * its name may be used again.
+	 * 
+	 * @throws JMException Signals that the MBean could not
+	 * be unregistered
+	 */
+	public void unregisterMBean() throws JMException
+	{
+		if (monitorName == null)
+		{
+			return;
+		}
+		
+		ObjectName objectName = monitorName;
+		
+		monitor = null;
+		monitorName = null;
+		
+		ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+	}
+	
+	/**
+	 * Publishes the current metrics to the monitor. The most 
+	 * populous genomes are only published periodically.
+	 */
+	private void publish()
+	{
+		monitor.update(cycle, processes.size(), 
+				       statistics.liveGenomes(), core.occupied());
+		
+		if (cycle % SimulationMonitor.PUBLISH_INTERVAL == 0)
+		{
+			monitor.updateTopGenomes
+				(statistics.topGenomes(SimulationMonitor.TOP_N));
+		}
+	}
+	
 	/**
 	 * Generates a hashcode for the specified list
 	 * of instructions.
 	 * 
-	 * @param instructions The list of instructions
+	 * @param instructions A view of the list of instructions
 	 * 
 	 * @return The hashcode derived from the digest 
 	 * of the instructions
 	 */
-	private int hash(final String[] instructions)
+	private int hash(final GenomeView instructions)
 	{	
 		byte[] digest = {};
 		
 		// Create a hash of this string array using the 
 		// specified algorithm
-		for (int index=0; index<instructions.length-1; index++)
+		for (int index=0; index<instructions.length()-1; index++)
 		{
-			md.update(instructions[index].getBytes());
+			md.update(instructions.get(index).getBytes());
 		}
 		
 		// Complete the digest with the final block
-		digest = md.digest(instructions[instructions.length-1].getBytes());
+		digest = md.digest(instructions.get(instructions.length()-1)
+				                       .getBytes());
 		
 		return (Arrays.hashCode(digest));
 	}
 	
 	/**
-	 * Kills the specified Process
+	 * Kills the specified Process. The caller is responsible
+	 * for removing the Process from the execution list.
 	 * 
 	 * @param proc The Process to be killed
+	 * @param cause The cause of death
 	 */
-	private void killProcess(final Process process)
+	private void killProcess(final Process process, final int cause)
 	{
-		// Decrease the population measure
-		String[] instructions = core.getInstructions(process);
-		int hashVal = hash(instructions);
+		// Decrease the population measure of the genome the
+		// Process was born with, which NOP bombs, infections
+		// and crossover may since have overwritten
+		int hashVal = process.genome();
 		
-		if (population.containsKey(hashVal))
+		events.record(EventBatch.DEATH, process.address(),
+				      process.length(), cause, hashVal);
+		
+		if (profile != null)
 		{
-			int popVal = population.get(hashVal);
-			population.put(hashVal, popVal - 1);
+			profile.died(process, cause);
 		}
 		
+		statistics.death(hashVal);
+		
 		// Remove its instructions from the Core
 		core.removeProcess(process);
 		
-		// Remove the Process from the execution list
-		processes.remove(process);	
+		neighbourhood.remove(process);
+		
+		infections.died(process);
+		
+		if (reaper != null)
+		{
+			reaper.died(process);
+		}
+	}
+	
+	/**
+	 * Kills each of the specified Processes, then removes them
+	 * from the execution list in a single pass.
+	 * 
+	 * @param deadProcesses The Processes to be killed, mapped
+	 * to their causes of death
+	 */
+	private void killProcesses(final Map<Process, Integer> deadProcesses)
+	{
+		if (deadProcesses.isEmpty())
+		{
+			return;
+		}
+		
+		for (Map.Entry<Process, Integer> entry: deadProcesses.entrySet())
+		{
+			killProcess(entry.getKey(), entry.getValue());
+		}
+		
+		processes.removeAll(deadProcesses.keySet());
+	}
+	
+	/**
+	 * Recombines two processes by single point crossover, swapping
+	 * the instructions of each from a random position onwards with
+	 * those at the same positions of the other. Both processes keep
+	 * their lengths, so only positions within the shorter of the
+	 * two are swapped.
+	 * 
+	 * @param first The first process
+	 * @param second The second process
+	 */
+	private void crossover(final Process first, final Process second)
+	{
+		int length = Math.min(first.length(), second.length());
+		
+		if (length == 0)
+		{
+			return;
+		}
+		
+		for (int index=random.nextInt(length); index<length; index++)
+		{
+			int location1 = (first.address() + index) % CORE_SIZE;
+			int location2 = (second.address() + index) % CORE_SIZE;
+			
+			String instruction1 = core.getInstruction(location1);
+			String instruction2 = core.getInstruction(location2);
+			
+			core.setInstruction(instruction2, location1);
+			core.setInstruction(instruction1, location2);
+		}
 	}
 	
 	/**
@@ -218,24 +924,61 @@ public class CPU
 	 * one to execute and instruction in turn. Kills any Process
 	 * which has reached the end of its lifetime.
 	 * 
-	 * With a random probability, will cause two nearby processes 
-	 * to possibly swap instructions once per execution cycle.
+	 * With a random probability, will cause a process to swap
+	 * instructions with one of its nearest neighbours once per
+	 * execution cycle.
 	 * 
 	 * @throws IndexOutOfBoundsException Signals that an invalid core
 	 * address was specified
 	 */
+	@Override
 	public void execute() throws IndexOutOfBoundsException
 	{
-		// List to keep a note of processes that 
-		// should be killed
-		List<Process> deadProcesses = new Vector<Process>();
+		events.begin();
+		
+		if (executionOrder == ADDRESS_ORDER && unordered)
+		{
+			processes.sort(BY_ADDRESS);
+			unordered = false;
+		}
+		
+		// Number of processes stepped this cycle
+		int stepped = processes.size();
+		
+		// Map to keep a note of processes that 
+		// should be killed, and why. A map ensures that a process
+		// is only killed once, even if it dies for more than
+		// one reason in the same cycle
+		Map<Process, Integer> deadProcesses = 
+				new LinkedHashMap<Process, Integer>();
 		
 		// List to keep a note of new processes that
 		// need to be added
 		List<Process> newProcesses = new Vector<Process>();
 		
-		for (Process process: processes)
+		// No Process is born or dies until every Process has been
+		// stepped, so step them from an array rather than through
+		// the synchronised iterator of the list
+		stepping = processes.toArray(stepping);
+		
+		lockstep(stepped);
+		
+		for (int index=0; index<stepped; index++)
 		{
+			Process process = stepping[index];
+			
+			// Processes stepped with their clones only need
+			// their deaths noted, in round robin order
+			if (lockstepped[index])
+			{
+				if (expired[index])
+				{
+					deadProcesses.put(process, EventBatch.CAUSE_LIFETIME);
+				}
+				
+				continue;
+			}
+			
 			// Get core address of current instruction,
 			// derived from relative value of instruction
 			// pointer and known start address of Process
@@ -243,23 +986,29 @@ public class CPU
 			
 			String instruction = core.getInstruction(currentAddr);
 				
+			// Opcode of the instruction, for the profile
+			int opcode;
+			
 			switch(instruction)
 			{
 				case Core.EMPTY:
 					// Kill the process, rogue
 					// instruction pointer
-					deadProcesses.add(process);
+					deadProcesses.put(process, EventBatch.CAUSE_EMPTY);
+					opcode = ExecutionProfile.EMPTY;
 						
 					break;
 						
 				case Instructions.NOP:
 					// Do nothing
+					opcode = ExecutionProfile.NOP;
 						
 					break;
 					
 				case Instructions.JMP:
 					// Modify the instruction pointer
 					Instructions.movePtr(process, instruction);
+					opcode = ExecutionProfile.JMP;
 						
 					break;
 						
@@ -267,6 +1016,7 @@ public class CPU
 					// Spawn a copy of this process in
 					// a random location in the core
 					newProcesses.add(process);
+					opcode = ExecutionProfile.SPW;
 						
 					break;
 						
@@ -274,14 +1024,27 @@ public class CPU
 					// Copy a NOP to a random location
 					// in the core that is not empty and
 					// not occupied by this process
-					Instructions.copyNOP(core, process, RANGE);
+					boolean landed = 
+						Instructions.copyNOP(core, process, RANGE, random);
+					opcode = ExecutionProfile.CPN;
+					
+					if (profile != null)
+					{
+						profile.bombed(process, landed);
+					}
 						
 					break;
 						
 				default:
 					// Something is screwy here,
 					// kill the process
-					deadProcesses.add(process);
+					deadProcesses.put(process, EventBatch.CAUSE_INVALID);
+					opcode = ExecutionProfile.INVALID;
+			}
+			
+			if (profile != null)
+			{
+				profile.executed(process, opcode);
 			}
 			
 			// Increment the instruction pointer
@@ -293,106 +1056,281 @@ public class CPU
 			// Check if the lifetime has been exceeded
 			if (process.numExecutions() > CPU.LIFETIME)
 			{
-				// Kill the process
-				deadProcesses.add(process);
+				// Kill the process, unless it has 
+				// already died of something else
+				if (!deadProcesses.containsKey(process))
+				{
+					deadProcesses.put(process, EventBatch.CAUSE_LIFETIME);
+				}
 			}
 		}
 	
 		// Dispose of processes to be killed
-		for (Process process: deadProcesses)
+		killProcesses(deadProcesses);
+
+		// Add newly created processes, resolving
+		// all of the spawns in this cycle together
+		if (infected.length < newProcesses.size())
 		{
-			killProcess(process);
+			infected = new int[newProcesses.size() * 2];
 		}
-
-		// Add newly created processes
-		for (Process process: newProcesses)
+		
+		int[] addresses = 
+				Instructions.spawnProcesses(core, newProcesses, 
+						                    random, spawnRange, infected);
+		
+		for (int request=0; request<addresses.length; request++)
 		{
-			int address = Instructions.spawnProcess(core, process);
+			Process process = newProcesses.get(request);
+			int address = addresses[request];
+			
+			if (reaper != null)
+			{
+				reaper.spawned(address != -1);
+			}
+			
+			if (profile != null)
+			{
+				profile.spawned(process, address != -1);
+			}
 			
 			if (address != -1)
 			{
 				// Add to the process list
 				Process newProcess = new Process(address, process.length());
 				processes.add(newProcess);
-			
-				// Update the unique genomes repository
-				String[] instructions = core.getInstructions(newProcess);
-				int hashVal = hash(instructions);
-				genomes.put(hashVal, instructions);
+				neighbourhood.add(newProcess);
+				unordered = true;
 				
-				// Update the population repository
-				if (!population.containsKey(hashVal))
+				if (reaper != null)
 				{
-					population.put(hashVal, 1);
+					reaper.born(newProcess);
 				}
-				else
+				
+				// Update the unique genomes and population
+				// repositories
+				GenomeView genome = core.view(newProcess);
+				int hashVal = hash(genome);
+				
+				newProcess.setGenome(hashVal);
+				
+				if (profile != null)
 				{
-					int popVal = population.get(hashVal);
-					population.put(hashVal, popVal + 1);
+					profile.born(newProcess, hashVal);
 				}
+				
+				events.record(EventBatch.BIRTH, address,
+						      newProcess.length(), process.address(),
+						      hashVal);
+				
+				statistics.birth(hashVal, genome);
+			}
+			else if (infected[request] != -1)
+			{
+				// The copy was made into the NOP sled
+				// of a host, if any still owns it
+				infections.infected(process, 
+						            neighbourhood.owner(infected[request]),
+						            infected[request], process.length(),
+						            cycle);
 			}
 		}
 		
-		// Swap instructions between nearby processes, with
-		// a given probability		
-		int swapProb = random.nextInt(100);
-		if (swapProb < SWAP_PROB)
+		// Evict the oldest processes if the core is
+		// under memory pressure
+		if (reaper != null)
 		{
-			// Swap instructions, if possible, between
-			// two processes that are less than 100
-			// locations apart
-			int range = random.nextInt(100);
-			int location1 = random.nextInt(CORE_SIZE);
-			int location2 = (location1 + range) % CORE_SIZE;
-			
-			// If neither location is empty, swap
-			String instruction1 = core.getInstruction(location1);
-			String instruction2 = core.getInstruction(location2);
+			Map<Process, Integer> victims = 
+					new LinkedHashMap<Process, Integer>();
 			
-			if (!instruction1.equals(Core.EMPTY) &&
-				!instruction2.equals(Core.EMPTY))
+			for (Process victim: reaper.victims(core))
 			{
-				core.setInstruction(instruction2, location1);
-				core.setInstruction(instruction1, location2);
+				victims.put(victim, EventBatch.CAUSE_REAPED);
 			}
 			
+			killProcesses(victims);
+		}
+		
+		// Swap instructions between neighbouring processes,
+		// with a given probability		
+		if (random.nextInt(100) < swapProb && !processes.isEmpty())
+		{
+			Process process = processes.get(random.nextInt(processes.size()));
+			
+			List<Process> neighbours = 
+					neighbourhood.nearest(process, SWAP_NEIGHBOURS);
+			
+			if (!neighbours.isEmpty())
+			{
+				crossover(process, 
+						  neighbours.get(random.nextInt(neighbours.size())));
+			}
+		}
+		
+		// Slide processes together to close gaps,
+		// which changes their addresses
+		if (compactor != null && compactor.compact(core, neighbourhood) > 0)
+		{
+			unordered = true;
+		}
+		
+		cycle++;
+		
+		// Hand this cycle's events to any listeners
+		statistics.endCycle(cycle);
+		
+		if (profile != null)
+		{
+			profile.endCycle(cycle);
+		}
+		
+		events.flush(cycle, stepped, statistics.genomeCount());
+		
+		if (monitor != null)
+		{
+			publish();
 		}
 	}
 	
 	/**
-	 * Pretty prints the list of unique genomes present in the core.
+	 * Steps together the clones about to execute a NOP, before the
+	 * rest of the Processes are stepped in round robin order. Clones
+	 * are grouped by the genome they were born with and the position
+	 * of their instruction pointer, and the instruction of the first
+	 * member of each group is decoded once for the whole group.
+	 * 
+	 * A NOP has no effect beyond the Process executing it, and nothing
+	 * stepped during a cycle can replace a NOP, since NOP bombs only
+	 * write NOPs, so stepping these Processes ahead of their turns
+	 * leaves the cycle unchanged. Every other instruction has effects
+	 * on the Core, the generator or the error stream, and is executed
+	 * at its turn. Bombs, infections and crossover rewrite genomes in
+	 * place, so each member of a group is still checked to hold the
+	 * very same NOP instance as its leader before it is stepped.
+	 * 
+	 * @param stepped The number of Processes to be stepped
 	 */
-	public void prettyPrintGenomes()
+	private void lockstep(final int stepped)
 	{
-		Set<Map.Entry<Integer, String[]>> entrySet = genomes.entrySet();
-		Iterator<Map.Entry<Integer, String[]>> iter = entrySet.iterator();
+		if (lockstepped.length < stepped)
+		{
+			lockstepped = new boolean[stepping.length];
+			expired = new boolean[stepping.length];
+		}
+		
+		Arrays.fill(lockstepped, 0, stepped, false);
+		Arrays.fill(expired, 0, stepped, false);
 		
-		while (iter.hasNext())
+		clones.group(stepping, stepped);
+		
+		for (int group=0; group<clones.groups(); group++)
 		{
-			Map.Entry<Integer, String[]> entry = iter.next();
+			int first = clones.first(group);
+			Process leader = stepping[first];
+			
+			if (core.getInstruction((leader.address() + leader.ptr()) % CORE_SIZE)
+				!= Instructions.NOP)
+			{
+				continue;
+			}
 			
-			System.out.print(entry.getKey());
-			System.out.print(": ");
-			System.out.println(Arrays.deepToString(entry.getValue()));
+			for (int index=first; index!=-1; index=clones.next(index))
+			{
+				Process process = stepping[index];
+				
+				if (core.getInstruction((process.address() + process.ptr()) % CORE_SIZE)
+					!= Instructions.NOP)
+				{
+					continue;
+				}
+				
+				if (profile != null)
+				{
+					profile.executed(process, ExecutionProfile.NOP);
+				}
+				
+				process.incrementPtr();
+				process.incrementNumExecutions();
+				
+				lockstepped[index] = true;
+				expired[index] = process.numExecutions() > CPU.LIFETIME;
+			}
 		}
 	}
 	
+	/**
+	 * @return The number of execution cycles completed
+	 */
+	@Override
+	public long cycle()
+	{
+		return (cycle);
+	}
+	
+	/**
+	 * @return The number of executing Processes
+	 */
+	@Override
+	public int processCount()
+	{
+		return (processes.size());
+	}
+	
+	/**
+	 * @param index The position of the Process in the order in
+	 * which Processes are executed
+	 * 
+	 * @return The executing Process
+	 */
+	@Override
+	public Process process(final int index)
+	{
+		return (processes.get(index));
+	}
+	
+	/**
+	 * @param address The address in the Core
+	 * 
+	 * @return The instruction at the address
+	 */
+	@Override
+	public String getInstruction(final int address)
+	{
+		return (core.getInstruction(address));
+	}
+	
+	/**
+	 * @return The number of addresses in the Core
+	 */
+	@Override
+	public int size()
+	{
+		return (core.size());
+	}
+	
+	/**
+	 * @return A checksum of the contents of the Core
+	 */
+	@Override
+	public long checksum()
+	{
+		return (core.checksum());
+	}
+	
+	/**
+	 * Pretty prints the list of unique genomes present in the core.
+	 */
+	public void prettyPrintGenomes()
+	{
+		statistics.prettyPrintGenomes();
+	}
+	
 	/**
 	 * Pretty prints the populations of different process types.
 	 */
 	public void prettyPrintPopulation()
 	{
-		Set<Map.Entry<Integer, Integer>> entrySet = population.entrySet();
-		Iterator<Map.Entry<Integer, Integer>> iter = entrySet.iterator();
-		
-		while (iter.hasNext())
-		{
-			Map.Entry<Integer, Integer> entry = iter.next();
-			
-			System.out.print(entry.getKey());
-			System.out.print(": ");
-			System.out.println(entry.getValue());
-		}
+		statistics.prettyPrintPopulation();
 	}
 	
 	/**
@@ -406,18 +1344,7 @@ public class CPU
 		System.out.println("Number of processes: " + processes.size());
 		System.out.println();
 
-		Set<Map.Entry<Integer, String[]>> entrySet = genomes.entrySet();
-		Iterator<Map.Entry<Integer, String[]>> iter = entrySet.iterator();
-		
-		while (iter.hasNext())
-		{
-			Map.Entry<Integer, String[]> entry = iter.next();
-			
-			System.out.print(entry.getKey());
-			System.out.print(": ");
-			System.out.print(population.get(entry.getKey()) + ", ");
-			System.out.println(Arrays.deepToString(entry.getValue()));
-		}
+		statistics.prettyPrintMetrics();
 				
 		//System.out.println("Genomes:");
 		//prettyPrintGenomes();
@@ -0,0 +1,71 @@
+package procs;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class CPUTest 
+{
+	private final int LENGTH = 6;
+	
+	@Test
+	public final void testCrossover() 
+	{
+		for (long seed=1; seed<=5; seed++)
+		{
+			CPU cpu = new CPU(new Random(seed), new ExactStatistics());
+			cpu.evictAll();
+			cpu.setMutationProbability(0);
+			cpu.setSwapProbability(100);
+			
+			// Neighbours which neither spawn nor change
+			// each other's instructions by executing
+			String[] nops = new String[LENGTH];
+			String[] bombs = new String[LENGTH];
+			Arrays.fill(nops, Instructions.NOP);
+			Arrays.fill(bombs, Instructions.CPN);
+			
+			assertTrue("Genome not placed", cpu.immigrate(nops, 1000));
+			assertTrue("Genome not placed", cpu.immigrate(bombs, 1010));
+			
+			cpu.execute();
+			
+			// The genomes have exchanged their tails
+			// from some point onwards
+			int point = 0;
+			
+			while (cpu.getInstruction(1000 + point) == Instructions.NOP)
+			{
+				point++;
+			}
+			
+			assertTrue("No instructions swapped", point < LENGTH);
+			
+			for (int index=0; index<LENGTH; index++)
+			{
+				assertEquals("Incorrect head or tail", 
+						     index < point ? Instructions.NOP : Instructions.CPN,
+						     cpu.getInstruction(1000 + index));
+				assertEquals("Incorrect head or tail", 
+						     index < point ? Instructions.CPN : Instructions.NOP,
+						     cpu.getInstruction(1010 + index));
+			}
+		}
+	}
+	
+	@Test
+	public final void testSwapProbability() 
+	{
+		try
+		{
+			new CPU().setSwapProbability(101);
+			fail("Expected NumberFormatException");
+		}
+		catch (NumberFormatException e)
+		{
+		}
+	}
+}
@@ -0,0 +1,207 @@
+package procs;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps count of the population of each unique genome in the
+ * Core. Genomes are identified by their hash values.
+ *
+ * As well as the population of each genome, the Census keeps
+ * the genomes grouped by population size, so that the number of
+ * genomes with a living population, the size of the largest
+ * population and the most populous genomes can all be found
+ * without examining every genome. Each birth or death moves a
+ * single genome from one group to the next, in constant time.
+ *
+ * @author richpl
+ */
+public class Census
+{
+	// Population of each genome, keyed by genome hash
+	private Map<Integer, Integer> counts;
+	
+	// Genomes with a living population, grouped by population size
+	private Map<Integer, Set<Integer>> groups;
+	
+	// Number of genomes with a living population
+	private int liveGenomes;
+	
+	// Size of the largest population
+	private int maxPopulation;
+	
+	/**
+	 * Constructs an empty Census.
+	 */
+	public Census()
+	{
+		counts = new HashMap<Integer, Integer>();
+		groups = new HashMap<Integer, Set<Integer>>();
+		
+		liveGenomes = 0;
+		maxPopulation = 0;
+	}
+	
+	/**
+	 * Records the birth of a Process with the specified genome.
+	 *
+	 * @param hashVal The hash value of the genome
+	 */
+	public void increment(final int hashVal)
+	{
+		Integer popVal = counts.get(hashVal);
+		
+		if (popVal == null)
+		{
+			popVal = 0;
+		}
+		
+		move(hashVal, popVal, popVal + 1);
+	}
+	
+	/**
+	 * Records the death of a Process with the specified genome.
+	 * Deaths of genomes which have never been counted are ignored.
+	 *
+	 * @param hashVal The hash value of the genome
+	 */
+	public void decrement(final int hashVal)
+	{
+		Integer popVal = counts.get(hashVal);
+		
+		if (popVal != null)
+		{
+			move(hashVal, popVal, popVal - 1);
+		}
+	}
+	
+	/**
+	 * Moves a genome from one population size to another.
+	 *
+	 * @param hashVal The hash value of the genome
+	 * @param from The current population of the genome
+	 * @param to The new population of the genome
+	 */
+	private void move(final int hashVal, final int from, final int to)
+	{
+		counts.put(hashVal, to);
+		
+		if (from > 0)
+		{
+			Set<Integer> group = groups.get(from);
+			group.remove(hashVal);
+			
+			if (group.isEmpty())
+			{
+				groups.remove(from);
+			}
+		}
+		
+		if (to > 0)
+		{
+			Set<Integer> group = groups.get(to);
+			
+			if (group == null)
+			{
+				group = new LinkedHashSet<Integer>();
+				groups.put(to, group);
+			}
+			
+			group.add(hashVal);
+		}
+		
+		// Keep track of the number of living genomes
+		if (from <= 0 && to > 0)
+		{
+			liveGenomes++;
+		}
+		else if (from > 0 && to <= 0)
+		{
+			liveGenomes--;
+		}
+		
+		// Populations only change by one at a time, so
+		// the largest population can only rise to the new
+		// value or fall to the one below it
+		if (to > maxPopulation)
+		{
+			maxPopulation = to;
+		}
+		else if (from == maxPopulation && !groups.containsKey(from))
+		{
+			maxPopulation = Math.max(to, 0);
+		}
+	}
+	
+	/**
+	 * Returns the population of the specified genome.
+	 *
+	 * @param hashVal The hash value of the genome
+	 *
+	 * @return The population, or null if the genome
+	 * has never been counted
+	 */
+	public Integer population(final int hashVal)
+	{
+		return (counts.get(hashVal));
+	}
+	
+	/**
+	 * @return The number of genomes with a living population
+	 */
+	public int liveGenomes()
+	{
+		return (liveGenomes);
+	}
+	
+	/**
+	 * @return The size of the largest population
+	 */
+	public int maxPopulation()
+	{
+		return (maxPopulation);
+	}
+	
+	/**
+	 * Returns the most populous genomes, largest population first.
+	 *
+	 * @param number The maximum number of genomes to return
+	 *
+	 * @return The hash values of the most populous genomes
+	 */
+	public int[] top(final int number)
+	{
+		int[] top = new int[Math.min(number, liveGenomes)];
+		int found = 0;
+		
+		for (int popVal=maxPopulation; popVal>0 && found<top.length; popVal--)
+		{
+			Set<Integer> group = groups.get(popVal);
+			
+			if (group != null)
+			{
+				Iterator<Integer> iter = group.iterator();
+				
+				while (iter.hasNext() && found<top.length)
+				{
+					top[found] = iter.next();
+					found++;
+				}
+			}
+		}
+		
+		return (top);
+	}
+	
+	/**
+	 * @return The population of each genome that has been
+	 * counted, keyed by genome hash
+	 */
+	public Set<Map.Entry<Integer, Integer>> entrySet()
+	{
+		return (counts.entrySet());
+	}
+}
@@ -0,0 +1,79 @@
+package procs;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class CensusTest 
+{
+	private Census census;
+	
+	@Before
+	public void setUp() throws Exception 
+	{
+		census = new Census();
+		
+		// Genome 1 has three members, genome 2 
+		// has two and genome 3 has one
+		for (int hashVal=1; hashVal<=3; hashVal++)
+		{
+			for (int index=hashVal; index<=3; index++)
+			{
+				census.increment(hashVal);
+			}
+		}
+	}
+
+	@Test
+	public final void testPopulation() 
+	{
+		assertEquals("Incorrect population", 3, 
+				     (int) census.population(1));
+		assertNull("Uncounted genome has population", 
+				   census.population(4));
+	}
+	
+	@Test
+	public final void testLiveGenomes() 
+	{
+		assertEquals("Incorrect live genome count", 3, census.liveGenomes());
+		
+		census.decrement(3);
+		
+		assertEquals("Extinct genome counted", 2, census.liveGenomes());
+		
+		// Deaths of uncounted genomes are ignored
+		census.decrement(4);
+		
+		assertEquals("Uncounted genome changed count", 
+				     2, census.liveGenomes());
+	}
+	
+	@Test
+	public final void testMaxPopulation() 
+	{
+		assertEquals("Incorrect maximum", 3, census.maxPopulation());
+		
+		census.decrement(1);
+		
+		assertEquals("Maximum not reduced", 2, census.maxPopulation());
+		
+		census.increment(2);
+		
+		assertEquals("Maximum not increased", 3, census.maxPopulation());
+	}
+	
+	@Test
+	public final void testTop() 
+	{
+		int[] top = census.top(2);
+		
+		assertEquals("Incorrect number of genomes", 2, top.length);
+		assertEquals("Incorrect most populous genome", 1, top[0]);
+		assertEquals("Incorrect second genome", 2, top[1]);
+		
+		// Cannot return more genomes than are alive
+		assertEquals("Too many genomes", 3, census.top(10).length);
+	}
+}
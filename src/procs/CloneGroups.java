@@ -0,0 +1,139 @@
+package procs;
+
+import java.util.Arrays;
+
+/**
+ * Groups the Processes stepped during a cycle by the genome they
+ * were born with and the position of their instruction pointer, so
+ * that clones in the same phase can be stepped together. Groups are
+ * found through an open addressing table keyed on the pair, and held
+ * as linked lists of positions in the array of Processes, all in
+ * primitive arrays reused from one cycle to the next.
+ *
+ * @author richpl
+ */
+class CloneGroups
+{
+	// Key of the group in each slot of the table
+	private long[] keys;
+	
+	// Group in each slot of the table, or -1 if the slot is empty
+	private int[] slots;
+	
+	// First and last member of each group, in order of appearance
+	private int[] firsts;
+	private int[] lasts;
+	
+	// Next member of the group of each Process, or -1
+	private int[] next;
+	
+	// Number of groups
+	private int count;
+	
+	/**
+	 * Constructs an empty set of groups.
+	 */
+	CloneGroups()
+	{
+		keys = new long[16];
+		slots = new int[16];
+		
+		firsts = new int[8];
+		lasts = new int[8];
+		next = new int[8];
+		
+		count = 0;
+	}
+	
+	/**
+	 * Groups Processes by genome and instruction pointer,
+	 * replacing any previous groups.
+	 *
+	 * @param processes The Processes to be grouped
+	 * @param size The number of Processes in the array
+	 */
+	void group(final Process[] processes, final int size)
+	{
+		// Keep the table no more than half full
+		if (slots.length < size * 2)
+		{
+			int capacity = Integer.highestOneBit(Math.max(size * 2, 1)) * 2;
+			
+			keys = new long[capacity];
+			slots = new int[capacity];
+		}
+		
+		if (next.length < size)
+		{
+			firsts = new int[size];
+			lasts = new int[size];
+			next = new int[size];
+		}
+		
+		Arrays.fill(slots, -1);
+		count = 0;
+		
+		int mask = slots.length - 1;
+		
+		for (int index=0; index<size; index++)
+		{
+			Process process = processes[index];
+			
+			long key = ((long) process.genome() << 32) | process.ptr();
+			int slot = (int) HyperLogLog.mix(key) & mask;
+			
+			while (slots[slot] != -1 && keys[slot] != key)
+			{
+				slot = (slot + 1) & mask;
+			}
+			
+			next[index] = -1;
+			
+			if (slots[slot] == -1)
+			{
+				keys[slot] = key;
+				slots[slot] = count;
+				
+				firsts[count] = index;
+				lasts[count] = index;
+				count++;
+			}
+			else
+			{
+				int group = slots[slot];
+				
+				next[lasts[group]] = index;
+				lasts[group] = index;
+			}
+		}
+	}
+	
+	/**
+	 * @return The number of groups
+	 */
+	int groups()
+	{
+		return (count);
+	}
+	
+	/**
+	 * @param group A group
+	 *
+	 * @return The position of its first member
+	 */
+	int first(final int group)
+	{
+		return (firsts[group]);
+	}
+	
+	/**
+	 * @param index The position of a member of a group
+	 *
+	 * @return The position of the next member of the
+	 * group, or -1 if there is none
+	 */
+	int next(final int index)
+	{
+		return (next[index]);
+	}
+}
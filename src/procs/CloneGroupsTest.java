@@ -0,0 +1,103 @@
+package procs;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class CloneGroupsTest 
+{
+	@Test
+	public final void testGroup() 
+	{
+		// Genomes and instruction pointers of each Process
+		int[][] phases = {{7, 0}, {7, 1}, {8, 0}, {7, 0}, {-1, 1}, {7, 1}, {7, 0}};
+		
+		Process[] processes = new Process[phases.length + 1];
+		
+		for (int index=0; index<phases.length; index++)
+		{
+			Process process = new Process(index * 10, 5);
+			process.setGenome(phases[index][0]);
+			
+			for (int step=0; step<phases[index][1]; step++)
+			{
+				process.incrementPtr();
+			}
+			
+			processes[index] = process;
+		}
+		
+		CloneGroups clones = new CloneGroups();
+		clones.group(processes, phases.length);
+		
+		assertEquals("Incorrect number of groups", 4, clones.groups());
+		
+		// Groups in order of first appearance,
+		// and their members in order
+		assertEquals("Incorrect members", "[0, 3, 6]", members(clones, 0));
+		assertEquals("Incorrect members", "[1, 5]", members(clones, 1));
+		assertEquals("Incorrect members", "[2]", members(clones, 2));
+		assertEquals("Incorrect members", "[4]", members(clones, 3));
+		
+		// Regrouping replaces the previous groups
+		clones.group(processes, 2);
+		
+		assertEquals("Incorrect number of groups", 2, clones.groups());
+		assertEquals("Incorrect members", "[0]", members(clones, 0));
+	}
+	
+	@Test
+	public final void testLockstep() 
+	{
+		// Clones stepping NOPs together, and another Process
+		// whose second instruction is invalid
+		CPU cpu = new CPU();
+		cpu.evictAll();
+		cpu.setMutationProbability(0);
+		cpu.setSwapProbability(0);
+		
+		String[] genome = {Instructions.NOP, Instructions.NOP, 
+			               Instructions.NOP, Instructions.NOP};
+		
+		for (int address=0; address<100; address+=10)
+		{
+			assertTrue("Not restored", cpu.restore(genome, address));
+		}
+		
+		assertTrue("Not restored", cpu.restore
+			(new String[] {Instructions.NOP, "XYZ"}, 200));
+		
+		cpu.execute();
+		
+		for (int index=0; index<cpu.processCount(); index++)
+		{
+			assertEquals("Incorrect pointer", 1, cpu.process(index).ptr());
+		}
+		
+		// The invalid instruction is still executed at its turn
+		cpu.execute();
+		
+		assertEquals("Incorrect population", 10, cpu.processCount());
+	}
+	
+	/**
+	 * @param clones The groups
+	 * @param group A group
+	 * 
+	 * @return The positions of the members of the group
+	 */
+	private String members(final CloneGroups clones, final int group)
+	{
+		List<Integer> members = new ArrayList<Integer>();
+		
+		for (int index=clones.first(group); index!=-1; index=clones.next(index))
+		{
+			members.add(index);
+		}
+		
+		return (members.toString());
+	}
+}
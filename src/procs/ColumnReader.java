@@ -0,0 +1,246 @@
+package procs;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads back a column file written by a ColumnWriter, 
+ * one chunk at a time.
+ * 
+ * @author richpl
+ */
+public class ColumnReader implements Closeable
+{
+	// File from which the chunks are read
+	private FileChannel channel;
+	
+	// Values of the current chunk
+	private long[] values;
+	private int size;
+	private int position;
+	
+	// Buffers for the compressed and encoded chunk
+	private byte[] compressed;
+	private byte[] encoded;
+	
+	// Decompressor, reused for every chunk
+	private Inflater inflater;
+	
+	/**
+	 * Opens a column file for reading.
+	 * 
+	 * @param file The column file
+	 * 
+	 * @throws IOException Signals that the file could not be opened
+	 */
+	public ColumnReader(final File file) throws IOException
+	{
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		
+		values = new long[0];
+		size = 0;
+		position = 0;
+		
+		compressed = new byte[0];
+		encoded = new byte[0];
+		
+		inflater = new Inflater();
+	}
+	
+	/**
+	 * Indicates whether there are more values in the column.
+	 * 
+	 * @return True if there is another value to be read
+	 * 
+	 * @throws IOException Signals that the column could not be read
+	 */
+	public boolean hasNext() throws IOException
+	{
+		while (position == size)
+		{
+			if (!readChunk())
+			{
+				return (false);
+			}
+		}
+		
+		return (true);
+	}
+	
+	/**
+	 * Returns the next value in the column.
+	 * 
+	 * @return The value
+	 * 
+	 * @throws IOException Signals that the column could not be read
+	 * @throws NoSuchElementException Signals that there are no more
+	 * values in the column
+	 */
+	public long next() throws IOException, NoSuchElementException
+	{
+		if (!hasNext())
+		{
+			throw new NoSuchElementException("End of column reached");
+		}
+		
+		return (values[position++]);
+	}
+	
+	/**
+	 * Reads every remaining value in the column.
+	 * 
+	 * @return The values
+	 * 
+	 * @throws IOException Signals that the column could not be read
+	 */
+	public long[] readAll() throws IOException
+	{
+		long[] all = new long[0];
+		int length = 0;
+		
+		while (hasNext())
+		{
+			int count = size - position;
+			
+			all = Arrays.copyOf(all, length + count);
+			System.arraycopy(values, position, all, length, count);
+			
+			length += count;
+			position = size;
+		}
+		
+		return (all);
+	}
+	
+	/**
+	 * Reads the next chunk of the column.
+	 * 
+	 * @return False if the end of the column was reached
+	 * 
+	 * @throws IOException Signals that the chunk could not be read
+	 */
+	private boolean readChunk() throws IOException
+	{
+		ByteBuffer header = ByteBuffer.allocate(12);
+		
+		if (!readFully(header))
+		{
+			return (false);
+		}
+		
+		header.flip();
+		
+		int count = header.getInt();
+		int length = header.getInt();
+		int compressedLength = header.getInt();
+		
+		if (compressed.length < compressedLength)
+		{
+			compressed = new byte[compressedLength];
+		}
+		
+		if (!readFully(ByteBuffer.wrap(compressed, 0, compressedLength)))
+		{
+			throw new IOException("Truncated column chunk");
+		}
+		
+		if (encoded.length < length)
+		{
+			encoded = new byte[length];
+		}
+		
+		inflater.reset();
+		inflater.setInput(compressed, 0, compressedLength);
+		
+		try
+		{
+			if (inflater.inflate(encoded, 0, length) != length)
+			{
+				throw new IOException("Corrupt column chunk");
+			}
+		}
+		catch (DataFormatException e)
+		{
+			throw new IOException("Corrupt column chunk", e);
+		}
+		
+		if (values.length < count)
+		{
+			values = new long[count];
+		}
+		
+		// Decode the zig-zag variable length differences
+		int offset = 0;
+		long previous = 0;
+		
+		for (int index=0; index<count; index++)
+		{
+			long zigzag = 0;
+			int shift = 0;
+			byte next;
+			
+			do
+			{
+				next = encoded[offset++];
+				zigzag |= (long) (next & 0x7F) << shift;
+				shift += 7;
+			}
+			while ((next & 0x80) != 0);
+			
+			previous += (zigzag >>> 1) ^ -(zigzag & 1);
+			values[index] = previous;
+		}
+		
+		size = count;
+		position = 0;
+		
+		return (true);
+	}
+	
+	/**
+	 * Fills a buffer from the column file.
+	 * 
+	 * @param buffer The buffer to be filled
+	 * 
+	 * @return False if the end of the file was reached 
+	 * before anything was read
+	 * 
+	 * @throws IOException Signals that the file ended part way
+	 * through the buffer, or could not be read
+	 */
+	private boolean readFully(final ByteBuffer buffer) throws IOException
+	{
+		int start = buffer.position();
+		
+		while (buffer.hasRemaining())
+		{
+			if (channel.read(buffer) == -1)
+			{
+				if (buffer.position() == start)
+				{
+					return (false);
+				}
+				
+				throw new IOException("Truncated column file");
+			}
+		}
+		
+		return (true);
+	}
+	
+	@Override
+	public void close() throws IOException 
+	{
+		inflater.end();
+		
+		channel.close();
+	}
+}
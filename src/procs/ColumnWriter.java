@@ -0,0 +1,170 @@
+package procs;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a column of long values to a binary column file. Values 
+ * are buffered in a primitive array and written in chunks. Each 
+ * chunk is delta encoded, so that slowly changing values such as 
+ * cycle numbers take a single byte, then compressed.
+ * 
+ * Each chunk is written as a header of three ints (the number of 
+ * values, the encoded length and the compressed length) followed 
+ * by the compressed bytes. Columns are read with a ColumnReader.
+ * 
+ * @author richpl
+ */
+public class ColumnWriter implements Closeable
+{
+	/**
+	 * Default number of values in each chunk
+	 */
+	public static final int CHUNK_SIZE = 1 << 14;
+	
+	// File to which the chunks are written
+	private FileChannel channel;
+	
+	// Values not yet written
+	private long[] values;
+	private int size;
+	
+	// Buffers for the encoded and compressed chunk
+	private byte[] encoded;
+	private byte[] compressed;
+	
+	// Compressor, reused for every chunk
+	private Deflater deflater;
+	
+	/**
+	 * Constructs a writer for a new column file, replacing
+	 * any existing contents.
+	 * 
+	 * @param file The column file
+	 * @param chunkSize The number of values in each chunk
+	 * 
+	 * @throws IOException Signals that the file could not be opened
+	 */
+	public ColumnWriter(final File file, final int chunkSize) 
+		throws IOException
+	{
+		channel = FileChannel.open(file.toPath(), 
+				                   StandardOpenOption.CREATE,
+				                   StandardOpenOption.WRITE,
+				                   StandardOpenOption.TRUNCATE_EXISTING);
+		
+		values = new long[chunkSize];
+		size = 0;
+		
+		// A varint takes at most ten bytes
+		encoded = new byte[chunkSize * 10];
+		compressed = new byte[chunkSize * 10];
+		
+		deflater = new Deflater(Deflater.BEST_SPEED);
+	}
+	
+	/**
+	 * Appends a value to the column.
+	 * 
+	 * @param value The value
+	 * 
+	 * @throws IOException Signals that a chunk could not be written
+	 */
+	public void add(final long value) throws IOException
+	{
+		values[size] = value;
+		size++;
+		
+		if (size == values.length)
+		{
+			writeChunk();
+		}
+	}
+	
+	/**
+	 * Encodes, compresses and writes the buffered values.
+	 * 
+	 * @throws IOException Signals that the chunk could not be written
+	 */
+	private void writeChunk() throws IOException
+	{
+		if (size == 0)
+		{
+			return;
+		}
+		
+		// Encode the differences between successive values
+		// as zig-zag variable length integers
+		int length = 0;
+		long previous = 0;
+		
+		for (int index=0; index<size; index++)
+		{
+			long delta = values[index] - previous;
+			long zigzag = (delta << 1) ^ (delta >> 63);
+			
+			while ((zigzag & ~0x7FL) != 0)
+			{
+				encoded[length++] = (byte) ((zigzag & 0x7F) | 0x80);
+				zigzag >>>= 7;
+			}
+			
+			encoded[length++] = (byte) zigzag;
+			
+			previous = values[index];
+		}
+		
+		deflater.reset();
+		deflater.setInput(encoded, 0, length);
+		deflater.finish();
+		
+		int compressedLength = 0;
+		
+		while (!deflater.finished())
+		{
+			if (compressedLength == compressed.length)
+			{
+				compressed = Arrays.copyOf(compressed, compressed.length * 2);
+			}
+			
+			compressedLength += deflater.deflate(compressed, compressedLength,
+					                             compressed.length - 
+					                             compressedLength);
+		}
+		
+		ByteBuffer buffer = ByteBuffer.allocate(12 + compressedLength);
+		buffer.putInt(size);
+		buffer.putInt(length);
+		buffer.putInt(compressedLength);
+		buffer.put(compressed, 0, compressedLength);
+		buffer.flip();
+		
+		while (buffer.hasRemaining())
+		{
+			channel.write(buffer);
+		}
+		
+		size = 0;
+	}
+	
+	/**
+	 * Writes any buffered values and closes the column file.
+	 * 
+	 * @throws IOException Signals that the column could not be written
+	 */
+	@Override
+	public void close() throws IOException 
+	{
+		writeChunk();
+		
+		deflater.end();
+		
+		channel.close();
+	}
+}
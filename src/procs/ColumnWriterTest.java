@@ -0,0 +1,132 @@
+package procs;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ColumnWriterTest 
+{
+	private File file;
+	
+	@Before
+	public void setUp() throws Exception 
+	{
+		file = File.createTempFile("column", ".col");
+	}
+	
+	@After
+	public void tearDown() throws Exception 
+	{
+		file.delete();
+	}
+	
+	@Test
+	public final void testRoundTrip() throws Exception 
+	{
+		Random random = new Random(1);
+		long[] values = new long[25000];
+		
+		for (int index=0; index<values.length; index++)
+		{
+			// Mixture of small, negative and very large values
+			values[index] = random.nextInt(3) == 0 ? 
+					        random.nextLong() : random.nextInt(200) - 100;
+		}
+		
+		// Small chunks, so that several are written
+		try (ColumnWriter writer = new ColumnWriter(file, 1000))
+		{
+			for (long value: values)
+			{
+				writer.add(value);
+			}
+		}
+		
+		try (ColumnReader reader = new ColumnReader(file))
+		{
+			assertEquals("Incorrect first value", values[0], reader.next());
+			
+			long[] rest = reader.readAll();
+			
+			assertEquals("Incorrect number of values", 
+					     values.length - 1, rest.length);
+			
+			for (int index=1; index<values.length; index++)
+			{
+				assertEquals("Incorrect value", values[index], rest[index-1]);
+			}
+			
+			assertFalse("Values beyond end of column", reader.hasNext());
+		}
+	}
+	
+	@Test
+	public final void testCompression() throws Exception 
+	{
+		try (ColumnWriter writer = new ColumnWriter(file, 
+				                                    ColumnWriter.CHUNK_SIZE))
+		{
+			for (int cycle=0; cycle<100000; cycle++)
+			{
+				writer.add(cycle);
+			}
+		}
+		
+		assertTrue("Cycle column not compressed", file.length() < 10000);
+	}
+	
+	@Test
+	public final void testPopulationExport() throws Exception 
+	{
+		File directory = new File(file.getPath() + ".dir");
+		
+		PopulationExporter exporter = new PopulationExporter(directory);
+		EventBatch batch = new EventBatch(new EventListener[] {exporter});
+		
+		batch.record(EventBatch.BIRTH, 0, 5, 0, 100);
+		batch.record(EventBatch.BIRTH, 10, 5, 0, 100);
+		batch.flush(1, 1, 1);
+		
+		batch.record(EventBatch.BIRTH, 20, 6, 10, 200);
+		batch.record(EventBatch.DEATH, 0, 5, EventBatch.CAUSE_LIFETIME, 100);
+		batch.flush(2, 2, 2);
+		
+		exporter.close();
+		
+		try (PopulationSeries series = new PopulationSeries(directory))
+		{
+			assertTrue("Missing row", series.next());
+			assertEquals("Incorrect population", 2, series.population());
+			
+			assertTrue("Missing row", series.next());
+			assertEquals("Incorrect cycle", 2, series.cycle());
+			assertEquals("Incorrect genome", 1, series.genome());
+			assertEquals("Incorrect population", 1, series.population());
+			
+			assertTrue("Missing row", series.next());
+			assertEquals("Incorrect genome", 0, series.genome());
+			assertEquals("Incorrect population", 1, series.population());
+			
+			assertFalse("Unexpected row", series.next());
+			
+			assertEquals("Incorrect genome hash", 200, 
+					     series.genomeHashes()[1]);
+			assertEquals("Incorrect births", 2, 
+					     series.aggregate(PopulationExporter.BIRTHS)[0]);
+			assertEquals("Incorrect deaths", 1, 
+					     series.aggregate(PopulationExporter.DEATHS)[1]);
+		}
+		
+		for (File column: directory.listFiles())
+		{
+			column.delete();
+		}
+		
+		directory.delete();
+	}
+}
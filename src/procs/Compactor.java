@@ -0,0 +1,166 @@
+package procs;
+
+/**
+ * Compacts the Core by sliding executing Processes down towards
+ * the start of the Core, closing the gaps between them, so that
+ * the free space left by dead Processes is gathered into long
+ * runs in which children can be spawned, rather than scattered
+ * across many gaps too short to hold any child.
+ *
+ * Compaction proceeds incrementally. Each pass sweeps the Core in
+ * address order, and each cycle advances the pass by a bounded
+ * amount of work, so that compaction never pauses execution for
+ * long. Moved Processes keep their instruction pointers, lengths
+ * and numbers of executions.
+ *
+ * @author richpl
+ */
+public class Compactor
+{
+	/**
+	 * Default amount of work done in each cycle, counted as the
+	 * number of Processes visited plus the number of instructions
+	 * moved
+	 */
+	public static final int BUDGET = 256;
+	
+	// Amount of work to be done in each cycle
+	private int budget;
+	
+	// Address below which the current pass has closed every gap,
+	// or -1 if no pass is in progress
+	private int frontier;
+	
+	// Number of Processes moved since compaction began
+	private long moves;
+	
+	/**
+	 * Constructs a Compactor doing the default amount
+	 * of work in each cycle.
+	 */
+	public Compactor()
+	{
+		this(BUDGET);
+	}
+	
+	/**
+	 * Constructs a Compactor doing the specified amount
+	 * of work in each cycle.
+	 *
+	 * @param budget The number of Processes visited plus the number
+	 * of instructions moved, above which a cycle's compaction stops
+	 *
+	 * @throws NumberFormatException Signals that a non-positive
+	 * budget was specified
+	 */
+	public Compactor(final int budget) throws NumberFormatException
+	{
+		if (budget <= 0)
+		{
+			throw new NumberFormatException("Invalid compaction budget specified");
+		}
+		
+		this.budget = budget;
+		
+		frontier = -1;
+		moves = 0;
+	}
+	
+	/**
+	 * Advances compaction by one cycle's worth of work. Processes
+	 * which overlap, or which wrap around from the end of the Core
+	 * to the start, are left where they are. So are Processes with
+	 * instructions belonging to no Process in the gap before them,
+	 * such as are left by mutations of a parent's length, since
+	 * moving them would overwrite those instructions.
+	 *
+	 * @param core The Core in which the Processes are executing
+	 * @param index The index of the executing Processes, which
+	 * is kept up to date as they are moved
+	 *
+	 * @return The number of Processes moved
+	 */
+	public int compact(final Core core, final ProcessIndex index)
+	{
+		int moved = 0;
+		
+		if (frontier == -1)
+		{
+			frontier = start(core, index);
+		}
+		
+		for (int work=0; work<budget;)
+		{
+			// Births since the last cycle may have landed in the
+			// compacted region, so skip over any Process reaching
+			// past the frontier
+			Process lower = index.lower(frontier);
+			
+			if (lower != null &&
+				lower.address() + lower.length() > frontier)
+			{
+				frontier = lower.address() + lower.length();
+			}
+			
+			Process process = index.ceiling(frontier);
+			
+			// The pass is complete once every Process up to the
+			// end of the Core has been visited
+			if (process == null ||
+				process.address() + process.length() > core.size())
+			{
+				frontier = -1;
+				
+				break;
+			}
+			
+			work++;
+			
+			if (process.address() > frontier &&
+				core.occupied(frontier, process.address() - frontier) == 0)
+			{
+				index.remove(process);
+				core.moveProcess(process, frontier);
+				index.add(process);
+				
+				work += process.length();
+				moved++;
+			}
+			
+			frontier = process.address() + process.length();
+		}
+		
+		moves += moved;
+		
+		return (moved);
+	}
+	
+	/**
+	 * @return The number of Processes moved since compaction began
+	 */
+	public long moves()
+	{
+		return (moves);
+	}
+	
+	/**
+	 * Finds the address at which a pass begins, following any
+	 * Process which wraps around from the end of the Core.
+	 *
+	 * @param core The Core in which the Processes are executing
+	 * @param index The index of the executing Processes
+	 *
+	 * @return The address of the start of the pass
+	 */
+	private int start(final Core core, final ProcessIndex index)
+	{
+		Process last = index.last();
+		
+		if (last != null && last.address() + last.length() > core.size())
+		{
+			return (last.address() + last.length() - core.size());
+		}
+		
+		return (0);
+	}
+}
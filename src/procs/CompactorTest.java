@@ -0,0 +1,107 @@
+package procs;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class CompactorTest
+{
+	private String[] ancestor =
+		{Instructions.NOP, Instructions.NOP, Instructions.SPW,
+		 Instructions.NOP, Instructions.NOP};
+	
+	private final int CORE_SIZE = 40;
+	
+	private Core core;
+	
+	private ProcessIndex index;
+	
+	private Process[] processes;
+	
+	@Before
+	public void setUp() throws Exception
+	{
+		core = new Core(CORE_SIZE, 0);
+		index = new ProcessIndex(CORE_SIZE);
+		
+		// Processes separated by gaps, the last of
+		// which wraps around to the start of the Core
+		int[] addresses = {4, 12, 20, 38};
+		processes = new Process[addresses.length];
+		
+		for (int process=0; process<addresses.length; process++)
+		{
+			processes[process] = new Process(addresses[process], ancestor.length);
+			core.addProcess(ancestor, addresses[process], processes[process]);
+			index.add(processes[process]);
+		}
+	}
+	
+	@Test
+	public final void testCompaction()
+	{
+		// Step the middle process, which should survive a move
+		processes[1].incrementPtr();
+		processes[1].incrementNumExecutions();
+		
+		Compactor compactor = new Compactor();
+		
+		assertEquals("Incorrect number of moves", 3, compactor.compact(core, index));
+		
+		// Processes packed after the tail of the wrapping process
+		assertEquals("Incorrect address", 3, processes[0].address());
+		assertEquals("Incorrect address", 8, processes[1].address());
+		assertEquals("Incorrect address", 13, processes[2].address());
+		assertEquals("Wrapping process moved", 38, processes[3].address());
+		
+		assertEquals("Pointer not preserved", 1, processes[1].ptr());
+		assertEquals("Executions not preserved", 1, processes[1].numExecutions());
+		
+		for (Process process: processes)
+		{
+			assertEquals("Instructions not moved", 
+					     "[NOP;NOP;SPW;NOP;NOP]", core.processToString(process));
+		}
+		
+		assertEquals("Occupancy changed", 20, core.occupied());
+		assertEquals("Free run not formed", 0, core.occupied(18, 20));
+		
+		// Nothing left to move
+		assertEquals("Compacted core changed", 0, compactor.compact(core, index));
+	}
+	
+	@Test
+	public final void testStray()
+	{
+		// An instruction belonging to no Process, in
+		// the gap before the third Process
+		core.setInstruction(Instructions.CPN, 17);
+		
+		Compactor compactor = new Compactor();
+		
+		assertEquals("Incorrect number of moves", 2, compactor.compact(core, index));
+		
+		assertEquals("Incorrect address", 3, processes[0].address());
+		assertEquals("Incorrect address", 8, processes[1].address());
+		assertEquals("Process moved over instruction", 20, processes[2].address());
+		
+		assertSame("Instruction overwritten", 
+				   Instructions.CPN, core.getInstruction(17));
+		assertEquals("Occupancy changed", 21, core.occupied());
+		
+		assertEquals("Compacted core changed", 0, compactor.compact(core, index));
+	}
+	
+	@Test
+	public final void testBudget()
+	{
+		// Room to visit and move a single process per cycle
+		Compactor compactor = new Compactor(ancestor.length + 1);
+		
+		assertEquals("Budget exceeded", 1, compactor.compact(core, index));
+		assertEquals("Pass not resumed", 1, compactor.compact(core, index));
+		assertEquals("Incorrect address", 8, processes[1].address());
+		assertEquals("Incorrect total moves", 2, compactor.moves());
+	}
+}
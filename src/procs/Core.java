@@ -28,10 +28,23 @@ public class Core
 	 * instruction will be randomly changed when a process
 	 * is copied in the core.
 	 */
-	private static int mutProb;
+	private int mutProb;
 	
 	private Random random;
 	
+	// Number of addresses in the Core that currently hold
+	// an instruction, maintained as instructions are written
+	// and removed so that occupancy can be read cheaply
+	private int occupied;
+	
+	// Bitmap with a bit set for each address that holds an
+	// instruction, so that occupied addresses within a range
+	// can be counted and selected a word at a time
+	private long[] occupancy;
+	
+	// Batch in which to record events occurring in the Core
+	private EventBatch events;
+	
 	/**
 	 * Constructs a new Core of the specified size
 	 * 
@@ -45,6 +58,26 @@ public class Core
 	 */
 	public Core(final int size, final int mutProb)
 		throws NumberFormatException
+	{
+		this(size, mutProb, new Random(new Date().getTime()));
+	}
+	
+	/**
+	 * Constructs a new Core of the specified size, whose mutations
+	 * are drawn from the specified generator. A seeded generator
+	 * makes the mutations reproducible.
+	 * 
+	 * @param size The number of addresses to be contained
+	 * within the core
+	 * @param mutProb Probability, expressed as a percentage, that an
+	 * instruction will mutate during a copy
+	 * @param random The generator from which mutations are drawn
+	 * 
+	 * @throws NumberFormatException Signals that a non-percentage
+	 * mutation probability was specified
+	 */
+	public Core(final int size, final int mutProb, final Random random)
+		throws NumberFormatException
 	{
 		// Add mutation probability as a parameter so that unit
 		// testing is predictable
@@ -54,7 +87,7 @@ public class Core
 				("Invalid mutation probability specified");
 		}
 			
-		Core.mutProb = mutProb;
+		this.mutProb = mutProb;
 		
 		// Initialise the core with null strings representing
 		// empty addresses
@@ -64,9 +97,14 @@ public class Core
 			core[index] = Core.EMPTY;
 		}
 		
-		// Initialise the random number generator
-		// that governs the mutation rate
-		random = new Random(new Date().getTime());
+		occupied = 0;
+		occupancy = new long[(size + 63) >>> 6];
+		
+		events = EventBatch.DISABLED;
+		
+		// Random number generator that 
+		// governs the mutation rate
+		this.random = random;
 	}
 	
 	/** 
@@ -78,6 +116,288 @@ public class Core
 	{
 		return (core.length);
 	}
+	
+	/**
+	 * Sets the probability with which instructions
+	 * mutate when they are copied.
+	 * 
+	 * @param mutProb Probability, expressed as a percentage, that an
+	 * instruction will mutate during a copy
+	 * 
+	 * @throws NumberFormatException Signals that a non-percentage
+	 * mutation probability was specified
+	 */
+	public void setMutationProbability(final int mutProb)
+		throws NumberFormatException
+	{
+		if (mutProb < 0 || mutProb > 100)
+		{
+			throw new NumberFormatException
+				("Invalid mutation probability specified");
+		}
+		
+		this.mutProb = mutProb;
+	}
+	
+	/**
+	 * Returns the number of addresses in the Core which
+	 * currently hold an instruction.
+	 * 
+	 * @return The number of non-empty addresses
+	 */
+	public int occupied()
+	{
+		return (occupied);
+	}
+	
+	/**
+	 * Computes a checksum of the contents of the Core, with which
+	 * two runs can be checked to have reached the same state.
+	 * 
+	 * @return The 64 bit checksum
+	 */
+	public long checksum()
+	{
+		// FNV-1a over the hash code of each instruction
+		long checksum = 0xCBF29CE484222325L;
+		
+		for (String instruction: core)
+		{
+			checksum = (checksum ^ instruction.hashCode()) * 0x100000001B3L;
+		}
+		
+		return (checksum);
+	}
+	
+	/**
+	 * Counts the occupied addresses within a range of the Core,
+	 * wrapping around from the end of the Core to the start.
+	 * 
+	 * @param start The first address of the range
+	 * @param size The number of addresses in the range, no more
+	 * than the size of the Core
+	 * 
+	 * @return The number of addresses in the range which hold
+	 * an instruction
+	 */
+	public int occupied(final int start, final int size)
+	{
+		int end = start + size;
+		
+		if (end <= core.length)
+		{
+			return (countOccupied(start, end));
+		}
+		
+		return (countOccupied(start, core.length) + 
+				countOccupied(0, end - core.length));
+	}
+	
+	/**
+	 * Finds the first run of empty addresses long enough to hold
+	 * a genome, searching forwards from the specified address to
+	 * the end of the Core without wrapping. Occupied addresses are
+	 * skipped a run at a time using the occupancy bitmap, so that
+	 * free space can be found quickly in a crowded Core.
+	 * 
+	 * @param start The address from which to search
+	 * @param length The number of empty addresses required
+	 * 
+	 * @return The first address of the run, or -1 if
+	 * there is none
+	 * 
+	 * @throws NumberFormatException Signals that a non-positive
+	 * length was specified
+	 */
+	public int findEmpty(final int start, final int length)
+		throws NumberFormatException
+	{
+		if (length <= 0)
+		{
+			throw new NumberFormatException("Invalid run length specified");
+		}
+		
+		int address = Math.max(start, 0);
+		
+		while (address + length <= core.length)
+		{
+			int count = countOccupied(address, address + length);
+			
+			if (count == 0)
+			{
+				return (address);
+			}
+			
+			// No run can include the last occupied
+			// address, so resume just beyond it
+			address = select(address, address + length, count - 1) + 1;
+		}
+		
+		return (-1);
+	}
+	
+	/**
+	 * Finds an occupied address within a range of the Core,
+	 * wrapping around from the end of the Core to the start.
+	 * 
+	 * @param start The first address of the range
+	 * @param size The number of addresses in the range, no more
+	 * than the size of the Core
+	 * @param rank The position of the address amongst the occupied
+	 * addresses of the range, counting from zero
+	 * 
+	 * @return The address, or -1 if the range holds no more 
+	 * than rank occupied addresses
+	 */
+	public int selectOccupied(final int start, final int size, final int rank)
+	{
+		int end = start + size;
+		
+		if (end <= core.length)
+		{
+			return (select(start, end, rank));
+		}
+		
+		int first = countOccupied(start, core.length);
+		
+		if (rank < first)
+		{
+			return (select(start, core.length, rank));
+		}
+		
+		return (select(0, end - core.length, rank - first));
+	}
+	
+	/**
+	 * Counts the occupied addresses between two addresses,
+	 * without wrapping.
+	 * 
+	 * @param from The first address, inclusive
+	 * @param to The last address, exclusive
+	 * 
+	 * @return The number of occupied addresses
+	 */
+	private int countOccupied(final int from, final int to)
+	{
+		int count = 0;
+		
+		for (int word=from>>>6; from<to && word<=(to-1)>>>6; word++)
+		{
+			count += Long.bitCount(occupancy[word] & mask(word, from, to));
+		}
+		
+		return (count);
+	}
+	
+	/**
+	 * Finds an occupied address between two addresses,
+	 * without wrapping.
+	 * 
+	 * @param from The first address, inclusive
+	 * @param to The last address, exclusive
+	 * @param rank The position of the address amongst the occupied
+	 * addresses, counting from zero
+	 * 
+	 * @return The address, or -1 if there are no more than
+	 * rank occupied addresses
+	 */
+	private int select(final int from, final int to, int rank)
+	{
+		for (int word=from>>>6; from<to && word<=(to-1)>>>6; word++)
+		{
+			long bits = occupancy[word] & mask(word, from, to);
+			int count = Long.bitCount(bits);
+			
+			if (rank < count)
+			{
+				// Clear the lower set bits until the
+				// required one is the lowest
+				for (; rank>0; rank--)
+				{
+					bits &= bits - 1;
+				}
+				
+				return ((word << 6) + Long.numberOfTrailingZeros(bits));
+			}
+			
+			rank -= count;
+		}
+		
+		return (-1);
+	}
+	
+	/**
+	 * Returns a mask selecting the bits of a bitmap word
+	 * which fall between two addresses.
+	 * 
+	 * @param word The index of the word
+	 * @param from The first address, inclusive
+	 * @param to The last address, exclusive
+	 * 
+	 * @return The mask
+	 */
+	private static long mask(final int word, final int from, final int to)
+	{
+		long mask = -1L;
+		
+		if (from > word << 6)
+		{
+			mask &= -1L << from;
+		}
+		
+		if (to < (word + 1) << 6)
+		{
+			mask &= -1L >>> (64 - (to & 63));
+		}
+		
+		return (mask);
+	}
+	
+	/**
+	 * Sets the batch in which events occurring in the Core
+	 * are to be recorded.
+	 * 
+	 * @param events The batch in which to record events
+	 */
+	void setEvents(final EventBatch events)
+	{
+		this.events = events;
+	}
+	
+	/**
+	 * @return The batch in which events occurring in the Core
+	 * are recorded
+	 */
+	EventBatch events()
+	{
+		return (events);
+	}
+	
+	/**
+	 * Writes an instruction to the specified location, keeping
+	 * the count and bitmap of occupied addresses up to date.
+	 * 
+	 * @param instruction The instruction to be written
+	 * @param location A valid address within the Core
+	 */
+	private void write(final String instruction, final int location)
+	{
+		if (core[location].equals(Core.EMPTY))
+		{
+			if (!instruction.equals(Core.EMPTY))
+			{
+				occupied++;
+				occupancy[location >>> 6] |= 1L << location;
+			}
+		}
+		else if (instruction.equals(Core.EMPTY))
+		{
+			occupied--;
+			occupancy[location >>> 6] &= ~(1L << location);
+		}
+		
+		core[location] = instruction;
+	}
 
 	/**
 	 * Adds a list of instructions to the Core, with its initial 
@@ -95,6 +415,27 @@ public class Core
 	public void addProcess(final String[] instructions, final int address,
 			               Process process)
 		throws IndexOutOfBoundsException
+	{
+		addProcess(GenomeView.of(instructions), address, process);
+	}
+	
+	/**
+	 * Adds a genome to the Core, with its initial instruction at
+	 * the specified address. Unless the genome is mutated, or overlaps
+	 * the addresses it is being copied to, its instructions are copied
+	 * straight from the view without an intermediate list.
+	 * 
+	 * @param genome The instructions to be added
+	 * @param address The address at which to add the Process
+	 * @param process Handle for the process which is being added
+	 * 
+	 * @throws IndexOutOfBoundsException Signals that the process
+	 * contained too many instructions to be accommodated within
+	 * the Core
+	 */
+	public void addProcess(final GenomeView genome, final int address,
+			               Process process)
+		throws IndexOutOfBoundsException
 	{
 		if (address < 0 || address >= core.length)
 		{
@@ -112,7 +453,7 @@ public class Core
 		// mutation that inserts and extra instruction
 		boolean isSpace = true;
 		boolean isExtraSpace = true;
-		for (int index=0;index<=instructions.length;index++)
+		for (int index=0;index<=genome.length();index++)
 		{
 			int location = (index+address) % core.length;
 			
@@ -120,7 +461,7 @@ public class Core
 				&&
 				!core[location].equals(Instructions.NOP))
 			{
-				if (index<instructions.length)
+				if (index<genome.length())
 				{
 					isSpace = false;
 				}
@@ -132,17 +473,39 @@ public class Core
 		
 		// Mutate the instruction list with the specified
 		// probability
-		String[] newInstructions = 
-				mutateInstructions(instructions, process, isExtraSpace);
+		int mutateProbability = random.nextInt(100);
 		
-		// Only add instructions if room
-		if (isSpace)
+		if (mutateProbability < mutProb ||
+			genome.overlaps(core, address, genome.length()))
 		{
-			for (int index=0;index<newInstructions.length;index++)
+			String[] instructions = genome.toArray();
+			String[] newInstructions = instructions;
+			
+			if (mutateProbability < mutProb)
+			{
+				newInstructions = mutateInstructions(instructions, address, 
+						                             process, isExtraSpace);
+			}
+			
+			// Only add instructions if room
+			if (isSpace)
+			{
+				for (int index=0;index<newInstructions.length;index++)
+				{
+					int location = (index+address) % core.length;
+	
+					write(newInstructions[index], location);
+				}
+			}
+		}
+		else if (isSpace)
+		{
+			// Copy the unmodified instructions directly
+			for (int index=0;index<genome.length();index++)
 			{
 				int location = (index+address) % core.length;
 
-				core[location] = newInstructions[index];
+				write(genome.get(index), location);
 			}
 		}
 	}
@@ -150,10 +513,12 @@ public class Core
 	/**
 	 * Mutates a string of instructions either
 	 * by modifying an instruction, deleting
-	 * an instruction, or inserting an instruction, with
-	 * the probability specified to the constructor method.
+	 * an instruction, or inserting an instruction. The caller
+	 * decides whether to mutate, with the probability specified
+	 * to the constructor method.
 	 * 
 	 * @param instructions The instruction list to be mutated
+	 * @param address The address at which the list is to be copied
 	 * @param process The process associated with the instruction
 	 * list
 	 * @param isExtraSpace Indicates whether there is room to
@@ -162,154 +527,155 @@ public class Core
 	 * @return The mutant instruction list
 	 */
 	private String[] mutateInstructions(final String[] instructions,
+										final int address,
 										Process process,
 										boolean isExtraSpace)
 	{
 		String[] newInstructions;
 			
-		// Determine whether to introduce a mutation 
-		// which changes the instruction
-		int mutateProbability = random.nextInt(100);
-
-		if (mutateProbability < mutProb)
+		// Pick a random location within the instruction string
+		int position = random.nextInt(instructions.length);
+		
+		// Use a further probability to determine
+		// the type of mutation
+		int mutTypeProbability = random.nextInt(100);
+		
+		if (mutTypeProbability < 33)
 		{
-			// Pick a random location within the instruction string
-			int position = random.nextInt(instructions.length);
-			
-			// Use a further probability to determine
-			// the type of mutation
-			int mutTypeProbability = random.nextInt(100);
-			
-			if (mutTypeProbability < 33)
+			// Make a copy of the instruction list
+			newInstructions = new String[instructions.length];
+			for (int index=0; index<instructions.length; index++)
 			{
-				// Make a copy of the instruction list
-				newInstructions = new String[instructions.length];
-				for (int index=0; index<instructions.length; index++)
+				if (index != position)
 				{
-					if (index != position)
-					{
-						newInstructions[index] = instructions[index];
-					}
-					else
-					{
-						newInstructions[index] = 
-								mutateInstruction(instructions[index], 
-										          position, 
-										          instructions.length);
-					}
+					newInstructions[index] = instructions[index];
 				}
-			}
-			else if (mutTypeProbability >= 33 &&
-					 mutTypeProbability < 66 &&
-					 instructions.length > 1)
-			{
-				// Mutate by deleting an instruction, as long as
-				// the instruction list is more than one instruction
-				// long
-				String[] start = null;
-				String[] end = null;
-				try
+				else
 				{
-					start = 
-						Arrays.copyOfRange(instructions, 
-						                   0, position);
-				
-					end = 
-						Arrays.copyOfRange(instructions, 
-				                           position+1, 
-				                           instructions.length);
-				
+					newInstructions[index] = 
+							mutateInstruction(instructions[index], 
+									          position, 
+									          instructions.length);
 				}
-				catch (Exception e)
-				{
-					System.err.println("Error splitting instructions" + 
+			}
+			
+			events.record(EventBatch.MUTATION, address,
+					      newInstructions.length,
+					      EventBatch.MUTATE_CHANGE);
+		}
+		else if (mutTypeProbability >= 33 &&
+				 mutTypeProbability < 66 &&
+				 instructions.length > 1)
+		{
+			// Mutate by deleting an instruction, as long as
+			// the instruction list is more than one instruction
+			// long
+			String[] start = null;
+			String[] end = null;
+			try
+			{
+				start = 
+					Arrays.copyOfRange(instructions, 
+					                   0, position);
+			
+				end = 
+					Arrays.copyOfRange(instructions, 
+			                           position+1, 
+			                           instructions.length);
+			
+			}
+			catch (Exception e)
+			{
+				System.err.println("Error splitting instructions" + 
 		                       " prior to instruction deletion: " +
-					           e.getMessage());
-					assert false;
-				}
-				
-				newInstructions = new String[instructions.length-1];
-				
-				try
-				{
-					System.arraycopy(start, 0, newInstructions, 0, start.length);
-					System.arraycopy(end, 0, newInstructions, 
-									 start.length, end.length);
-				}
-				catch (Exception e)
-				{
-					System.err.println("Error copying shortened " +
+				           e.getMessage());
+				assert false;
+			}
+			
+			newInstructions = new String[instructions.length-1];
+			
+			try
+			{
+				System.arraycopy(start, 0, newInstructions, 0, start.length);
+				System.arraycopy(end, 0, newInstructions, 
+								 start.length, end.length);
+			}
+			catch (Exception e)
+			{
+				System.err.println("Error copying shortened " +
 		                       "instruction list: " + e.getMessage());
-					assert false;
-				}
-				
-				// Reduce the corresponding process length
-				process.setLength(process.length() - 1);
+				assert false;
 			}
-			else if (isExtraSpace)
+			
+			// Reduce the corresponding process length
+			process.setLength(process.length() - 1);
+			
+			events.record(EventBatch.MUTATION, address,
+					      newInstructions.length, 
+					      EventBatch.MUTATE_DELETE);
+		}
+		else if (isExtraSpace)
+		{
+			// Mutate by adding an additional instruction and 
+			// modifying the corresponding process length
+			String[] start = null;
+			String[] end = null;
+			try
 			{
-				// Mutate by adding an additional instruction and 
-				// modifying the corresponding process length
-				String[] start = null;
-				String[] end = null;
-				try
-				{
-					start = 
-						Arrays.copyOfRange(instructions, 
-						                   0, position);
-				
-					end = 
-						Arrays.copyOfRange(instructions, 
-				                           position, 
-				                           instructions.length);
-				
-				}
-				catch (Exception e)
-				{
-					System.err.println("Error splitting instructions" + 
-				                       " prior to instruction insertion: " +
-							           e.getMessage());
-					assert false;
-				}
-				
-				newInstructions = new String[instructions.length+1];
-				
-				// Copy the existing instructions into the new list,
-				// leaving a gap for the extra instruction
-				try
-				{
-					System.arraycopy(start, 0, newInstructions, 0, start.length);
-					System.arraycopy(end, 0, newInstructions, 
-									 start.length+1, end.length);
-				}
-				catch (Exception e)
-				{
-					System.err.println("Error copying lengthened " +
-				                       "instruction list: " + e.getMessage());
-					assert false;
-				}
-				
-				// Insert the new instruction into the right position.
-				// Add anything that is not a NOP
-				newInstructions[start.length] = 
-						newInstruction(start.length,
-							           newInstructions.length);
-				
-				// Reduce the corresponding process length
-				process.setLength(process.length() + 1);
+				start = 
+					Arrays.copyOfRange(instructions, 
+					                   0, position);
+			
+				end = 
+					Arrays.copyOfRange(instructions, 
+			                           position, 
+			                           instructions.length);
+			
 			}
-			else
+			catch (Exception e)
 			{
-				return (instructions);
+				System.err.println("Error splitting instructions" + 
+			                       " prior to instruction insertion: " +
+						           e.getMessage());
+				assert false;
 			}
 			
-			return (newInstructions);
+			newInstructions = new String[instructions.length+1];
+			
+			// Copy the existing instructions into the new list,
+			// leaving a gap for the extra instruction
+			try
+			{
+				System.arraycopy(start, 0, newInstructions, 0, start.length);
+				System.arraycopy(end, 0, newInstructions, 
+								 start.length+1, end.length);
+			}
+			catch (Exception e)
+			{
+				System.err.println("Error copying lengthened " +
+			                       "instruction list: " + e.getMessage());
+				assert false;
+			}
+			
+			// Insert the new instruction into the right position.
+			// Add anything that is not a NOP
+			newInstructions[start.length] = 
+					newInstruction(start.length,
+						           newInstructions.length);
+			
+			// Reduce the corresponding process length
+			process.setLength(process.length() + 1);
+			
+			events.record(EventBatch.MUTATION, address,
+					      newInstructions.length, 
+					      EventBatch.MUTATE_INSERT);
 		}
 		else
 		{
-			// Return the instruction sequence unmodified
 			return (instructions);
 		}
+		
+		return (newInstructions);
 	}
 	
 	/**
@@ -416,6 +782,14 @@ public class Core
 					
 				break;
 					
+			case EMPTY:
+					
+				// A Process may be copied after part of it was
+				// emptied by the death of a Process overlapping it,
+				// and an empty address is left empty
+					
+				break;
+					
 			default:
 					
 				// Should not occur
@@ -590,26 +964,34 @@ public class Core
 	 */
 	public String[] getInstructions(final Process process)
 	{	
+		return (view(process).toArray());
+	}
+	
+	/**
+	 * Returns a view of the instructions that make up the
+	 * specified process, without copying them. The view
+	 * reflects any later changes to the Core.
+	 * 
+	 * @param process The process whose instructions are to be 
+	 * viewed
+	 * 
+	 * @return A view of the ordered list of Process instructions.
+	 * Returns an empty view if either the Process address or its 
+	 * length are not valid.
+	 */
+	public GenomeView view(final Process process)
+	{
 		// Get start address of Process
 		int address = process.address();
 		
-		// Return empty list for invalid addresses
+		// Return empty view for invalid addresses
 		if (address < 0 || address >= core.length ||
 			process.length() > core.length)
 		{
-			return (new String[0]);
+			return (new GenomeView(core, 0, 0));
 		}
 		
-		String[] instructions = new String[process.length()];
-		
-		for (int index=0;index<process.length();index++)
-		{
-			int location = (index+address) % core.length;
-			
-			instructions[index] = core[location];
-		}
-		
-		return (instructions);
+		return (new GenomeView(core, address, process.length()));
 	}
 	
 	/**
@@ -633,11 +1015,47 @@ public class Core
 			{
 				int location = (index+address) % core.length;
 			
-				core[location] = Core.EMPTY;
+				write(Core.EMPTY, location);
 			}
 		}
 	}
 	
+	/**
+	 * Moves the instructions of the specified Process to a new 
+	 * address, leaving the locations it vacates empty, and moves
+	 * the Process with them. The new locations may overlap the
+	 * old, but should not overlap any other Process.
+	 * 
+	 * @param process The process to be moved
+	 * @param address The new address of its first instruction
+	 * 
+	 * @throws IndexOutOfBoundsException Signals that the specified
+	 * address was outside the bounds of the Core
+	 */
+	public void moveProcess(final Process process, final int address)
+		throws IndexOutOfBoundsException
+	{
+		if (address < 0 || address >= core.length)
+		{
+			throw new IndexOutOfBoundsException("Invalid core address specified");
+		}
+		
+		int previous = process.address();
+		
+		String[] instructions = getInstructions(process);
+		
+		removeProcess(process);
+		
+		for (int index=0;index<instructions.length;index++)
+		{
+			write(instructions[index], (index+address) % core.length);
+		}
+		
+		process.move(address);
+		
+		events.record(EventBatch.MOVE, address, process.length(), previous);
+	}
+	
 	/**
 	 * Returns the instruction stored at the specified address,
 	 * expressed as a string
@@ -678,7 +1096,7 @@ public class Core
 			throw new IndexOutOfBoundsException("Invalid core address specified");
 		}
 		
-		core[address] = instruction;
+		write(instruction, address);
 	}
 	
 	/**
@@ -691,7 +1109,7 @@ public class Core
 	 */
 	public String processToString(Process process)
 	{
-		String[] instructions = getInstructions(process);
+		GenomeView instructions = view(process);
 		
 		StringBuilder stringBuilder = new StringBuilder();
 		stringBuilder.append("[");
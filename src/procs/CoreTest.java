@@ -109,4 +109,58 @@ public class CoreTest
 				     core.processToString(process),
 				     ANCESTOR_STRING);
 	}
+	
+	@Test
+	public final void testOccupancyBitmap()
+	{
+		// Process occupies 8, 9, 0, 1 and 2
+		assertEquals("Incorrect wrapped count", 5, core.occupied(8, CORE_SIZE));
+		assertEquals("Incorrect count", 3, core.occupied(0, 5));
+		assertEquals("Incorrect empty count", 0, core.occupied(3, 5));
+		
+		assertEquals("Incorrect first selection", 8, core.selectOccupied(5, 8, 0));
+		assertEquals("Incorrect wrapped selection", 1, core.selectOccupied(5, 8, 3));
+		assertEquals("Selection beyond range", -1, core.selectOccupied(5, 8, 5));
+		
+		core.removeProcess(process);
+		
+		assertEquals("Bitmap not cleared", 0, core.occupied(0, CORE_SIZE));
+		
+		// A larger core spanning several bitmap words
+		Core bigCore = new Core(200, 0);
+		bigCore.setInstruction(Instructions.CPN, 63);
+		bigCore.setInstruction(Instructions.CPN, 64);
+		bigCore.setInstruction(Instructions.CPN, 199);
+		
+		assertEquals("Incorrect count across words", 2, bigCore.occupied(60, 10));
+		assertEquals("Incorrect selection across words", 
+				     64, bigCore.selectOccupied(60, 10, 1));
+		assertEquals("Incorrect wrapped selection across words", 
+				     63, bigCore.selectOccupied(199, 100, 1));
+	}
+	
+	@Test
+	public final void testFindEmpty()
+	{
+		// Process occupies 8, 9, 0, 1 and 2
+		assertEquals("Incorrect run", 3, core.findEmpty(0, 5));
+		assertEquals("Incorrect run", 4, core.findEmpty(4, 3));
+		assertEquals("Run found without room", -1, core.findEmpty(0, 6));
+		
+		// Runs do not wrap around the end of the Core
+		assertEquals("Run wrapped", -1, core.findEmpty(6, 3));
+		
+		// Runs are found beyond occupied words
+		Core bigCore = new Core(200, 0);
+		
+		for (int address=0; address<150; address++)
+		{
+			bigCore.setInstruction(Instructions.NOP, address);
+		}
+		
+		bigCore.setInstruction(Instructions.CPN, 160);
+		
+		assertEquals("Incorrect run across words", 
+				     161, bigCore.findEmpty(0, 20));
+	}
 }
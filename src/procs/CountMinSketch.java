@@ -0,0 +1,99 @@
+package procs;
+
+/**
+ * Count-Min sketch, which estimates the count associated with
+ * each of an unbounded number of keys using a fixed amount of 
+ * memory. Counts may be decremented as well as incremented, and
+ * as long as no true count falls below zero the estimate is never
+ * less than the true count.
+ * 
+ * @author richpl
+ */
+public class CountMinSketch 
+{
+	// Counters, one row per hash function
+	private int[][] counts;
+	
+	// Mask used to reduce a hash to a column index
+	private int mask;
+	
+	/**
+	 * Constructs a new sketch of the specified dimensions.
+	 * 
+	 * @param depth The number of hash functions, which governs
+	 * the probability of a poor estimate
+	 * @param width The number of counters per hash function,
+	 * rounded up to a power of two, which governs the size of
+	 * the error in an estimate
+	 * 
+	 * @throws IllegalArgumentException Signals that a dimension
+	 * was not positive
+	 */
+	public CountMinSketch(final int depth, final int width)
+		throws IllegalArgumentException
+	{
+		if (depth <= 0 || width <= 0)
+		{
+			throw new IllegalArgumentException
+				("Invalid sketch dimensions specified");
+		}
+		
+		int columns = Integer.highestOneBit(width);
+		
+		if (columns < width)
+		{
+			columns = columns << 1;
+		}
+		
+		counts = new int[depth][columns];
+		mask = columns - 1;
+	}
+	
+	/**
+	 * Derives the column for a key in the specified row.
+	 * 
+	 * @param key The key
+	 * @param row The row
+	 * 
+	 * @return The index of the column within the row
+	 */
+	private int column(final int key, final int row)
+	{
+		long hash = HyperLogLog.mix(key + (long) row * 0x9E3779B97F4A7C15L);
+		
+		return ((int) hash & mask);
+	}
+	
+	/**
+	 * Adds the specified amount to the count of a key.
+	 * 
+	 * @param key The key
+	 * @param delta The amount to add, which may be negative
+	 */
+	public void add(final int key, final int delta)
+	{
+		for (int row=0; row<counts.length; row++)
+		{
+			counts[row][column(key, row)] += delta;
+		}
+	}
+	
+	/**
+	 * Estimates the count of a key.
+	 * 
+	 * @param key The key
+	 * 
+	 * @return The estimated count
+	 */
+	public int estimate(final int key)
+	{
+		int estimate = Integer.MAX_VALUE;
+		
+		for (int row=0; row<counts.length; row++)
+		{
+			estimate = Math.min(estimate, counts[row][column(key, row)]);
+		}
+		
+		return (estimate);
+	}
+}
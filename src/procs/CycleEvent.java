@@ -0,0 +1,78 @@
+package procs;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event summarising a single execution cycle of
+ * the CPU. One event is committed per cycle, so that a production
+ * run can be profiled in Mission Control at negligible cost.
+ * 
+ * @author richpl
+ */
+@Name("procs.Cycle")
+@Label("Execution Cycle")
+@Category("Procs")
+@Description("Summary of a single CPU execution cycle")
+@StackTrace(false)
+public class CycleEvent extends Event
+{
+	@Label("Cycle")
+	long cycle;
+	
+	@Label("Cycle Duration")
+	@Timespan(Timespan.NANOSECONDS)
+	long cycleDuration;
+	
+	@Label("Processes Stepped")
+	int processesStepped;
+	
+	@Label("Spawn Attempts")
+	int spawnAttempts;
+	
+	@Label("Spawn Successes")
+	int spawnSuccesses;
+	
+	@Label("Spawn Probes")
+	@Description("Core locations examined while looking for room to spawn")
+	int spawnProbes;
+	
+	@Label("Infections")
+	int infections;
+	
+	@Label("Bombs Fired")
+	int bombsFired;
+	
+	@Label("Bombs Landed")
+	int bombsLanded;
+	
+	@Label("Instructions Changed")
+	int mutationsChanged;
+	
+	@Label("Instructions Deleted")
+	int mutationsDeleted;
+	
+	@Label("Instructions Inserted")
+	int mutationsInserted;
+	
+	@Label("Deaths by Empty Fetch")
+	int deathsEmpty;
+	
+	@Label("Deaths by Invalid Instruction")
+	int deathsInvalid;
+	
+	@Label("Deaths by Lifetime")
+	int deathsLifetime;
+	
+	@Label("Deaths by Eviction")
+	int deathsReaped;
+	
+	@Label("Genomes")
+	@Description("Number of genomes registered with the CPU")
+	int genomes;
+}
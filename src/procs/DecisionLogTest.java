@@ -0,0 +1,139 @@
+package procs;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DecisionLogTest 
+{
+	private static final long SEED = 42;
+	
+	private static final int CYCLES = 30;
+	
+	private File file;
+	
+	private long checksum;
+	
+	@Before
+	public void setUp() throws Exception 
+	{
+		file = File.createTempFile("decisions", ".log");
+		
+		try (DecisionRecorder recorder = 
+				new DecisionRecorder(file, SEED, 10))
+		{
+			CPU cpu = new CPU(recorder, new ExactStatistics());
+			
+			for (int cycle=0; cycle<CYCLES; cycle++)
+			{
+				cpu.execute();
+				recorder.checkpoint(cpu);
+			}
+			
+			checksum = cpu.checksum();
+		}
+	}
+	
+	@After
+	public void tearDown() throws Exception 
+	{
+		file.delete();
+	}
+	
+	@Test
+	public final void testReplay() throws Exception 
+	{
+		try (DecisionPlayer player = new DecisionPlayer(file))
+		{
+			assertEquals("Incorrect seed", SEED, player.seed());
+			assertEquals("Incorrect interval", 10, player.interval());
+			
+			CPU cpu = new CPU(player, new ExactStatistics());
+			
+			for (int cycle=0; cycle<CYCLES; cycle++)
+			{
+				cpu.execute();
+				player.checkpoint(cpu);
+			}
+			
+			assertTrue("Log not fully replayed", player.finished());
+			assertTrue("No decisions replayed", player.decisions() > 0);
+			assertEquals("Incorrect checksum", checksum, cpu.checksum());
+		}
+	}
+	
+	@Test
+	public final void testSeededRun() throws Exception 
+	{
+		CPU cpu = new CPU(new java.util.Random(SEED), new ExactStatistics());
+		
+		for (int cycle=0; cycle<CYCLES; cycle++)
+		{
+			cpu.execute();
+		}
+		
+		assertEquals("Seeded run not reproduced", checksum, cpu.checksum());
+	}
+	
+	@Test
+	public final void testDivergence() throws Exception 
+	{
+		try (DecisionPlayer player = new DecisionPlayer(file))
+		{
+			CPU cpu = new CPU(player, new ExactStatistics());
+			
+			// Spawning locally draws decisions from a different bound
+			cpu.setSpawnRange(CPU.SPAWN_RANGE);
+			
+			for (int cycle=0; cycle<CYCLES; cycle++)
+			{
+				cpu.execute();
+				player.checkpoint(cpu);
+			}
+			
+			fail("Divergence not detected");
+		}
+		catch (DivergenceException e)
+		{
+			assertTrue("Incorrect decision count", e.decision() >= 0);
+		}
+	}
+	
+	@Test
+	public final void testWrongBound() throws Exception 
+	{
+		try (DecisionPlayer player = new DecisionPlayer(file))
+		{
+			// No decision of the CPU is drawn from this bound
+			player.nextInt(7);
+			
+			fail("Divergence not detected");
+		}
+		catch (DivergenceException e)
+		{
+			assertEquals("Incorrect decision count", 0, e.decision());
+			assertEquals("Incorrect checkpoint", 0, e.cycle());
+		}
+	}
+	
+	@Test
+	public final void testUnrecorded() throws Exception 
+	{
+		try (DecisionPlayer player = new DecisionPlayer(file))
+		{
+			// Only draws through nextInt(int) are recorded
+			player.nextDouble();
+			
+			fail("Divergence not detected");
+		}
+		catch (DivergenceException e)
+		{
+			assertTrue("Incorrect message", e.getMessage().contains("26 bits"));
+			assertEquals("Incorrect decision count", 0, e.decision());
+		}
+	}
+}
@@ -0,0 +1,304 @@
+package procs;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * Random number generator which replays the decisions recorded in
+ * a log by a DecisionRecorder. Given to a CPU set up in the same way
+ * as the recorded one, it reproduces the recorded run exactly, and
+ * signals a DivergenceException as soon as the run departs from it:
+ * either because a decision is drawn from a different bound, and so
+ * is a different kind of decision, or because the Core does not
+ * match the checksum recorded at a checkpoint.
+ *
+ * @author richpl
+ */
+public class DecisionPlayer extends Random implements Closeable
+{
+	private static final long serialVersionUID = 1L;
+	
+	// Size of the buffer holding records not yet replayed
+	private static final int BUFFER_SIZE = 1 << 16;
+	
+	// Largest number of bytes taken by a record
+	private static final int RECORD_SIZE = 20;
+	
+	// Log from which decisions are read
+	private transient FileChannel channel;
+	
+	// Buffer holding records not yet replayed
+	private transient ByteBuffer buffer;
+	
+	// Whether the whole of the log has been read into the buffer
+	private boolean exhausted;
+	
+	// Seed of the recorded generator
+	private final long seed;
+	
+	// Number of cycles between checkpoints
+	private final int interval;
+	
+	// Number of decisions replayed so far
+	private long decisions;
+	
+	// Cycle of the last checkpoint passed
+	private long checkpoint;
+	
+	/**
+	 * Constructs a player which replays the specified log.
+	 *
+	 * @param file The file containing the log
+	 *
+	 * @throws IOException Signals that the log could not be read,
+	 * or is not a decision log
+	 */
+	public DecisionPlayer(final File file) throws IOException
+	{
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		
+		buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		buffer.flip();
+		
+		exhausted = false;
+		
+		fill();
+		
+		if (buffer.remaining() < 20 ||
+			buffer.getInt() != DecisionRecorder.MAGIC ||
+			buffer.getInt() != DecisionRecorder.VERSION)
+		{
+			channel.close();
+			
+			throw new IOException("Not a decision log: " + file);
+		}
+		
+		seed = buffer.getLong();
+		interval = buffer.getInt();
+		
+		decisions = 0;
+		checkpoint = 0;
+	}
+	
+	/**
+	 * Replays the next recorded decision.
+	 *
+	 * @throws IllegalArgumentException Signals that the bound
+	 * is not positive, as when the decision was recorded
+	 * @throws DivergenceException Signals that the recorded
+	 * decision was drawn from a different bound, or that the
+	 * log has no more decisions
+	 * @throws UncheckedIOException Signals that the log
+	 * could not be read
+	 */
+	@Override
+	public int nextInt(final int bound)
+	{
+		// Such a draw failed without being recorded
+		if (bound <= 0)
+		{
+			throw new IllegalArgumentException("bound must be positive");
+		}
+		
+		int recorded = nextBound();
+		
+		if (recorded == -1)
+		{
+			throw new DivergenceException("Log exhausted",
+					                      decisions, checkpoint);
+		}
+		
+		if (recorded == 0)
+		{
+			throw new DivergenceException("Decision drawn in place of checkpoint",
+					                      decisions, checkpoint);
+		}
+		
+		if (recorded != bound)
+		{
+			throw new DivergenceException("Decision drawn from bound " + bound +
+					                      " in place of " + recorded,
+					                      decisions, checkpoint);
+		}
+		
+		decisions++;
+		
+		return (InstructionCodec.getVarint(buffer));
+	}
+	
+	/**
+	 * Decisions not drawn through nextInt(int) were never
+	 * recorded, so a run drawing one has already departed
+	 * from the recorded run.
+	 *
+	 * @throws DivergenceException Always
+	 */
+	@Override
+	protected int next(final int bits)
+	{
+		throw new DivergenceException("Unrecorded decision of " + bits +
+				                      " bits drawn", decisions, checkpoint);
+	}
+	
+	/**
+	 * Verifies the state of the CPU against the log, if a
+	 * checkpoint is due at the end of the cycle it has just
+	 * completed.
+	 *
+	 * @param cpu The CPU drawing decisions from this player
+	 *
+	 * @throws DivergenceException Signals that the CPU has reached
+	 * a different cycle or state of the Core to the recorded run
+	 * @throws IOException Signals that the log could not be read
+	 */
+	public void checkpoint(final CPU cpu) throws IOException
+	{
+		if (cpu.cycle() % interval == 0)
+		{
+			int recorded;
+			
+			try
+			{
+				recorded = nextBound();
+			}
+			catch (UncheckedIOException e)
+			{
+				throw e.getCause();
+			}
+			
+			if (recorded != 0)
+			{
+				throw new DivergenceException("Checkpoint in place of decision",
+						                      decisions, checkpoint);
+			}
+			
+			long cycle = buffer.getLong();
+			long checksum = buffer.getLong();
+			
+			if (cycle != cpu.cycle())
+			{
+				throw new DivergenceException("Checkpoint at cycle " + cpu.cycle() +
+						                      " in place of " + cycle,
+						                      decisions, checkpoint);
+			}
+			
+			if (checksum != cpu.checksum())
+			{
+				throw new DivergenceException("Core checksum differs at cycle " + cycle,
+						                      decisions, checkpoint);
+			}
+			
+			checkpoint = cycle;
+		}
+	}
+	
+	/**
+	 * @return True if every record in the log has been replayed
+	 *
+	 * @throws IOException Signals that the log could not be read
+	 */
+	public boolean finished() throws IOException
+	{
+		fill();
+		
+		return (!buffer.hasRemaining());
+	}
+	
+	/**
+	 * @return The seed of the recorded generator
+	 */
+	public long seed()
+	{
+		return (seed);
+	}
+	
+	/**
+	 * @return The number of cycles between checkpoints
+	 */
+	public int interval()
+	{
+		return (interval);
+	}
+	
+	/**
+	 * @return The number of decisions replayed so far
+	 */
+	public long decisions()
+	{
+		return (decisions);
+	}
+	
+	/**
+	 * Closes the log.
+	 *
+	 * @throws IOException Signals that the log could not be closed
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		channel.close();
+	}
+	
+	/**
+	 * Reads the bound of the next record.
+	 *
+	 * @return The bound, zero for a checkpoint,
+	 * or -1 if the log has no more records
+	 *
+	 * @throws UncheckedIOException Signals that the log
+	 * could not be read
+	 */
+	private int nextBound()
+	{
+		try
+		{
+			fill();
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+		
+		if (!buffer.hasRemaining())
+		{
+			return (-1);
+		}
+		
+		return (InstructionCodec.getVarint(buffer));
+	}
+	
+	/**
+	 * Ensures the buffer holds a whole record, unless the
+	 * end of the log has been reached, by reading more of
+	 * the log if necessary.
+	 *
+	 * @throws IOException Signals that the log could not be read
+	 */
+	private void fill() throws IOException
+	{
+		if (exhausted || buffer.remaining() >= RECORD_SIZE)
+		{
+			return;
+		}
+		
+		buffer.compact();
+		
+		while (buffer.hasRemaining())
+		{
+			if (channel.read(buffer) == -1)
+			{
+				exhausted = true;
+				
+				break;
+			}
+		}
+		
+		buffer.flip();
+	}
+}
@@ -0,0 +1,215 @@
+package procs;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * Random number generator which records every decision drawn from
+ * it to a log, so that the run which drew them can be replayed by
+ * a DecisionPlayer. Given to a CPU, it records every random decision
+ * of the run: where children are spawned, where NOP bombs land, the
+ * kind and position of each mutation, and which Processes swap
+ * instructions.
+ *
+ * Each decision is recorded as the bound from which it was drawn,
+ * which identifies the kind of decision, and the value drawn, both
+ * as variable length integers, so that most decisions take only a
+ * few bytes. At regular intervals the log also records a checkpoint
+ * of the cycle and a checksum of the Core.
+ *
+ * The log begins with a header of a magic number, a version, the
+ * seed of the generator and the number of cycles between checkpoints.
+ * Checkpoints are written as a bound of zero, followed by the cycle
+ * and the checksum as longs.
+ *
+ * @author richpl
+ */
+public class DecisionRecorder extends Random implements Closeable
+{
+	private static final long serialVersionUID = 1L;
+	
+	/**
+	 * Magic number identifying a decision log, "PDEC"
+	 */
+	public static final int MAGIC = 0x50444543;
+	
+	/**
+	 * Version of the log format
+	 */
+	public static final int VERSION = 1;
+	
+	/**
+	 * Default number of cycles between checkpoints
+	 */
+	public static final int CHECKPOINT_INTERVAL = 100;
+	
+	// Size of the buffer holding records not yet written
+	private static final int BUFFER_SIZE = 1 << 16;
+	
+	// Largest number of bytes taken by a record
+	private static final int RECORD_SIZE = 20;
+	
+	// Log to which decisions are appended
+	private transient FileChannel channel;
+	
+	// Buffer holding records not yet written
+	private transient ByteBuffer buffer;
+	
+	// Number of cycles between checkpoints
+	private final int interval;
+	
+	/**
+	 * Constructs a recorder with the default checkpoint interval.
+	 *
+	 * @param file The file to which the log is written
+	 * @param seed The seed of the generator
+	 *
+	 * @throws IOException Signals that the log could not be opened
+	 */
+	public DecisionRecorder(final File file, final long seed)
+		throws IOException
+	{
+		this(file, seed, CHECKPOINT_INTERVAL);
+	}
+	
+	/**
+	 * Constructs a recorder which writes to the specified
+	 * file, replacing any existing contents.
+	 *
+	 * @param file The file to which the log is written
+	 * @param seed The seed of the generator
+	 * @param interval The number of cycles between checkpoints
+	 *
+	 * @throws IOException Signals that the log could not be opened
+	 * @throws NumberFormatException Signals that a non-positive
+	 * interval was specified
+	 */
+	public DecisionRecorder(final File file, final long seed,
+			                final int interval)
+		throws IOException, NumberFormatException
+	{
+		super(seed);
+		
+		if (interval <= 0)
+		{
+			throw new NumberFormatException("Invalid checkpoint interval specified");
+		}
+		
+		this.interval = interval;
+		
+		channel = FileChannel.open(file.toPath(),
+				                   StandardOpenOption.CREATE,
+				                   StandardOpenOption.WRITE,
+				                   StandardOpenOption.TRUNCATE_EXISTING);
+		
+		buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		
+		buffer.putInt(MAGIC);
+		buffer.putInt(VERSION);
+		buffer.putLong(seed);
+		buffer.putInt(interval);
+	}
+	
+	/**
+	 * Draws a decision, recording it in the log.
+	 *
+	 * @throws UncheckedIOException Signals that the log
+	 * could not be written
+	 */
+	@Override
+	public int nextInt(final int bound)
+	{
+		int value = super.nextInt(bound);
+		
+		try
+		{
+			reserve();
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+		
+		InstructionCodec.putVarint(buffer, bound);
+		InstructionCodec.putVarint(buffer, value);
+		
+		return (value);
+	}
+	
+	/**
+	 * Records a checkpoint of the state of the CPU, if one is due
+	 * at the end of the cycle it has just completed.
+	 *
+	 * @param cpu The CPU drawing decisions from this recorder
+	 *
+	 * @throws IOException Signals that the log could not be written
+	 */
+	public void checkpoint(final CPU cpu) throws IOException
+	{
+		if (cpu.cycle() % interval == 0)
+		{
+			reserve();
+			
+			InstructionCodec.putVarint(buffer, 0);
+			buffer.putLong(cpu.cycle());
+			buffer.putLong(cpu.checksum());
+		}
+	}
+	
+	/**
+	 * @return The number of cycles between checkpoints
+	 */
+	public int interval()
+	{
+		return (interval);
+	}
+	
+	/**
+	 * Writes any records not yet written, and closes the log.
+	 *
+	 * @throws IOException Signals that the log could not be written
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		drain();
+		channel.close();
+	}
+	
+	/**
+	 * Ensures there is room in the buffer for another
+	 * record, writing the buffer to the log if necessary.
+	 *
+	 * @throws IOException Signals that the log could not be written
+	 */
+	private void reserve() throws IOException
+	{
+		if (buffer.remaining() < RECORD_SIZE)
+		{
+			drain();
+		}
+	}
+	
+	/**
+	 * Writes the contents of the buffer to the log.
+	 *
+	 * @throws IOException Signals that the log could not be written
+	 */
+	private void drain() throws IOException
+	{
+		buffer.flip();
+		
+		while (buffer.hasRemaining())
+		{
+			channel.write(buffer);
+		}
+		
+		buffer.clear();
+	}
+}
@@ -0,0 +1,549 @@
+package procs;
+
+import java.util.Random;
+
+/**
+ * Checks a candidate engine against a reference engine by running
+ * both, in lockstep, over randomly generated trials. Each trial
+ * innoculates both Cores with the same random genomes, including
+ * every form of JMP instruction, and gives both engines equally
+ * seeded generators, so that any difference in their states is a
+ * difference in behaviour.
+ *
+ * The Processes of the two engines are compared after every cycle,
+ * but the Cores only at intervals, by checksum, so that millions of
+ * cycles can be checked quickly. When the Cores are found to differ,
+ * the trial is run again from the start, comparing every address
+ * after every cycle, to find the first cycle, address and Process
+ * at which the engines diverged.
+ *
+ * @author richpl
+ */
+public class DifferentialFuzzer
+{
+	/**
+	 * Default number of cycles run by each trial
+	 */
+	public static final int CYCLES = 200;
+	
+	/**
+	 * Default largest number of genomes innoculated by each trial
+	 */
+	public static final int GENOMES = 20;
+	
+	/**
+	 * Largest number of instructions in a generated genome
+	 */
+	public static final int MAX_LENGTH = 12;
+	
+	/**
+	 * Default number of cycles between comparisons of the Cores
+	 */
+	public static final int INTERVAL = 25;
+	
+	/**
+	 * Default number of executing Processes at which a trial ends.
+	 * Populations grow exponentially, and the cost of each cycle with
+	 * them, so trials are kept to small populations, in which most
+	 * differences in behaviour appear within a few cycles.
+	 */
+	public static final int POPULATION = 1000;
+	
+	/**
+	 * Constructs the engines to be compared.
+	 */
+	public interface Factory
+	{
+		/**
+		 * @param random The generator from which the engine
+		 * draws every random decision
+		 *
+		 * @return A new engine, innoculated with its ancestor
+		 */
+		public Engine create(Random random);
+	}
+	
+	/**
+	 * Describes the first point at which a candidate
+	 * engine departed from the reference engine.
+	 */
+	public static class Divergence
+	{
+		// Seed of the trial
+		private final long seed;
+		
+		// Cycle after which the engines differed
+		private final long cycle;
+		
+		// First address at which the Cores differed, or -1
+		private final int address;
+		
+		// Position of the first Process that differed, or -1
+		private final int process;
+		
+		// Description of the difference
+		private final String reason;
+		
+		/**
+		 * Constructs a description of a divergence.
+		 *
+		 * @param seed The seed of the trial
+		 * @param cycle The cycle after which the engines differed
+		 * @param address The first address at which the Cores
+		 * differed, or -1 if they did not
+		 * @param process The position of the first Process that
+		 * differed, or -1 if none did
+		 * @param reason A description of the difference
+		 */
+		Divergence(final long seed, final long cycle, final int address,
+				   final int process, final String reason)
+		{
+			this.seed = seed;
+			this.cycle = cycle;
+			this.address = address;
+			this.process = process;
+			this.reason = reason;
+		}
+		
+		/**
+		 * @return The seed with which the trial can be rerun
+		 */
+		public long seed()
+		{
+			return (seed);
+		}
+		
+		/**
+		 * @return The cycle after which the engines differed
+		 */
+		public long cycle()
+		{
+			return (cycle);
+		}
+		
+		/**
+		 * @return The first address at which the Cores
+		 * differed, or -1 if they did not
+		 */
+		public int address()
+		{
+			return (address);
+		}
+		
+		/**
+		 * @return The position of the first Process that
+		 * differed, or -1 if none did
+		 */
+		public int process()
+		{
+			return (process);
+		}
+		
+		/**
+		 * @return A description of the difference
+		 */
+		public String reason()
+		{
+			return (reason);
+		}
+		
+		@Override
+		public String toString()
+		{
+			return ("Divergence in trial " + seed + " after cycle " + cycle +
+					", address " + address + ", process " + process +
+					": " + reason);
+		}
+	}
+	
+	// Engine whose behaviour is taken to be correct
+	private final Factory reference;
+	
+	// Engine checked against the reference
+	private final Factory candidate;
+	
+	// Number of cycles run by each trial
+	private int cycles;
+	
+	// Largest number of genomes innoculated by each trial
+	private int genomes;
+	
+	// Number of cycles between comparisons of the Cores
+	private int interval;
+	
+	// Number of executing Processes at which a trial ends
+	private int population;
+	
+	// Number of cycles run by each engine since construction
+	private long cyclesRun;
+	
+	/**
+	 * Constructs a fuzzer with the default trial parameters.
+	 *
+	 * @param reference Constructs the engine taken to be correct
+	 * @param candidate Constructs the engine to be checked
+	 */
+	public DifferentialFuzzer(final Factory reference, final Factory candidate)
+	{
+		this(reference, candidate, CYCLES, GENOMES, INTERVAL, POPULATION);
+	}
+	
+	/**
+	 * Constructs a fuzzer.
+	 *
+	 * @param reference Constructs the engine taken to be correct
+	 * @param candidate Constructs the engine to be checked
+	 * @param cycles The number of cycles run by each trial
+	 * @param genomes The largest number of genomes innoculated
+	 * by each trial, besides the ancestor
+	 * @param interval The number of cycles between comparisons
+	 * of the Cores
+	 * @param population The number of executing Processes in the
+	 * reference engine at which a trial ends early
+	 *
+	 * @throws NumberFormatException Signals that a non-positive
+	 * number of cycles, interval or population, or a negative
+	 * number of genomes, was specified
+	 */
+	public DifferentialFuzzer(final Factory reference, final Factory candidate,
+			                  final int cycles, final int genomes,
+			                  final int interval, final int population)
+		throws NumberFormatException
+	{
+		if (cycles <= 0 || genomes < 0 || interval <= 0 || population <= 0)
+		{
+			throw new NumberFormatException("Invalid trial parameters specified");
+		}
+		
+		this.reference = reference;
+		this.candidate = candidate;
+		this.cycles = cycles;
+		this.genomes = genomes;
+		this.interval = interval;
+		this.population = population;
+		
+		cyclesRun = 0;
+	}
+	
+	/**
+	 * Runs a number of trials, stopping at the first divergence.
+	 *
+	 * @param seed The seed from which the seed of each trial is drawn
+	 * @param trials The number of trials to run
+	 *
+	 * @return The first divergence found, or null if
+	 * every trial ran identically on both engines
+	 */
+	public Divergence fuzz(final long seed, final int trials)
+	{
+		Random seeds = new Random(seed);
+		
+		for (int trial=0; trial<trials; trial++)
+		{
+			Divergence divergence = trial(seeds.nextLong());
+			
+			if (divergence != null)
+			{
+				return (divergence);
+			}
+		}
+		
+		return (null);
+	}
+	
+	/**
+	 * Runs a single trial, comparing the Cores at intervals and,
+	 * should they differ, running the trial again to find the
+	 * first point of divergence.
+	 *
+	 * @param seed The seed of the trial
+	 *
+	 * @return The first divergence found, or null if the
+	 * trial ran identically on both engines
+	 */
+	public Divergence trial(final long seed)
+	{
+		Divergence divergence = run(seed, interval);
+		
+		if (divergence != null)
+		{
+			// The Cores may have differed before the difference was
+			// seen, so compare them after every cycle to find where
+			Divergence first = run(seed, 1);
+			
+			if (first != null)
+			{
+				divergence = first;
+			}
+		}
+		
+		return (divergence);
+	}
+	
+	/**
+	 * @return The number of cycles run by each engine
+	 * since the fuzzer was constructed
+	 */
+	public long cyclesRun()
+	{
+		return (cyclesRun);
+	}
+	
+	/**
+	 * Runs a trial on both engines.
+	 *
+	 * @param seed The seed of the trial
+	 * @param every The number of cycles between comparisons
+	 * of the Cores. When every cycle is compared, the Cores
+	 * are compared address by address.
+	 *
+	 * @return The first divergence found, or null if the
+	 * trial ran identically on both engines
+	 */
+	private Divergence run(final long seed, final int every)
+	{
+		Random random = new Random(seed);
+		
+		// Each engine draws from its own copy of the same sequence
+		long engineSeed = random.nextLong();
+		
+		Engine expected = reference.create(new Random(engineSeed));
+		Engine actual;
+		
+		try
+		{
+			actual = candidate.create(new Random(engineSeed));
+		}
+		catch (RuntimeException e)
+		{
+			return (new Divergence(seed, 0, -1, -1,
+					               "Candidate failed to start: " + e));
+		}
+		
+		int count = genomes > 0 ? random.nextInt(genomes + 1) : 0;
+		
+		for (int genome=0; genome<count; genome++)
+		{
+			String[] instructions = genome(random);
+			
+			boolean added = expected.immigrate(instructions);
+			
+			if (actual.immigrate(instructions) != added)
+			{
+				return (new Divergence(seed, 0, -1, -1,
+						               "Genome " + genome + (added ? " not" : "") +
+						               " innoculated"));
+			}
+		}
+		
+		Divergence divergence = compare(seed, expected, actual, 0);
+		
+		boolean last = false;
+		
+		for (int cycle=0; !last && divergence==null; cycle++)
+		{
+			expected.execute();
+			
+			try
+			{
+				actual.execute();
+			}
+			catch (RuntimeException e)
+			{
+				return (new Divergence(seed, expected.cycle(), -1, -1,
+						               "Candidate failed: " + e));
+			}
+			
+			cyclesRun++;
+			
+			last = cycle + 1 == cycles ||
+				   expected.processCount() >= population;
+			
+			// Always compare the Cores after the first and
+			// last cycles of the trial
+			boolean due = cycle == 0 || (cycle + 1) % every == 0 || last;
+			
+			divergence = compare(seed, expected, actual, due ? every : 0);
+		}
+		
+		return (divergence);
+	}
+	
+	/**
+	 * Compares the states of two engines.
+	 *
+	 * @param seed The seed of the trial
+	 * @param expected The reference engine
+	 * @param actual The candidate engine
+	 * @param every Zero if the Cores are not to be compared, one
+	 * if they are to be compared address by address, or greater
+	 * than one if they are to be compared by checksum
+	 *
+	 * @return The divergence found, or null if the states match
+	 */
+	private Divergence compare(final long seed, final Engine expected,
+			                   final Engine actual, final int every)
+	{
+		long cycle = expected.cycle();
+		
+		if (actual.cycle() != cycle)
+		{
+			return (new Divergence(seed, cycle, -1, -1,
+					               "Candidate at cycle " + actual.cycle()));
+		}
+		
+		int processes = Math.min(expected.processCount(), actual.processCount());
+		
+		for (int index=0; index<processes; index++)
+		{
+			Process first = expected.process(index);
+			Process second = actual.process(index);
+			
+			if (first.address() != second.address() ||
+				first.ptr() != second.ptr() ||
+				first.length() != second.length() ||
+				first.numExecutions() != second.numExecutions())
+			{
+				return (new Divergence(seed, cycle, firstDifference(expected, actual),
+						               index, "Expected " + describe(first) +
+						               " but found " + describe(second)));
+			}
+		}
+		
+		if (expected.processCount() != actual.processCount())
+		{
+			return (new Divergence(seed, cycle, firstDifference(expected, actual),
+					               processes, "Expected " + expected.processCount() +
+					               " processes but found " + actual.processCount()));
+		}
+		
+		if (every == 1)
+		{
+			int address = firstDifference(expected, actual);
+			
+			if (address != -1)
+			{
+				return (new Divergence(seed, cycle, address, -1,
+						               "Expected \"" + expected.getInstruction(address) +
+						               "\" but found \"" + actual.getInstruction(address) + "\""));
+			}
+		}
+		else if (every > 1 && expected.checksum() != actual.checksum())
+		{
+			return (new Divergence(seed, cycle, -1, -1, "Core checksums differ"));
+		}
+		
+		return (null);
+	}
+	
+	/**
+	 * Finds the first address at which two Cores differ.
+	 *
+	 * @param expected The reference engine
+	 * @param actual The candidate engine
+	 *
+	 * @return The first address whose instructions differ, or -1
+	 * if every address holds the same instruction
+	 */
+	private static int firstDifference(final Engine expected, final Engine actual)
+	{
+		if (expected.size() != actual.size())
+		{
+			return (Math.min(expected.size(), actual.size()));
+		}
+		
+		for (int address=0; address<expected.size(); address++)
+		{
+			if (!expected.getInstruction(address).equals(actual.getInstruction(address)))
+			{
+				return (address);
+			}
+		}
+		
+		return (-1);
+	}
+	
+	/**
+	 * @param process A Process
+	 *
+	 * @return A description of the state of the Process
+	 */
+	private static String describe(final Process process)
+	{
+		return ("process at " + process.address() +
+				" (ptr " + process.ptr() + ", length " + process.length() +
+				", executions " + process.numExecutions() + ")");
+	}
+	
+	/**
+	 * Generates a random genome, drawing on every instruction,
+	 * including jumps of every distance within the genome and
+	 * one beyond it in either direction. Jumps are generated with
+	 * a distance, as the Core creates them by mutation.
+	 *
+	 * @param random The generator from which to draw the genome
+	 *
+	 * @return The ordered list of instructions of the genome
+	 */
+	static String[] genome(final Random random)
+	{
+		String[] genome = new String[1 + random.nextInt(MAX_LENGTH)];
+		
+		for (int index=0; index<genome.length; index++)
+		{
+			switch (random.nextInt(4))
+			{
+				case 0:
+					genome[index] = Instructions.NOP;
+					break;
+				
+				case 1:
+					genome[index] = Instructions.SPW;
+					break;
+				
+				case 2:
+					genome[index] = Instructions.CPN;
+					break;
+				
+				default:
+					int distance = random.nextInt(2 * genome.length + 3) -
+					               genome.length - 1;
+					
+					genome[index] = Instructions.JMP + " " + distance;
+			}
+		}
+		
+		return (genome);
+	}
+	
+	/**
+	 * Checks the CPU against itself, which finds any behaviour
+	 * not determined by the seed of its generator.
+	 *
+	 * @param args The number of trials, and optionally the seed
+	 */
+	public static void main(String[] args)
+	{
+		int trials = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : new Random().nextLong();
+		
+		Factory factory = random -> new CPU(random, new ExactStatistics());
+		
+		DifferentialFuzzer fuzzer = new DifferentialFuzzer(factory, factory);
+		
+		long start = System.nanoTime();
+		
+		Divergence divergence = fuzzer.fuzz(seed, trials);
+		
+		double seconds = (System.nanoTime() - start) / 1e9;
+		
+		System.out.println("Seed " + seed + ": " + fuzzer.cyclesRun() +
+				           " cycles in " + String.format("%.1f", seconds) + "s");
+		
+		if (divergence != null)
+		{
+			System.out.println(divergence);
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package procs;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class DifferentialFuzzerTest 
+{
+	private static final DifferentialFuzzer.Factory REFERENCE = 
+			random -> new CPU(random, new ExactStatistics());
+	
+	@Test
+	public final void testIdentical() 
+	{
+		DifferentialFuzzer fuzzer = 
+				new DifferentialFuzzer(REFERENCE, REFERENCE, 50, 10, 10, 500);
+		
+		assertNull("Identical engines diverged", fuzzer.fuzz(1, 20));
+		assertTrue("No cycles run", fuzzer.cyclesRun() > 0);
+	}
+	
+	@Test
+	public final void testDivergence() 
+	{
+		// Spawning locally places children elsewhere
+		DifferentialFuzzer.Factory candidate = random -> 
+		{
+			CPU cpu = new CPU(random, new ExactStatistics());
+			cpu.setSpawnRange(CPU.SPAWN_RANGE);
+			
+			return (cpu);
+		};
+		
+		DifferentialFuzzer fuzzer = 
+				new DifferentialFuzzer(REFERENCE, candidate, 50, 10, 10, 500);
+		
+		DifferentialFuzzer.Divergence divergence = fuzzer.fuzz(1, 20);
+		
+		assertNotNull("Divergence not found", divergence);
+		assertTrue("Divergence before first cycle", divergence.cycle() > 0);
+		assertTrue("No diverging address", divergence.address() >= 0);
+		
+		// Rerunning the trial finds the same divergence
+		DifferentialFuzzer.Divergence again = fuzzer.trial(divergence.seed());
+		
+		assertEquals("Incorrect cycle", divergence.cycle(), again.cycle());
+		assertEquals("Incorrect address", divergence.address(), again.address());
+	}
+	
+	@Test
+	public final void testGenome() 
+	{
+		Random random = new Random(7);
+		
+		boolean jump = false;
+		
+		for (int index=0; index<100; index++)
+		{
+			String[] genome = DifferentialFuzzer.genome(random);
+			
+			assertTrue("Invalid genome length", genome.length >= 1 && 
+					   genome.length <= DifferentialFuzzer.MAX_LENGTH);
+			
+			for (String instruction: genome)
+			{
+				jump |= instruction.startsWith(Instructions.JMP + " ");
+			}
+		}
+		
+		assertTrue("No jumps generated", jump);
+	}
+}
@@ -0,0 +1,55 @@
+package procs;
+
+/**
+ * Signals that a replayed run has departed from the run recorded
+ * in a decision log, either by drawing a different decision or by
+ * reaching a different state of the Core at a checkpoint.
+ * 
+ * @author richpl
+ */
+public class DivergenceException extends RuntimeException
+{
+	private static final long serialVersionUID = 1L;
+	
+	// Number of decisions replayed before the divergence
+	private final long decision;
+	
+	// Cycle of the last checkpoint passed before the divergence
+	private final long cycle;
+	
+	/**
+	 * Constructs an exception describing a divergence.
+	 * 
+	 * @param message A description of the divergence
+	 * @param decision The number of decisions replayed
+	 * before the divergence
+	 * @param cycle The cycle of the last checkpoint passed
+	 * before the divergence
+	 */
+	public DivergenceException(final String message, final long decision,
+			                   final long cycle)
+	{
+		super(message + " at decision " + decision + 
+			  ", after checkpoint at cycle " + cycle);
+		
+		this.decision = decision;
+		this.cycle = cycle;
+	}
+	
+	/**
+	 * @return The number of decisions replayed before the divergence
+	 */
+	public long decision()
+	{
+		return (decision);
+	}
+	
+	/**
+	 * @return The cycle of the last checkpoint passed
+	 * before the divergence
+	 */
+	public long cycle()
+	{
+		return (cycle);
+	}
+}
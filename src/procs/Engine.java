@@ -0,0 +1,65 @@
+package procs;
+
+/**
+ * Implemented by anything able to run a simulation of Processes
+ * in a Core, so that alternative implementations of the CPU can
+ * be checked against it, cycle by cycle, by a DifferentialFuzzer.
+ * An engine draws every random decision from the generator it was
+ * constructed with, so that two engines given equally seeded
+ * generators can be expected to reach exactly the same states.
+ * 
+ * @author richpl
+ */
+public interface Engine 
+{
+	/**
+	 * Executes a single cycle, allowing each executing
+	 * Process to execute one instruction.
+	 */
+	public void execute();
+	
+	/**
+	 * @return The number of execution cycles completed
+	 */
+	public long cycle();
+	
+	/**
+	 * Innoculates the Core with a genome, at a random address.
+	 * 
+	 * @param genome The ordered list of instructions of the genome
+	 * 
+	 * @return True if the genome was added, or false if
+	 * no room was found for it
+	 */
+	public boolean immigrate(String[] genome);
+	
+	/**
+	 * @return The number of executing Processes
+	 */
+	public int processCount();
+	
+	/**
+	 * @param index The position of the Process in the order in
+	 * which Processes are executed
+	 * 
+	 * @return The executing Process
+	 */
+	public Process process(int index);
+	
+	/**
+	 * @param address The address in the Core
+	 * 
+	 * @return The instruction at the address
+	 */
+	public String getInstruction(int address);
+	
+	/**
+	 * @return The number of addresses in the Core
+	 */
+	public int size();
+	
+	/**
+	 * @return A checksum of the contents of the Core
+	 */
+	public long checksum();
+}
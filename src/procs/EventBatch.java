@@ -0,0 +1,400 @@
+package procs;
+
+import java.util.Arrays;
+
+/**
+ * Accumulates the events occurring during a single execution
+ * cycle, and delivers them to the registered EventListeners at
+ * the end of every cycle. Events are held in primitive arrays
+ * which are reused from one cycle to the next, so that recording
+ * an event does not allocate.
+ *
+ * When no listeners are registered the CPU uses the DISABLED
+ * batch, whose methods do nothing, so that the cost of recording
+ * events is not paid by simulations which do not need them.
+ *
+ * Each event consists of a type, a Core address, a length
+ * and a detail value whose meaning depends on the type. Births
+ * and deaths also carry the hash value of the genome of the 
+ * Process involved, which is zero for all other events:
+ *
+ * BIRTH - the start address and length of the new Process,
+ * with the start address of its parent as the detail.
+ *
+ * DEATH - the start address and length of the dead Process,
+ * with the cause of death as the detail.
+ *
+ * MUTATION - the address and resulting length of the mutant
+ * copy, with the kind of mutation as the detail.
+ *
+ * BOMB - the address targeted by a NOP bomb, with a detail of
+ * one if the bomb landed on an instruction, or an address of -1
+ * and a detail of zero if there was no instruction within range.
+ *
+ * INFECTION - the address and length of a copy made into
+ * the NOP sled of another Process, with the start address of
+ * the parasite as the detail.
+ *
+ * SPAWN - an attempt to spawn a Process, with the address of the
+ * copy (or -1 if no room was found), the length of the parent
+ * and the number of core locations probed as the detail. Spawns
+ * confined to the neighbourhood of the parent give the size of the
+ * neighbourhood searched instead.
+ *
+ * MOVE - the new address and length of a Process moved by
+ * compaction, with its previous address as the detail.
+ *
+ * Each batch also carries measurements of the cycle as a whole:
+ * its duration, the number of Processes stepped, and the number
+ * of genomes registered with the CPU at the end of the cycle.
+ *
+ * @author richpl
+ */
+public class EventBatch
+{
+	/**
+	 * A new Process has been spawned
+	 */
+	public static final int BIRTH = 0;
+	
+	/**
+	 * A Process has been killed
+	 */
+	public static final int DEATH = 1;
+	
+	/**
+	 * A Process was mutated as it was copied
+	 */
+	public static final int MUTATION = 2;
+	
+	/**
+	 * A NOP bomb was launched
+	 */
+	public static final int BOMB = 3;
+	
+	/**
+	 * A Process copied itself into the NOP sled of another
+	 */
+	public static final int INFECTION = 4;
+	
+	/**
+	 * An attempt was made to spawn a Process
+	 */
+	public static final int SPAWN = 5;
+	
+	/**
+	 * A Process was moved to a new address by compaction
+	 */
+	public static final int MOVE = 6;
+	
+	/**
+	 * Death cause: the instruction pointer reached an empty address
+	 */
+	public static final int CAUSE_EMPTY = 0;
+	
+	/**
+	 * Death cause: an unrecognised instruction was executed
+	 */
+	public static final int CAUSE_INVALID = 1;
+	
+	/**
+	 * Death cause: the Process exceeded its lifetime
+	 */
+	public static final int CAUSE_LIFETIME = 2;
+	
+	/**
+	 * Death cause: the Process was evicted by the Reaper
+	 */
+	public static final int CAUSE_REAPED = 3;
+	
+	/**
+	 * Mutation kind: a single instruction was changed
+	 */
+	public static final int MUTATE_CHANGE = 0;
+	
+	/**
+	 * Mutation kind: an instruction was deleted
+	 */
+	public static final int MUTATE_DELETE = 1;
+	
+	/**
+	 * Mutation kind: an instruction was inserted
+	 */
+	public static final int MUTATE_INSERT = 2;
+	
+	/**
+	 * Batch used when no listeners are registered, which
+	 * discards everything recorded against it
+	 */
+	public static final EventBatch DISABLED = new DisabledBatch();
+	
+	// Initial capacity of the event arrays
+	private static final int CAPACITY = 64;
+	
+	// Listeners to which the events are delivered
+	private EventListener[] listeners;
+	
+	// Cycle during which the events occurred
+	private long cycle;
+	
+	// Time at which the cycle started, and its 
+	// duration, in nanoseconds
+	private long start;
+	private long duration;
+	
+	// Number of Processes stepped during the cycle
+	private int processes;
+	
+	// Number of genomes registered at the end of the cycle
+	private int genomes;
+	
+	// Number of events currently held
+	private int size;
+	
+	// Parallel arrays holding the fields of each event
+	private int[] types;
+	private int[] addresses;
+	private int[] lengths;
+	private int[] details;
+	private int[] hashes;
+	
+	/**
+	 * Constructs a new batch which will deliver
+	 * its events to the specified listeners.
+	 *
+	 * @param listeners The listeners to be notified
+	 */
+	public EventBatch(final EventListener[] listeners)
+	{
+		this.listeners = listeners.clone();
+		
+		cycle = 0;
+		size = 0;
+		
+		start = 0;
+		duration = 0;
+		processes = 0;
+		genomes = 0;
+		
+		types = new int[CAPACITY];
+		addresses = new int[CAPACITY];
+		lengths = new int[CAPACITY];
+		details = new int[CAPACITY];
+		hashes = new int[CAPACITY];
+	}
+	
+	/**
+	 * Records a new event in the batch.
+	 *
+	 * @param type The type of the event
+	 * @param address The Core address at which the event occurred
+	 * @param length The length of the Process involved, if any
+	 * @param detail Additional detail, depending on the event type
+	 */
+	public void record(final int type, final int address,
+			           final int length, final int detail)
+	{
+		record(type, address, length, detail, 0);
+	}
+	
+	/**
+	 * Records a new event involving a genome in the batch.
+	 *
+	 * @param type The type of the event
+	 * @param address The Core address at which the event occurred
+	 * @param length The length of the Process involved
+	 * @param detail Additional detail, depending on the event type
+	 * @param genome The hash value of the genome involved
+	 */
+	public void record(final int type, final int address,
+			           final int length, final int detail,
+			           final int genome)
+	{
+		if (size == types.length)
+		{
+			int capacity = size * 2;
+			
+			types = Arrays.copyOf(types, capacity);
+			addresses = Arrays.copyOf(addresses, capacity);
+			lengths = Arrays.copyOf(lengths, capacity);
+			details = Arrays.copyOf(details, capacity);
+			hashes = Arrays.copyOf(hashes, capacity);
+		}
+		
+		types[size] = type;
+		addresses[size] = address;
+		lengths[size] = length;
+		details[size] = detail;
+		hashes[size] = genome;
+		
+		size++;
+	}
+	
+	/**
+	 * Marks the start of an execution cycle, so 
+	 * that its duration can be measured.
+	 */
+	public void begin()
+	{
+		start = System.nanoTime();
+	}
+	
+	/**
+	 * Delivers the recorded events to each listener, then
+	 * empties the batch ready for the next cycle.
+	 *
+	 * @param cycle The cycle during which the events occurred
+	 * @param processes The number of Processes stepped during
+	 * the cycle
+	 * @param genomes The number of genomes registered at the
+	 * end of the cycle
+	 */
+	public void flush(final long cycle, final int processes,
+			          final int genomes)
+	{
+		this.cycle = cycle;
+		this.processes = processes;
+		this.genomes = genomes;
+		
+		duration = System.nanoTime() - start;
+		
+		for (EventListener listener: listeners)
+		{
+			listener.eventsOccurred(this);
+		}
+		
+		size = 0;
+	}
+	
+	/**
+	 * @return The cycle during which the events occurred
+	 */
+	public long cycle()
+	{
+		return (cycle);
+	}
+	
+	/**
+	 * @return The duration of the cycle, in nanoseconds
+	 */
+	public long duration()
+	{
+		return (duration);
+	}
+	
+	/**
+	 * @return The number of Processes stepped during the cycle
+	 */
+	public int processes()
+	{
+		return (processes);
+	}
+	
+	/**
+	 * @return The number of genomes registered at the end 
+	 * of the cycle
+	 */
+	public int genomes()
+	{
+		return (genomes);
+	}
+	
+	/**
+	 * @return The number of events in the batch
+	 */
+	public int size()
+	{
+		return (size);
+	}
+	
+	/**
+	 * @param index The position of the event within the batch
+	 *
+	 * @return The type of the event
+	 */
+	public int type(final int index)
+	{
+		return (types[index]);
+	}
+	
+	/**
+	 * @param index The position of the event within the batch
+	 *
+	 * @return The Core address at which the event occurred
+	 */
+	public int address(final int index)
+	{
+		return (addresses[index]);
+	}
+	
+	/**
+	 * @param index The position of the event within the batch
+	 *
+	 * @return The length of the Process involved in the event
+	 */
+	public int length(final int index)
+	{
+		return (lengths[index]);
+	}
+	
+	/**
+	 * @param index The position of the event within the batch
+	 *
+	 * @return The detail value of the event
+	 */
+	public int detail(final int index)
+	{
+		return (details[index]);
+	}
+	
+	/**
+	 * @param index The position of the event within the batch
+	 *
+	 * @return The hash value of the genome involved in the event,
+	 * or zero if no genome was involved
+	 */
+	public int genome(final int index)
+	{
+		return (hashes[index]);
+	}
+	
+	/**
+	 * Batch which ignores all events, used when
+	 * there are no listeners to receive them.
+	 */
+	private static class DisabledBatch extends EventBatch
+	{
+		private DisabledBatch()
+		{
+			super(new EventListener[0]);
+		}
+		
+		@Override
+		public void record(final int type, final int address,
+				           final int length, final int detail)
+		{
+			// Nothing is listening
+		}
+		
+		@Override
+		public void record(final int type, final int address,
+				           final int length, final int detail,
+				           final int genome)
+		{
+			// Nothing is listening
+		}
+		
+		@Override
+		public void begin()
+		{
+			// Nothing is listening
+		}
+		
+		@Override
+		public void flush(final long cycle, final int processes,
+				          final int genomes)
+		{
+			// Nothing is listening
+		}
+	}
+}
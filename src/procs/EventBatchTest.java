@@ -0,0 +1,94 @@
+package procs;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class EventBatchTest
+{
+	private String[] ancestor =
+		{Instructions.NOP, Instructions.NOP, Instructions.SPW,
+		 Instructions.NOP, Instructions.NOP};
+	
+	private final int CORE_SIZE = 20;
+	
+	// Number of events seen by the listener, and the
+	// number of batches in which they arrived
+	private int eventCount;
+	private int batchCount;
+	
+	// Type of the last event delivered
+	private int lastType;
+	
+	private EventBatch batch;
+	
+	@Before
+	public void setUp() throws Exception
+	{
+		eventCount = 0;
+		batchCount = 0;
+		
+		EventListener listener = new EventListener()
+		{
+			@Override
+			public void eventsOccurred(EventBatch batch)
+			{
+				batchCount++;
+				eventCount += batch.size();
+				lastType = batch.type(batch.size()-1);
+			}
+		};
+		
+		batch = new EventBatch(new EventListener[] {listener});
+	}
+	
+	@Test
+	public final void testFlush()
+	{
+		// Record more events than the initial capacity
+		for (int index=0; index<100; index++)
+		{
+			batch.record(EventBatch.BOMB, index, 0, 1);
+		}
+		
+		batch.record(EventBatch.DEATH, 5, 5, EventBatch.CAUSE_LIFETIME);
+		
+		assertEquals("Incorrect event count", 101, batch.size());
+		assertEquals("Incorrect address", 99, batch.address(99));
+		
+		batch.flush(7, 2, 1);
+		
+		assertEquals("Events not delivered", 101, eventCount);
+		assertEquals("Events not batched", 1, batchCount);
+		assertEquals("Incorrect event type", EventBatch.DEATH, lastType);
+		assertEquals("Incorrect cycle", 7, batch.cycle());
+		assertEquals("Incorrect process count", 2, batch.processes());
+		assertEquals("Batch not emptied", 0, batch.size());
+	}
+	
+	@Test
+	public final void testDisabled()
+	{
+		EventBatch.DISABLED.record(EventBatch.BIRTH, 0, 5, 0);
+		
+		assertEquals("Disabled batch recorded event",
+				     0, EventBatch.DISABLED.size());
+	}
+	
+	@Test
+	public final void testMutationRecorded()
+	{
+		// Every copy will be mutated
+		Core core = new Core(CORE_SIZE, 100);
+		core.setEvents(batch);
+		
+		Process process = new Process(0, ancestor.length);
+		core.addProcess(ancestor, 0, process);
+		
+		batch.flush(1, 1, 1);
+		
+		assertEquals("Mutation not recorded", 1, eventCount);
+		assertEquals("Incorrect event type", EventBatch.MUTATION, lastType);
+	}
+}
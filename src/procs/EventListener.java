@@ -0,0 +1,23 @@
+package procs;
+
+/**
+ * Implemented by analysis tools that wish to be told about
+ * births, deaths, mutations, NOP bombs and parasitic infections
+ * occurring within the Core. Listeners are registered when the
+ * CPU is constructed, and are handed all of the events from an
+ * execution cycle in a single batch at the end of that cycle.
+ *
+ * @author richpl
+ */
+public interface EventListener
+{
+	/**
+	 * Called at the end of each execution cycle, even if
+	 * no events occurred during it. The batch is reused by
+	 * the CPU, so its contents must be consumed before
+	 * this method returns.
+	 *
+	 * @param batch The events which occurred during the cycle
+	 */
+	public void eventsOccurred(EventBatch batch);
+}
@@ -0,0 +1,169 @@
+package procs;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Genome statistics which hold every genome that has been born,
+ * together with an exact Census of the population of each.
+ * Memory use grows with the total size of the distinct genomes,
+ * each of which is held once in a packed GenomePool.
+ * 
+ * @author richpl
+ */
+public class ExactStatistics implements GenomeStatistics
+{
+	// Pool holding the instructions of unique Processes
+	private GenomePool pool;
+	
+	// Id within the pool of each genome, keyed by genome hash
+	private IntMap ids;
+	
+	// Hash value of each genome, indexed by id within the pool
+	private int[] hashes;
+	
+	// Census of the population size of unique processes
+	private Census population;
+	
+	/**
+	 * Constructs empty statistics.
+	 */
+	public ExactStatistics()
+	{
+		pool = new GenomePool();
+		ids = new IntMap();
+		hashes = new int[64];
+		
+		population = new Census();
+	}
+	
+	@Override
+	public void birth(int hashVal, GenomeView genome) 
+	{
+		// Only pool the instructions of genomes not seen before
+		if (!ids.containsKey(hashVal))
+		{
+			int id = pool.intern(genome);
+			
+			if (id == hashes.length)
+			{
+				hashes = Arrays.copyOf(hashes, id * 2);
+			}
+			
+			hashes[id] = hashVal;
+			ids.put(hashVal, id);
+		}
+		
+		population.increment(hashVal);
+	}
+	
+	@Override
+	public void death(int hashVal) 
+	{
+		population.decrement(hashVal);
+	}
+	
+	@Override
+	public void endCycle(long cycle) 
+	{
+		// Nothing to do, all statistics are exact
+	}
+	
+	@Override
+	public int genomeCount() 
+	{
+		return (ids.size());
+	}
+	
+	@Override
+	public int liveGenomes() 
+	{
+		return (population.liveGenomes());
+	}
+	
+	@Override
+	public int maxPopulation()
+	{
+		return (population.maxPopulation());
+	}
+	
+	@Override
+	public String[] topGenomes(int number) 
+	{
+		int[] top = population.top(number);
+		String[] topGenomes = new String[top.length];
+		
+		for (int index=0; index<top.length; index++)
+		{
+			topGenomes[index] = population.population(top[index]) + 
+					            ", " + 
+					            Arrays.deepToString(instructions(top[index]));
+		}
+		
+		return (topGenomes);
+	}
+	
+	/**
+	 * Returns the instructions of a genome.
+	 *
+	 * @param hashVal The hash value of the genome
+	 *
+	 * @return The ordered list of instructions, or null
+	 * if the genome has never been born
+	 */
+	public String[] instructions(final int hashVal)
+	{
+		int id = ids.get(hashVal);
+		
+		return (id == IntMap.MISSING ? null : pool.instructions(id));
+	}
+	
+	/**
+	 * @return The pool holding the instructions of each genome
+	 */
+	public GenomePool pool()
+	{
+		return (pool);
+	}
+	
+	@Override
+	public void prettyPrintGenomes() 
+	{
+		for (int id=0; id<pool.size(); id++)
+		{
+			System.out.print(hashes[id]);
+			System.out.print(": ");
+			System.out.println(Arrays.deepToString(pool.instructions(id)));
+		}
+	}
+	
+	@Override
+	public void prettyPrintPopulation() 
+	{
+		Set<Map.Entry<Integer, Integer>> entrySet = population.entrySet();
+		Iterator<Map.Entry<Integer, Integer>> iter = entrySet.iterator();
+		
+		while (iter.hasNext())
+		{
+			Map.Entry<Integer, Integer> entry = iter.next();
+			
+			System.out.print(entry.getKey());
+			System.out.print(": ");
+			System.out.println(entry.getValue());
+		}
+	}
+	
+	@Override
+	public void prettyPrintMetrics() 
+	{
+		for (int id=0; id<pool.size(); id++)
+		{
+			System.out.print(hashes[id]);
+			System.out.print(": ");
+			System.out.print(population.population(hashes[id]) + ", ");
+			System.out.println(Arrays.deepToString(pool.instructions(id)));
+		}
+	}
+}
@@ -0,0 +1,485 @@
+package procs;
+
+import java.util.Arrays;
+
+/**
+ * Counts the work done by a CPU as it executes: the number of times
+ * each opcode is executed and, for each genome, the instructions its
+ * Processes execute, the spawns they attempt and achieve, the NOP
+ * bombs they fire and land, and the deaths they suffer by cause.
+ * Each genome is given a compact id in order of first appearance, and
+ * each Process carries the id of the genome it was born with, so that
+ * the counters can be held in primitive arrays indexed by opcode and
+ * genome id, and updated without any lookup as each Process steps.
+ *
+ * The counters belong to the thread running the CPU. Other threads,
+ * such as those polling a monitor, read them through Snapshots, which
+ * are published at regular intervals and never change once published.
+ * Each island of an Archipelago has a CPU, and so a profile, of its
+ * own, so the counters are never shared between threads.
+ *
+ * @author richpl
+ */
+public class ExecutionProfile
+{
+	/**
+	 * Opcode of an empty address, which kills the Process reaching it
+	 */
+	public static final int EMPTY = 0;
+	
+	/**
+	 * Opcode of the NOP instruction
+	 */
+	public static final int NOP = 1;
+	
+	/**
+	 * Opcode of the JMP instruction
+	 */
+	public static final int JMP = 2;
+	
+	/**
+	 * Opcode of the SPW instruction
+	 */
+	public static final int SPW = 3;
+	
+	/**
+	 * Opcode of the CPN instruction
+	 */
+	public static final int CPN = 4;
+	
+	/**
+	 * Opcode of any other instruction, which
+	 * kills the Process executing it
+	 */
+	public static final int INVALID = 5;
+	
+	/**
+	 * Number of opcodes
+	 */
+	public static final int OPCODES = 6;
+	
+	/**
+	 * Number of causes of death, as given by EventBatch
+	 */
+	public static final int CAUSES = 4;
+	
+	/**
+	 * Default number of cycles between published snapshots
+	 */
+	public static final int PUBLISH_INTERVAL = 100;
+	
+	// Initial number of genomes for which there is room
+	private static final int CAPACITY = 64;
+	
+	// Number of times each opcode has been executed
+	private long[] opcodes;
+	
+	// Id of each genome, keyed by genome hash
+	private IntMap ids;
+	
+	// Hash of each genome, indexed by id
+	private int[] hashes;
+	
+	// Number of genomes given an id
+	private int genomes;
+	
+	// Counters of each genome, indexed by id
+	private long[] instructions;
+	private long[] spawnsAttempted;
+	private long[] spawnsSucceeded;
+	private long[] bombsFired;
+	private long[] bombsLanded;
+	
+	// Deaths of each genome, indexed by cause and then by id
+	private long[][] deaths;
+	
+	// Number of cycles between published snapshots
+	private int interval;
+	
+	// Most recently published snapshot
+	private volatile Snapshot published;
+	
+	/**
+	 * An unchanging copy of the counters of a profile.
+	 */
+	public static class Snapshot
+	{
+		// Cycle at the end of which the copy was taken
+		private final long cycle;
+		
+		// Copies of the counters of the profile
+		private final long[] opcodes;
+		private final int[] hashes;
+		private final long[] instructions;
+		private final long[] spawnsAttempted;
+		private final long[] spawnsSucceeded;
+		private final long[] bombsFired;
+		private final long[] bombsLanded;
+		private final long[][] deaths;
+		
+		/**
+		 * Copies the counters of a profile.
+		 *
+		 * @param profile The profile to be copied
+		 * @param cycle The cycle at the end of which
+		 * the copy is taken
+		 */
+		private Snapshot(final ExecutionProfile profile, final long cycle)
+		{
+			int genomes = profile.genomes;
+			
+			this.cycle = cycle;
+			
+			opcodes = profile.opcodes.clone();
+			hashes = Arrays.copyOf(profile.hashes, genomes);
+			instructions = Arrays.copyOf(profile.instructions, genomes);
+			spawnsAttempted = Arrays.copyOf(profile.spawnsAttempted, genomes);
+			spawnsSucceeded = Arrays.copyOf(profile.spawnsSucceeded, genomes);
+			bombsFired = Arrays.copyOf(profile.bombsFired, genomes);
+			bombsLanded = Arrays.copyOf(profile.bombsLanded, genomes);
+			
+			deaths = new long[CAUSES][];
+			
+			for (int cause=0; cause<CAUSES; cause++)
+			{
+				deaths[cause] = Arrays.copyOf(profile.deaths[cause], genomes);
+			}
+		}
+		
+		/**
+		 * @return The cycle at the end of which the snapshot was taken
+		 */
+		public long cycle()
+		{
+			return (cycle);
+		}
+		
+		/**
+		 * @param opcode The opcode, such as NOP
+		 *
+		 * @return The number of times the opcode has been executed
+		 */
+		public long executions(final int opcode)
+		{
+			return (opcodes[opcode]);
+		}
+		
+		/**
+		 * @return The number of genomes profiled, whose
+		 * ids run from zero up to this number
+		 */
+		public int genomes()
+		{
+			return (hashes.length);
+		}
+		
+		/**
+		 * @param id The id of the genome
+		 *
+		 * @return The hash value of the genome
+		 */
+		public int hash(final int id)
+		{
+			return (hashes[id]);
+		}
+		
+		/**
+		 * @param id The id of the genome
+		 *
+		 * @return The number of instructions executed
+		 * by Processes born with the genome
+		 */
+		public long instructions(final int id)
+		{
+			return (instructions[id]);
+		}
+		
+		/**
+		 * @param id The id of the genome
+		 *
+		 * @return The number of SPW instructions executed
+		 * by Processes born with the genome
+		 */
+		public long spawnsAttempted(final int id)
+		{
+			return (spawnsAttempted[id]);
+		}
+		
+		/**
+		 * @param id The id of the genome
+		 *
+		 * @return The number of those SPW instructions
+		 * which created a new Process
+		 */
+		public long spawnsSucceeded(final int id)
+		{
+			return (spawnsSucceeded[id]);
+		}
+		
+		/**
+		 * @param id The id of the genome
+		 *
+		 * @return The number of CPN instructions executed
+		 * by Processes born with the genome
+		 */
+		public long bombsFired(final int id)
+		{
+			return (bombsFired[id]);
+		}
+		
+		/**
+		 * @param id The id of the genome
+		 *
+		 * @return The number of those NOP bombs
+		 * which landed on an instruction
+		 */
+		public long bombsLanded(final int id)
+		{
+			return (bombsLanded[id]);
+		}
+		
+		/**
+		 * @param id The id of the genome
+		 * @param cause The cause of death, such as
+		 * EventBatch.CAUSE_LIFETIME
+		 *
+		 * @return The number of Processes born with the
+		 * genome which died of the cause
+		 */
+		public long deaths(final int id, final int cause)
+		{
+			return (deaths[cause][id]);
+		}
+		
+		/**
+		 * Returns the genomes which have executed the most
+		 * instructions, and so consumed most of the CPU.
+		 *
+		 * @param number The maximum number of genomes to return
+		 *
+		 * @return The ids of the genomes, busiest first
+		 */
+		public int[] busiest(final int number)
+		{
+			Integer[] order = new Integer[hashes.length];
+			
+			for (int id=0; id<order.length; id++)
+			{
+				order[id] = id;
+			}
+			
+			Arrays.sort(order, (first, second) ->
+					Long.compare(instructions[second], instructions[first]));
+			
+			int[] busiest = new int[Math.min(number, order.length)];
+			
+			for (int index=0; index<busiest.length; index++)
+			{
+				busiest[index] = order[index];
+			}
+			
+			return (busiest);
+		}
+	}
+	
+	/**
+	 * Constructs an empty profile, publishing snapshots
+	 * at the default interval.
+	 */
+	public ExecutionProfile()
+	{
+		this(PUBLISH_INTERVAL);
+	}
+	
+	/**
+	 * Constructs an empty profile.
+	 *
+	 * @param interval The number of cycles between published snapshots
+	 *
+	 * @throws NumberFormatException Signals that a non-positive
+	 * interval was specified
+	 */
+	public ExecutionProfile(final int interval) throws NumberFormatException
+	{
+		if (interval <= 0)
+		{
+			throw new NumberFormatException("Invalid publish interval specified");
+		}
+		
+		this.interval = interval;
+		
+		opcodes = new long[OPCODES];
+		
+		ids = new IntMap();
+		hashes = new int[CAPACITY];
+		genomes = 0;
+		
+		instructions = new long[CAPACITY];
+		spawnsAttempted = new long[CAPACITY];
+		spawnsSucceeded = new long[CAPACITY];
+		bombsFired = new long[CAPACITY];
+		bombsLanded = new long[CAPACITY];
+		
+		deaths = new long[CAUSES][CAPACITY];
+		
+		published = new Snapshot(this, 0);
+	}
+	
+	/**
+	 * Records the birth of a Process, giving it the id of its genome.
+	 *
+	 * @param process The newly born Process
+	 * @param hashVal The hash value of its genome
+	 */
+	public void born(final Process process, final int hashVal)
+	{
+		int id = ids.get(hashVal);
+		
+		if (id == IntMap.MISSING)
+		{
+			id = genomes++;
+			
+			if (id == hashes.length)
+			{
+				grow();
+			}
+			
+			hashes[id] = hashVal;
+			ids.put(hashVal, id);
+		}
+		
+		process.setGenomeId(id);
+	}
+	
+	/**
+	 * Records the execution of an instruction.
+	 *
+	 * @param process The Process executing the instruction
+	 * @param opcode The opcode of the instruction
+	 */
+	public void executed(final Process process, final int opcode)
+	{
+		opcodes[opcode]++;
+		
+		int id = process.genomeId();
+		
+		if (id >= 0)
+		{
+			instructions[id]++;
+			
+			if (opcode == SPW)
+			{
+				spawnsAttempted[id]++;
+			}
+		}
+	}
+	
+	/**
+	 * Records the outcome of a spawn.
+	 *
+	 * @param parent The Process which executed the SPW instruction
+	 * @param success True if a new Process was created
+	 */
+	public void spawned(final Process parent, final boolean success)
+	{
+		int id = parent.genomeId();
+		
+		if (id >= 0 && success)
+		{
+			spawnsSucceeded[id]++;
+		}
+	}
+	
+	/**
+	 * Records the firing of a NOP bomb.
+	 *
+	 * @param process The Process which executed the CPN instruction
+	 * @param landed True if the bomb landed on an instruction
+	 */
+	public void bombed(final Process process, final boolean landed)
+	{
+		int id = process.genomeId();
+		
+		if (id >= 0)
+		{
+			bombsFired[id]++;
+			
+			if (landed)
+			{
+				bombsLanded[id]++;
+			}
+		}
+	}
+	
+	/**
+	 * Records the death of a Process.
+	 *
+	 * @param process The Process which died
+	 * @param cause The cause of death, such as EventBatch.CAUSE_EMPTY
+	 */
+	public void died(final Process process, final int cause)
+	{
+		int id = process.genomeId();
+		
+		if (id >= 0)
+		{
+			deaths[cause][id]++;
+		}
+	}
+	
+	/**
+	 * Marks the end of a cycle, publishing a snapshot
+	 * of the counters if one is due.
+	 *
+	 * @param cycle The cycle just completed
+	 */
+	public void endCycle(final long cycle)
+	{
+		if (cycle % interval == 0)
+		{
+			published = new Snapshot(this, cycle);
+		}
+	}
+	
+	/**
+	 * Copies the counters as they stand. To be called only
+	 * by the thread running the CPU.
+	 *
+	 * @param cycle The number of cycles completed
+	 *
+	 * @return A snapshot of the counters
+	 */
+	public Snapshot snapshot(final long cycle)
+	{
+		return (new Snapshot(this, cycle));
+	}
+	
+	/**
+	 * @return The most recently published snapshot,
+	 * which may be read by any thread
+	 */
+	public Snapshot published()
+	{
+		return (published);
+	}
+	
+	/**
+	 * Doubles the number of genomes for which there is room.
+	 */
+	private void grow()
+	{
+		int capacity = hashes.length * 2;
+		
+		hashes = Arrays.copyOf(hashes, capacity);
+		instructions = Arrays.copyOf(instructions, capacity);
+		spawnsAttempted = Arrays.copyOf(spawnsAttempted, capacity);
+		spawnsSucceeded = Arrays.copyOf(spawnsSucceeded, capacity);
+		bombsFired = Arrays.copyOf(bombsFired, capacity);
+		bombsLanded = Arrays.copyOf(bombsLanded, capacity);
+		
+		for (int cause=0; cause<CAUSES; cause++)
+		{
+			deaths[cause] = Arrays.copyOf(deaths[cause], capacity);
+		}
+	}
+}
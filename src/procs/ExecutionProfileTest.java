@@ -0,0 +1,86 @@
+package procs;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class ExecutionProfileTest 
+{
+	@Test
+	public final void testCounts() 
+	{
+		Simulation simulation = new Simulation(1);
+		ExecutionProfile profile = new ExecutionProfile(10);
+		simulation.cpu().setProfile(profile);
+		
+		simulation.run(StopCondition.cycles(20));
+		
+		ExecutionProfile.Snapshot snapshot = profile.snapshot(20);
+		assertTrue("Too few genomes", snapshot.genomes() > 0);
+		
+		// Every instruction executed is counted once by
+		// opcode and once by genome
+		long byOpcode = 0;
+		
+		for (int opcode=0; opcode<ExecutionProfile.OPCODES; opcode++)
+		{
+			byOpcode += snapshot.executions(opcode);
+		}
+		
+		long byGenome = 0;
+		
+		for (int id=0; id<snapshot.genomes(); id++)
+		{
+			byGenome += snapshot.instructions(id);
+			
+			assertTrue("Too many spawns", 
+					   snapshot.spawnsSucceeded(id) <= snapshot.spawnsAttempted(id));
+			assertTrue("Too many bombs", 
+					   snapshot.bombsLanded(id) <= snapshot.bombsFired(id));
+		}
+		
+		assertTrue("No instructions counted", byOpcode > 0);
+		assertEquals("Incorrect instruction count", byOpcode, byGenome);
+		assertTrue("No NOPs counted", 
+				   snapshot.executions(ExecutionProfile.NOP) > 0);
+		
+		// The ancestor is the first genome, and the first to spawn
+		assertTrue("Ancestor did not spawn", snapshot.spawnsSucceeded(0) > 0);
+		assertEquals("Incorrect busiest genome", 0, snapshot.busiest(1)[0]);
+	}
+	
+	@Test
+	public final void testPublished() 
+	{
+		Simulation simulation = new Simulation(1);
+		ExecutionProfile profile = new ExecutionProfile(10);
+		simulation.cpu().setProfile(profile);
+		
+		assertEquals("Incorrect cycle", 0, profile.published().cycle());
+		
+		simulation.run(StopCondition.cycles(15));
+		
+		ExecutionProfile.Snapshot published = profile.published();
+		assertEquals("Incorrect cycle", 10, published.cycle());
+		
+		simulation.run(StopCondition.cycles(20));
+		
+		// A published snapshot never changes
+		assertEquals("Incorrect cycle", 20, profile.published().cycle());
+		assertTrue("Snapshot changed", 
+				   published.instructions(0) < profile.published().instructions(0));
+	}
+	
+	@Test
+	public final void testInterval() 
+	{
+		try
+		{
+			new ExecutionProfile(0);
+			fail("Expected NumberFormatException");
+		}
+		catch (NumberFormatException e)
+		{
+		}
+	}
+}
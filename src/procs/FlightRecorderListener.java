@@ -0,0 +1,107 @@
+package procs;
+
+/**
+ * Listener which summarises each execution cycle as a 
+ * Flight Recorder CycleEvent. The batch is only examined
+ * when a recording has the event enabled, so the listener 
+ * costs very little when Flight Recorder is not running.
+ * 
+ * @author richpl
+ */
+public class FlightRecorderListener implements EventListener
+{
+	@Override
+	public void eventsOccurred(EventBatch batch)
+	{
+		CycleEvent event = new CycleEvent();
+		
+		if (!event.shouldCommit())
+		{
+			return;
+		}
+		
+		event.cycle = batch.cycle();
+		event.cycleDuration = batch.duration();
+		event.processesStepped = batch.processes();
+		event.genomes = batch.genomes();
+		
+		for (int index=0; index<batch.size(); index++)
+		{
+			int detail = batch.detail(index);
+			
+			switch (batch.type(index))
+			{
+				case EventBatch.SPAWN:
+					
+					event.spawnAttempts++;
+					event.spawnProbes += detail;
+					
+					if (batch.address(index) != -1)
+					{
+						event.spawnSuccesses++;
+					}
+					
+					break;
+					
+				case EventBatch.INFECTION:
+					
+					event.infections++;
+					
+					break;
+					
+				case EventBatch.BOMB:
+					
+					event.bombsFired++;
+					event.bombsLanded += detail;
+					
+					break;
+					
+				case EventBatch.MUTATION:
+					
+					if (detail == EventBatch.MUTATE_CHANGE)
+					{
+						event.mutationsChanged++;
+					}
+					else if (detail == EventBatch.MUTATE_DELETE)
+					{
+						event.mutationsDeleted++;
+					}
+					else
+					{
+						event.mutationsInserted++;
+					}
+					
+					break;
+					
+				case EventBatch.DEATH:
+					
+					if (detail == EventBatch.CAUSE_EMPTY)
+					{
+						event.deathsEmpty++;
+					}
+					else if (detail == EventBatch.CAUSE_INVALID)
+					{
+						event.deathsInvalid++;
+					}
+					else if (detail == EventBatch.CAUSE_LIFETIME)
+					{
+						event.deathsLifetime++;
+					}
+					else
+					{
+						event.deathsReaped++;
+					}
+					
+					break;
+					
+				default:
+					
+					// Births are counted through spawn successes
+					
+					break;
+			}
+		}
+		
+		event.commit();
+	}
+}
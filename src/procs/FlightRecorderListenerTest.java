@@ -0,0 +1,104 @@
+package procs;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.Test;
+
+public class FlightRecorderListenerTest
+{
+	@Test
+	public final void testCycleEvent() throws Exception
+	{
+		EventBatch batch = new EventBatch
+			(new EventListener[] {new FlightRecorderListener()});
+		
+		// Nothing is committed unless a recording is running
+		batch.begin();
+		batch.record(EventBatch.SPAWN, 10, 5, 3);
+		batch.flush(1, 1, 1);
+		
+		File file = File.createTempFile("cycles", ".jfr");
+		
+		try (Recording recording = new Recording())
+		{
+			recording.enable("procs.Cycle");
+			recording.start();
+			
+			batch.begin();
+			
+			// Three spawn attempts, two of which succeed
+			batch.record(EventBatch.SPAWN, 10, 5, 3);
+			batch.record(EventBatch.SPAWN, -1, 5, 40);
+			batch.record(EventBatch.SPAWN, 20, 5, 1);
+			batch.record(EventBatch.BIRTH, 10, 5, 0, 99);
+			batch.record(EventBatch.BIRTH, 20, 5, 0, 99);
+			
+			batch.record(EventBatch.INFECTION, 30, 5, 0);
+			batch.record(EventBatch.BOMB, 40, 0, 1);
+			batch.record(EventBatch.BOMB, -1, 0, 0);
+			
+			batch.record(EventBatch.MUTATION, 10, 5, EventBatch.MUTATE_CHANGE);
+			batch.record(EventBatch.MUTATION, 20, 4, EventBatch.MUTATE_DELETE);
+			batch.record(EventBatch.MUTATION, 50, 6, EventBatch.MUTATE_INSERT);
+			batch.record(EventBatch.MUTATION, 60, 6, EventBatch.MUTATE_INSERT);
+			
+			// Deaths by each cause
+			batch.record(EventBatch.DEATH, 70, 5, EventBatch.CAUSE_EMPTY, 7);
+			batch.record(EventBatch.DEATH, 71, 5, EventBatch.CAUSE_INVALID, 7);
+			batch.record(EventBatch.DEATH, 72, 5, EventBatch.CAUSE_INVALID, 7);
+			batch.record(EventBatch.DEATH, 73, 5, EventBatch.CAUSE_LIFETIME, 7);
+			batch.record(EventBatch.DEATH, 74, 5, EventBatch.CAUSE_REAPED, 7);
+			batch.record(EventBatch.DEATH, 75, 5, EventBatch.CAUSE_REAPED, 7);
+			batch.record(EventBatch.DEATH, 76, 5, EventBatch.CAUSE_REAPED, 7);
+			
+			batch.flush(42, 17, 5);
+			
+			recording.stop();
+			recording.dump(file.toPath());
+		}
+		
+		try
+		{
+			List<RecordedEvent> events = RecordingFile.readAllEvents(file.toPath());
+			
+			assertEquals("Incorrect number of events", 1, events.size());
+			
+			RecordedEvent event = events.get(0);
+			
+			assertEquals("Incorrect event", "procs.Cycle",
+					     event.getEventType().getName());
+			
+			assertEquals("Incorrect cycle", 42, event.getLong("cycle"));
+			assertEquals("Incorrect processes", 17, event.getInt("processesStepped"));
+			assertEquals("Incorrect genomes", 5, event.getInt("genomes"));
+			
+			assertEquals("Incorrect spawn attempts", 3, event.getInt("spawnAttempts"));
+			assertEquals("Incorrect spawn successes", 2, event.getInt("spawnSuccesses"));
+			assertEquals("Incorrect spawn probes", 44, event.getInt("spawnProbes"));
+			
+			assertEquals("Incorrect infections", 1, event.getInt("infections"));
+			assertEquals("Incorrect bombs fired", 2, event.getInt("bombsFired"));
+			assertEquals("Incorrect bombs landed", 1, event.getInt("bombsLanded"));
+			
+			assertEquals("Incorrect changes", 1, event.getInt("mutationsChanged"));
+			assertEquals("Incorrect deletions", 1, event.getInt("mutationsDeleted"));
+			assertEquals("Incorrect insertions", 2, event.getInt("mutationsInserted"));
+			
+			assertEquals("Incorrect empty deaths", 1, event.getInt("deathsEmpty"));
+			assertEquals("Incorrect invalid deaths", 2, event.getInt("deathsInvalid"));
+			assertEquals("Incorrect lifetime deaths", 1, event.getInt("deathsLifetime"));
+			assertEquals("Incorrect reaped deaths", 3, event.getInt("deathsReaped"));
+		}
+		finally
+		{
+			file.delete();
+		}
+	}
+}
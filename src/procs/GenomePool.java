@@ -0,0 +1,303 @@
+package procs;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Pool holding a single canonical copy of each unique genome. Each
+ * genome is encoded by InstructionCodec into a packed arena of bytes,
+ * with one byte per instruction for all but jumps, and located
+ * through an index of offsets. Memory use therefore grows with the
+ * total size of the unique genomes, rather than with the number of
+ * objects needed to hold them as lists of strings.
+ *
+ * Each genome is given an integer id, in order of first appearance.
+ * Genomes are found by a 64 bit fingerprint of their encoding, and
+ * a match is always confirmed by comparing the encodings in full,
+ * so two genomes can never be mistaken for one another.
+ *
+ * @author richpl
+ */
+public class GenomePool
+{
+	/**
+	 * Id returned for genomes which are not in the pool
+	 */
+	public static final int MISSING = -1;
+	
+	// Arena holding the encoded genomes, end to end
+	private byte[] arena;
+	private int arenaSize;
+	
+	// Offset within the arena, length of the encoding, number
+	// of instructions and fingerprint of each genome, by id
+	private int[] offsets;
+	private int[] lengths;
+	private int[] sizes;
+	private long[] fingerprints;
+	private int count;
+	
+	// Open addressing index from fingerprint to id, holding
+	// one more than the id so that zero marks an empty slot
+	private int[] index;
+	
+	// Buffer into which genomes are encoded before lookup,
+	// and a view of it through which they are written
+	private byte[] scratch;
+	private ByteBuffer scratchBuffer;
+	
+	// Codec with which instructions are encoded
+	private InstructionCodec codec;
+	
+	/**
+	 * Constructs an empty pool.
+	 */
+	public GenomePool()
+	{
+		arena = new byte[1024];
+		arenaSize = 0;
+		
+		offsets = new int[64];
+		lengths = new int[64];
+		sizes = new int[64];
+		fingerprints = new long[64];
+		count = 0;
+		
+		index = new int[128];
+		
+		scratch = new byte[64];
+		scratchBuffer = ByteBuffer.wrap(scratch);
+		
+		codec = new InstructionCodec();
+	}
+	
+	/**
+	 * Returns the id of a genome, adding it to the pool if it is
+	 * not already present. The genome is only copied if it is new.
+	 *
+	 * @param genome A view of the genome
+	 *
+	 * @return The id of the genome
+	 */
+	public int intern(final GenomeView genome)
+	{
+		int length = encode(genome);
+		long fingerprint = fingerprint(scratch, length);
+		
+		int slot = find(fingerprint, length);
+		
+		if (index[slot] != 0)
+		{
+			return (index[slot] - 1);
+		}
+		
+		// Add the encoding to the arena
+		if (arenaSize + length > arena.length)
+		{
+			arena = Arrays.copyOf(arena,
+					              Math.max(arena.length * 2, arenaSize + length));
+		}
+		
+		System.arraycopy(scratch, 0, arena, arenaSize, length);
+		
+		if (count == offsets.length)
+		{
+			offsets = Arrays.copyOf(offsets, count * 2);
+			lengths = Arrays.copyOf(lengths, count * 2);
+			sizes = Arrays.copyOf(sizes, count * 2);
+			fingerprints = Arrays.copyOf(fingerprints, count * 2);
+		}
+		
+		int id = count;
+		
+		offsets[id] = arenaSize;
+		lengths[id] = length;
+		sizes[id] = genome.length();
+		fingerprints[id] = fingerprint;
+		
+		arenaSize += length;
+		count++;
+		
+		index[slot] = id + 1;
+		
+		// Keep the index no more than half full
+		if (count * 2 > index.length)
+		{
+			rebuildIndex(index.length * 2);
+		}
+		
+		return (id);
+	}
+	
+	/**
+	 * Returns the id of a genome, without adding it to the pool.
+	 *
+	 * @param genome A view of the genome
+	 *
+	 * @return The id of the genome, or MISSING if it is not
+	 * in the pool
+	 */
+	public int lookup(final GenomeView genome)
+	{
+		int length = encode(genome);
+		int slot = find(fingerprint(scratch, length), length);
+		
+		return (index[slot] - 1);
+	}
+	
+	/**
+	 * Decodes the instructions of a genome in the pool.
+	 *
+	 * @param id The id of the genome
+	 *
+	 * @return The ordered list of instructions
+	 *
+	 * @throws IndexOutOfBoundsException Signals that there is
+	 * no genome with the specified id
+	 */
+	public String[] instructions(final int id) throws IndexOutOfBoundsException
+	{
+		if (id < 0 || id >= count)
+		{
+			throw new IndexOutOfBoundsException("Invalid genome id");
+		}
+		
+		String[] instructions = new String[sizes[id]];
+		
+		ByteBuffer buffer = ByteBuffer.wrap(arena, offsets[id], lengths[id]);
+		
+		for (int position=0; position<instructions.length; position++)
+		{
+			instructions[position] = codec.decode(buffer);
+		}
+		
+		return (instructions);
+	}
+	
+	/**
+	 * @return The number of genomes in the pool
+	 */
+	public int size()
+	{
+		return (count);
+	}
+	
+	/**
+	 * @return The number of bytes used to encode the genomes
+	 */
+	public int bytes()
+	{
+		return (arenaSize);
+	}
+	
+	/**
+	 * Encodes a genome into the scratch buffer.
+	 *
+	 * @param genome A view of the genome
+	 *
+	 * @return The length of the encoding
+	 */
+	private int encode(final GenomeView genome)
+	{
+		scratchBuffer.clear();
+		
+		for (int position=0; position<genome.length(); position++)
+		{
+			String instruction = genome.get(position);
+			
+			int needed = InstructionCodec.maxLength(instruction);
+			
+			if (scratchBuffer.remaining() < needed)
+			{
+				int length = scratchBuffer.position();
+				
+				scratch = Arrays.copyOf(scratch,
+						                Math.max(scratch.length * 2,
+						                         length + needed));
+				scratchBuffer = ByteBuffer.wrap(scratch);
+				scratchBuffer.position(length);
+			}
+			
+			InstructionCodec.encode(instruction, scratchBuffer);
+		}
+		
+		return (scratchBuffer.position());
+	}
+	
+	/**
+	 * Computes the fingerprint of an encoding.
+	 *
+	 * @param bytes The buffer holding the encoding
+	 * @param length The length of the encoding
+	 *
+	 * @return The 64 bit fingerprint
+	 */
+	private static long fingerprint(final byte[] bytes, final int length)
+	{
+		// FNV-1a, finished with a mixing step
+		long hash = 0xCBF29CE484222325L;
+		
+		for (int offset=0; offset<length; offset++)
+		{
+			hash = (hash ^ (bytes[offset] & 0xFF)) * 0x100000001B3L;
+		}
+		
+		return (HyperLogLog.mix(hash));
+	}
+	
+	/**
+	 * Finds the index slot holding the genome encoded in the
+	 * scratch buffer, or the empty slot at which it would be added.
+	 *
+	 * @param fingerprint The fingerprint of the encoding
+	 * @param length The length of the encoding
+	 *
+	 * @return The slot
+	 */
+	private int find(final long fingerprint, final int length)
+	{
+		int mask = index.length - 1;
+		int slot = (int) fingerprint & mask;
+		
+		while (index[slot] != 0)
+		{
+			int id = index[slot] - 1;
+			
+			// Confirm a fingerprint match in full
+			if (fingerprints[id] == fingerprint && lengths[id] == length &&
+				Arrays.equals(arena, offsets[id], offsets[id] + length,
+						      scratch, 0, length))
+			{
+				break;
+			}
+			
+			slot = (slot + 1) & mask;
+		}
+		
+		return (slot);
+	}
+	
+	/**
+	 * Rebuilds the index with the specified number of slots.
+	 *
+	 * @param capacity The number of slots, a power of two
+	 */
+	private void rebuildIndex(final int capacity)
+	{
+		index = new int[capacity];
+		
+		int mask = capacity - 1;
+		
+		for (int id=0; id<count; id++)
+		{
+			int slot = (int) fingerprints[id] & mask;
+			
+			while (index[slot] != 0)
+			{
+				slot = (slot + 1) & mask;
+			}
+			
+			index[slot] = id + 1;
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package procs;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class GenomePoolTest
+{
+	private String[] ancestor =
+		{Instructions.NOP, Instructions.NOP, Instructions.SPW,
+		 Instructions.CPN, "JMP -3", Core.EMPTY};
+	
+	private GenomePool pool;
+	
+	@Before
+	public void setUp() throws Exception
+	{
+		pool = new GenomePool();
+	}
+	
+	@Test
+	public final void testRoundTrip()
+	{
+		int id = pool.intern(GenomeView.of(ancestor));
+		
+		assertEquals("Incorrect first id", 0, id);
+		assertArrayEquals("Instructions altered", ancestor, pool.instructions(id));
+		assertEquals("Genome not packed", ancestor.length + 1, pool.bytes());
+	}
+	
+	@Test
+	public final void testSharing()
+	{
+		int id = pool.intern(GenomeView.of(ancestor));
+		int bytes = pool.bytes();
+		
+		// An equal genome held in a different array is not stored again
+		assertEquals("Equal genome given new id",
+				     id, pool.intern(GenomeView.of(ancestor.clone())));
+		assertEquals("Equal genome stored twice", bytes, pool.bytes());
+		assertEquals("Incorrect pool size", 1, pool.size());
+	}
+	
+	@Test
+	public final void testDistinct()
+	{
+		String[] mutant = ancestor.clone();
+		mutant[4] = "JMP 3";
+		
+		pool.intern(GenomeView.of(ancestor));
+		
+		assertEquals("Unknown genome found",
+				     GenomePool.MISSING, pool.lookup(GenomeView.of(mutant)));
+		assertEquals("Mutant not given new id",
+				     1, pool.intern(GenomeView.of(mutant)));
+		assertArrayEquals("Mutant altered", mutant, pool.instructions(1));
+	}
+	
+	@Test
+	public final void testLiterals()
+	{
+		// Instructions which are not canonical survive unchanged
+		String[] odd = {"JMP", "JMP 007", "JMP 99999999999", "XYZ \u00e9"};
+		
+		int id = pool.intern(GenomeView.of(odd));
+		
+		assertArrayEquals("Literal instructions altered", odd, pool.instructions(id));
+		assertEquals("Literal genome not found", id, pool.lookup(GenomeView.of(odd)));
+	}
+	
+	@Test
+	public final void testGrowth()
+	{
+		// Enough genomes to grow the arena, id arrays and index
+		for (int index=0; index<5000; index++)
+		{
+			String[] genome = {Instructions.NOP, "JMP " + index};
+			
+			assertEquals("Incorrect id", index, pool.intern(GenomeView.of(genome)));
+		}
+		
+		for (int index=0; index<5000; index++)
+		{
+			String[] genome = {Instructions.NOP, "JMP " + index};
+			
+			assertEquals("Genome lost", index, pool.lookup(GenomeView.of(genome)));
+		}
+	}
+}
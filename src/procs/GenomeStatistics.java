@@ -0,0 +1,80 @@
+package procs;
+
+/**
+ * Keeps statistics on the genomes of the Processes executing 
+ * in the Core. The CPU reports each birth and death to its 
+ * statistics, and uses them to produce its metrics reports.
+ * 
+ * Genomes are identified by the hash value of their 
+ * instruction lists.
+ * 
+ * @author richpl
+ */
+public interface GenomeStatistics 
+{
+	/**
+	 * Records the birth of a Process. The genome should only be
+	 * copied if the statistics need to keep its instructions.
+	 * 
+	 * @param hashVal The hash value of the genome of the Process
+	 * @param genome A view of the instructions making up the genome
+	 */
+	public void birth(int hashVal, GenomeView genome);
+	
+	/**
+	 * Records the death of a Process.
+	 * 
+	 * @param hashVal The hash value of the genome of the Process
+	 */
+	public void death(int hashVal);
+	
+	/**
+	 * Called by the CPU at the end of each execution cycle.
+	 * 
+	 * @param cycle The number of the cycle just completed
+	 */
+	public void endCycle(long cycle);
+	
+	/**
+	 * @return The number of genomes held by the statistics
+	 */
+	public int genomeCount();
+	
+	/**
+	 * @return The number of unique genomes with a living population,
+	 * which may be an estimate
+	 */
+	public int liveGenomes();
+	
+	/**
+	 * @return The size of the largest living population of
+	 * a genome, which may be an estimate
+	 */
+	public int maxPopulation();
+	
+	/**
+	 * Returns a description of the most populous genomes, largest
+	 * population first, each given as its population followed by
+	 * its instructions.
+	 * 
+	 * @param number The maximum number of genomes to describe
+	 * 
+	 * @return The descriptions of the most populous genomes
+	 */
+	public String[] topGenomes(int number);
+	
+	/**
+	 * Pretty prints the list of unique genomes.
+	 */
+	public void prettyPrintGenomes();
+	
+	/**
+	 * Pretty prints the populations of different genomes.
+	 */
+	public void prettyPrintPopulation();
+	
+	/**
+	 * Pretty prints each genome alongside its population.
+	 */
+	public void prettyPrintMetrics();
+}
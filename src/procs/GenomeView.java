@@ -0,0 +1,212 @@
+package procs;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A read-only view of the instructions making up a genome, without
+ * copying them. A view refers to a window of consecutive addresses
+ * in an array of instructions, either the Core itself, in which case
+ * the window wraps around from the end of the Core to the start, or
+ * a standalone instruction list.
+ *
+ * A view of the Core reflects any later changes to the Core, so it
+ * should be used straight away, or materialised with toArray if the
+ * instructions must be kept.
+ *
+ * @author richpl
+ */
+public class GenomeView implements Iterable<String>
+{
+	// Array holding the instructions
+	private final String[] cells;
+	
+	// Index within the array of the first instruction
+	private final int address;
+	
+	// Number of instructions in the genome
+	private final int length;
+	
+	/**
+	 * Constructs a view of a window of an array of instructions.
+	 *
+	 * @param cells The array holding the instructions
+	 * @param address The index of the first instruction
+	 * @param length The number of instructions
+	 */
+	GenomeView(final String[] cells, final int address, final int length)
+	{
+		this.cells = cells;
+		this.address = address;
+		this.length = length;
+	}
+	
+	/**
+	 * Constructs a view of a standalone list of instructions.
+	 *
+	 * @param instructions The ordered list of instructions
+	 *
+	 * @return A view of the whole list
+	 */
+	public static GenomeView of(final String[] instructions)
+	{
+		return (new GenomeView(instructions, 0, instructions.length));
+	}
+	
+	/**
+	 * @return The number of instructions in the genome
+	 */
+	public int length()
+	{
+		return (length);
+	}
+	
+	/**
+	 * Returns an instruction of the genome.
+	 *
+	 * @param index The position of the instruction within the genome
+	 *
+	 * @return The instruction
+	 *
+	 * @throws IndexOutOfBoundsException Signals that the position
+	 * lies outside the genome
+	 */
+	public String get(final int index) throws IndexOutOfBoundsException
+	{
+		if (index < 0 || index >= length)
+		{
+			throw new IndexOutOfBoundsException("Invalid genome position");
+		}
+		
+		return (cells[(address + index) % cells.length]);
+	}
+	
+	/**
+	 * Indicates whether this view refers to any of the same
+	 * locations of the same array as a window of that array.
+	 *
+	 * @param cells The array
+	 * @param start The index of the start of the window
+	 * @param size The number of locations in the window
+	 *
+	 * @return True if the view and the window overlap
+	 */
+	boolean overlaps(final String[] cells, final int start, final int size)
+	{
+		if (this.cells != cells || length == 0 || size == 0)
+		{
+			return (false);
+		}
+		
+		// Offsets of the window from the start of the view,
+		// and of the view from the start of the window,
+		// allowing for wrap around
+		int fromView = Math.floorMod(start - address, cells.length);
+		int fromWindow = Math.floorMod(address - start, cells.length);
+		
+		return (fromView < length || fromWindow < size);
+	}
+	
+	/**
+	 * Copies the instructions of the genome into a new list.
+	 *
+	 * @return The ordered list of instructions
+	 */
+	public String[] toArray()
+	{
+		String[] instructions = new String[length];
+		
+		for (int index=0; index<length; index++)
+		{
+			instructions[index] = cells[(address + index) % cells.length];
+		}
+		
+		return (instructions);
+	}
+	
+	@Override
+	public Iterator<String> iterator()
+	{
+		return (new Iterator<String>()
+		{
+			private int index = 0;
+			
+			@Override
+			public boolean hasNext()
+			{
+				return (index < length);
+			}
+			
+			@Override
+			public String next()
+			{
+				if (index >= length)
+				{
+					throw new NoSuchElementException();
+				}
+				
+				return (cells[(address + index++) % cells.length]);
+			}
+		});
+	}
+	
+	/**
+	 * Generates a hash code from the instructions, equal to that
+	 * of Arrays.hashCode applied to the materialised list.
+	 */
+	@Override
+	public int hashCode()
+	{
+		int hashCode = 1;
+		
+		for (int index=0; index<length; index++)
+		{
+			hashCode = 31 * hashCode +
+					   cells[(address + index) % cells.length].hashCode();
+		}
+		
+		return (hashCode);
+	}
+	
+	/**
+	 * Two views are equal if they hold the same
+	 * instructions in the same order.
+	 */
+	@Override
+	public boolean equals(Object object)
+	{
+		if (this == object)
+		{
+			return (true);
+		}
+		
+		if (!(object instanceof GenomeView))
+		{
+			return (false);
+		}
+		
+		GenomeView other = (GenomeView) object;
+		
+		if (other.length != length)
+		{
+			return (false);
+		}
+		
+		for (int index=0; index<length; index++)
+		{
+			if (!get(index).equals(other.get(index)))
+			{
+				return (false);
+			}
+		}
+		
+		return (true);
+	}
+	
+	@Override
+	public String toString()
+	{
+		return (Arrays.toString(toArray()));
+	}
+}
@@ -0,0 +1,99 @@
+package procs;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class GenomeViewTest 
+{
+	private String[] ancestor = 
+		{Instructions.NOP, Instructions.NOP, Instructions.SPW, 
+		 Instructions.NOP, Instructions.NOP};
+	
+	private final int CORE_SIZE = 10;
+	
+	// Address at which to place process, so that it wraps
+	// around the end of the core
+	private final int ADDRESS = 8;
+	
+	private Core core;
+	
+	private Process process;
+	
+	@Before
+	public void setUp() throws Exception 
+	{
+		core = new Core(CORE_SIZE, 0);
+		process = new Process(ADDRESS, ancestor.length);
+		
+		core.addProcess(ancestor, ADDRESS, process);
+	}
+	
+	@Test
+	public final void testView() 
+	{
+		GenomeView view = core.view(process);
+		
+		assertEquals("Incorrect length", ancestor.length, view.length());
+		assertEquals("Incorrect instruction", Instructions.SPW, view.get(2));
+		assertArrayEquals("Incorrect materialised genome", 
+				          ancestor, view.toArray());
+		
+		int index = 0;
+		for (String instruction: view)
+		{
+			assertEquals("Incorrect iterated instruction", 
+					     ancestor[index], instruction);
+			index++;
+		}
+		
+		assertEquals("Incorrect number of instructions", 
+				     ancestor.length, index);
+	}
+	
+	@Test
+	public final void testEquality() 
+	{
+		GenomeView view = core.view(process);
+		GenomeView copy = GenomeView.of(ancestor.clone());
+		
+		assertEquals("Equal genomes not equal", copy, view);
+		assertEquals("Hash codes differ", copy.hashCode(), view.hashCode());
+		assertEquals("Hash code differs from array", 
+				     Arrays.hashCode(ancestor), view.hashCode());
+		
+		// Views are live, so a change to the core is seen
+		core.setInstruction(Instructions.CPN, 0);
+		
+		assertFalse("Different genomes equal", copy.equals(view));
+	}
+	
+	@Test
+	public final void testOverlaps() 
+	{
+		// View which wraps around the end of its array
+		String[] cells = new String[CORE_SIZE];
+		GenomeView view = new GenomeView(cells, ADDRESS, ancestor.length);
+		
+		assertTrue("Overlap not found", view.overlaps(cells, 1, 3));
+		assertTrue("Overlap not found", view.overlaps(cells, 5, 4));
+		assertFalse("Overlap found", view.overlaps(cells, 3, 5));
+		assertFalse("Overlap with other array found", 
+				    view.overlaps(new String[CORE_SIZE], 1, 3));
+	}
+	
+	@Test
+	public final void testSpawnFromView() 
+	{
+		// Copy the process straight from its view
+		Process child = new Process(3, ancestor.length);
+		core.addProcess(core.view(process), 3, child);
+		
+		assertArrayEquals("Incorrect copy", ancestor, 
+				          core.getInstructions(child));
+		assertEquals("Incorrect occupancy", 10, core.occupied());
+	}
+}
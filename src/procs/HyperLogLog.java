@@ -0,0 +1,148 @@
+package procs;
+
+import java.util.Arrays;
+
+/**
+ * HyperLogLog sketch, which estimates the number of distinct 
+ * keys that have been added to it using a fixed amount of memory.
+ * Sketches of the same precision may be merged, giving an 
+ * estimate of the number of distinct keys added to either.
+ * 
+ * @author richpl
+ */
+public class HyperLogLog 
+{
+	// Number of bits of the hash used to select a register
+	private int precision;
+	
+	// Registers, each holding the largest rank seen
+	private byte[] registers;
+	
+	/**
+	 * Constructs an empty sketch of the specified precision.
+	 * 
+	 * @param precision The number of bits used to select a 
+	 * register, between 4 and 16. The sketch uses two to this 
+	 * power bytes, and its standard error is roughly 1.04 divided
+	 * by the square root of that number
+	 * 
+	 * @throws IllegalArgumentException Signals that an invalid
+	 * precision was specified
+	 */
+	public HyperLogLog(final int precision)
+		throws IllegalArgumentException
+	{
+		if (precision < 4 || precision > 16)
+		{
+			throw new IllegalArgumentException
+				("Invalid sketch precision specified");
+		}
+		
+		this.precision = precision;
+		
+		registers = new byte[1 << precision];
+	}
+	
+	/**
+	 * Spreads the bits of a value over a 64 bit hash.
+	 * 
+	 * @param value The value to be hashed
+	 * 
+	 * @return The hash of the value
+	 */
+	static long mix(long value)
+	{
+		value = (value ^ (value >>> 33)) * 0xFF51AFD7ED558CCDL;
+		value = (value ^ (value >>> 33)) * 0xC4CEB9FE1A85EC53L;
+		
+		return (value ^ (value >>> 33));
+	}
+	
+	/**
+	 * Adds a key to the sketch.
+	 * 
+	 * @param key The key to be added
+	 */
+	public void add(final int key)
+	{
+		long hash = mix(key);
+		
+		// Top bits select the register, the rank of the
+		// remaining bits is the position of the first one
+		int index = (int) (hash >>> (64 - precision));
+		int rank = Long.numberOfLeadingZeros(hash << precision | 
+				                             1L << (precision - 1)) + 1;
+		
+		if (rank > registers[index])
+		{
+			registers[index] = (byte) rank;
+		}
+	}
+	
+	/**
+	 * Merges another sketch into this one.
+	 * 
+	 * @param other The sketch to be merged, which must
+	 * have the same precision as this one
+	 * 
+	 * @throws IllegalArgumentException Signals that the 
+	 * sketches have different precisions
+	 */
+	public void merge(final HyperLogLog other)
+		throws IllegalArgumentException
+	{
+		if (other.precision != precision)
+		{
+			throw new IllegalArgumentException
+				("Cannot merge sketches of different precision");
+		}
+		
+		for (int index=0; index<registers.length; index++)
+		{
+			if (other.registers[index] > registers[index])
+			{
+				registers[index] = other.registers[index];
+			}
+		}
+	}
+	
+	/**
+	 * Empties the sketch.
+	 */
+	public void clear()
+	{
+		Arrays.fill(registers, (byte) 0);
+	}
+	
+	/**
+	 * @return The estimated number of distinct keys added
+	 */
+	public long estimate()
+	{
+		int m = registers.length;
+		
+		double sum = 0;
+		int zeros = 0;
+		
+		for (byte register: registers)
+		{
+			sum += 1.0 / (1L << register);
+			
+			if (register == 0)
+			{
+				zeros++;
+			}
+		}
+		
+		double alpha = 0.7213 / (1 + 1.079 / m);
+		double estimate = alpha * m * m / sum;
+		
+		// Use linear counting for small cardinalities
+		if (estimate <= 2.5 * m && zeros > 0)
+		{
+			estimate = m * Math.log((double) m / zeros);
+		}
+		
+		return (Math.round(estimate));
+	}
+}
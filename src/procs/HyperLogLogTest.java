@@ -0,0 +1,69 @@
+package procs;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class HyperLogLogTest 
+{
+	private final int PRECISION = 12;
+	
+	// Allowed relative error, several times the standard error
+	private final double TOLERANCE = 0.1;
+	
+	@Test
+	public final void testEstimate() 
+	{
+		HyperLogLog sketch = new HyperLogLog(PRECISION);
+		
+		// Repeated keys should not be counted twice
+		for (int repeat=0; repeat<3; repeat++)
+		{
+			for (int key=0; key<100000; key++)
+			{
+				sketch.add(key);
+			}
+		}
+		
+		assertEquals("Estimate out of range", 100000, 
+				     sketch.estimate(), 100000 * TOLERANCE);
+	}
+	
+	@Test
+	public final void testSmallEstimate() 
+	{
+		HyperLogLog sketch = new HyperLogLog(PRECISION);
+		
+		assertEquals("Empty sketch not zero", 0, sketch.estimate());
+		
+		for (int key=0; key<10; key++)
+		{
+			sketch.add(key);
+		}
+		
+		assertEquals("Estimate out of range", 10, sketch.estimate(), 1);
+	}
+	
+	@Test
+	public final void testMerge() 
+	{
+		HyperLogLog first = new HyperLogLog(PRECISION);
+		HyperLogLog second = new HyperLogLog(PRECISION);
+		
+		// Half of the keys are common to both sketches
+		for (int key=0; key<20000; key++)
+		{
+			first.add(key);
+			second.add(key + 10000);
+		}
+		
+		first.merge(second);
+		
+		assertEquals("Merged estimate out of range", 30000, 
+				     first.estimate(), 30000 * TOLERANCE);
+		
+		first.clear();
+		
+		assertEquals("Cleared sketch not empty", 0, first.estimate());
+	}
+}
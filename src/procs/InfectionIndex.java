@@ -0,0 +1,337 @@
+package procs;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps account of parasitism. A Process spawning into the NOP sled
+ * of another creates no new Process, but embeds a copy of its genome
+ * in the host, to be executed by the host's own execution thread.
+ * The index records each such infection as it happens, counting the
+ * infections made by each parasite genome and suffered by each host
+ * genome, and holding the segments embedded in each living host
+ * until the host dies, so that parasitism can be measured without
+ * rescanning the Core.
+ *
+ * Genomes are identified by the hash values of the genomes the
+ * Processes involved were born with: the parasite by that of the
+ * Process making the copy, the host by that of the Process owning
+ * the NOP sled, just as the CPU identifies them in its statistics
+ * and events. A copy made into a NOP sled owned by no living
+ * Process is counted as an infection without a host.
+ *
+ * @author richpl
+ */
+public class InfectionIndex
+{
+	// Number of addresses in the Core
+	private int coreSize;
+	
+	// Number of infections made by each parasite genome
+	private IntMap byParasite;
+	
+	// Number of infections suffered by each host genome
+	private IntMap byHost;
+	
+	// Number of segments of each parasite genome
+	// embedded in living hosts
+	private IntMap embedded;
+	
+	// Segments embedded in each living host
+	private Map<Process, List<Infection>> segments;
+	
+	// Total number of infections recorded
+	private long infections;
+	
+	// Number of infections without a living host
+	private long orphans;
+	
+	// Number of segments embedded in living hosts
+	private int living;
+	
+	/**
+	 * A copy of a parasite genome embedded in a host.
+	 */
+	public static class Infection
+	{
+		// Hash values of the parasite and host genomes
+		private final int parasite;
+		private final int host;
+		
+		// Offset of the segment from the first instruction
+		// of the host, and its length
+		private final int offset;
+		private final int length;
+		
+		// Cycle in which the infection occurred
+		private final long cycle;
+		
+		/**
+		 * Constructs an infection.
+		 *
+		 * @param parasite The hash value of the parasite genome
+		 * @param host The hash value of the host genome
+		 * @param offset The offset of the segment within the host
+		 * @param length The number of instructions in the segment
+		 * @param cycle The cycle in which the infection occurred
+		 */
+		private Infection(final int parasite, final int host,
+				          final int offset, final int length,
+				          final long cycle)
+		{
+			this.parasite = parasite;
+			this.host = host;
+			this.offset = offset;
+			this.length = length;
+			this.cycle = cycle;
+		}
+		
+		/**
+		 * @return The hash value of the parasite genome
+		 */
+		public int parasite()
+		{
+			return (parasite);
+		}
+		
+		/**
+		 * @return The hash value of the host genome
+		 */
+		public int host()
+		{
+			return (host);
+		}
+		
+		/**
+		 * @return The offset of the segment from the
+		 * first instruction of the host
+		 */
+		public int offset()
+		{
+			return (offset);
+		}
+		
+		/**
+		 * @return The number of instructions in the segment
+		 */
+		public int length()
+		{
+			return (length);
+		}
+		
+		/**
+		 * @return The cycle in which the infection occurred
+		 */
+		public long cycle()
+		{
+			return (cycle);
+		}
+	}
+	
+	/**
+	 * Constructs an empty index.
+	 *
+	 * @param coreSize The number of addresses in the Core
+	 */
+	public InfectionIndex(final int coreSize)
+	{
+		this.coreSize = coreSize;
+		
+		byParasite = new IntMap();
+		byHost = new IntMap();
+		embedded = new IntMap();
+		
+		segments = new HashMap<Process, List<Infection>>();
+		
+		infections = 0;
+		orphans = 0;
+		living = 0;
+	}
+	
+	/**
+	 * Records an infection.
+	 *
+	 * @param parasite The Process which made the copy
+	 * @param host The Process owning the NOP sled copied
+	 * into, or null if there is none
+	 * @param address The address of the copy
+	 * @param length The number of instructions copied
+	 * @param cycle The cycle in which the infection occurred
+	 */
+	public void infected(final Process parasite, final Process host,
+			             final int address, final int length,
+			             final long cycle)
+	{
+		infections++;
+		
+		add(byParasite, parasite.genome(), 1);
+		
+		if (host == null)
+		{
+			orphans++;
+			
+			return;
+		}
+		
+		add(byHost, host.genome(), 1);
+		add(embedded, parasite.genome(), 1);
+		living++;
+		
+		List<Infection> list = segments.get(host);
+		
+		if (list == null)
+		{
+			list = new ArrayList<Infection>(1);
+			segments.put(host, list);
+		}
+		
+		list.add(new Infection(parasite.genome(), host.genome(),
+				               Math.floorMod(address - host.address(), coreSize),
+				               length, cycle));
+	}
+	
+	/**
+	 * Records the death of a Process, discarding the
+	 * segments embedded in it.
+	 *
+	 * @param process The Process which died
+	 */
+	public void died(final Process process)
+	{
+		if (living == 0)
+		{
+			return;
+		}
+		
+		List<Infection> list = segments.remove(process);
+		
+		if (list != null)
+		{
+			for (Infection infection: list)
+			{
+				add(embedded, infection.parasite, -1);
+			}
+			
+			living -= list.size();
+		}
+	}
+	
+	/**
+	 * @param parasite The hash value of a genome
+	 *
+	 * @return The number of infections made by Processes
+	 * born with the genome
+	 */
+	public int infectionsBy(final int parasite)
+	{
+		return (count(byParasite, parasite));
+	}
+	
+	/**
+	 * @param host The hash value of a genome
+	 *
+	 * @return The number of infections suffered by Processes
+	 * born with the genome
+	 */
+	public int infectionsOf(final int host)
+	{
+		return (count(byHost, host));
+	}
+	
+	/**
+	 * @param parasite The hash value of a genome
+	 *
+	 * @return The number of segments of the genome
+	 * embedded in living hosts
+	 */
+	public int embedded(final int parasite)
+	{
+		return (count(embedded, parasite));
+	}
+	
+	/**
+	 * @param host A living Process
+	 *
+	 * @return The segments embedded in the Process,
+	 * oldest first
+	 */
+	public List<Infection> segments(final Process host)
+	{
+		List<Infection> list = segments.get(host);
+		
+		return (list != null ? Collections.unmodifiableList(list) :
+			                   Collections.<Infection>emptyList());
+	}
+	
+	/**
+	 * @return The total number of infections recorded
+	 */
+	public long infections()
+	{
+		return (infections);
+	}
+	
+	/**
+	 * @return The number of infections of NOP sleds
+	 * owned by no living Process
+	 */
+	public long orphans()
+	{
+		return (orphans);
+	}
+	
+	/**
+	 * @return The number of segments embedded in living hosts
+	 */
+	public int living()
+	{
+		return (living);
+	}
+	
+	/**
+	 * @return The number of living Processes hosting
+	 * at least one segment
+	 */
+	public int hosts()
+	{
+		return (segments.size());
+	}
+	
+	/**
+	 * @param map A map of counts
+	 * @param key The key
+	 *
+	 * @return The count held against the key, or zero
+	 */
+	private static int count(final IntMap map, final int key)
+	{
+		int count = map.get(key);
+		
+		return (count == IntMap.MISSING ? 0 : count);
+	}
+	
+	/**
+	 * Adds to the count held against a key, removing
+	 * the key once the count falls to zero.
+	 *
+	 * @param map A map of counts
+	 * @param key The key
+	 * @param delta The amount to add
+	 */
+	private static void add(final IntMap map, final int key, final int delta)
+	{
+		int count = count(map, key) + delta;
+		
+		if (count == 0)
+		{
+			map.remove(key);
+		}
+		else
+		{
+			map.put(key, count);
+		}
+	}
+}
@@ -0,0 +1,144 @@
+package procs;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class InfectionIndexTest 
+{
+	private final int CORE_SIZE = 100;
+	
+	private String[] ancestor = 
+		{Instructions.NOP, Instructions.NOP, Instructions.SPW, 
+		 Instructions.NOP, Instructions.NOP};
+	
+	@Test
+	public final void testSpawnIntoSled() 
+	{
+		Core core = new Core(CORE_SIZE, 0);
+		
+		Process parent = new Process(0, ancestor.length);
+		parent.setGenome(1);
+		core.addProcess(ancestor, 0, parent);
+		
+		// A host made up of a long NOP sled, with no empty
+		// space anywhere else in the Core
+		Process host = new Process(40, 20);
+		host.setGenome(2);
+		
+		for (int index=ancestor.length; index<CORE_SIZE; index++)
+		{
+			core.setInstruction(index >= 40 && index < 60 ? 
+					            Instructions.NOP : Instructions.CPN, index);
+		}
+		
+		ProcessIndex owners = new ProcessIndex(CORE_SIZE);
+		owners.add(parent);
+		owners.add(host);
+		
+		int[] infected = new int[1];
+		int[] addresses = Instructions.spawnProcesses
+			(core, Arrays.asList(parent), new Random(1), 50, infected);
+		
+		assertEquals("Unexpected child", -1, addresses[0]);
+		assertTrue("Copy placed outside sled", 
+				   infected[0] >= 40 && infected[0] <= 55);
+		assertSame("Incorrect host", host, owners.owner(infected[0]));
+		
+		InfectionIndex infections = new InfectionIndex(CORE_SIZE);
+		infections.infected(parent, host, infected[0], parent.length(), 1);
+		
+		assertEquals("Incorrect infections", 1, infections.infections());
+		assertEquals("Incorrect parasite count", 1, infections.infectionsBy(1));
+		assertEquals("Incorrect host count", 1, infections.infectionsOf(2));
+		assertEquals("Incorrect embedded count", 1, infections.embedded(1));
+		
+		InfectionIndex.Infection segment = infections.segments(host).get(0);
+		assertEquals("Incorrect offset", infected[0] - 40, segment.offset());
+		assertEquals("Incorrect length", ancestor.length, segment.length());
+		assertEquals("Incorrect segment", Instructions.SPW, 
+				     core.getInstruction(infected[0] + 2));
+	}
+	
+	@Test
+	public final void testDeath() 
+	{
+		InfectionIndex infections = new InfectionIndex(CORE_SIZE);
+		
+		Process parasite = new Process(0, 5);
+		parasite.setGenome(1);
+		
+		Process host = new Process(98, 10);
+		host.setGenome(2);
+		
+		// An infection wrapping around the end of the Core
+		infections.infected(parasite, host, 2, 5, 1);
+		infections.infected(parasite, host, 99, 5, 2);
+		infections.infected(parasite, null, 50, 5, 3);
+		
+		assertEquals("Incorrect infections", 3, infections.infections());
+		assertEquals("Incorrect orphans", 1, infections.orphans());
+		assertEquals("Incorrect parasite count", 3, infections.infectionsBy(1));
+		assertEquals("Incorrect host count", 2, infections.infectionsOf(2));
+		assertEquals("Incorrect living count", 2, infections.living());
+		assertEquals("Incorrect host total", 1, infections.hosts());
+		assertEquals("Incorrect offset", 4, 
+				     infections.segments(host).get(0).offset());
+		
+		// Dying parasites leave their segments behind
+		infections.died(parasite);
+		assertEquals("Incorrect embedded count", 2, infections.embedded(1));
+		
+		infections.died(host);
+		assertEquals("Incorrect embedded count", 0, infections.embedded(1));
+		assertEquals("Incorrect living count", 0, infections.living());
+		assertEquals("Incorrect host total", 0, infections.hosts());
+		assertTrue("Segments kept", infections.segments(host).isEmpty());
+		
+		// Totals are kept after the host has died
+		assertEquals("Incorrect host count", 2, infections.infectionsOf(2));
+	}
+	
+	@Test
+	public final void testRun() 
+	{
+		Simulation simulation = new Simulation(3);
+		CPU cpu = simulation.cpu();
+		InfectionIndex infections = cpu.infections();
+		
+		simulation.run(StopCondition.cycles(300), StopCondition.extinction());
+		assertTrue("No infections recorded", infections.living() > 0);
+		
+		// Every embedded segment belongs to a living host
+		int living = 0;
+		Process host = null;
+		
+		for (int index=0; index<cpu.processCount(); index++)
+		{
+			Process process = cpu.process(index);
+			int segments = infections.segments(process).size();
+			
+			if (segments > 0)
+			{
+				living += segments;
+				host = process;
+			}
+		}
+		
+		assertEquals("Incorrect living count", infections.living(), living);
+		assertTrue("Host not counted", 
+				   infections.infectionsOf(host.genome()) > 0);
+		
+		// Segments are released as their hosts die
+		long total = infections.infections();
+		cpu.evictAll();
+		
+		assertTrue("Segments kept", infections.segments(host).isEmpty());
+		assertEquals("Incorrect living count", 0, infections.living());
+		assertEquals("Incorrect host total", 0, infections.hosts());
+		assertEquals("Incorrect infections", total, infections.infections());
+	}
+}
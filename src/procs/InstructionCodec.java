@@ -0,0 +1,266 @@
+package procs;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary encoding of instructions, shared by everything that
+ * stores or sends genomes as bytes: the GenomePool, the messages
+ * exchanged by IslandNodes, and binary seed files.
+ *
+ * NOP, SPW, CPN and an empty Core address are each encoded as a
+ * single code byte. A jump whose value is written just as it would
+ * be by Instructions is encoded as its code followed by its value as
+ * a zigzag encoded variable length integer. Any other instruction is
+ * encoded as a literal: its code, then the length of its UTF-8 bytes
+ * as a variable length integer, then the bytes themselves.
+ *
+ * The variable length integers are also used by other binary
+ * formats, such as the log written by DecisionRecorder.
+ *
+ * Decoded instructions are interned, so that every NOP, SPW, CPN and
+ * small jump decoded is the same String instance as those used by
+ * the CPU itself.
+ *
+ * @author richpl
+ */
+public class InstructionCodec
+{
+	// Codes of the instructions
+	private static final byte NOP = 0;
+	private static final byte SPW = 1;
+	private static final byte CPN = 2;
+	private static final byte JMP = 3;
+	private static final byte EMPTY = 4;
+	private static final byte LITERAL = 5;
+	
+	// Largest jump, forwards or backwards, which is interned
+	private static final int JUMPS = 1024;
+	
+	// Interned jump instructions, indexed by value plus JUMPS
+	private String[] jumps;
+	
+	/**
+	 * Constructs a codec.
+	 */
+	public InstructionCodec()
+	{
+		jumps = new String[2*JUMPS + 1];
+	}
+	
+	/**
+	 * Encodes an instruction.
+	 *
+	 * @param instruction The instruction
+	 * @param buffer The buffer to which to write it
+	 *
+	 * @throws java.nio.BufferOverflowException Signals that there
+	 * is no room for the instruction in the buffer
+	 */
+	public static void encode(final String instruction, final ByteBuffer buffer)
+	{
+		switch (instruction)
+		{
+			case Instructions.NOP:
+				buffer.put(NOP);
+				break;
+			
+			case Instructions.SPW:
+				buffer.put(SPW);
+				break;
+			
+			case Instructions.CPN:
+				buffer.put(CPN);
+				break;
+			
+			case Core.EMPTY:
+				buffer.put(EMPTY);
+				break;
+			
+			default:
+				Integer jump = jumpValue(instruction);
+				
+				if (jump != null)
+				{
+					buffer.put(JMP);
+					putVarint(buffer, (jump << 1) ^ (jump >> 31));
+				}
+				else
+				{
+					byte[] bytes = instruction.getBytes(StandardCharsets.UTF_8);
+					
+					buffer.put(LITERAL);
+					putVarint(buffer, bytes.length);
+					buffer.put(bytes);
+				}
+		}
+	}
+	
+	/**
+	 * Decodes an instruction.
+	 *
+	 * @param buffer The buffer from which to read it
+	 *
+	 * @return The interned instruction
+	 *
+	 * @throws IllegalArgumentException Signals that the code,
+	 * or the length of a literal, is invalid
+	 * @throws java.nio.BufferUnderflowException Signals that the
+	 * buffer ends part way through the instruction
+	 */
+	public String decode(final ByteBuffer buffer)
+		throws IllegalArgumentException
+	{
+		byte code = buffer.get();
+		
+		switch (code)
+		{
+			case NOP:
+				return (Instructions.NOP);
+			
+			case SPW:
+				return (Instructions.SPW);
+			
+			case CPN:
+				return (Instructions.CPN);
+			
+			case EMPTY:
+				return (Core.EMPTY);
+			
+			case JMP:
+				int zigzag = getVarint(buffer);
+				
+				return (jump((zigzag >>> 1) ^ -(zigzag & 1)));
+			
+			case LITERAL:
+				int length = getVarint(buffer);
+				
+				if (length < 0 || length > buffer.remaining())
+				{
+					throw new IllegalArgumentException
+						("Invalid instruction length " + length);
+				}
+				
+				byte[] bytes = new byte[length];
+				buffer.get(bytes);
+				
+				String instruction = new String(bytes, StandardCharsets.UTF_8);
+				
+				return (instruction.equals(Instructions.JMP) ?
+						Instructions.JMP : instruction);
+			
+			default:
+				throw new IllegalArgumentException
+					("Invalid instruction code " + code);
+		}
+	}
+	
+	/**
+	 * @param instruction An instruction
+	 *
+	 * @return The largest number of bytes its encoding can take
+	 */
+	public static int maxLength(final String instruction)
+	{
+		return (6 + instruction.length() * 3);
+	}
+	
+	/**
+	 * Returns a jump instruction, interned if the jump is small.
+	 *
+	 * @param value The number of instructions to jump
+	 *
+	 * @return The instruction
+	 */
+	public String jump(final int value)
+	{
+		if (value < -JUMPS || value > JUMPS)
+		{
+			return (Instructions.JMP + " " + value);
+		}
+		
+		String jump = jumps[value + JUMPS];
+		
+		if (jump == null)
+		{
+			jump = Instructions.JMP + " " + value;
+			jumps[value + JUMPS] = jump;
+		}
+		
+		return (jump);
+	}
+	
+	/**
+	 * Returns the value of a jump which is written just as
+	 * it would be by jump(int).
+	 *
+	 * @param instruction The instruction
+	 *
+	 * @return The value of the jump, or null if the
+	 * instruction is not such a jump
+	 */
+	public static Integer jumpValue(final String instruction)
+	{
+		int start = Instructions.JMP.length() + 1;
+		
+		if (!instruction.startsWith(Instructions.JMP + " ") ||
+			instruction.length() == start ||
+			instruction.length() > start + 11)
+		{
+			return (null);
+		}
+		
+		try
+		{
+			String value = instruction.substring(start);
+			int jump = Integer.parseInt(value);
+			
+			return (String.valueOf(jump).equals(value) ? jump : null);
+		}
+		catch (NumberFormatException e)
+		{
+			return (null);
+		}
+	}
+	
+	/**
+	 * Writes a variable length integer.
+	 *
+	 * @param buffer The buffer to which to write
+	 * @param value The value, treated as unsigned
+	 */
+	public static void putVarint(final ByteBuffer buffer, int value)
+	{
+		while ((value & ~0x7F) != 0)
+		{
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		
+		buffer.put((byte) value);
+	}
+	
+	/**
+	 * Reads a variable length integer.
+	 *
+	 * @param buffer The buffer from which to read
+	 *
+	 * @return The value
+	 */
+	public static int getVarint(final ByteBuffer buffer)
+	{
+		int value = 0;
+		int shift = 0;
+		byte next;
+		
+		do
+		{
+			next = buffer.get();
+			value |= (next & 0x7F) << shift;
+			shift += 7;
+		}
+		while ((next & 0x80) != 0 && shift < 35);
+		
+		return (value);
+	}
+}
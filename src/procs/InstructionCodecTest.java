@@ -0,0 +1,90 @@
+package procs;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+public class InstructionCodecTest
+{
+	@Test
+	public final void testRoundTrip()
+	{
+		String[] instructions =
+			{Instructions.NOP, Instructions.SPW, Instructions.CPN, Core.EMPTY,
+			 "JMP -2", "JMP 0", "JMP 5000", "JMP " + Integer.MIN_VALUE,
+			 Instructions.JMP, "JMP 0007", "JMP -0", "XYZ", "\u00e9t\u00e9"};
+		
+		ByteBuffer buffer = ByteBuffer.allocate(256);
+		
+		for (String instruction: instructions)
+		{
+			int start = buffer.position();
+			
+			InstructionCodec.encode(instruction, buffer);
+			
+			assertTrue("Encoding too long", buffer.position() - start <=
+					   InstructionCodec.maxLength(instruction));
+		}
+		
+		buffer.flip();
+		
+		InstructionCodec codec = new InstructionCodec();
+		
+		for (String instruction: instructions)
+		{
+			assertEquals("Incorrect instruction", instruction, codec.decode(buffer));
+		}
+		
+		assertFalse("Bytes left over", buffer.hasRemaining());
+		
+		// Every instruction but jumps takes a single byte
+		buffer.clear();
+		InstructionCodec.encode(Core.EMPTY, buffer);
+		
+		assertEquals("Incorrect length", 1, buffer.position());
+		
+		// Small jumps are interned
+		buffer.clear();
+		InstructionCodec.encode("JMP -2", buffer);
+		InstructionCodec.encode("JMP -2", buffer);
+		buffer.flip();
+		
+		assertSame("Jump not interned", codec.decode(buffer), codec.decode(buffer));
+		
+		// Invalid codes are rejected
+		buffer.clear();
+		buffer.put((byte) 99);
+		buffer.flip();
+		
+		try
+		{
+			codec.decode(buffer);
+			fail("Expected IllegalArgumentException");
+		}
+		catch (IllegalArgumentException e)
+		{
+		}
+	}
+	
+	@Test
+	public final void testVarint()
+	{
+		int[] values = {0, 1, 127, 128, 300, Integer.MAX_VALUE, -1, Integer.MIN_VALUE};
+		
+		ByteBuffer buffer = ByteBuffer.allocate(64);
+		
+		for (int value: values)
+		{
+			InstructionCodec.putVarint(buffer, value);
+		}
+		
+		buffer.flip();
+		
+		for (int value: values)
+		{
+			assertEquals("Incorrect value", value, InstructionCodec.getVarint(buffer));
+		}
+	}
+}
@@ -1,6 +1,7 @@
 package procs;
 
 import java.util.Date;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Random;
 import java.util.StringTokenizer;
@@ -53,7 +54,7 @@ public class Instructions
 	public static final String SPW = "SPW";
 	
 	// Number of attempts to find random locations in the
-	// core in which to spawn a process or drop a NOP bomb
+	// core in which to spawn a process
 	private static final int ATTEMPTS = 10;
 	
 	/**
@@ -127,9 +128,7 @@ public class Instructions
 	 * Copies a NOP to a random location in the core that is not
 	 * empty and not part of the process executing the copy (i.e.
 	 * the NOP should land within another executing process, possibly
-	 * disrupting its operation). Will try a number of times to achieve this
-	 * if an empty location is selected, the number of tries being 
-	 * governed by the ATTEMPTS constant.
+	 * disrupting its operation).
 	 * 
 	 * NOP bombs can only be launched
 	 * upon parts of the core near to the process which launches them. The
@@ -145,62 +144,68 @@ public class Instructions
 	 */
 	public static void copyNOP(Core core, Process process, int range)
 	{
-		Random random = new Random(new Date().getTime());
-		
-		// Get a random value within the range, adding one to the
-		// answer in case we get a zero
-		int bombRange = random.nextInt(range) + 1;
+		copyNOP(core, process, range, new Random(new Date().getTime()));
+	}
+	
+	/**
+	 * Copies a NOP to a random location near the process, as
+	 * copyNOP does, drawing from the specified generator. The target
+	 * is chosen uniformly from the non-empty locations within range,
+	 * which are counted and selected using the occupancy bitmap of
+	 * the core, so a bomb is only wasted if there is no instruction
+	 * within range at all.
+	 * 
+	 * @param core The core containing the process
+	 * @param process The process launching the NOP bomb
+	 * @param range Range over which to launch the NOP bomb
+	 * @param random The generator from which to draw the target
+	 * 
+	 * @return True if the bomb landed on an instruction
+	 */
+	public static boolean copyNOP(Core core, Process process, int range,
+			                      Random random)
+	{
+		// Number of locations in range before the start and
+		// after the end of the process, which may not overlap
+		// each other or the process in a small core
+		int outside = Math.max(core.size() - process.length(), 0);
+		int before = Math.min(range, outside);
+		int after = Math.min(range, outside - before);
 		
-		int location;
+		int beforeStart = Math.floorMod(process.address() - before, core.size());
+		int afterStart = Math.floorMod(process.address() + process.length(), 
+				                       core.size());
 		
-		// Randomly decide whether or not to make it negative
-		int makeNegative = random.nextInt(2);
+		int beforeCount = core.occupied(beforeStart, before);
+		int afterCount = core.occupied(afterStart, after);
 		
-		// Have ten attempts at spawning the process
-		for (int attempts=0; attempts<ATTEMPTS; attempts++)
+		if (beforeCount + afterCount == 0)
 		{
-			if (makeNegative == 0)
-			{			
-				// Place NOP before the process
-				
-				// Now obtain the value at the relevant location
-				// in the core
+			// Bomb has been wasted on empty space
+			core.events().record(EventBatch.BOMB, -1, 0, 0);
 			
-				// Examine the potential NOP bomb location,
-				// taking care to wrap around if we reach the start of the core
-				if (process.address() < bombRange)
-				{
-					int partialRange = bombRange - process.address();
-					
-					location = core.size() - partialRange;
-				}
-				else
-				{
-					location = process.address() - bombRange;
-				}
-			}
-			else
-			{
-				// Place NOP after the process
-				
-				// Now obtain the value at the relevant location
-				// in the core
-				// Get location of last address of process
-				int lastAddress = 
-					(process.address() + process.length()-1) % core.size();
-			
-				// Examine the potential NOP bomb location
-				location = (lastAddress + bombRange) % core.size();
-			}
+			return (false);
+		}
 		
-			if (!core.getInstruction(location).equals(Core.EMPTY))
-			{
-				core.setInstruction(Instructions.NOP, location);
-				
-				// Exit the loop
-				break;
-			}
+		// Choose uniformly between the occupied locations
+		int rank = random.nextInt(beforeCount + afterCount);
+		
+		int location;
+		
+		if (rank < beforeCount)
+		{
+			location = core.selectOccupied(beforeStart, before, rank);
 		}
+		else
+		{
+			location = core.selectOccupied(afterStart, after, rank - beforeCount);
+		}
+		
+		core.setInstruction(Instructions.NOP, location);
+		
+		core.events().record(EventBatch.BOMB, location, 0, 1);
+		
+		return (true);
 	}
 	
 	/**
@@ -226,9 +231,14 @@ public class Instructions
 		
 		int newAddress = -1;
 		
+		// Number of core locations examined
+		int probes = 0;
+		
 		// Have ten attempts at spawning the process
 		for (int attempts=0; attempts<ATTEMPTS; attempts++)
 		{
+			probes++;
+			
 			// Get a random core address
 			int address = random.nextInt(core.size());
 			
@@ -263,12 +273,9 @@ public class Instructions
 			// thread
 			if (allEmpty || nopSled)
 			{
-				// Get a copy of the instructions for
-				// the process
-				String[] instructions = core.getInstructions(process);
-				
-				// Make a new copy in the core
-				core.addProcess(instructions, address, process);
+				// Make a new copy in the core, straight
+				// from the instructions of the process
+				core.addProcess(core.view(process), address, process);
 				
 				// Returned address if process successfully
 				// spawned
@@ -276,6 +283,11 @@ public class Instructions
 				{
 					newAddress = address;
 				}
+				else
+				{
+					core.events().record(EventBatch.INFECTION, address,
+							             process.length(), process.address());
+				}
 				
 				// Exit the loop
 				break;
@@ -283,7 +295,247 @@ public class Instructions
 
 		}
 		
+		core.events().record(EventBatch.SPAWN, newAddress, 
+				             process.length(), probes);
+		
 		return (newAddress);
 	}
 	
+	/**
+	 * Spawns new copies of each of the specified processes, as 
+	 * spawnProcess does, resolving the requests made during an
+	 * execution cycle one after another. Every request draws its
+	 * probes from the same generator, so that requests made in the
+	 * same cycle do not repeat each other's probes, and each probe
+	 * examines the target locations once, giving up as soon as they
+	 * can be neither empty space nor a NOP sled.
+	 * 
+	 * The requests are deliberately not assigned targets together
+	 * from a single query of the free space. Each copy changes the
+	 * free space seen by the requests after it, and an infection can
+	 * rewrite a later parent, so the copies are made in the order of
+	 * the requests. Each child is then placed uniformly over the
+	 * locations free when it is spawned, as with spawnProcess, and
+	 * no two children are given overlapping addresses.
+	 * 
+	 * If a spawn range is specified, children are instead placed
+	 * near their parents, within the given number of locations
+	 * before the start or after the end of the parent, as with NOP
+	 * bombs. The neighbourhood is searched for a run of empty
+	 * locations, or a NOP sled, long enough to hold the copy,
+	 * starting at a random point and wrapping around, so that only
+	 * nearby memory is touched.
+	 * 
+	 * @param core The core containing the processes
+	 * @param processes The processes to be spawned, in the order
+	 * in which they executed their spawn instructions
+	 * @param random The generator from which to draw probes
+	 * @param range Range within which children are placed around
+	 * their parents, or zero to place them anywhere in the core
+	 * 
+	 * @return The starting address of each spawned process, or -1
+	 * where spawning failed or the process parasitised another process
+	 */
+	public static int[] spawnProcesses(Core core, List<Process> processes,
+			                           Random random, int range)
+	{
+		return (spawnProcesses(core, processes, random, range, null));
+	}
+	
+	/**
+	 * Spawns new copies of each of the specified processes, as the
+	 * four argument method does, also reporting the address of each
+	 * copy made into the NOP sled of another process.
+	 * 
+	 * @param core The core containing the processes
+	 * @param processes The processes to be spawned, in the order
+	 * in which they executed their spawn instructions
+	 * @param random The generator from which to draw probes
+	 * @param range Range within which children are placed around
+	 * their parents, or zero to place them anywhere in the core
+	 * @param infections Array with room for an entry per process,
+	 * into which the address of each copy made into a NOP sled is
+	 * written, or -1 where there was none, or null
+	 * 
+	 * @return The starting address of each spawned process, or -1
+	 * where spawning failed or the process parasitised another process
+	 */
+	public static int[] spawnProcesses(Core core, List<Process> processes,
+			                           Random random, int range,
+			                           int[] infections)
+	{
+		int[] newAddresses = new int[processes.size()];
+		
+		// Number of locations examined by a local search
+		int[] examined = new int[1];
+		
+		int request = 0;
+		
+		for (Process process: processes)
+		{
+			int newAddress = -1;
+			
+			// Address of the copy made, whether into
+			// empty space or a NOP sled
+			int copyAddress = -1;
+			
+			// Number of core locations examined
+			int probes = 0;
+			
+			if (range > 0)
+			{
+				// Search the neighbourhood of the parent
+				int address = 
+						findLocalSpace(core, process, random, range, examined);
+				
+				probes = examined[0];
+				
+				if (address != -1)
+				{
+					newAddress = copyProcess(core, process, address);
+					copyAddress = address;
+				}
+			}
+			
+			for (int attempts=0; range<=0 && attempts<ATTEMPTS; attempts++)
+			{
+				probes++;
+				
+				// Get a random core address
+				int address = random.nextInt(core.size());
+				
+				// Examine the locations at which the copy would
+				// be made, stopping once they can be neither
+				// empty space nor a NOP sled
+				boolean allEmpty = true;
+				boolean nopSled = true;
+				
+				for (int index=0; 
+					 index<process.length() && (allEmpty || nopSled); 
+					 index++)
+				{
+					String instruction = 
+							core.getInstruction((address+index) % core.size());
+					
+					allEmpty &= (instruction == Core.EMPTY);
+					nopSled &= (instruction == Instructions.NOP);
+				}
+				
+				if (allEmpty || nopSled)
+				{
+					newAddress = copyProcess(core, process, address);
+					copyAddress = address;
+					
+					break;
+				}
+			}
+			
+			core.events().record(EventBatch.SPAWN, newAddress, 
+					             process.length(), probes);
+			
+			if (infections != null)
+			{
+				infections[request] = 
+						(newAddress == -1) ? copyAddress : -1;
+			}
+			
+			newAddresses[request++] = newAddress;
+		}
+		
+		return (newAddresses);
+	}
+	
+	/**
+	 * Searches the neighbourhood of a process for a run of empty
+	 * locations, or a NOP sled, long enough to hold a copy of the
+	 * process. The search starts at a random point within the
+	 * neighbourhood, wrapping around to its start, and runs
+	 * are not allowed to span the wrap.
+	 * 
+	 * @param core The core containing the process
+	 * @param process The process to be spawned
+	 * @param random The generator from which to draw the start point
+	 * @param range Number of locations before the start and after the
+	 * end of the process which make up the neighbourhood
+	 * @param examined Array into whose first entry the number of
+	 * locations examined before the search ended is written
+	 * 
+	 * @return The address of the first location of the run, or -1
+	 * if no run was found
+	 */
+	private static int findLocalSpace(Core core, Process process, 
+			                          Random random, int range,
+			                          int[] examined)
+	{
+		// Neighbourhood, which may not exceed the core
+		int size = Math.min(2*range + process.length(), core.size());
+		int start = Math.floorMod(process.address() - range, core.size());
+		
+		int first = random.nextInt(size);
+		
+		// Lengths of the current runs of empty and NOP locations
+		int emptyRun = 0;
+		int nopRun = 0;
+		
+		for (int count=0; count<size; count++)
+		{
+			int offset = (first + count) % size;
+			
+			// Runs may not wrap from the end of the 
+			// neighbourhood back to its start
+			if (offset == 0)
+			{
+				emptyRun = 0;
+				nopRun = 0;
+			}
+			
+			String instruction = 
+					core.getInstruction((start + offset) % core.size());
+			
+			emptyRun = (instruction == Core.EMPTY) ? emptyRun + 1 : 0;
+			nopRun = (instruction == Instructions.NOP) ? nopRun + 1 : 0;
+			
+			if (emptyRun >= process.length() || nopRun >= process.length())
+			{
+				examined[0] = count + 1;
+				
+				return ((start + offset - process.length() + 1) % core.size());
+			}
+		}
+		
+		examined[0] = size;
+		
+		return (-1);
+	}
+	
+	/**
+	 * Copies a process to a location found to be either empty
+	 * space or a NOP sled.
+	 * 
+	 * @param core The core containing the process
+	 * @param process The process to be spawned
+	 * @param address The address of the location
+	 * 
+	 * @return The address of the copy, or -1 if the copy
+	 * parasitised another process
+	 */
+	private static int copyProcess(Core core, Process process, int address)
+	{
+		// Decide between empty space and a NOP sled before the
+		// copy, which leaves no trace of what was there
+		boolean allEmpty = (core.getInstruction(address) == Core.EMPTY);
+		
+		core.addProcess(core.view(process), address, process);
+		
+		if (allEmpty)
+		{
+			return (address);
+		}
+		
+		core.events().record(EventBatch.INFECTION, address,
+				             process.length(), process.address());
+		
+		return (-1);
+	}
+	
 }
@@ -2,6 +2,10 @@ package procs;
 
 import static org.junit.Assert.*;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -111,4 +115,191 @@ public class InstructionsTest
 		}
 	}
 
+	@Test
+	public final void testSpawnProcesses() 
+	{
+		// A larger core, with room for several children
+		Core bigCore = new Core(100, 0);
+		
+		Process first = new Process(0, ancestor.length);
+		bigCore.addProcess(ancestor, 0, first);
+		
+		Process second = new Process(50, ancestor.length);
+		bigCore.addProcess(ancestor, 50, second);
+		
+		List<Process> parents = Arrays.asList(first, second, first);
+		
+		int[] addresses = 
+				Instructions.spawnProcesses(bigCore, parents, new Random(1), 0);
+		
+		assertEquals("Incorrect number of results", 3, addresses.length);
+		
+		// Every child should be copied in full, without
+		// overlapping a parent or another child
+		int[] owners = new int[bigCore.size()];
+		
+		for (int child=0; child<addresses.length; child++)
+		{
+			if (addresses[child] != -1)
+			{
+				for (int index=0; index<ancestor.length; index++)
+				{
+					int location = (addresses[child]+index) % bigCore.size();
+					
+					assertEquals("Children overlap", 0, owners[location]);
+					owners[location] = child + 1;
+					
+					assertEquals("Child not copied", ancestor[index], 
+							     bigCore.getInstruction(location));
+				}
+			}
+		}
+		
+		assertEquals("Parents overwritten", 
+				     Arrays.asList(ancestor), 
+				     Arrays.asList(bigCore.getInstructions(second)));
+	}
+
+	@Test
+	public final void testSpawnDistribution() 
+	{
+		final int TRIALS = 2000;
+		
+		// Children should be placed uniformly over the addresses
+		// at which they fit, empty space and NOP sleds alike
+		int[] placements = new int[100];
+		
+		for (int trial=0; trial<TRIALS; trial++)
+		{
+			Core bigCore = new Core(100, 0);
+			
+			Process parent = new Process(0, ancestor.length);
+			bigCore.addProcess(ancestor, 0, parent);
+			
+			// Room for a child at 20 to 25, in empty space,
+			// and at 60 to 65, in a NOP sled
+			for (int index=ancestor.length; index<100; index++)
+			{
+				if (index < 20 || index >= 30)
+				{
+					bigCore.setInstruction(index >= 60 && index < 70 ?
+							               Instructions.NOP : Instructions.CPN,
+							               index);
+				}
+			}
+			
+			int[] infected = new int[1];
+			int[] addresses = Instructions.spawnProcesses
+				(bigCore, Arrays.asList(parent), new Random(trial), 0, infected);
+			
+			int address = (addresses[0] != -1) ? addresses[0] : infected[0];
+			
+			if (address != -1)
+			{
+				placements[address]++;
+			}
+		}
+		
+		// Each of the twelve addresses is found by one of ten
+		// probes with probability 1 - 0.88^10, so expect about
+		// 120 placements at each
+		for (int address=0; address<100; address++)
+		{
+			boolean fits = (address >= 20 && address <= 25) ||
+					       (address >= 60 && address <= 65);
+			
+			if (fits)
+			{
+				assertTrue("Address under-used: " + address, 
+						   placements[address] > 70 && 
+						   placements[address] < 180);
+			}
+			else
+			{
+				assertEquals("Child placed without room", 0, placements[address]);
+			}
+		}
+	}
+	
+	@Test
+	public final void testLocalSpawn() 
+	{
+		Core bigCore = new Core(100, 0);
+		
+		Process parent = new Process(98, ancestor.length);
+		bigCore.addProcess(ancestor, 98, parent);
+		
+		// Fill the core apart from a gap just before the parent
+		for (int index=3; index<90; index++)
+		{
+			bigCore.setInstruction(Instructions.CPN, index);
+		}
+		
+		for (int attempt=0; attempt<10; attempt++)
+		{
+			Core core = new Core(100, 0);
+			
+			for (int index=0; index<core.size(); index++)
+			{
+				core.setInstruction(bigCore.getInstruction(index), index);
+			}
+			
+			EventBatch batch = new EventBatch(new EventListener[0]);
+			core.setEvents(batch);
+			batch.begin();
+			
+			int[] addresses = Instructions.spawnProcesses
+				(core, Arrays.asList(parent), new Random(attempt), 10);
+			
+			// The only gap within range lies at 90 to 97
+			assertTrue("Child placed out of range", 
+					   addresses[0] >= 90 && addresses[0] <= 93);
+			
+			// The search of the 25 locations from 88 to 12 starts
+			// at the one location drawn, and ends at the last
+			// location of the child
+			int first = new Random(attempt).nextInt(25);
+			int last = addresses[0] + ancestor.length - 1 - 88;
+			
+			assertEquals("Incorrect probes", Math.floorMod(last - first, 25) + 1,
+					     batch.detail(batch.size() - 1));
+		}
+		
+		// Nowhere within range of a process with no gap nearby
+		Process isolated = new Process(40, ancestor.length);
+		
+		EventBatch batch = new EventBatch(new EventListener[0]);
+		bigCore.setEvents(batch);
+		batch.begin();
+		
+		int[] addresses = Instructions.spawnProcesses
+			(bigCore, Arrays.asList(isolated), new Random(1), 10);
+		
+		assertEquals("Child placed without room", -1, addresses[0]);
+		assertEquals("Incorrect probes", 25, batch.detail(0));
+	}
+
+	@Test
+	public final void testSparseBomb() 
+	{
+		// A single instruction within range of the process
+		// must be hit by every bomb
+		Core bigCore = new Core(100, 0);
+		
+		Process bomber = new Process(50, ancestor.length);
+		bigCore.addProcess(ancestor, 50, bomber);
+		
+		bigCore.setInstruction(Instructions.CPN, 58);
+		
+		Instructions.copyNOP(bigCore, bomber, 4, new Random(1));
+		
+		assertEquals("Bomb missed", Instructions.NOP, bigCore.getInstruction(58));
+		
+		// Nothing within range, so nothing is hit
+		Instructions.copyNOP(bigCore, bomber, 2, new Random(1));
+		
+		assertEquals("Bomb landed outside range", 
+				     ancestor.length + 1, bigCore.occupied());
+	}
+
 }
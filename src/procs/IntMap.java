@@ -0,0 +1,227 @@
+package procs;
+
+import java.util.Arrays;
+
+/**
+ * Map from int keys to int values, held in primitive arrays using
+ * open addressing, so that neither keys nor values are boxed and 
+ * no objects are allocated per entry. Used where large numbers 
+ * of compact identifiers must be tracked.
+ * 
+ * @author richpl
+ */
+public class IntMap 
+{
+	/**
+	 * Value returned for keys which are not in the map
+	 */
+	public static final int MISSING = -1;
+	
+	// Initial number of slots, which must be a power of two
+	private static final int CAPACITY = 16;
+	
+	// Keys and values of each slot
+	private int[] keys;
+	private int[] values;
+	
+	// Indicates whether each slot is in use
+	private boolean[] used;
+	
+	// Number of entries in the map
+	private int size;
+	
+	/**
+	 * Constructs an empty map.
+	 */
+	public IntMap()
+	{
+		keys = new int[CAPACITY];
+		values = new int[CAPACITY];
+		used = new boolean[CAPACITY];
+		
+		size = 0;
+	}
+	
+	/**
+	 * Finds the home slot of a key.
+	 * 
+	 * @param key The key
+	 * 
+	 * @return The slot at which to start searching for the key
+	 */
+	private int slot(final int key)
+	{
+		int hash = key * 0x9E3779B9;
+		
+		return ((hash ^ (hash >>> 16)) & (keys.length - 1));
+	}
+	
+	/**
+	 * Finds the slot holding a key, or the empty slot at 
+	 * which it would be inserted.
+	 * 
+	 * @param key The key
+	 * 
+	 * @return The slot for the key
+	 */
+	private int find(final int key)
+	{
+		int mask = keys.length - 1;
+		int slot = slot(key);
+		
+		while (used[slot] && keys[slot] != key)
+		{
+			slot = (slot + 1) & mask;
+		}
+		
+		return (slot);
+	}
+	
+	/**
+	 * Returns the value associated with a key.
+	 * 
+	 * @param key The key
+	 * 
+	 * @return The value, or MISSING if the key is not in the map
+	 */
+	public int get(final int key)
+	{
+		int slot = find(key);
+		
+		return (used[slot] ? values[slot] : MISSING);
+	}
+	
+	/**
+	 * Indicates whether a key is in the map.
+	 * 
+	 * @param key The key
+	 * 
+	 * @return True if the key is in the map
+	 */
+	public boolean containsKey(final int key)
+	{
+		return (used[find(key)]);
+	}
+	
+	/**
+	 * Associates a value with a key, replacing any existing value.
+	 * 
+	 * @param key The key
+	 * @param value The value
+	 */
+	public void put(final int key, final int value)
+	{
+		int slot = find(key);
+		
+		if (!used[slot])
+		{
+			// Keep the table no more than half full
+			if ((size + 1) * 2 > keys.length)
+			{
+				resize(keys.length * 2);
+				slot = find(key);
+			}
+			
+			used[slot] = true;
+			keys[slot] = key;
+			size++;
+		}
+		
+		values[slot] = value;
+	}
+	
+	/**
+	 * Removes a key from the map.
+	 * 
+	 * @param key The key
+	 * 
+	 * @return The value that was associated with the key, or 
+	 * MISSING if the key was not in the map
+	 */
+	public int remove(final int key)
+	{
+		int mask = keys.length - 1;
+		int slot = find(key);
+		
+		if (!used[slot])
+		{
+			return (MISSING);
+		}
+		
+		int value = values[slot];
+		
+		used[slot] = false;
+		size--;
+		
+		// Move back any following entries that would no
+		// longer be found past the emptied slot
+		int next = (slot + 1) & mask;
+		
+		while (used[next])
+		{
+			int home = slot(keys[next]);
+			
+			// Move the entry if its home slot does not lie
+			// cyclically between the empty slot and itself
+			if (((next - home) & mask) >= ((next - slot) & mask))
+			{
+				keys[slot] = keys[next];
+				values[slot] = values[next];
+				used[slot] = true;
+				used[next] = false;
+				
+				slot = next;
+			}
+			
+			next = (next + 1) & mask;
+		}
+		
+		return (value);
+	}
+	
+	/**
+	 * @return The number of entries in the map
+	 */
+	public int size()
+	{
+		return (size);
+	}
+	
+	/**
+	 * Removes all entries from the map.
+	 */
+	public void clear()
+	{
+		Arrays.fill(used, false);
+		
+		size = 0;
+	}
+	
+	/**
+	 * Moves the entries into a table of a new size.
+	 * 
+	 * @param capacity The new number of slots
+	 */
+	private void resize(final int capacity)
+	{
+		int[] oldKeys = keys;
+		int[] oldValues = values;
+		boolean[] oldUsed = used;
+		
+		keys = new int[capacity];
+		values = new int[capacity];
+		used = new boolean[capacity];
+		
+		for (int index=0; index<oldKeys.length; index++)
+		{
+			if (oldUsed[index])
+			{
+				int slot = find(oldKeys[index]);
+				
+				used[slot] = true;
+				keys[slot] = oldKeys[index];
+				values[slot] = oldValues[index];
+			}
+		}
+	}
+}
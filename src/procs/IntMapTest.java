@@ -0,0 +1,55 @@
+package procs;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class IntMapTest 
+{
+	@Test
+	public final void testPutGet() 
+	{
+		IntMap map = new IntMap();
+		
+		for (int key=0; key<1000; key++)
+		{
+			map.put(key * 16, key);
+		}
+		
+		assertEquals("Incorrect size", 1000, map.size());
+		assertEquals("Incorrect value", 500, map.get(8000));
+		assertEquals("Missing key found", IntMap.MISSING, map.get(1));
+		
+		map.put(8000, 7);
+		
+		assertEquals("Value not replaced", 7, map.get(8000));
+		assertEquals("Size changed by replacement", 1000, map.size());
+	}
+	
+	@Test
+	public final void testRemove() 
+	{
+		IntMap map = new IntMap();
+		
+		for (int key=0; key<1000; key++)
+		{
+			map.put(key, -key);
+		}
+		
+		// Remove every other key, then check the 
+		// remainder can still be found
+		for (int key=0; key<1000; key+=2)
+		{
+			assertEquals("Incorrect value removed", -key, map.remove(key));
+		}
+		
+		for (int key=0; key<1000; key++)
+		{
+			assertEquals("Incorrect membership", 
+					     key % 2 == 1, map.containsKey(key));
+		}
+		
+		assertEquals("Incorrect size", 500, map.size());
+		assertEquals("Missing key removed", IntMap.MISSING, map.remove(0));
+	}
+}
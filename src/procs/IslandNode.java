@@ -0,0 +1,769 @@
+package procs;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Vector;
+
+/**
+ * An island of a distributed archipelago, wrapping a CPU whose
+ * execution is unchanged, and exchanging migrant genomes with the
+ * islands running in other JVMs, on the same host or elsewhere,
+ * over non-blocking socket channels.
+ *
+ * Each island sends its migrants to a single downstream island,
+ * and accepts migrants from any number of upstream islands, so
+ * islands are usually arranged in a ring. Network traffic is serviced
+ * on the thread running the CPU, between execution cycles, so the CPU
+ * is never touched by another thread.
+ *
+ * Migrants chosen during a cycle are sent together as a single
+ * message at the end of the cycle. Each genome is encoded compactly
+ * by InstructionCodec, with a single byte for each instruction but
+ * jumps. Should the
+ * downstream island fall behind, so that the outgoing buffer fills,
+ * further migrants are dropped rather than held, and counted as lost.
+ * Islands send heartbeats when they have nothing else to send, so
+ * that an island can tell whether each of its upstream islands is
+ * alive. An upstream island whose connection is lost remains known,
+ * and dead, so that it is not hidden by the islands still alive.
+ *
+ * @author richpl
+ */
+public class IslandNode implements Closeable
+{
+	/**
+	 * Size of the buffers for incoming and outgoing messages,
+	 * which also limits the size of a single message
+	 */
+	public static final int BUFFER_SIZE = 1 << 16;
+	
+	/**
+	 * Milliseconds without sending anything after which
+	 * a heartbeat is sent
+	 */
+	public static final long HEARTBEAT_INTERVAL = 200;
+	
+	/**
+	 * Milliseconds without hearing from an upstream island
+	 * after which it is presumed dead
+	 */
+	public static final long TIMEOUT = 2000;
+	
+	/**
+	 * Milliseconds to wait before reconnecting to a
+	 * downstream island that could not be reached
+	 */
+	public static final long RECONNECT_DELAY = 500;
+	
+	// Message types
+	private static final byte HEARTBEAT = 0;
+	private static final byte MIGRANTS = 1;
+	
+	// Length of a message header, giving the length of
+	// the rest of the message and its type
+	private static final int HEADER_SIZE = 5;
+	
+	/**
+	 * The connection of an upstream island
+	 */
+	private static class Upstream
+	{
+		// Address from which the island connected
+		private SocketAddress address;
+		
+		// Buffer of messages not yet wholly received,
+		// or null once the connection is lost
+		private ByteBuffer buffer;
+		
+		// Time at which anything was last heard from the island
+		private long lastHeard;
+	}
+	
+	// CPU running the island
+	private CPU cpu;
+	
+	// Codec for the instructions of migrant genomes
+	private InstructionCodec codec;
+	
+	// Number of cycles between migrations
+	private int interval;
+	
+	// Selector for accepting and reading from upstream islands,
+	// and connecting to the downstream island
+	private Selector selector;
+	
+	// Channel on which upstream islands connect
+	private ServerSocketChannel server;
+	
+	// Address of the downstream island, or null if there is none
+	private InetSocketAddress downstreamAddress;
+	
+	// Channel to the downstream island, or null if not connected
+	private SocketChannel downstream;
+	
+	// Buffer of messages waiting to be sent downstream
+	private ByteBuffer outgoing;
+	
+	// Genomes chosen to migrate during the current cycle
+	private List<String[]> migrants;
+	
+	// Times at which anything was last sent downstream,
+	// and at which connecting downstream last failed
+	private long lastSent;
+	private long lastFailure;
+	
+	// Upstream islands, in the order in which they connected
+	private List<Upstream> upstreams;
+	
+	// Numbers of migrants sent, lost, received and innoculated
+	private long emigrants;
+	private long lost;
+	private long received;
+	private long immigrants;
+	
+	/**
+	 * Constructs an island, listening for upstream islands
+	 * on the specified address.
+	 *
+	 * @param cpu The CPU running the island, which must not
+	 * be used by any other thread
+	 * @param bind The address on which to listen for upstream
+	 * islands, whose port may be zero to pick any free port
+	 * @param interval The number of cycles between migrations
+	 *
+	 * @throws IOException Signals that the island could not listen
+	 * on the specified address
+	 * @throws NumberFormatException Signals that a non-positive
+	 * interval was specified
+	 */
+	public IslandNode(final CPU cpu, final InetSocketAddress bind,
+			          final int interval)
+		throws IOException, NumberFormatException
+	{
+		if (interval <= 0)
+		{
+			throw new NumberFormatException("Invalid migration interval specified");
+		}
+		
+		this.cpu = cpu;
+		codec = new InstructionCodec();
+		this.interval = interval;
+		
+		selector = Selector.open();
+		
+		server = ServerSocketChannel.open();
+		server.bind(bind);
+		server.configureBlocking(false);
+		server.register(selector, SelectionKey.OP_ACCEPT);
+		
+		outgoing = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		migrants = new Vector<String[]>();
+		
+		lastSent = 0;
+		lastFailure = Long.MIN_VALUE / 2;
+		
+		upstreams = new Vector<Upstream>();
+	}
+	
+	/**
+	 * @return The address on which the island listens
+	 * for upstream islands
+	 *
+	 * @throws IOException Signals that the address could not be found
+	 */
+	public InetSocketAddress localAddress() throws IOException
+	{
+		return ((InetSocketAddress) server.getLocalAddress());
+	}
+	
+	/**
+	 * Sets the island to which migrants are to be sent. The
+	 * connection is made, and remade if it fails, in the course
+	 * of running the island.
+	 *
+	 * @param address The address of the downstream island
+	 */
+	public void connectTo(final InetSocketAddress address)
+	{
+		downstreamAddress = address;
+	}
+	
+	/**
+	 * Runs the island for the specified number of cycles.
+	 *
+	 * @param cycles The number of cycles to run the island for
+	 *
+	 * @throws IOException Signals that the island could
+	 * no longer listen for upstream islands
+	 */
+	public void run(final long cycles) throws IOException
+	{
+		for (long cycle=1; cycle<=cycles; cycle++)
+		{
+			service();
+			
+			cpu.execute();
+			
+			if (cycle % interval == 0 && downstreamAddress != null)
+			{
+				String[] genome = cpu.sampleGenome();
+				
+				if (genome != null)
+				{
+					migrants.add(genome);
+				}
+			}
+		}
+		
+		service();
+	}
+	
+	/**
+	 * Services the network without executing the CPU: accepts
+	 * upstream islands, innoculates any migrants received from them,
+	 * connects downstream, and sends any migrants or heartbeat due.
+	 *
+	 * @throws IOException Signals that the island could
+	 * no longer listen for upstream islands
+	 */
+	public void service() throws IOException
+	{
+		long now = System.currentTimeMillis();
+		
+		selector.selectNow();
+		
+		Iterator<SelectionKey> iter = selector.selectedKeys().iterator();
+		
+		while (iter.hasNext())
+		{
+			SelectionKey key = iter.next();
+			iter.remove();
+			
+			if (!key.isValid())
+			{
+				continue;
+			}
+			
+			if (key.isAcceptable())
+			{
+				accept(now);
+			}
+			else if (key.isConnectable())
+			{
+				finishConnect(key, now);
+			}
+			else if (key.isReadable())
+			{
+				read(key, now);
+			}
+		}
+		
+		connect(now);
+		send(now);
+	}
+	
+	/**
+	 * Accepts a connection from an upstream island, which
+	 * counts as having heard from it.
+	 *
+	 * @param now The current time
+	 *
+	 * @throws IOException Signals that the server channel has failed
+	 */
+	private void accept(final long now) throws IOException
+	{
+		SocketChannel channel = server.accept();
+		
+		if (channel != null)
+		{
+			Upstream upstream = new Upstream();
+			
+			upstream.address = channel.getRemoteAddress();
+			upstream.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+			upstream.lastHeard = now;
+			
+			channel.configureBlocking(false);
+			channel.register(selector, SelectionKey.OP_READ, upstream);
+			
+			upstreams.add(upstream);
+		}
+	}
+	
+	/**
+	 * Starts to connect to the downstream island, if there is
+	 * one, it is not already connected and it has not failed
+	 * too recently.
+	 *
+	 * @param now The current time
+	 */
+	private void connect(final long now)
+	{
+		if (downstreamAddress == null || downstream != null ||
+			now - lastFailure < RECONNECT_DELAY)
+		{
+			return;
+		}
+		
+		try
+		{
+			downstream = SocketChannel.open();
+			downstream.configureBlocking(false);
+			downstream.setOption(StandardSocketOptions.TCP_NODELAY, true);
+			
+			if (downstream.connect(downstreamAddress))
+			{
+				lastSent = now;
+			}
+			else
+			{
+				downstream.register(selector, SelectionKey.OP_CONNECT);
+			}
+		}
+		catch (IOException e)
+		{
+			disconnect(now);
+		}
+	}
+	
+	/**
+	 * Completes the connection to the downstream island.
+	 *
+	 * @param key The selection key of the downstream channel
+	 * @param now The current time
+	 */
+	private void finishConnect(final SelectionKey key, final long now)
+	{
+		try
+		{
+			if (downstream.finishConnect())
+			{
+				key.interestOps(0);
+				lastSent = now;
+			}
+		}
+		catch (IOException e)
+		{
+			disconnect(now);
+		}
+	}
+	
+	/**
+	 * Closes the channel to the downstream island after a failure,
+	 * discarding anything still waiting to be sent.
+	 *
+	 * @param now The current time
+	 */
+	private void disconnect(final long now)
+	{
+		try
+		{
+			if (downstream != null)
+			{
+				downstream.close();
+			}
+		}
+		catch (IOException e)
+		{
+			// Already as closed as it can be
+		}
+		
+		downstream = null;
+		lastFailure = now;
+		
+		outgoing.clear();
+	}
+	
+	/**
+	 * Reads from an upstream island, innoculating the migrants of
+	 * every complete message received.
+	 *
+	 * @param key The selection key of the upstream channel
+	 * @param now The current time
+	 */
+	private void read(final SelectionKey key, final long now)
+	{
+		SocketChannel channel = (SocketChannel) key.channel();
+		Upstream upstream = (Upstream) key.attachment();
+		ByteBuffer buffer = upstream.buffer;
+		
+		try
+		{
+			if (channel.read(buffer) == -1)
+			{
+				upstream.buffer = null;
+				channel.close();
+				
+				return;
+			}
+			
+			upstream.lastHeard = now;
+			
+			buffer.flip();
+			
+			while (buffer.remaining() >= HEADER_SIZE)
+			{
+				int length = buffer.getInt(buffer.position());
+				
+				if (length < 0 || length > BUFFER_SIZE - HEADER_SIZE)
+				{
+					throw new IOException("Invalid message length");
+				}
+				
+				if (buffer.remaining() < HEADER_SIZE + length)
+				{
+					break;
+				}
+				
+				buffer.getInt();
+				byte type = buffer.get();
+				
+				int end = buffer.position() + length;
+				
+				if (type == MIGRANTS)
+				{
+					receive(buffer);
+				}
+				
+				buffer.position(end);
+			}
+			
+			buffer.compact();
+		}
+		catch (IOException | RuntimeException e)
+		{
+			// A broken or misbehaving island is cut off
+			key.cancel();
+			upstream.buffer = null;
+			
+			try
+			{
+				channel.close();
+			}
+			catch (IOException closeFailed)
+			{
+				// Already as closed as it can be
+			}
+		}
+	}
+	
+	/**
+	 * Decodes and innoculates the genomes of a message of migrants.
+	 *
+	 * @param buffer The buffer, positioned at the start of the
+	 * body of the message
+	 */
+	private void receive(final ByteBuffer buffer)
+	{
+		int count = buffer.getShort() & 0xFFFF;
+		
+		for (int migrant=0; migrant<count; migrant++)
+		{
+			String[] genome = new String[buffer.getShort() & 0xFFFF];
+			
+			for (int index=0; index<genome.length; index++)
+			{
+				genome[index] = codec.decode(buffer);
+			}
+			
+			received++;
+			
+			if (cpu.immigrate(genome))
+			{
+				immigrants++;
+			}
+		}
+	}
+	
+	/**
+	 * Sends the migrants chosen since the last message, or a
+	 * heartbeat if nothing has been sent for a while, then writes
+	 * as much of the outgoing buffer as the channel will accept.
+	 *
+	 * @param now The current time
+	 */
+	private void send(final long now)
+	{
+		if (downstream == null || !downstream.isConnected())
+		{
+			// Migrants cannot wait for the connection
+			lost += migrants.size();
+			migrants.clear();
+			
+			return;
+		}
+		
+		if (!migrants.isEmpty())
+		{
+			encodeMigrants();
+		}
+		else if (now - lastSent >= HEARTBEAT_INTERVAL &&
+				 outgoing.position() == 0 &&
+				 outgoing.remaining() >= HEADER_SIZE)
+		{
+			outgoing.putInt(0);
+			outgoing.put(HEARTBEAT);
+		}
+		
+		if (outgoing.position() > 0)
+		{
+			try
+			{
+				outgoing.flip();
+				downstream.write(outgoing);
+				outgoing.compact();
+				
+				lastSent = now;
+			}
+			catch (IOException e)
+			{
+				disconnect(now);
+			}
+		}
+	}
+	
+	/**
+	 * Encodes the migrants chosen since the last message into a
+	 * single message in the outgoing buffer, dropping those for
+	 * which there is no room.
+	 */
+	private void encodeMigrants()
+	{
+		int start = outgoing.position();
+		
+		if (outgoing.remaining() < HEADER_SIZE + 2)
+		{
+			lost += migrants.size();
+			migrants.clear();
+			
+			return;
+		}
+		
+		outgoing.position(start + HEADER_SIZE + 2);
+		
+		int count = 0;
+		
+		for (String[] genome: migrants)
+		{
+			int mark = outgoing.position();
+			
+			try
+			{
+				if (genome.length > 0xFFFF || count == 0xFFFF)
+				{
+					throw new IllegalArgumentException("Migrant too large");
+				}
+				
+				outgoing.putShort((short) genome.length);
+				
+				for (String instruction: genome)
+				{
+					InstructionCodec.encode(instruction, outgoing);
+				}
+				
+				count++;
+				emigrants++;
+			}
+			catch (RuntimeException e)
+			{
+				// No room, so the outgoing buffer is backed up
+				outgoing.position(mark);
+				lost++;
+			}
+		}
+		
+		migrants.clear();
+		
+		if (count == 0)
+		{
+			outgoing.position(start);
+			
+			return;
+		}
+		
+		int end = outgoing.position();
+		
+		outgoing.putInt(start, end - start - HEADER_SIZE);
+		outgoing.put(start + 4, MIGRANTS);
+		outgoing.putShort(start + HEADER_SIZE, (short) count);
+	}
+	
+	/**
+	 * Indicates whether every upstream island has been heard from
+	 * recently, by way of either migrants or heartbeats.
+	 *
+	 * @return True if at least one upstream island has connected,
+	 * and none is dead
+	 */
+	public boolean upstreamAlive()
+	{
+		return (!upstreams.isEmpty() && deadUpstreams().isEmpty());
+	}
+	
+	/**
+	 * @return The addresses from which upstream islands have
+	 * connected, in the order in which they connected
+	 */
+	public List<SocketAddress> upstreams()
+	{
+		List<SocketAddress> addresses = new ArrayList<SocketAddress>();
+		
+		for (Upstream upstream: upstreams)
+		{
+			addresses.add(upstream.address);
+		}
+		
+		return (addresses);
+	}
+	
+	/**
+	 * Finds the upstream islands not heard from recently, whether
+	 * they have fallen silent or their connection has been lost.
+	 *
+	 * @return The addresses from which the dead islands connected,
+	 * in the order in which they connected
+	 */
+	public List<SocketAddress> deadUpstreams()
+	{
+		long now = System.currentTimeMillis();
+		
+		List<SocketAddress> addresses = new ArrayList<SocketAddress>();
+		
+		for (Upstream upstream: upstreams)
+		{
+			if (upstream.buffer == null || now - upstream.lastHeard >= TIMEOUT)
+			{
+				addresses.add(upstream.address);
+			}
+		}
+		
+		return (addresses);
+	}
+	
+	/**
+	 * @return True if the island is connected to the downstream island
+	 */
+	public boolean downstreamConnected()
+	{
+		return (downstream != null && downstream.isConnected());
+	}
+	
+	/**
+	 * @return The CPU running the island
+	 */
+	public CPU cpu()
+	{
+		return (cpu);
+	}
+	
+	/**
+	 * @return The number of migrants sent downstream
+	 */
+	public long emigrants()
+	{
+		return (emigrants);
+	}
+	
+	/**
+	 * @return The number of migrants lost because the downstream
+	 * island was unreachable or had fallen behind
+	 */
+	public long lost()
+	{
+		return (lost);
+	}
+	
+	/**
+	 * @return The number of migrants received from upstream
+	 */
+	public long received()
+	{
+		return (received);
+	}
+	
+	/**
+	 * @return The number of migrants received from upstream
+	 * for which room was found in the Core
+	 */
+	public long immigrants()
+	{
+		return (immigrants);
+	}
+	
+	/**
+	 * Closes every channel of the island.
+	 *
+	 * @throws IOException Signals that a channel could not be closed
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		for (SelectionKey key: selector.keys())
+		{
+			key.channel().close();
+		}
+		
+		if (downstream != null)
+		{
+			downstream.close();
+		}
+		
+		server.close();
+		selector.close();
+	}
+	
+	/**
+	 * Runs an island in this JVM.
+	 * 
+	 * Usage: IslandNode port downstream-host:port cycles interval
+	 * 
+	 * @param args The port on which to listen, the address of the
+	 * downstream island, the number of cycles to run, and the number
+	 * of cycles between migrations
+	 */
+	public static void main(String[] args)
+	{
+		if (args.length != 4)
+		{
+			System.err.println("Usage: IslandNode port downstream-host:port " +
+					           "cycles interval");
+			return;
+		}
+		
+		try
+		{
+			int separator = args[1].lastIndexOf(':');
+			
+			InetSocketAddress downstream = new InetSocketAddress
+				(args[1].substring(0, separator), 
+				 Integer.parseInt(args[1].substring(separator + 1)));
+			
+			try (IslandNode node = new IslandNode
+					(new CPU(), new InetSocketAddress(Integer.parseInt(args[0])),
+					 Integer.parseInt(args[3])))
+			{
+				node.connectTo(downstream);
+				node.run(Long.parseLong(args[2]));
+				
+				System.out.println("Migrants sent: " + node.emigrants() + 
+						           ", lost: " + node.lost() +
+						           ", received: " + node.received() +
+						           ", innoculated: " + node.immigrants());
+			}
+		}
+		catch (Exception e)
+		{
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,154 @@
+package procs;
+
+import static org.junit.Assert.*;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class IslandNodeTest
+{
+	private IslandNode first;
+	
+	private IslandNode second;
+	
+	@Before
+	public void setUp() throws Exception
+	{
+		InetSocketAddress loopback = 
+				new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+		
+		first = new IslandNode(new CPU(), loopback, 5);
+		second = new IslandNode(new CPU(), loopback, 5);
+		
+		first.connectTo(second.localAddress());
+		second.connectTo(first.localAddress());
+	}
+	
+	@After
+	public void tearDown() throws Exception
+	{
+		first.close();
+		second.close();
+	}
+	
+	@Test
+	public final void testHeartbeat() throws Exception
+	{
+		long deadline = System.currentTimeMillis() + 5000;
+		
+		// Heartbeats flow once the islands have connected
+		while (!(first.upstreamAlive() && second.upstreamAlive()) &&
+			   System.currentTimeMillis() < deadline)
+		{
+			first.service();
+			second.service();
+			
+			Thread.sleep(10);
+		}
+		
+		assertTrue("Islands not connected", 
+				   first.downstreamConnected() && second.downstreamConnected());
+		assertTrue("Heartbeat not received", 
+				   first.upstreamAlive() && second.upstreamAlive());
+	}
+	
+	@Test
+	public final void testDeadUpstream() throws Exception
+	{
+		IslandNode third = new IslandNode
+			(new CPU(), new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 5);
+		
+		third.connectTo(first.localAddress());
+		
+		long deadline = System.currentTimeMillis() + 5000;
+		
+		try
+		{
+			while (!(first.upstreams().size() == 2 && first.upstreamAlive()) &&
+				   System.currentTimeMillis() < deadline)
+			{
+				first.service();
+				second.service();
+				third.service();
+				
+				Thread.sleep(10);
+			}
+			
+			assertEquals("Upstream islands not connected", 2, first.upstreams().size());
+			assertTrue("Upstream islands not alive", first.upstreamAlive());
+		}
+		finally
+		{
+			third.close();
+		}
+		
+		// The lost island is reported, though the other still lives
+		while (first.upstreamAlive() && System.currentTimeMillis() < deadline)
+		{
+			first.service();
+			second.service();
+			
+			Thread.sleep(10);
+		}
+		
+		assertFalse("Lost upstream island hidden", first.upstreamAlive());
+		assertEquals("Incorrect dead islands", 1, first.deadUpstreams().size());
+		assertEquals("Upstream islands forgotten", 2, first.upstreams().size());
+	}
+	
+	@Test
+	public final void testMigration() throws Exception
+	{
+		// Connect before running, so that migrants are not lost
+		long deadline = System.currentTimeMillis() + 5000;
+		
+		while (!(first.downstreamConnected() && second.downstreamConnected()) &&
+			   System.currentTimeMillis() < deadline)
+		{
+			first.service();
+			second.service();
+			
+			Thread.sleep(10);
+		}
+		
+		Thread thread = new Thread(() ->
+		{
+			try
+			{
+				second.run(20);
+			}
+			catch (Exception e)
+			{
+				throw new RuntimeException(e);
+			}
+		});
+		
+		thread.start();
+		first.run(20);
+		thread.join();
+		
+		// Collect any migrants still in transit
+		while ((first.received() < second.emigrants() ||
+			    second.received() < first.emigrants()) &&
+			   System.currentTimeMillis() < deadline)
+		{
+			first.service();
+			second.service();
+			
+			Thread.sleep(10);
+		}
+		
+		assertEquals("Migrants not sent", 4, first.emigrants() + first.lost());
+		assertTrue("Migrants not sent", first.emigrants() > 0);
+		assertEquals("Migrants not received", 
+				     first.emigrants(), second.received());
+		assertEquals("Migrants not received", 
+				     second.emigrants(), first.received());
+		assertTrue("More migrants innoculated than received", 
+				   first.immigrants() <= first.received());
+	}
+}
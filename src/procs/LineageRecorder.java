@@ -0,0 +1,294 @@
+package procs;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Listener which records the phylogeny of a simulation. Each 
+ * Process and each unique genome is given a compact id, in order 
+ * of first appearance. Each birth is recorded as an edge from the 
+ * parent Process to the child, and each new genome as an edge from
+ * the genome of the parent Process. Mutant children therefore keep
+ * a link to their ancestral genome.
+ * 
+ * Edges are packed into a buffer as they occur and streamed in 
+ * batches to an append-only binary log, so that the phylogeny
+ * of a long run never has to be held in memory. The log can be 
+ * read back offline with Phylogeny.read.
+ * 
+ * The log starts with a header of the MAGIC and VERSION ints, 
+ * followed by records. A PROCESS record holds the child id, 
+ * parent id, genome id and birth cycle. A GENOME record holds the 
+ * genome id, parent genome id, genome hash and cycle of first 
+ * appearance. Ids of -1 denote an unknown parent.
+ * 
+ * @author richpl
+ */
+public class LineageRecorder implements EventListener, Closeable
+{
+	/**
+	 * Marks the start of a lineage log
+	 */
+	public static final int MAGIC = 0x504C4F47;
+	
+	/**
+	 * Version of the log format
+	 */
+	public static final int VERSION = 1;
+	
+	/**
+	 * Tag of a record describing the birth of a Process
+	 */
+	public static final byte PROCESS = 'P';
+	
+	/**
+	 * Tag of a record describing a new genome
+	 */
+	public static final byte GENOME = 'G';
+	
+	// Size of the buffer in which records are batched
+	private static final int BUFFER_SIZE = 1 << 16;
+	
+	// Largest record size, in bytes
+	private static final int RECORD_SIZE = 21;
+	
+	// Log to which records are appended
+	private FileChannel channel;
+	
+	// Buffer holding records not yet written
+	private ByteBuffer buffer;
+	
+	// Ids of the living Processes, keyed by start address
+	private IntMap processIds;
+	
+	// Genome id of each living Process, keyed by process id
+	private IntMap processGenomes;
+	
+	// Ids of the genomes seen, keyed by genome hash
+	private IntMap genomeIds;
+	
+	// Next ids to be allocated
+	private int nextProcessId;
+	private int nextGenomeId;
+	
+	// Start addresses, and ids, of Processes which died 
+	// during the cycle being recorded
+	private int[] deadAddresses;
+	private int[] deadIds;
+	
+	/**
+	 * Constructs a recorder which writes to the specified 
+	 * file, replacing any existing contents.
+	 * 
+	 * @param file The file to which the log is written
+	 * 
+	 * @throws IOException Signals that the log could not be opened
+	 */
+	public LineageRecorder(final File file) throws IOException
+	{
+		channel = FileChannel.open(file.toPath(), 
+				                   StandardOpenOption.CREATE,
+				                   StandardOpenOption.WRITE,
+				                   StandardOpenOption.TRUNCATE_EXISTING);
+		
+		buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		
+		processIds = new IntMap();
+		processGenomes = new IntMap();
+		genomeIds = new IntMap();
+		
+		nextProcessId = 0;
+		nextGenomeId = 0;
+		
+		deadAddresses = new int[16];
+		deadIds = new int[16];
+		
+		buffer.putInt(MAGIC);
+		buffer.putInt(VERSION);
+	}
+	
+	@Override
+	public void eventsOccurred(EventBatch batch) 
+	{
+		int deaths = 0;
+		
+		try
+		{
+			for (int index=0; index<batch.size(); index++)
+			{
+				int type = batch.type(index);
+				
+				if (type == EventBatch.BIRTH)
+				{
+					birth(batch.address(index), batch.detail(index),
+						  batch.genome(index), batch.cycle());
+				}
+				else if (type == EventBatch.MOVE)
+				{
+					// Follow the Process to its new address
+					int id = processIds.get(batch.detail(index));
+					
+					if (id != IntMap.MISSING)
+					{
+						processIds.remove(batch.detail(index));
+						processIds.put(batch.address(index), id);
+					}
+				}
+				else if (type == EventBatch.DEATH)
+				{
+					// Parents may spawn in the cycle in which they
+					// die, so forget dead Processes only once all
+					// of the births have been recorded
+					int id = processIds.get(batch.address(index));
+					
+					if (id != IntMap.MISSING)
+					{
+						if (deaths == deadIds.length)
+						{
+							deadAddresses = Arrays.copyOf
+								(deadAddresses, deaths * 2);
+							deadIds = Arrays.copyOf
+								(deadIds, deaths * 2);
+						}
+						
+						deadAddresses[deaths] = batch.address(index);
+						deadIds[deaths] = id;
+						deaths++;
+					}
+				}
+			}
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+		
+		for (int index=0; index<deaths; index++)
+		{
+			// The address may have been reused by a 
+			// child born later in the cycle
+			if (processIds.get(deadAddresses[index]) == deadIds[index])
+			{
+				processIds.remove(deadAddresses[index]);
+			}
+			
+			processGenomes.remove(deadIds[index]);
+		}
+	}
+	
+	/**
+	 * Records the birth of a Process, and the appearance of 
+	 * its genome if it has not been seen before.
+	 * 
+	 * @param address The start address of the new Process
+	 * @param parentAddress The start address of its parent
+	 * @param hashVal The hash value of the genome of the new Process
+	 * @param cycle The cycle in which the Process was born
+	 * 
+	 * @throws IOException Signals that the log could not be written
+	 */
+	private void birth(final int address, final int parentAddress,
+			           final int hashVal, final long cycle)
+		throws IOException
+	{
+		int parentId = processIds.get(parentAddress);
+		
+		int parentGenome = IntMap.MISSING;
+		if (parentId != IntMap.MISSING)
+		{
+			parentGenome = processGenomes.get(parentId);
+		}
+		
+		int genomeId = genomeIds.get(hashVal);
+		
+		if (genomeId == IntMap.MISSING)
+		{
+			genomeId = nextGenomeId++;
+			genomeIds.put(hashVal, genomeId);
+			
+			reserve();
+			buffer.put(GENOME);
+			buffer.putInt(genomeId);
+			buffer.putInt(parentGenome);
+			buffer.putInt(hashVal);
+			buffer.putLong(cycle);
+		}
+		
+		int id = nextProcessId++;
+		processIds.put(address, id);
+		processGenomes.put(id, genomeId);
+		
+		reserve();
+		buffer.put(PROCESS);
+		buffer.putInt(id);
+		buffer.putInt(parentId);
+		buffer.putInt(genomeId);
+		buffer.putLong(cycle);
+	}
+	
+	/**
+	 * Ensures there is room in the buffer for another 
+	 * record, writing the buffer to the log if necessary.
+	 * 
+	 * @throws IOException Signals that the log could not be written
+	 */
+	private void reserve() throws IOException
+	{
+		if (buffer.remaining() < RECORD_SIZE)
+		{
+			drain();
+		}
+	}
+	
+	/**
+	 * Writes the contents of the buffer to the log.
+	 * 
+	 * @throws IOException Signals that the log could not be written
+	 */
+	private void drain() throws IOException
+	{
+		buffer.flip();
+		
+		while (buffer.hasRemaining())
+		{
+			channel.write(buffer);
+		}
+		
+		buffer.clear();
+	}
+	
+	/**
+	 * @return The number of Processes recorded
+	 */
+	public int processCount()
+	{
+		return (nextProcessId);
+	}
+	
+	/**
+	 * @return The number of genomes recorded
+	 */
+	public int genomeCount()
+	{
+		return (nextGenomeId);
+	}
+	
+	/**
+	 * Writes any buffered records to the log and closes it.
+	 * 
+	 * @throws IOException Signals that the log could not be written
+	 */
+	@Override
+	public void close() throws IOException 
+	{
+		drain();
+		
+		channel.close();
+	}
+}
@@ -0,0 +1,123 @@
+package procs;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LineageRecorderTest 
+{
+	private File file;
+	
+	private LineageRecorder recorder;
+	
+	private EventBatch batch;
+	
+	@Before
+	public void setUp() throws Exception 
+	{
+		file = File.createTempFile("lineage", ".log");
+		
+		recorder = new LineageRecorder(file);
+		
+		batch = new EventBatch(new EventListener[] {recorder});
+	}
+	
+	@After
+	public void tearDown() throws Exception 
+	{
+		file.delete();
+	}
+	
+	@Test
+	public final void testPhylogeny() throws Exception 
+	{
+		// Ancestor at address 10, genome 100
+		batch.record(EventBatch.BIRTH, 10, 5, 10, 100);
+		batch.flush(1, 0, 1);
+		
+		// Ancestor spawns a clone and a mutant, then dies
+		batch.record(EventBatch.DEATH, 10, 5, 
+				     EventBatch.CAUSE_LIFETIME, 100);
+		batch.record(EventBatch.BIRTH, 20, 5, 10, 100);
+		batch.record(EventBatch.BIRTH, 30, 6, 10, 200);
+		batch.flush(2, 1, 2);
+		
+		// Mutant spawns into the address of the dead ancestor
+		batch.record(EventBatch.BIRTH, 10, 6, 30, 200);
+		batch.flush(3, 2, 2);
+		
+		assertEquals("Incorrect process count", 4, recorder.processCount());
+		assertEquals("Incorrect genome count", 2, recorder.genomeCount());
+		
+		recorder.close();
+		
+		Phylogeny phylogeny = Phylogeny.read(file);
+		
+		assertEquals("Incorrect process count", 4, phylogeny.processCount());
+		assertEquals("Incorrect genome count", 2, phylogeny.genomeCount());
+		
+		assertEquals("Ancestor has a parent", -1, phylogeny.parent(0));
+		assertEquals("Clone has wrong parent", 0, phylogeny.parent(1));
+		assertEquals("Mutant has wrong parent", 0, phylogeny.parent(2));
+		assertEquals("Grandchild has wrong parent", 2, phylogeny.parent(3));
+		assertEquals("Incorrect birth cycle", 3, phylogeny.birth(3));
+		
+		assertEquals("Clone has wrong genome", 0, phylogeny.genome(1));
+		assertEquals("Mutant has wrong genome", 1, phylogeny.genome(2));
+		
+		assertEquals("Mutant genome has wrong parent", 
+				     0, phylogeny.parentGenome(1));
+		assertEquals("Incorrect genome hash", 200, phylogeny.genomeHash(1));
+		
+		int[] ancestry = phylogeny.ancestry(1);
+		
+		assertEquals("Incorrect ancestry length", 2, ancestry.length);
+		assertEquals("Incorrect ancestor", 0, ancestry[1]);
+	}
+	
+	@Test
+	public final void testLargeLog() throws Exception 
+	{
+		// Enough records to need several buffers
+		batch.record(EventBatch.BIRTH, 0, 1, 0, 0);
+		
+		for (int index=1; index<10000; index++)
+		{
+			batch.record(EventBatch.BIRTH, index, 1, index-1, index % 7);
+		}
+		
+		batch.flush(1, 0, 0);
+		recorder.close();
+		
+		Phylogeny phylogeny = Phylogeny.read(file);
+		
+		assertEquals("Incorrect process count", 10000, 
+				     phylogeny.processCount());
+		assertEquals("Incorrect genome count", 7, phylogeny.genomeCount());
+		assertEquals("Incorrect parent", 9998, phylogeny.parent(9999));
+	}
+	
+	@Test
+	public final void testMove() throws Exception 
+	{
+		batch.record(EventBatch.BIRTH, 10, 5, 10, 100);
+		batch.flush(1, 0, 1);
+		
+		// Compaction moves the ancestor, which then spawns
+		batch.record(EventBatch.MOVE, 2, 5, 10);
+		batch.flush(2, 1, 1);
+		
+		batch.record(EventBatch.BIRTH, 30, 5, 2, 100);
+		batch.flush(3, 1, 1);
+		
+		recorder.close();
+		
+		Phylogeny phylogeny = Phylogeny.read(file);
+		
+		assertEquals("Moved parent not followed", 0, phylogeny.parent(1));
+	}
+}
@@ -0,0 +1,137 @@
+package procs;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded queue carrying migrant genomes from one island to another.
+ * The queue is lock free, but safe only for a single producing
+ * thread and a single consuming thread. Each side publishes its
+ * position with an ordered write, and keeps a cached copy of the
+ * other side's position so that it rarely needs to read it.
+ *
+ * @author richpl
+ */
+public class MigrationQueue
+{
+	// Ring of genomes, whose length is a power of two
+	private final String[][] slots;
+	
+	// Mask reducing a position to an index within the ring
+	private final int mask;
+	
+	// Position of the next genome to be taken,
+	// written only by the consumer
+	private final AtomicLong head;
+	
+	// Position of the next genome to be added,
+	// written only by the producer
+	private final AtomicLong tail;
+	
+	// The producer's most recent view of the head
+	private long cachedHead;
+	
+	// The consumer's most recent view of the tail
+	private long cachedTail;
+	
+	/**
+	 * Constructs an empty queue.
+	 *
+	 * @param capacity The minimum number of genomes the queue
+	 * can hold, rounded up to a power of two
+	 *
+	 * @throws NumberFormatException Signals that a non-positive
+	 * capacity was specified
+	 */
+	public MigrationQueue(final int capacity) throws NumberFormatException
+	{
+		if (capacity <= 0 || capacity > 1 << 30)
+		{
+			throw new NumberFormatException("Invalid queue capacity specified");
+		}
+		
+		int size = Integer.highestOneBit(capacity);
+		
+		if (size < capacity)
+		{
+			size <<= 1;
+		}
+		
+		slots = new String[size][];
+		mask = size - 1;
+		
+		head = new AtomicLong();
+		tail = new AtomicLong();
+		
+		cachedHead = 0;
+		cachedTail = 0;
+	}
+	
+	/**
+	 * Adds a genome to the queue. To be called by the producer only.
+	 *
+	 * @param genome The ordered list of instructions of the genome
+	 *
+	 * @return True if the genome was added, or false
+	 * if the queue was full
+	 */
+	public boolean offer(final String[] genome)
+	{
+		long position = tail.get();
+		
+		if (position - cachedHead >= slots.length)
+		{
+			cachedHead = head.get();
+			
+			if (position - cachedHead >= slots.length)
+			{
+				return (false);
+			}
+		}
+		
+		slots[(int) position & mask] = genome;
+		
+		// Publish the genome before the new tail
+		tail.lazySet(position + 1);
+		
+		return (true);
+	}
+	
+	/**
+	 * Takes the oldest genome from the queue. To be called
+	 * by the consumer only.
+	 *
+	 * @return The ordered list of instructions of the genome,
+	 * or null if the queue was empty
+	 */
+	public String[] poll()
+	{
+		long position = head.get();
+		
+		if (position >= cachedTail)
+		{
+			cachedTail = tail.get();
+			
+			if (position >= cachedTail)
+			{
+				return (null);
+			}
+		}
+		
+		int index = (int) position & mask;
+		
+		String[] genome = slots[index];
+		slots[index] = null;
+		
+		head.lazySet(position + 1);
+		
+		return (genome);
+	}
+	
+	/**
+	 * @return The number of genomes the queue can hold
+	 */
+	public int capacity()
+	{
+		return (slots.length);
+	}
+}
@@ -0,0 +1,83 @@
+package procs;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class MigrationQueueTest
+{
+	@Test
+	public final void testOrder()
+	{
+		MigrationQueue queue = new MigrationQueue(3);
+		
+		assertEquals("Capacity not rounded up", 4, queue.capacity());
+		assertNull("Empty queue not empty", queue.poll());
+		
+		for (int index=0; index<4; index++)
+		{
+			assertTrue("Genome rejected", queue.offer(new String[] {"JMP " + index}));
+		}
+		
+		assertFalse("Full queue accepted genome", 
+				    queue.offer(new String[] {Instructions.NOP}));
+		
+		for (int index=0; index<4; index++)
+		{
+			assertEquals("Genome out of order", "JMP " + index, queue.poll()[0]);
+		}
+		
+		assertNull("Drained queue not empty", queue.poll());
+		assertTrue("Drained queue rejected genome", 
+				   queue.offer(new String[] {Instructions.NOP}));
+	}
+	
+	@Test
+	public final void testConcurrent() throws Exception
+	{
+		final int COUNT = 20000;
+		
+		MigrationQueue queue = new MigrationQueue(16);
+		
+		Thread producer = new Thread(() ->
+		{
+			for (int index=0; index<COUNT; )
+			{
+				if (queue.offer(new String[] {"JMP " + index}))
+				{
+					index++;
+				}
+				else
+				{
+					Thread.onSpinWait();
+				}
+			}
+		});
+		
+		// A failed assertion must not leave the
+		// producer spinning on a full queue
+		producer.setDaemon(true);
+		producer.start();
+		
+		// Every genome should arrive, once, in order
+		for (int index=0; index<COUNT; )
+		{
+			String[] genome = queue.poll();
+			
+			if (genome != null)
+			{
+				assertEquals("Genome out of order", "JMP " + index, genome[0]);
+				index++;
+			}
+			else
+			{
+				Thread.onSpinWait();
+			}
+		}
+		
+		producer.join(10000);
+		
+		assertFalse("Producer still running", producer.isAlive());
+		assertNull("Extra genome received", queue.poll());
+	}
+}
@@ -0,0 +1,319 @@
+package procs;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Phylogeny of a simulation, rebuilt offline from the log written 
+ * by a LineageRecorder. Processes and genomes are identified by the 
+ * compact ids allocated by the recorder, and their details are held
+ * in primitive arrays indexed by id.
+ * 
+ * @author richpl
+ */
+public class Phylogeny 
+{
+	// Size of the buffer through which the log is read
+	private static final int BUFFER_SIZE = 1 << 16;
+	
+	// Parent id, genome id and birth cycle of each Process
+	private int[] processParents;
+	private int[] processGenomes;
+	private long[] processBirths;
+	private int processCount;
+	
+	// Parent genome id, hash and first cycle of each genome
+	private int[] genomeParents;
+	private int[] genomeHashes;
+	private long[] genomeBirths;
+	private int genomeCount;
+	
+	/**
+	 * Constructs an empty phylogeny.
+	 */
+	private Phylogeny()
+	{
+		processParents = new int[16];
+		processGenomes = new int[16];
+		processBirths = new long[16];
+		processCount = 0;
+		
+		genomeParents = new int[16];
+		genomeHashes = new int[16];
+		genomeBirths = new long[16];
+		genomeCount = 0;
+	}
+	
+	/**
+	 * Reads the phylogeny recorded in a lineage log.
+	 * 
+	 * @param file The lineage log
+	 * 
+	 * @return The phylogeny described by the log
+	 * 
+	 * @throws IOException Signals that the log could not be read,
+	 * or was not a valid lineage log
+	 */
+	public static Phylogeny read(final File file) throws IOException
+	{
+		Phylogeny phylogeny = new Phylogeny();
+		
+		try (FileChannel channel = 
+				FileChannel.open(file.toPath(), StandardOpenOption.READ))
+		{
+			ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+			
+			// Start with an empty buffer, ready to be read from
+			buffer.limit(0);
+			
+			fill(channel, buffer, 8);
+			
+			if (buffer.getInt() != LineageRecorder.MAGIC ||
+				buffer.getInt() != LineageRecorder.VERSION)
+			{
+				throw new IOException("Not a valid lineage log");
+			}
+			
+			while (fill(channel, buffer, 1))
+			{
+				byte tag = buffer.get();
+				
+				if (tag == LineageRecorder.PROCESS)
+				{
+					if (!fill(channel, buffer, 20))
+					{
+						throw new IOException("Truncated process record");
+					}
+					
+					phylogeny.addProcess(buffer.getInt(), buffer.getInt(),
+							             buffer.getInt(), buffer.getLong());
+				}
+				else if (tag == LineageRecorder.GENOME)
+				{
+					if (!fill(channel, buffer, 20))
+					{
+						throw new IOException("Truncated genome record");
+					}
+					
+					phylogeny.addGenome(buffer.getInt(), buffer.getInt(),
+							            buffer.getInt(), buffer.getLong());
+				}
+				else
+				{
+					throw new IOException("Invalid record in lineage log");
+				}
+			}
+		}
+		
+		return (phylogeny);
+	}
+	
+	/**
+	 * Ensures the buffer holds at least the specified number of
+	 * bytes, reading more of the log if necessary. 
+	 * 
+	 * @param channel The log being read
+	 * @param buffer The buffer, ready to be read from
+	 * @param bytes The number of bytes required
+	 * 
+	 * @return False if the end of the log was reached first
+	 * 
+	 * @throws IOException Signals that the log could not be read
+	 */
+	private static boolean fill(final FileChannel channel, 
+			                    final ByteBuffer buffer, final int bytes)
+		throws IOException
+	{
+		if (buffer.remaining() >= bytes)
+		{
+			return (true);
+		}
+		
+		buffer.compact();
+		
+		while (buffer.position() < bytes)
+		{
+			if (channel.read(buffer) == -1)
+			{
+				buffer.flip();
+				
+				return (false);
+			}
+		}
+		
+		buffer.flip();
+		
+		return (true);
+	}
+	
+	/**
+	 * Adds a Process to the phylogeny.
+	 * 
+	 * @param id The id of the Process
+	 * @param parent The id of its parent
+	 * @param genome The id of its genome
+	 * @param cycle The cycle in which it was born
+	 */
+	private void addProcess(final int id, final int parent,
+			                final int genome, final long cycle)
+	{
+		if (id >= processParents.length)
+		{
+			int capacity = Math.max(id + 1, processParents.length * 2);
+			
+			processParents = Arrays.copyOf(processParents, capacity);
+			processGenomes = Arrays.copyOf(processGenomes, capacity);
+			processBirths = Arrays.copyOf(processBirths, capacity);
+		}
+		
+		processParents[id] = parent;
+		processGenomes[id] = genome;
+		processBirths[id] = cycle;
+		
+		processCount = Math.max(processCount, id + 1);
+	}
+	
+	/**
+	 * Adds a genome to the phylogeny.
+	 * 
+	 * @param id The id of the genome
+	 * @param parent The id of its parent genome
+	 * @param hashVal The hash value of the genome
+	 * @param cycle The cycle in which it first appeared
+	 */
+	private void addGenome(final int id, final int parent,
+			               final int hashVal, final long cycle)
+	{
+		if (id >= genomeParents.length)
+		{
+			int capacity = Math.max(id + 1, genomeParents.length * 2);
+			
+			genomeParents = Arrays.copyOf(genomeParents, capacity);
+			genomeHashes = Arrays.copyOf(genomeHashes, capacity);
+			genomeBirths = Arrays.copyOf(genomeBirths, capacity);
+		}
+		
+		genomeParents[id] = parent;
+		genomeHashes[id] = hashVal;
+		genomeBirths[id] = cycle;
+		
+		genomeCount = Math.max(genomeCount, id + 1);
+	}
+	
+	/**
+	 * @return The number of Processes in the phylogeny
+	 */
+	public int processCount()
+	{
+		return (processCount);
+	}
+	
+	/**
+	 * @return The number of genomes in the phylogeny
+	 */
+	public int genomeCount()
+	{
+		return (genomeCount);
+	}
+	
+	/**
+	 * @param id The id of a Process
+	 * 
+	 * @return The id of its parent, or -1 if it has none
+	 */
+	public int parent(final int id)
+	{
+		return (processParents[id]);
+	}
+	
+	/**
+	 * @param id The id of a Process
+	 * 
+	 * @return The id of its genome
+	 */
+	public int genome(final int id)
+	{
+		return (processGenomes[id]);
+	}
+	
+	/**
+	 * @param id The id of a Process
+	 * 
+	 * @return The cycle in which it was born
+	 */
+	public long birth(final int id)
+	{
+		return (processBirths[id]);
+	}
+	
+	/**
+	 * @param id The id of a genome
+	 * 
+	 * @return The id of the genome from which it arose, 
+	 * or -1 if it has none
+	 */
+	public int parentGenome(final int id)
+	{
+		return (genomeParents[id]);
+	}
+	
+	/**
+	 * @param id The id of a genome
+	 * 
+	 * @return The hash value of the genome
+	 */
+	public int genomeHash(final int id)
+	{
+		return (genomeHashes[id]);
+	}
+	
+	/**
+	 * @param id The id of a genome
+	 * 
+	 * @return The cycle in which it first appeared
+	 */
+	public long genomeBirth(final int id)
+	{
+		return (genomeBirths[id]);
+	}
+	
+	/**
+	 * Returns the line of descent of a genome, back to its
+	 * earliest known ancestor.
+	 * 
+	 * @param id The id of a genome
+	 * 
+	 * @return The ids of the genome and each of its ancestors,
+	 * most recent first
+	 */
+	public int[] ancestry(final int id)
+	{
+		int[] ancestry = new int[16];
+		int length = 0;
+		
+		// Genome ids are allocated in order of appearance, so 
+		// ancestors always have smaller ids and the line ends
+		for (int genome=id; genome!=-1; genome=genomeParents[genome])
+		{
+			if (length == ancestry.length)
+			{
+				ancestry = Arrays.copyOf(ancestry, length * 2);
+			}
+			
+			ancestry[length] = genome;
+			length++;
+			
+			if (genomeParents[genome] >= genome)
+			{
+				// A genome cannot descend from itself
+				break;
+			}
+		}
+		
+		return (Arrays.copyOf(ancestry, length));
+	}
+}
@@ -0,0 +1,269 @@
+package procs;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * Listener which exports the population dynamics of a simulation 
+ * as a set of binary column files in a directory, at the resolution
+ * of a single cycle. Each unique genome is given a compact id in 
+ * order of first appearance.
+ * 
+ * At the end of every cycle a row of (cycle, genome id, population)
+ * is written for each genome whose population changed during the 
+ * cycle, so the population of every genome at every cycle can be 
+ * rebuilt from the rows. A row of aggregates is also written for 
+ * each cycle. The files can be read back with a PopulationSeries.
+ * 
+ * @author richpl
+ */
+public class PopulationExporter implements EventListener, Closeable
+{
+	/**
+	 * Column holding the cycle of each population row
+	 */
+	public static final String CYCLE = "cycle.col";
+	
+	/**
+	 * Column holding the genome id of each population row
+	 */
+	public static final String GENOME = "genome.col";
+	
+	/**
+	 * Column holding the population of each population row
+	 */
+	public static final String POPULATION = "population.col";
+	
+	/**
+	 * Column holding the hash value of each genome, indexed by id
+	 */
+	public static final String GENOME_HASH = "genome_hash.col";
+	
+	/**
+	 * Aggregate column holding the cycle number
+	 */
+	public static final String CYCLES = "agg_cycle.col";
+	
+	/**
+	 * Aggregate column holding the number of Processes stepped
+	 */
+	public static final String PROCESSES = "agg_processes.col";
+	
+	/**
+	 * Aggregate column holding the number of registered genomes
+	 */
+	public static final String GENOMES = "agg_genomes.col";
+	
+	/**
+	 * Aggregate column holding the number of births
+	 */
+	public static final String BIRTHS = "agg_births.col";
+	
+	/**
+	 * Aggregate column holding the number of deaths
+	 */
+	public static final String DEATHS = "agg_deaths.col";
+	
+	/**
+	 * Aggregate column holding the cycle duration in nanoseconds
+	 */
+	public static final String DURATION = "agg_duration.col";
+	
+	// Population row columns
+	private ColumnWriter cycles;
+	private ColumnWriter genomes;
+	private ColumnWriter populations;
+	private ColumnWriter genomeHashes;
+	
+	// Aggregate columns
+	private ColumnWriter aggCycles;
+	private ColumnWriter aggProcesses;
+	private ColumnWriter aggGenomes;
+	private ColumnWriter aggBirths;
+	private ColumnWriter aggDeaths;
+	private ColumnWriter aggDuration;
+	
+	// Ids of the genomes seen, keyed by genome hash
+	private IntMap genomeIds;
+	
+	// Population of each genome, indexed by id
+	private int[] population;
+	
+	// Genomes whose population changed in the current cycle
+	private int[] changed;
+	private int changedCount;
+	private boolean[] isChanged;
+	
+	/**
+	 * Constructs an exporter which writes its column files to 
+	 * the specified directory, creating it if necessary.
+	 * 
+	 * @param directory The directory to hold the column files
+	 * 
+	 * @throws IOException Signals that the column files could 
+	 * not be created
+	 */
+	public PopulationExporter(final File directory) throws IOException
+	{
+		if (!directory.isDirectory() && !directory.mkdirs())
+		{
+			throw new IOException("Cannot create export directory");
+		}
+		
+		int chunkSize = ColumnWriter.CHUNK_SIZE;
+		
+		cycles = new ColumnWriter(new File(directory, CYCLE), chunkSize);
+		genomes = new ColumnWriter(new File(directory, GENOME), chunkSize);
+		populations = 
+			new ColumnWriter(new File(directory, POPULATION), chunkSize);
+		genomeHashes = 
+			new ColumnWriter(new File(directory, GENOME_HASH), chunkSize);
+		
+		aggCycles = new ColumnWriter(new File(directory, CYCLES), chunkSize);
+		aggProcesses = 
+			new ColumnWriter(new File(directory, PROCESSES), chunkSize);
+		aggGenomes = new ColumnWriter(new File(directory, GENOMES), chunkSize);
+		aggBirths = new ColumnWriter(new File(directory, BIRTHS), chunkSize);
+		aggDeaths = new ColumnWriter(new File(directory, DEATHS), chunkSize);
+		aggDuration = 
+			new ColumnWriter(new File(directory, DURATION), chunkSize);
+		
+		genomeIds = new IntMap();
+		
+		population = new int[64];
+		changed = new int[64];
+		changedCount = 0;
+		isChanged = new boolean[64];
+	}
+	
+	@Override
+	public void eventsOccurred(EventBatch batch) 
+	{
+		int births = 0;
+		int deaths = 0;
+		
+		try
+		{
+			for (int index=0; index<batch.size(); index++)
+			{
+				int type = batch.type(index);
+				
+				if (type == EventBatch.BIRTH)
+				{
+					births++;
+					
+					int id = genomeIds.get(batch.genome(index));
+					
+					if (id == IntMap.MISSING)
+					{
+						id = newGenome(batch.genome(index));
+					}
+					
+					change(id, 1);
+				}
+				else if (type == EventBatch.DEATH)
+				{
+					deaths++;
+					
+					// Deaths of genomes never born are ignored,
+					// as they are by the Census
+					int id = genomeIds.get(batch.genome(index));
+					
+					if (id != IntMap.MISSING)
+					{
+						change(id, -1);
+					}
+				}
+			}
+			
+			for (int index=0; index<changedCount; index++)
+			{
+				int id = changed[index];
+				
+				cycles.add(batch.cycle());
+				genomes.add(id);
+				populations.add(population[id]);
+				
+				isChanged[id] = false;
+			}
+			
+			changedCount = 0;
+			
+			aggCycles.add(batch.cycle());
+			aggProcesses.add(batch.processes());
+			aggGenomes.add(batch.genomes());
+			aggBirths.add(births);
+			aggDeaths.add(deaths);
+			aggDuration.add(batch.duration());
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	/**
+	 * Allocates an id for a newly seen genome.
+	 * 
+	 * @param hashVal The hash value of the genome
+	 * 
+	 * @return The id of the genome
+	 * 
+	 * @throws IOException Signals that the genome could not be written
+	 */
+	private int newGenome(final int hashVal) throws IOException
+	{
+		int id = genomeIds.size();
+		genomeIds.put(hashVal, id);
+		
+		if (id == population.length)
+		{
+			population = Arrays.copyOf(population, id * 2);
+			changed = Arrays.copyOf(changed, id * 2);
+			isChanged = Arrays.copyOf(isChanged, id * 2);
+		}
+		
+		genomeHashes.add(hashVal);
+		
+		return (id);
+	}
+	
+	/**
+	 * Changes the population of a genome, noting that
+	 * it must be written at the end of the cycle.
+	 * 
+	 * @param id The id of the genome
+	 * @param delta The change in population
+	 */
+	private void change(final int id, final int delta)
+	{
+		population[id] += delta;
+		
+		if (!isChanged[id])
+		{
+			isChanged[id] = true;
+			changed[changedCount] = id;
+			changedCount++;
+		}
+	}
+	
+	/**
+	 * Writes any buffered rows and closes the column files.
+	 * 
+	 * @throws IOException Signals that the columns could not be written
+	 */
+	@Override
+	public void close() throws IOException 
+	{
+		for (ColumnWriter column: new ColumnWriter[] 
+				{cycles, genomes, populations, genomeHashes, 
+				 aggCycles, aggProcesses, aggGenomes, 
+				 aggBirths, aggDeaths, aggDuration})
+		{
+			column.close();
+		}
+	}
+}
@@ -0,0 +1,138 @@
+package procs;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Reads back the population dynamics exported by a 
+ * PopulationExporter. The population rows are read one at 
+ * a time, in cycle order, while the genome hashes and the 
+ * aggregate columns are read whole.
+ * 
+ * @author richpl
+ */
+public class PopulationSeries implements Closeable
+{
+	// Directory holding the column files
+	private File directory;
+	
+	// Population row columns
+	private ColumnReader cycles;
+	private ColumnReader genomes;
+	private ColumnReader populations;
+	
+	// Fields of the current row
+	private long cycle;
+	private int genome;
+	private int population;
+	
+	/**
+	 * Opens the columns exported to the specified directory.
+	 * 
+	 * @param directory The directory holding the column files
+	 * 
+	 * @throws IOException Signals that the columns could not be opened
+	 */
+	public PopulationSeries(final File directory) throws IOException
+	{
+		this.directory = directory;
+		
+		cycles = new ColumnReader
+			(new File(directory, PopulationExporter.CYCLE));
+		genomes = new ColumnReader
+			(new File(directory, PopulationExporter.GENOME));
+		populations = new ColumnReader
+			(new File(directory, PopulationExporter.POPULATION));
+	}
+	
+	/**
+	 * Moves on to the next population row.
+	 * 
+	 * @return False if there are no more rows
+	 * 
+	 * @throws IOException Signals that the columns could not be read
+	 */
+	public boolean next() throws IOException
+	{
+		if (!cycles.hasNext())
+		{
+			return (false);
+		}
+		
+		cycle = cycles.next();
+		genome = (int) genomes.next();
+		population = (int) populations.next();
+		
+		return (true);
+	}
+	
+	/**
+	 * @return The cycle of the current row
+	 */
+	public long cycle()
+	{
+		return (cycle);
+	}
+	
+	/**
+	 * @return The genome id of the current row
+	 */
+	public int genome()
+	{
+		return (genome);
+	}
+	
+	/**
+	 * @return The population of the genome at the end of the
+	 * cycle of the current row
+	 */
+	public int population()
+	{
+		return (population);
+	}
+	
+	/**
+	 * @return The hash value of each genome, indexed by genome id
+	 * 
+	 * @throws IOException Signals that the column could not be read
+	 */
+	public int[] genomeHashes() throws IOException
+	{
+		long[] values = aggregate(PopulationExporter.GENOME_HASH);
+		int[] hashes = new int[values.length];
+		
+		for (int index=0; index<values.length; index++)
+		{
+			hashes[index] = (int) values[index];
+		}
+		
+		return (hashes);
+	}
+	
+	/**
+	 * Reads a whole aggregate column, holding one value per cycle.
+	 * 
+	 * @param name The name of the column, such as 
+	 * PopulationExporter.BIRTHS
+	 * 
+	 * @return The values of the column
+	 * 
+	 * @throws IOException Signals that the column could not be read
+	 */
+	public long[] aggregate(final String name) throws IOException
+	{
+		try (ColumnReader column = new ColumnReader(new File(directory, name)))
+		{
+			return (column.readAll());
+		}
+	}
+	
+	@Override
+	public void close() throws IOException 
+	{
+		cycles.close();
+		genomes.close();
+		populations.close();
+	}
+}
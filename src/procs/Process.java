@@ -22,6 +22,13 @@ public class Process
 	// Process in the core
 	private int address;
 	
+	// Id given by an ExecutionProfile to the genome the
+	// Process was born with, or -1 if it is not profiled
+	private int genomeId;
+	
+	// Hash value of the genome the Process was born with
+	private int genome;
+	
 	/**
 	 * Constructs a new Process, with 
 	 * the first instruction
@@ -44,6 +51,8 @@ public class Process
 		
 		// Set Core address of first instruction
 		this.address = address;
+		
+		genomeId = -1;
 	}
 	
 	/** 
@@ -116,6 +125,56 @@ public class Process
 		}
 	}
 	
+	/**
+	 * @return The id given by an ExecutionProfile to the genome the
+	 * Process was born with, or -1 if it is not profiled
+	 */
+	public int genomeId()
+	{
+		return (genomeId);
+	}
+	
+	/**
+	 * @param genomeId The id given by an ExecutionProfile to
+	 * the genome the Process was born with
+	 */
+	void setGenomeId(final int genomeId)
+	{
+		this.genomeId = genomeId;
+	}
+	
+	/**
+	 * @return The hash value of the genome the Process was born
+	 * with, which its instructions may since have lost to NOP
+	 * bombs or infections
+	 */
+	public int genome()
+	{
+		return (genome);
+	}
+	
+	/**
+	 * @param genome The hash value of the genome the
+	 * Process was born with
+	 */
+	void setGenome(final int genome)
+	{
+		this.genome = genome;
+	}
+	
+	/**
+	 * Moves the Process to a new address in the Core, keeping its
+	 * instruction pointer, length and number of executions. The
+	 * caller is responsible for moving its instructions.
+	 * 
+	 * @param address New absolute address in the Core of the
+	 * first instruction of the Process
+	 */
+	void move(final int address)
+	{
+		this.address = address;
+	}
+	
 	/**
 	 * Decrements the instruction pointer, wrapping around
 	 * to the last instruction if necessary.
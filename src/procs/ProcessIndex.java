@@ -0,0 +1,218 @@
+package procs;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.Vector;
+
+/**
+ * Spatial index of the Processes executing in the Core, ordered
+ * by the address of their first instruction. The index allows the
+ * nearest neighbours of a Process to be found by walking outwards
+ * from it in both directions, in logarithmic time per neighbour,
+ * wrapping around from the end of the Core to the start.
+ *
+ * Only one Process is indexed at each address. Should a Process be
+ * born at the address of another, the newer Process replaces it.
+ *
+ * @author richpl
+ */
+public class ProcessIndex
+{
+	// Processes keyed by the address of their first instruction
+	private TreeMap<Integer, Process> addresses;
+	
+	// Number of addresses in the Core
+	private int coreSize;
+	
+	/**
+	 * Constructs an empty index.
+	 *
+	 * @param coreSize The number of addresses in the Core
+	 */
+	public ProcessIndex(final int coreSize)
+	{
+		this.coreSize = coreSize;
+		
+		addresses = new TreeMap<Integer, Process>();
+	}
+	
+	/**
+	 * Adds a Process to the index.
+	 *
+	 * @param process The Process to be added
+	 */
+	public void add(final Process process)
+	{
+		addresses.put(process.address(), process);
+	}
+	
+	/**
+	 * Removes a Process from the index. Has no effect if the
+	 * Process has been replaced by another at the same address.
+	 *
+	 * @param process The Process to be removed
+	 */
+	public void remove(final Process process)
+	{
+		addresses.remove(process.address(), process);
+	}
+	
+	/**
+	 * Returns the Process with the lowest address at or after
+	 * the specified address, without wrapping around.
+	 *
+	 * @param address The address
+	 *
+	 * @return The Process, or null if there is none
+	 */
+	Process ceiling(final int address)
+	{
+		Map.Entry<Integer, Process> entry = addresses.ceilingEntry(address);
+		
+		return (entry != null ? entry.getValue() : null);
+	}
+	
+	/**
+	 * Returns the Process with the highest address before the
+	 * specified address, without wrapping around.
+	 *
+	 * @param address The address
+	 *
+	 * @return The Process, or null if there is none
+	 */
+	Process lower(final int address)
+	{
+		Map.Entry<Integer, Process> entry = addresses.lowerEntry(address);
+		
+		return (entry != null ? entry.getValue() : null);
+	}
+	
+	/**
+	 * Finds the Process whose instructions occupy the specified
+	 * address, wrapping around from the end of the Core to the start.
+	 * Only the Process starting nearest before the address is
+	 * examined. Processes overlap only where a mutation changed the
+	 * length of a copy, so an address lying solely within the tail
+	 * of an earlier, overlapped Process is attributed to no Process.
+	 *
+	 * @param address The address
+	 *
+	 * @return The Process, or null if the address lies outside
+	 * every Process
+	 */
+	public Process owner(final int address)
+	{
+		Map.Entry<Integer, Process> entry = addresses.floorEntry(address);
+		
+		if (entry == null)
+		{
+			entry = addresses.lastEntry();
+		}
+		
+		if (entry == null)
+		{
+			return (null);
+		}
+		
+		Process process = entry.getValue();
+		
+		int offset = Math.floorMod(address - process.address(), coreSize);
+		
+		return (offset < process.length() ? process : null);
+	}
+	
+	/**
+	 * @return The Process with the highest address, or null
+	 * if the index is empty
+	 */
+	Process last()
+	{
+		return (addresses.isEmpty() ? null : addresses.lastEntry().getValue());
+	}
+	
+	/**
+	 * @return The number of Processes in the index
+	 */
+	public int size()
+	{
+		return (addresses.size());
+	}
+	
+	/**
+	 * Finds the Processes whose first instructions lie closest to
+	 * that of the specified Process, in either direction.
+	 *
+	 * @param process The Process whose neighbours are to be found
+	 * @param number The maximum number of neighbours to find
+	 *
+	 * @return The neighbours, nearest first, not including
+	 * the Process itself
+	 */
+	public List<Process> nearest(final Process process, final int number)
+	{
+		List<Process> neighbours = new Vector<Process>();
+		
+		int address = process.address();
+		
+		// Neighbours after and before the Process
+		Map.Entry<Integer, Process> after = next(address);
+		Map.Entry<Integer, Process> before = previous(address);
+		
+		// Each other Process can be reached from either
+		// direction, so stop once every one has been found
+		int others = addresses.size() -
+				     (addresses.get(address) == process ? 1 : 0);
+		
+		while (neighbours.size() < Math.min(number, others))
+		{
+			int afterDistance =
+					Math.floorMod(after.getKey() - address, coreSize);
+			int beforeDistance =
+					Math.floorMod(address - before.getKey(), coreSize);
+			
+			if (afterDistance <= beforeDistance)
+			{
+				neighbours.add(after.getValue());
+				after = next(after.getKey());
+			}
+			else
+			{
+				neighbours.add(before.getValue());
+				before = previous(before.getKey());
+			}
+		}
+		
+		return (neighbours);
+	}
+	
+	/**
+	 * Returns the first entry after an address, wrapping around
+	 * from the end of the Core to the start.
+	 *
+	 * @param address The address
+	 *
+	 * @return The entry
+	 */
+	private Map.Entry<Integer, Process> next(final int address)
+	{
+		Map.Entry<Integer, Process> entry = addresses.higherEntry(address);
+		
+		return (entry != null ? entry : addresses.firstEntry());
+	}
+	
+	/**
+	 * Returns the first entry before an address, wrapping around
+	 * from the start of the Core to the end.
+	 *
+	 * @param address The address
+	 *
+	 * @return The entry
+	 */
+	private Map.Entry<Integer, Process> previous(final int address)
+	{
+		Map.Entry<Integer, Process> entry = addresses.lowerEntry(address);
+		
+		return (entry != null ? entry : addresses.lastEntry());
+	}
+}
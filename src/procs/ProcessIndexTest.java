@@ -0,0 +1,98 @@
+package procs;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ProcessIndexTest
+{
+	private final int CORE_SIZE = 100;
+	
+	private ProcessIndex index;
+	
+	private Process[] processes;
+	
+	@Before
+	public void setUp() throws Exception
+	{
+		index = new ProcessIndex(CORE_SIZE);
+		
+		processes = new Process[] 
+			{new Process(2, 5), new Process(10, 5), new Process(30, 5),
+			 new Process(50, 5), new Process(95, 5)};
+		
+		for (Process process: processes)
+		{
+			index.add(process);
+		}
+	}
+	
+	@Test
+	public final void testNearest()
+	{
+		List<Process> nearest = index.nearest(processes[1], 3);
+		
+		assertEquals("Incorrect neighbours", 
+				     Arrays.asList(processes[0], processes[4], processes[2]),
+				     nearest);
+	}
+	
+	@Test
+	public final void testWrapAround()
+	{
+		// Neighbours across the end of the Core are nearest
+		List<Process> nearest = index.nearest(processes[4], 2);
+		
+		assertEquals("Incorrect neighbours", 
+				     Arrays.asList(processes[0], processes[1]), nearest);
+	}
+	
+	@Test
+	public final void testAllNeighbours()
+	{
+		List<Process> nearest = index.nearest(processes[3], 10);
+		
+		assertEquals("Incorrect number of neighbours", 4, nearest.size());
+		assertFalse("Process is its own neighbour", 
+				    nearest.contains(processes[3]));
+	}
+	
+	@Test
+	public final void testRemove()
+	{
+		index.remove(processes[0]);
+		
+		// A newer Process at the same address replaces the old
+		Process replacement = new Process(10, 5);
+		index.add(replacement);
+		index.remove(processes[1]);
+		
+		assertEquals("Incorrect size", 4, index.size());
+		assertEquals("Incorrect neighbours", 
+				     Arrays.asList(replacement), 
+				     index.nearest(processes[4], 1));
+	}
+	
+	@Test
+	public final void testOwner()
+	{
+		assertSame("Incorrect owner", processes[1], index.owner(10));
+		assertSame("Incorrect owner", processes[1], index.owner(14));
+		assertSame("Incorrect owner", processes[4], index.owner(99));
+		assertNull("Unexpected owner", index.owner(15));
+		assertNull("Unexpected owner", index.owner(0));
+		
+		// A Process may wrap around from the end of the Core
+		Process wrapped = new Process(97, 5);
+		ProcessIndex other = new ProcessIndex(CORE_SIZE);
+		other.add(wrapped);
+		
+		assertSame("Incorrect owner", wrapped, other.owner(1));
+		assertNull("Unexpected owner", other.owner(2));
+		assertNull("Unexpected owner", new ProcessIndex(CORE_SIZE).owner(0));
+	}
+}
@@ -0,0 +1,214 @@
+package procs;
+
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Vector;
+
+/**
+ * Keeps track of the relative age of executing Processes, and
+ * selects the oldest of them for eviction when the Core comes
+ * under memory pressure. Pressure is signalled either by the
+ * occupancy of the Core exceeding a threshold, or by too many
+ * spawn attempts failing to find room for a child.
+ *
+ * Evicting the oldest Processes keeps the Core in a productive
+ * state, rather than allowing a full Core to waste every
+ * SPW instruction searching for free space.
+ *
+ * @author richpl
+ */
+public class Reaper
+{
+	/**
+	 * Minimum number of spawn attempts that must be observed
+	 * before the spawn failure rate is assessed
+	 */
+	public static final int WINDOW = 100;
+
+	// Processes ordered by birth, oldest first. The linked
+	// set allows the oldest Process to be found, and any
+	// Process to be removed, in constant time
+	private LinkedHashSet<Process> ages;
+
+	// Occupancy, expressed as a percentage of the Core size,
+	// above which the oldest Processes will be evicted
+	private int occupancyThreshold;
+
+	// Percentage of failed spawn attempts above which
+	// the oldest Processes will be evicted
+	private int failureThreshold;
+
+	// Number of spawn attempts, and failures, observed
+	// in the current window
+	private int attempts;
+	private int failures;
+
+	// Addresses freed by the victims selected so far, cleared
+	// once they have all been selected
+	private BitSet freed;
+
+	/**
+	 * Constructs a new Reaper with the specified thresholds.
+	 *
+	 * @param occupancyThreshold Occupancy, expressed as a percentage
+	 * of the Core size, above which the oldest Processes are evicted
+	 * @param failureThreshold Percentage of failed spawn attempts
+	 * above which the oldest Processes are evicted
+	 *
+	 * @throws NumberFormatException Signals that a non-percentage
+	 * threshold was specified
+	 */
+	public Reaper(final int occupancyThreshold, final int failureThreshold)
+		throws NumberFormatException
+	{
+		if (occupancyThreshold < 0 || occupancyThreshold > 100 ||
+			failureThreshold < 0 || failureThreshold > 100)
+		{
+			throw new NumberFormatException
+				("Invalid reaper threshold specified");
+		}
+
+		this.occupancyThreshold = occupancyThreshold;
+		this.failureThreshold = failureThreshold;
+
+		ages = new LinkedHashSet<Process>();
+
+		attempts = 0;
+		failures = 0;
+
+		freed = new BitSet();
+	}
+
+	/**
+	 * Records the birth of a Process, which becomes
+	 * the youngest Process known to the Reaper.
+	 *
+	 * @param process The newly created Process
+	 */
+	public void born(final Process process)
+	{
+		ages.add(process);
+	}
+
+	/**
+	 * Records the death of a Process. Has no effect if the
+	 * Process has already been selected for eviction.
+	 *
+	 * @param process The Process which has been killed
+	 */
+	public void died(final Process process)
+	{
+		ages.remove(process);
+	}
+
+	/**
+	 * Records the outcome of an attempt to spawn a Process.
+	 *
+	 * @param success Indicates whether the spawn created
+	 * a new Process
+	 */
+	public void spawned(final boolean success)
+	{
+		attempts++;
+
+		if (!success)
+		{
+			failures++;
+		}
+	}
+
+	/**
+	 * @return The number of Processes currently tracked
+	 */
+	public int size()
+	{
+		return (ages.size());
+	}
+
+	/**
+	 * Selects the oldest Processes for eviction, removing them
+	 * from the age ordering. Enough Processes are selected to bring
+	 * the Core occupancy back below the threshold and, if the spawn
+	 * failure rate over the last window exceeded its threshold, a
+	 * further Process is selected for each failed spawn.
+	 *
+	 * Each victim is credited only with the occupied addresses it
+	 * will free, since Processes may overlap each other, and their
+	 * instructions may already have been partly emptied.
+	 *
+	 * @param core The Core in which the Processes are executing
+	 *
+	 * @return The Processes to be killed, oldest first
+	 */
+	public List<Process> victims(final Core core)
+	{
+		List<Process> victims = new Vector<Process>();
+
+		// Number of occupied addresses that must be freed
+		// to bring the Core back below the threshold
+		long excess = (long) core.occupied() * 100 -
+				      (long) occupancyThreshold * core.size();
+
+		// Number of Processes to evict because spawns are failing
+		int evictions = 0;
+
+		if (attempts >= WINDOW)
+		{
+			if (failures * 100 > failureThreshold * attempts)
+			{
+				evictions = failures;
+			}
+
+			// Start a new window
+			attempts = 0;
+			failures = 0;
+		}
+
+		Iterator<Process> iter = ages.iterator();
+
+		while ((excess > 0 || evictions > 0) && iter.hasNext())
+		{
+			Process victim = iter.next();
+			iter.remove();
+
+			victims.add(victim);
+
+			excess -= (long) free(core, victim) * 100;
+			evictions--;
+		}
+
+		freed.clear();
+
+		return (victims);
+	}
+
+	/**
+	 * Marks the addresses of a victim as freed.
+	 *
+	 * @param core The Core in which the victim is executing
+	 * @param victim The victim
+	 *
+	 * @return The number of occupied addresses it frees which
+	 * were not already freed by an earlier victim
+	 */
+	private int free(final Core core, final Process victim)
+	{
+		int count = 0;
+
+		for (int index=0; index<victim.length(); index++)
+		{
+			int location = (victim.address() + index) % core.size();
+
+			if (!freed.get(location) &&
+				!core.getInstruction(location).equals(Core.EMPTY))
+			{
+				freed.set(location);
+				count++;
+			}
+		}
+
+		return (count);
+	}
+}
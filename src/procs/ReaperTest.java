@@ -0,0 +1,125 @@
+package procs;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ReaperTest
+{
+	private String[] ancestor =
+		{Instructions.NOP, Instructions.NOP, Instructions.SPW,
+		 Instructions.NOP, Instructions.NOP};
+
+	private final int CORE_SIZE = 20;
+
+	private Core core;
+
+	private Process oldest;
+
+	private Process youngest;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		core = new Core(CORE_SIZE, 0);
+
+		oldest = new Process(0, ancestor.length);
+		core.addProcess(ancestor, 0, oldest);
+
+		youngest = new Process(10, ancestor.length);
+		core.addProcess(ancestor, 10, youngest);
+	}
+
+	@Test
+	public final void testOccupancyEviction()
+	{
+		// Core is half full, so a threshold of 30% should
+		// evict only the oldest process
+		Reaper reaper = new Reaper(30, 100);
+		reaper.born(oldest);
+		reaper.born(youngest);
+
+		List<Process> victims = reaper.victims(core);
+
+		assertEquals("Incorrect number of victims", 1, victims.size());
+		assertSame("Oldest process not evicted", oldest, victims.get(0));
+		assertEquals("Victim still tracked", 1, reaper.size());
+	}
+
+	@Test
+	public final void testOverlappingEviction()
+	{
+		// A clone sharing all but one address of the oldest
+		// process frees just that one address once it has gone
+		Process clone = new Process(1, ancestor.length);
+		core.addProcess(ancestor, 1, clone);
+
+		Reaper reaper = new Reaper(20, 100);
+		reaper.born(oldest);
+		reaper.born(clone);
+		reaper.born(youngest);
+
+		// Eleven of twenty addresses are occupied, so seven must
+		// be freed, which takes every process
+		List<Process> victims = reaper.victims(core);
+
+		assertEquals("Incorrect number of victims", 3, victims.size());
+		assertSame("Youngest process not evicted", youngest, victims.get(2));
+	}
+
+	@Test
+	public final void testNoEvictionBelowThreshold()
+	{
+		Reaper reaper = new Reaper(60, 100);
+		reaper.born(oldest);
+		reaper.born(youngest);
+
+		assertTrue("Process evicted below threshold",
+				   reaper.victims(core).isEmpty());
+	}
+
+	@Test
+	public final void testFailureEviction()
+	{
+		Reaper reaper = new Reaper(100, 50);
+		reaper.born(oldest);
+		reaper.born(youngest);
+
+		// Every spawn in the window fails
+		for (int index=0; index<Reaper.WINDOW; index++)
+		{
+			reaper.spawned(false);
+		}
+
+		List<Process> victims = reaper.victims(core);
+
+		assertEquals("Incorrect number of victims", 2, victims.size());
+		assertSame("Oldest process not evicted first", oldest, victims.get(0));
+	}
+
+	@Test
+	public final void testDied()
+	{
+		Reaper reaper = new Reaper(30, 100);
+		reaper.born(oldest);
+		reaper.born(youngest);
+		reaper.died(oldest);
+
+		List<Process> victims = reaper.victims(core);
+
+		assertSame("Dead process evicted", youngest, victims.get(0));
+	}
+
+	@Test
+	public final void testOccupied()
+	{
+		assertEquals("Incorrect occupancy", 10, core.occupied());
+
+		core.removeProcess(oldest);
+
+		assertEquals("Incorrect occupancy", 5, core.occupied());
+	}
+}
@@ -0,0 +1,748 @@
+package procs;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Seeds a CPU with a population of genomes read from a file, so that
+ * an experiment can start from a pre-evolved ecosystem rather than
+ * from the ancestor. The file is memory mapped and read one genome at
+ * a time, and the genomes are placed into the Core in batches.
+ *
+ * Seed files come in two forms. The text form holds one genome per
+ * line, written as by Core.processToString, optionally preceded by
+ * the address at which it is to be placed:
+ *
+ * 1200 [NOP;NOP;SPW;NOP;NOP]
+ * [NOP;SPW;JMP -2]
+ *
+ * An empty Core address within a genome, as is left in a Process
+ * overlapped by another which has died, is written as EMPTY.
+ *
+ * Blank lines, and lines starting with #, are ignored. The binary
+ * form starts with MAGIC and VERSION, followed by a record for each
+ * genome: the address plus one (zero for no address) and the number
+ * of instructions, as variable length integers, then each instruction
+ * as encoded by InstructionCodec.
+ *
+ * Instructions are interned as they are read, so that every NOP, SPW,
+ * CPN and commonly used jump in the Core is the same String instance,
+ * as with genomes copied by the CPU itself.
+ *
+ * A file is read through once to check that it is well formed before
+ * any of it is read again to be placed, so that a malformed file
+ * places nothing into the Core.
+ *
+ * Genomes with an address are restored exactly there, without
+ * mutation, if every address they would occupy is empty or already
+ * holds the same instruction. Live Processes may overlap, where a
+ * mutation changed the length of a copy, so a file saved from a CPU
+ * restores every one of its Processes. The rest are allocated free
+ * space first fit, from the point at which the last allocation
+ * ended, and each batch is given a single run large enough to hold
+ * all of its genomes end to end where there is one, so that the Core
+ * need not be searched for every genome. Genomes which cannot be
+ * placed are counted as rejected.
+ *
+ * @author richpl
+ */
+public class SeedLoader
+{
+	/**
+	 * Magic number at the start of a binary seed file
+	 */
+	public static final int MAGIC = 0x50534544;
+	
+	/**
+	 * Version of the binary form
+	 */
+	public static final int VERSION = 2;
+	
+	/**
+	 * Token standing for an empty Core address in the text form
+	 */
+	public static final String EMPTY = "_";
+	
+	/**
+	 * Number of genomes placed together in a batch
+	 */
+	public static final int BATCH = 1024;
+	
+	// CPU being seeded
+	private CPU cpu;
+	
+	// Codec for the binary form, which also interns jumps
+	private InstructionCodec codec;
+	
+	// Genomes of the current batch, and the addresses
+	// at which they are to be placed, or -1
+	private String[][] batch;
+	private int[] addresses;
+	private int size;
+	
+	// Address from which the search for free space resumes
+	private int cursor;
+	
+	// Numbers of genomes read, placed and rejected
+	private long read;
+	private long placed;
+	private long rejected;
+	
+	/**
+	 * Constructs a loader which seeds the specified CPU.
+	 *
+	 * @param cpu The CPU to be seeded
+	 */
+	public SeedLoader(final CPU cpu)
+	{
+		this.cpu = cpu;
+		
+		codec = new InstructionCodec();
+		
+		batch = new String[BATCH][];
+		addresses = new int[BATCH];
+		size = 0;
+		
+		cursor = 0;
+		
+		read = 0;
+		placed = 0;
+		rejected = 0;
+	}
+	
+	/**
+	 * Reads every genome in a seed file, in either form, and
+	 * places them into the Core. If the file is malformed,
+	 * none of its genomes are placed.
+	 *
+	 * @param file The seed file
+	 *
+	 * @return The number of genomes in the file which were placed
+	 *
+	 * @throws IOException Signals that the file could not be
+	 * read, or is not a valid seed file
+	 */
+	public long load(final File file) throws IOException
+	{
+		long before = placed;
+		
+		try (FileChannel channel =
+				FileChannel.open(file.toPath(), StandardOpenOption.READ))
+		{
+			if (channel.size() > Integer.MAX_VALUE)
+			{
+				throw new IOException("Seed file too large: " + file);
+			}
+			
+			MappedByteBuffer buffer =
+					channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			
+			boolean binary = buffer.remaining() >= 8 && buffer.getInt(0) == MAGIC;
+			
+			// Check the whole file, then read it again to place it
+			for (boolean place: new boolean[] {false, true})
+			{
+				if (binary)
+				{
+					readBinary(buffer.duplicate(), place);
+				}
+				else
+				{
+					readText(buffer, place);
+				}
+			}
+		}
+		
+		flush();
+		
+		return (placed - before);
+	}
+	
+	/**
+	 * @return The number of genomes read
+	 */
+	public long read()
+	{
+		return (read);
+	}
+	
+	/**
+	 * @return The number of genomes placed into the Core
+	 */
+	public long placed()
+	{
+		return (placed);
+	}
+	
+	/**
+	 * @return The number of genomes for which no room was found,
+	 * including those whose addresses lie outside the Core
+	 */
+	public long rejected()
+	{
+		return (rejected);
+	}
+	
+	/**
+	 * Writes the genome of every executing Process of an Engine
+	 * to a seed file, with the address of the Process.
+	 *
+	 * @param engine The Engine
+	 * @param file The seed file
+	 * @param binary True to write the binary form, or
+	 * false to write the text form
+	 *
+	 * @throws IOException Signals that the file could not be written
+	 */
+	public static void save(final Engine engine, final File file,
+			                final boolean binary) throws IOException
+	{
+		try (OutputStream out =
+				new BufferedOutputStream(new FileOutputStream(file)))
+		{
+			ByteBuffer scratch = ByteBuffer.allocate(256);
+			
+			if (binary)
+			{
+				scratch.putInt(MAGIC);
+				scratch.putInt(VERSION);
+				out.write(scratch.array(), 0, scratch.position());
+			}
+			
+			for (int index=0; index<engine.processCount(); index++)
+			{
+				Process process = engine.process(index);
+				
+				String[] genome = new String[process.length()];
+				
+				for (int offset=0; offset<genome.length; offset++)
+				{
+					genome[offset] = engine.getInstruction
+						((process.address() + offset) % engine.size());
+				}
+				
+				if (binary)
+				{
+					scratch = encode(genome, process.address(), scratch);
+					out.write(scratch.array(), 0, scratch.position());
+				}
+				else
+				{
+					for (int offset=0; offset<genome.length; offset++)
+					{
+						if (genome[offset].equals(Core.EMPTY))
+						{
+							genome[offset] = EMPTY;
+						}
+					}
+					
+					String line = process.address() + " [" +
+							      String.join(";", genome) + "]\n";
+					
+					out.write(line.getBytes(StandardCharsets.UTF_8));
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Reads genomes in the text form.
+	 *
+	 * @param buffer The contents of the file
+	 * @param place True to place the genomes, or false
+	 * only to check that the file is well formed
+	 *
+	 * @throws IOException Signals that the file is malformed
+	 */
+	private void readText(final ByteBuffer buffer, final boolean place)
+		throws IOException
+	{
+		List<String> instructions = new ArrayList<String>();
+		
+		int limit = buffer.limit();
+		int position = 0;
+		
+		while (true)
+		{
+			position = skipSpace(buffer, position, true);
+			
+			if (position == limit)
+			{
+				return;
+			}
+			
+			if (buffer.get(position) == '#')
+			{
+				while (position < limit && buffer.get(position) != '\n')
+				{
+					position++;
+				}
+				
+				continue;
+			}
+			
+			// Optional address
+			long address = -1;
+			
+			if (isDigit(buffer.get(position)))
+			{
+				address = 0;
+				
+				while (position < limit && isDigit(buffer.get(position)))
+				{
+					address = Math.min(address * 10 + (buffer.get(position++) - '0'),
+							           Integer.MAX_VALUE);
+				}
+				
+				position = skipSpace(buffer, position, false);
+			}
+			
+			if (position == limit || buffer.get(position) != '[')
+			{
+				throw new IOException("Malformed genome at offset " + position);
+			}
+			
+			position++;
+			
+			instructions.clear();
+			
+			// Instructions, separated by semicolons
+			while (true)
+			{
+				int start = position;
+				
+				while (position < limit &&
+					   buffer.get(position) != ';' &&
+					   buffer.get(position) != ']' &&
+					   buffer.get(position) != '\n')
+				{
+					position++;
+				}
+				
+				if (position == limit || buffer.get(position) == '\n')
+				{
+					throw new IOException("Unterminated genome at offset " + start);
+				}
+				
+				int end = position;
+				
+				// Trim the instruction
+				start = skipSpace(buffer, start, false);
+				
+				while (end > start && isSpace(buffer.get(end - 1)))
+				{
+					end--;
+				}
+				
+				if (end > start)
+				{
+					instructions.add(intern(buffer, start, end));
+				}
+				else if (buffer.get(position) == ';' || !instructions.isEmpty())
+				{
+					throw new IOException("Empty instruction at offset " + start);
+				}
+				
+				if (buffer.get(position++) == ']')
+				{
+					break;
+				}
+			}
+			
+			if (place)
+			{
+				add(instructions.toArray(new String[instructions.size()]),
+					(int) address);
+			}
+		}
+	}
+	
+	/**
+	 * Reads genomes in the binary form.
+	 *
+	 * @param buffer The contents of the file
+	 * @param place True to place the genomes, or false
+	 * only to check that the file is well formed
+	 *
+	 * @throws IOException Signals that the file is malformed
+	 */
+	private void readBinary(final ByteBuffer buffer, final boolean place)
+		throws IOException
+	{
+		buffer.getInt();
+		
+		if (buffer.getInt() != VERSION)
+		{
+			throw new IOException("Unsupported seed file version");
+		}
+		
+		try
+		{
+			while (buffer.hasRemaining())
+			{
+				int address = InstructionCodec.getVarint(buffer) - 1;
+				int length = InstructionCodec.getVarint(buffer);
+				
+				if (length < 0 || length > buffer.remaining())
+				{
+					throw new IOException("Invalid genome length " + length);
+				}
+				
+				String[] genome = new String[length];
+				
+				for (int index=0; index<length; index++)
+				{
+					genome[index] = codec.decode(buffer);
+				}
+				
+				if (place)
+				{
+					add(genome, address);
+				}
+			}
+		}
+		catch (BufferUnderflowException e)
+		{
+			throw new IOException("Truncated seed file", e);
+		}
+		catch (IllegalArgumentException e)
+		{
+			throw new IOException(e.getMessage(), e);
+		}
+	}
+	
+	/**
+	 * Encodes a genome in the binary form.
+	 *
+	 * @param genome The instructions of the genome
+	 * @param address The address of the genome, or -1
+	 * @param scratch A buffer in which to encode it
+	 *
+	 * @return The buffer holding the record, which is the scratch
+	 * buffer unless it was too small
+	 */
+	private static ByteBuffer encode(final String[] genome, final int address,
+			                         ByteBuffer scratch)
+	{
+		// Worst case size of the record
+		int needed = 10;
+		
+		for (String instruction: genome)
+		{
+			needed += InstructionCodec.maxLength(instruction);
+		}
+		
+		if (scratch.capacity() < needed)
+		{
+			scratch = ByteBuffer.allocate(needed);
+		}
+		
+		scratch.clear();
+		
+		InstructionCodec.putVarint(scratch, address + 1);
+		InstructionCodec.putVarint(scratch, genome.length);
+		
+		for (String instruction: genome)
+		{
+			InstructionCodec.encode(instruction, scratch);
+		}
+		
+		return (scratch);
+	}
+	
+	/**
+	 * Interns an instruction of the text form, without creating
+	 * a String for the instructions which are interned.
+	 *
+	 * @param buffer The contents of the file
+	 * @param start The offset of the first byte of the instruction
+	 * @param end The offset following its last byte
+	 *
+	 * @return The instruction
+	 */
+	private String intern(final ByteBuffer buffer, final int start, final int end)
+	{
+		int length = end - start;
+		
+		if (matches(buffer, start, length, Instructions.NOP))
+		{
+			return (Instructions.NOP);
+		}
+		
+		if (matches(buffer, start, length, Instructions.SPW))
+		{
+			return (Instructions.SPW);
+		}
+		
+		if (matches(buffer, start, length, Instructions.CPN))
+		{
+			return (Instructions.CPN);
+		}
+		
+		if (matches(buffer, start, length, EMPTY))
+		{
+			return (Core.EMPTY);
+		}
+		
+		int prefix = Instructions.JMP.length();
+		
+		if (length >= prefix && matches(buffer, start, prefix, Instructions.JMP))
+		{
+			if (length == prefix)
+			{
+				return (Instructions.JMP);
+			}
+			
+			// Parse a jump of a few digits, which is interned
+			// if it is written just as the interned one is
+			int position = start + prefix + 1;
+			boolean negative = position < end && buffer.get(position) == '-';
+			
+			if (negative)
+			{
+				position++;
+			}
+			
+			int value = 0;
+			int digits = 0;
+			
+			while (position < end && digits < 7 &&
+				   isDigit(buffer.get(position)))
+			{
+				value = value * 10 + (buffer.get(position++) - '0');
+				digits++;
+			}
+			
+			if (buffer.get(start + prefix) == ' ' && digits > 0 &&
+				position == end)
+			{
+				String jump = codec.jump(negative ? -value : value);
+				
+				if (jump.length() == length)
+				{
+					return (jump);
+				}
+			}
+		}
+		
+		byte[] bytes = new byte[length];
+		
+		for (int index=0; index<length; index++)
+		{
+			bytes[index] = buffer.get(start + index);
+		}
+		
+		return (new String(bytes, StandardCharsets.UTF_8));
+	}
+	
+	/**
+	 * Adds a genome to the current batch, placing the
+	 * batch once it is full.
+	 *
+	 * @param genome The instructions of the genome
+	 * @param address The address at which to place it, or -1
+	 */
+	private void add(final String[] genome, final int address)
+	{
+		read++;
+		
+		batch[size] = genome;
+		addresses[size] = address;
+		size++;
+		
+		if (size == BATCH)
+		{
+			flush();
+		}
+	}
+	
+	/**
+	 * Places the genomes of the current batch into the Core.
+	 * Genomes with addresses are placed first, so that those
+	 * allocated free space cannot take their places.
+	 */
+	private void flush()
+	{
+		int total = 0;
+		
+		for (int index=0; index<size; index++)
+		{
+			int address = addresses[index];
+			
+			if (address == -1)
+			{
+				total += batch[index].length;
+			}
+			else
+			{
+				place(batch[index], address, true);
+			}
+		}
+		
+		// A single run for the whole batch, if there is one
+		int run = (total > 0) ? allocate(total) : -1;
+		
+		for (int index=0; index<size; index++)
+		{
+			if (addresses[index] == -1)
+			{
+				String[] genome = batch[index];
+				
+				if (run != -1)
+				{
+					place(genome, run, false);
+					run += genome.length;
+				}
+				else
+				{
+					place(genome, genome.length > 0 ? allocate(genome.length) : -1,
+						  false);
+				}
+			}
+			
+			batch[index] = null;
+		}
+		
+		size = 0;
+	}
+	
+	/**
+	 * Places a genome into the Core.
+	 *
+	 * @param genome The instructions of the genome
+	 * @param address The address at which to place it, or -1
+	 * if no room was found for it
+	 * @param restore True if the genome is to be restored
+	 * exactly at an address given in the file
+	 */
+	private void place(final String[] genome, final int address,
+			           final boolean restore)
+	{
+		if (address >= 0 && address < cpu.size() &&
+			(restore ? cpu.restore(genome, address) :
+				       cpu.immigrate(genome, address)))
+		{
+			placed++;
+		}
+		else
+		{
+			rejected++;
+		}
+	}
+	
+	/**
+	 * Allocates a run of empty addresses, first fit from the end of
+	 * the last allocation, wrapping around to the start of the Core.
+	 *
+	 * @param length The number of addresses required
+	 *
+	 * @return The first address of the run, or -1 if there is none
+	 */
+	private int allocate(final int length)
+	{
+		if (length > cpu.size())
+		{
+			return (-1);
+		}
+		
+		int address = cpu.findEmpty(cursor, length);
+		
+		if (address == -1)
+		{
+			address = cpu.findEmpty(0, length);
+		}
+		
+		if (address != -1)
+		{
+			cursor = (address + length) % cpu.size();
+		}
+		
+		return (address);
+	}
+	
+	/**
+	 * @param buffer The contents of the file
+	 * @param start The offset at which to compare
+	 * @param length The number of bytes to compare
+	 * @param instruction The instruction to compare with
+	 *
+	 * @return True if the bytes spell out the instruction
+	 */
+	private static boolean matches(final ByteBuffer buffer, final int start,
+			                       final int length, final String instruction)
+	{
+		if (length != instruction.length() ||
+			start + length > buffer.limit())
+		{
+			return (false);
+		}
+		
+		for (int index=0; index<length; index++)
+		{
+			if (buffer.get(start + index) != instruction.charAt(index))
+			{
+				return (false);
+			}
+		}
+		
+		return (true);
+	}
+	
+	/**
+	 * Skips white space.
+	 *
+	 * @param buffer The contents of the file
+	 * @param position The offset from which to skip
+	 * @param lines True if line breaks are to be skipped
+	 *
+	 * @return The offset of the next byte which is not skipped
+	 */
+	private static int skipSpace(final ByteBuffer buffer, int position,
+			                     final boolean lines)
+	{
+		while (position < buffer.limit())
+		{
+			byte next = buffer.get(position);
+			
+			if (!isSpace(next) && !(lines && next == '\n'))
+			{
+				break;
+			}
+			
+			position++;
+		}
+		
+		return (position);
+	}
+	
+	/**
+	 * @param next A byte of the file
+	 *
+	 * @return True if the byte is a space, tab or carriage return
+	 */
+	private static boolean isSpace(final byte next)
+	{
+		return (next == ' ' || next == '\t' || next == '\r');
+	}
+	
+	/**
+	 * @param next A byte of the file
+	 *
+	 * @return True if the byte is a decimal digit
+	 */
+	private static boolean isDigit(final byte next)
+	{
+		return (next >= '0' && next <= '9');
+	}
+}
@@ -0,0 +1,238 @@
+package procs;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SeedLoaderTest 
+{
+	private File file;
+	
+	@Before
+	public void setUp() throws Exception 
+	{
+		file = File.createTempFile("seeds", ".txt");
+	}
+	
+	@After
+	public void tearDown() throws Exception 
+	{
+		file.delete();
+	}
+	
+	@Test
+	public final void testText() throws IOException 
+	{
+		write("# A small ecosystem\n" +
+			  "\n" +
+			  "500 [NOP;NOP;SPW;NOP;NOP]\r\n" +
+			  "[NOP; SPW ;JMP -2]\n" +
+			  "[CPN;JMP 0007;JMP]\n" +
+			  "500 [SPW]\n" +
+			  "2000000 [SPW]\n");
+		
+		CPU cpu = emptyCPU();
+		SeedLoader loader = new SeedLoader(cpu);
+		
+		assertEquals("Incorrect placed count", 3, loader.load(file));
+		assertEquals("Incorrect read count", 5, loader.read());
+		assertEquals("Incorrect rejected count", 2, loader.rejected());
+		assertEquals("Incorrect population", 3, cpu.processCount());
+		
+		// Genomes with addresses are placed there, and the rest
+		// are allocated the first free space, end to end
+		assertSame("Instruction not interned", 
+				   Instructions.SPW, cpu.getInstruction(502));
+		assertSame("Instruction not interned", 
+				   Instructions.NOP, cpu.getInstruction(0));
+		assertEquals("Incorrect jump", "JMP -2", cpu.getInstruction(2));
+		assertEquals("Incorrect literal", "JMP 0007", cpu.getInstruction(4));
+		assertSame("Instruction not interned", 
+				   Instructions.JMP, cpu.getInstruction(5));
+		
+		// Jumps are interned too
+		write("[JMP -2;JMP -2]\n");
+		loader.load(file);
+		
+		assertSame("Jump not interned", 
+				   cpu.getInstruction(2), cpu.getInstruction(6));
+		assertSame("Jump not interned", 
+				   cpu.getInstruction(6), cpu.getInstruction(7));
+	}
+	
+	@Test
+	public final void testRoundTrip() throws IOException 
+	{
+		Simulation simulation = new Simulation(1);
+		simulation.run(StopCondition.cycles(300));
+		
+		CPU original = simulation.cpu();
+		
+		for (boolean binary: new boolean[] {false, true})
+		{
+			SeedLoader.save(original, file, binary);
+			
+			CPU cpu = emptyCPU();
+			SeedLoader loader = new SeedLoader(cpu);
+			
+			assertEquals("Incorrect placed count", 
+					     original.processCount(), loader.load(file));
+			assertEquals("Incorrect rejected count", 0, loader.rejected());
+			
+			assertEquals("Incorrect population", 
+					     original.processCount(), cpu.processCount());
+			
+			// Every genome is placed back at its own address,
+			// including those overlapping others
+			for (int index=0; index<original.processCount(); index++)
+			{
+				Process process = original.process(index);
+				
+				for (int offset=0; offset<process.length(); offset++)
+				{
+					int address = (process.address() + offset) % cpu.size();
+					
+					assertEquals("Incorrect instruction", 
+							     original.getInstruction(address), 
+							     cpu.getInstruction(address));
+				}
+			}
+		}
+	}
+	
+	@Test
+	public final void testOverlapping() throws IOException 
+	{
+		CPU original = emptyCPU();
+		original.setSwapProbability(0);
+		
+		// The second Process overlaps the tail of the first,
+		// and empties it when its invalid instruction kills it
+		String[] nops = new String[10];
+		java.util.Arrays.fill(nops, Instructions.NOP);
+		
+		assertTrue("Not restored", original.restore(nops, 100));
+		assertTrue("Not restored", original.restore
+			(new String[] {Instructions.NOP, Instructions.NOP, "XYZ"}, 108));
+		
+		for (int cycle=0; cycle<3; cycle++)
+		{
+			original.execute();
+		}
+		
+		assertEquals("Incorrect population", 1, original.processCount());
+		assertEquals("Address not emptied", Core.EMPTY, original.getInstruction(108));
+		
+		for (boolean binary: new boolean[] {false, true})
+		{
+			SeedLoader.save(original, file, binary);
+			
+			CPU cpu = emptyCPU();
+			SeedLoader loader = new SeedLoader(cpu);
+			
+			assertEquals("Incorrect placed count", 1, loader.load(file));
+			assertEquals("Incorrect population", 1, cpu.processCount());
+			assertEquals("Incorrect length", 10, cpu.process(0).length());
+			
+			for (int address=100; address<111; address++)
+			{
+				assertEquals("Incorrect instruction", 
+						     original.getInstruction(address), 
+						     cpu.getInstruction(address));
+			}
+		}
+		
+		// The token stands for an empty address
+		write("5 [NOP;_;SPW]\n");
+		
+		CPU cpu = emptyCPU();
+		
+		assertEquals("Incorrect placed count", 1, new SeedLoader(cpu).load(file));
+		assertEquals("Incorrect instruction", Core.EMPTY, cpu.getInstruction(6));
+		assertSame("Instruction not interned", 
+				   Instructions.SPW, cpu.getInstruction(7));
+	}
+	
+	@Test
+	public final void testMalformed() throws IOException 
+	{
+		String[] malformed = 
+			{"[NOP;SPW\n[NOP]", "[NOP;;SPW]", "-5 [NOP]", "NOP]"};
+		
+		for (String text: malformed)
+		{
+			write(text);
+			
+			try
+			{
+				new SeedLoader(emptyCPU()).load(file);
+				fail("Expected IOException for " + text);
+			}
+			catch (IOException e)
+			{
+			}
+		}
+		
+		// Nothing is placed from a file which is malformed
+		// after some genomes have been read
+		write("100 [NOP;SPW]\n[CPN]\n[NOP;;SPW]\n");
+		
+		CPU cpu = emptyCPU();
+		SeedLoader loader = new SeedLoader(cpu);
+		
+		try
+		{
+			loader.load(file);
+			fail("Expected IOException");
+		}
+		catch (IOException e)
+		{
+		}
+		
+		assertEquals("Incorrect placed count", 0, loader.placed());
+		assertEquals("Incorrect population", 0, cpu.processCount());
+		assertEquals("Incorrect instruction", Core.EMPTY, cpu.getInstruction(100));
+		
+		// A truncated binary file
+		SeedLoader.save(new CPU(), file, true);
+		byte[] bytes = Files.readAllBytes(file.toPath());
+		Files.write(file.toPath(), java.util.Arrays.copyOf(bytes, bytes.length - 1));
+		
+		try
+		{
+			new SeedLoader(emptyCPU()).load(file);
+			fail("Expected IOException");
+		}
+		catch (IOException e)
+		{
+		}
+	}
+	
+	/**
+	 * @return A CPU with an empty Core, which does not
+	 * mutate the genomes placed into it
+	 */
+	private CPU emptyCPU()
+	{
+		CPU cpu = new CPU();
+		cpu.evictAll();
+		cpu.setMutationProbability(0);
+		
+		return (cpu);
+	}
+	
+	/**
+	 * @param text The contents to be written to the seed file
+	 */
+	private void write(final String text) throws IOException
+	{
+		Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,321 @@
+package procs;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Runs a CPU until one of a number of StopConditions is reached.
+ * Conditions on the populations of genomes are checked against the
+ * statistics kept by the CPU, so they are exact with ExactStatistics
+ * and estimates with SketchStatistics, whose memory stays bounded.
+ *
+ * Run from the command line, a Simulation is headless: nothing is
+ * printed while it runs, and a summary of the final state is written
+ * once it stops, so that many can be run as batch jobs.
+ *
+ * @author richpl
+ */
+public class Simulation
+{
+	/**
+	 * Number of cycles after which a headless
+	 * run stops, if no other limit is given
+	 */
+	public static final long CYCLES = 1000000;
+	
+	/**
+	 * Default smallest population at which the
+	 * share of a genome stops a headless run
+	 */
+	public static final int SHARE_POPULATION = 100;
+	
+	// CPU being run
+	private CPU cpu;
+	
+	// Statistics kept by the CPU on its genomes
+	private GenomeStatistics statistics;
+	
+	// Time at which the current run began, in nanoseconds
+	private long started;
+	
+	// Condition which stopped the last run, or null
+	private StopCondition stopped;
+	
+	/**
+	 * Constructs a Simulation of a CPU innoculated with the
+	 * ancestor, which keeps exact statistics on genomes.
+	 *
+	 * @param seed The seed of the generator from which
+	 * every decision is drawn
+	 */
+	public Simulation(final long seed)
+	{
+		this(new Random(seed), new ExactStatistics());
+	}
+	
+	/**
+	 * Constructs a Simulation of a CPU innoculated with the ancestor.
+	 *
+	 * @param random The generator from which decisions are drawn
+	 * @param statistics The statistics to be kept on genomes
+	 * @param listeners Further listeners to be notified of
+	 * the events occurring during each execution cycle
+	 */
+	public Simulation(final Random random, final GenomeStatistics statistics,
+			          final EventListener... listeners)
+	{
+		this.statistics = statistics;
+		
+		cpu = new CPU(random, statistics, listeners);
+		
+		started = System.nanoTime();
+		stopped = null;
+	}
+	
+	/**
+	 * Runs the CPU until any of the specified conditions is reached.
+	 * The conditions are checked before every cycle, so a condition
+	 * which already holds stops the run before any cycle is executed.
+	 *
+	 * @param conditions The conditions under which to stop
+	 *
+	 * @return The first condition found to be reached
+	 *
+	 * @throws IllegalArgumentException Signals that no
+	 * conditions were specified
+	 */
+	public StopCondition run(final StopCondition... conditions)
+		throws IllegalArgumentException
+	{
+		if (conditions.length == 0)
+		{
+			throw new IllegalArgumentException("No stop condition specified");
+		}
+		
+		started = System.nanoTime();
+		
+		while (true)
+		{
+			for (StopCondition condition: conditions)
+			{
+				if (condition.reached(this))
+				{
+					stopped = condition;
+					
+					return (condition);
+				}
+			}
+			
+			cpu.execute();
+		}
+	}
+	
+	/**
+	 * @return The CPU being run
+	 */
+	public CPU cpu()
+	{
+		return (cpu);
+	}
+	
+	/**
+	 * @return The number of execution cycles completed
+	 */
+	public long cycle()
+	{
+		return (cpu.cycle());
+	}
+	
+	/**
+	 * @return The number of executing Processes
+	 */
+	public int population()
+	{
+		return (cpu.processCount());
+	}
+	
+	/**
+	 * @return The number of genomes with a living population,
+	 * as given by the statistics kept by the CPU
+	 */
+	public int liveGenomes()
+	{
+		return (statistics.liveGenomes());
+	}
+	
+	/**
+	 * @return The population of the most populous genome,
+	 * as given by the statistics kept by the CPU
+	 */
+	public int maxPopulation()
+	{
+		return (statistics.maxPopulation());
+	}
+	
+	/**
+	 * @return The number of milliseconds since the current,
+	 * or last, run began
+	 */
+	public long elapsedMillis()
+	{
+		return ((System.nanoTime() - started) / 1000000);
+	}
+	
+	/**
+	 * @return A JSON summary of the state of the Simulation
+	 */
+	public String summary()
+	{
+		int population = population();
+		
+		double share = population > 0 ?
+				Math.min(1.0, (double) maxPopulation() / population) : 0;
+		
+		return (String.format("{\"stoppedBy\": \"%s\", \"cycles\": %d, " +
+				              "\"population\": %d, \"liveGenomes\": %d, " +
+				              "\"maxGenomeShare\": %.4f, \"infections\": %d, " +
+				              "\"elapsedMillis\": %d}",
+				              stopped, cycle(), population, liveGenomes(),
+				              share, cpu.infections().infections(),
+				              elapsedMillis()));
+	}
+	
+	/**
+	 * Runs a headless Simulation, writing only a summary once
+	 * it stops. The Simulation always stops on extinction, and
+	 * otherwise once any of the specified limits is reached.
+	 *
+	 * Options are --seed n, --cycles n, --seconds n,
+	 * --min-population n, --max-population n, --share f,
+	 * --share-population n, --seeds file and --summary file. A seed
+	 * file, as read by a SeedLoader, replaces the ancestor.
+	 *
+	 * @param args The options
+	 */
+	public static void main(String[] args)
+	{
+		long seed = new Date().getTime();
+		long cycles = -1;
+		double share = -1;
+		int sharePopulation = SHARE_POPULATION;
+		File summary = null;
+		File seeds = null;
+		
+		List<StopCondition> conditions = new ArrayList<StopCondition>();
+		conditions.add(StopCondition.extinction());
+		
+		try
+		{
+			for (int index=0; index<args.length; index+=2)
+			{
+				if (index + 1 >= args.length)
+				{
+					throw new NumberFormatException("Missing value for " + args[index]);
+				}
+				
+				String value = args[index + 1];
+				
+				switch (args[index])
+				{
+					case "--seed":
+						seed = Long.parseLong(value);
+						break;
+					
+					case "--cycles":
+						cycles = Long.parseLong(value);
+						break;
+					
+					case "--seconds":
+						conditions.add(StopCondition.wallTime(
+								(long) (Double.parseDouble(value) * 1000)));
+						break;
+					
+					case "--min-population":
+						conditions.add(StopCondition.populationBelow(
+								Integer.parseInt(value)));
+						break;
+					
+					case "--max-population":
+						conditions.add(StopCondition.populationAbove(
+								Integer.parseInt(value)));
+						break;
+					
+					case "--share":
+						share = Double.parseDouble(value);
+						break;
+					
+					case "--share-population":
+						sharePopulation = Integer.parseInt(value);
+						break;
+					
+					case "--seeds":
+						seeds = new File(value);
+						break;
+					
+					case "--summary":
+						summary = new File(value);
+						break;
+					
+					default:
+						throw new NumberFormatException("Unknown option " + args[index]);
+				}
+			}
+			
+			if (share >= 0)
+			{
+				conditions.add(StopCondition.genomeShare(share, sharePopulation));
+			}
+		}
+		catch (NumberFormatException e)
+		{
+			System.err.println(e.getMessage());
+			System.exit(2);
+		}
+		
+		conditions.add(StopCondition.cycles(cycles >= 0 ? cycles : CYCLES));
+		
+		Simulation simulation = new Simulation(seed);
+		
+		if (seeds != null)
+		{
+			try
+			{
+				simulation.cpu().evictAll();
+				new SeedLoader(simulation.cpu()).load(seeds);
+			}
+			catch (IOException e)
+			{
+				System.err.println(e.getMessage());
+				System.exit(1);
+			}
+		}
+		
+		simulation.run(conditions.toArray(new StopCondition[conditions.size()]));
+		
+		String json = simulation.summary();
+		
+		try
+		{
+			if (summary != null)
+			{
+				Files.write(summary.toPath(),
+						    (json + "\n").getBytes(StandardCharsets.UTF_8));
+			}
+			else
+			{
+				System.out.println(json);
+			}
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+}
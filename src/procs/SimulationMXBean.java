@@ -0,0 +1,52 @@
+package procs;
+
+/**
+ * Management interface exposing live metrics of a running
+ * simulation. All values are read from counters maintained
+ * by the CPU as it executes, so polling does not disturb
+ * the simulation.
+ * 
+ * @author richpl
+ */
+public interface SimulationMXBean 
+{
+	/**
+	 * @return The number of execution cycles completed
+	 */
+	public long getCycle();
+	
+	/**
+	 * Measures the rate since the previous call of this method,
+	 * by whichever client made it. Each client therefore sees
+	 * the rate since its own previous poll only if it is the
+	 * sole client polling this attribute; concurrent pollers
+	 * shorten each other's measurement intervals.
+	 * 
+	 * @return The number of cycles completed per second
+	 * since the previous poll
+	 */
+	public double getCyclesPerSecond();
+	
+	/**
+	 * @return The number of Processes currently executing
+	 */
+	public int getProcessCount();
+	
+	/**
+	 * @return The number of unique genomes with 
+	 * a living population
+	 */
+	public int getLiveGenomeCount();
+	
+	/**
+	 * @return The percentage of Core addresses 
+	 * holding an instruction
+	 */
+	public double getOccupancy();
+	
+	/**
+	 * @return The most populous genomes, largest first, each
+	 * given as its population followed by its instructions
+	 */
+	public String[] getTopGenomes();
+}
@@ -0,0 +1,132 @@
+package procs;
+
+/**
+ * Publishes the metrics of a running CPU through the 
+ * SimulationMXBean interface. The CPU pushes its counters
+ * to the monitor at the end of each cycle, and the list of 
+ * most populous genomes periodically, so that a poll only 
+ * ever reads values the simulation has already published.
+ * 
+ * @author richpl
+ */
+public class SimulationMonitor implements SimulationMXBean
+{
+	/**
+	 * Number of genomes reported by getTopGenomes
+	 */
+	public static final int TOP_N = 10;
+	
+	/**
+	 * Number of cycles between updates of the most
+	 * populous genomes
+	 */
+	public static final int PUBLISH_INTERVAL = 100;
+	
+	// Counters published by the CPU
+	private volatile long cycle;
+	private volatile int processCount;
+	private volatile int liveGenomeCount;
+	private volatile int occupied;
+	private volatile String[] topGenomes;
+	
+	// Number of addresses in the Core
+	private final int coreSize;
+	
+	// Cycle count and time of the previous poll of 
+	// the cycle rate
+	private long lastCycle;
+	private long lastTime;
+	
+	/**
+	 * Constructs a new monitor for a Core of the specified size.
+	 * 
+	 * @param coreSize The number of addresses in the Core
+	 */
+	public SimulationMonitor(final int coreSize)
+	{
+		this.coreSize = coreSize;
+		
+		topGenomes = new String[0];
+		
+		lastCycle = 0;
+		lastTime = System.nanoTime();
+	}
+	
+	/**
+	 * Publishes the counters maintained by the CPU.
+	 * 
+	 * @param cycle The number of execution cycles completed
+	 * @param processCount The number of Processes executing
+	 * @param liveGenomeCount The number of genomes with a living
+	 * population
+	 * @param occupied The number of occupied Core addresses
+	 */
+	public void update(final long cycle, final int processCount,
+			           final int liveGenomeCount, final int occupied)
+	{
+		this.cycle = cycle;
+		this.processCount = processCount;
+		this.liveGenomeCount = liveGenomeCount;
+		this.occupied = occupied;
+	}
+	
+	/**
+	 * Publishes the most populous genomes.
+	 * 
+	 * @param topGenomes Description of each genome, largest
+	 * population first
+	 */
+	public void updateTopGenomes(final String[] topGenomes)
+	{
+		this.topGenomes = topGenomes;
+	}
+	
+	@Override
+	public long getCycle() 
+	{
+		return (cycle);
+	}
+
+	@Override
+	public synchronized double getCyclesPerSecond() 
+	{
+		long now = System.nanoTime();
+		long current = cycle;
+		
+		double rate = 0;
+		
+		if (now > lastTime)
+		{
+			rate = (current - lastCycle) * 1e9 / (now - lastTime);
+		}
+		
+		lastCycle = current;
+		lastTime = now;
+		
+		return (rate);
+	}
+
+	@Override
+	public int getProcessCount() 
+	{
+		return (processCount);
+	}
+
+	@Override
+	public int getLiveGenomeCount() 
+	{
+		return (liveGenomeCount);
+	}
+
+	@Override
+	public double getOccupancy() 
+	{
+		return (occupied * 100.0 / coreSize);
+	}
+
+	@Override
+	public String[] getTopGenomes() 
+	{
+		return (topGenomes.clone());
+	}
+}
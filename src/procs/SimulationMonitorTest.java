@@ -0,0 +1,83 @@
+package procs;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+public class SimulationMonitorTest
+{
+	@Test
+	public final void testRegistration() throws Exception
+	{
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		
+		ObjectName first = new ObjectName
+			("procs:type=Simulation,name=" + ObjectName.quote("first"));
+		ObjectName second = new ObjectName
+			("procs:type=Simulation,name=" + ObjectName.quote("second"));
+		
+		CPU cpu = new CPU(new Random(1), new ExactStatistics());
+		
+		try
+		{
+			cpu.registerMBean("first");
+			
+			assertTrue("MBean not registered", server.isRegistered(first));
+			
+			for (int cycle=0; cycle<SimulationMonitor.PUBLISH_INTERVAL; cycle++)
+			{
+				cpu.execute();
+			}
+			
+			// The attributes read through the server are those
+			// published by the CPU at the end of the last cycle
+			assertEquals("Incorrect cycle", cpu.cycle(),
+					     ((Long) server.getAttribute(first, "Cycle")).longValue());
+			assertEquals("Incorrect process count", cpu.processCount(),
+					     ((Integer) server.getAttribute(first, "ProcessCount")).intValue());
+			assertTrue("No live genomes",
+					   (Integer) server.getAttribute(first, "LiveGenomeCount") > 0);
+			
+			double occupancy = (Double) server.getAttribute(first, "Occupancy");
+			
+			assertTrue("Incorrect occupancy", occupancy > 0 && occupancy <= 100);
+			
+			String[] top = (String[]) server.getAttribute(first, "TopGenomes");
+			
+			assertTrue("Incorrect top genomes",
+					   top.length > 0 && top.length <= SimulationMonitor.TOP_N);
+			assertTrue("Incorrect cycle rate",
+					   (Double) server.getAttribute(first, "CyclesPerSecond") >= 0);
+			
+			// Registering again replaces the previous registration
+			cpu.registerMBean("second");
+			
+			assertFalse("Previous MBean still registered", server.isRegistered(first));
+			assertTrue("MBean not registered", server.isRegistered(second));
+			
+			cpu.unregisterMBean();
+			
+			assertFalse("MBean still registered", server.isRegistered(second));
+			
+			// Once unregistered, the CPU runs without a monitor,
+			// and the name may be used again
+			cpu.execute();
+			cpu.unregisterMBean();
+			cpu.registerMBean("second");
+			
+			assertTrue("MBean not registered", server.isRegistered(second));
+		}
+		finally
+		{
+			cpu.unregisterMBean();
+		}
+		
+		assertFalse("MBean still registered", server.isRegistered(second));
+	}
+}
@@ -0,0 +1,146 @@
+package procs;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class SimulationTest 
+{
+	@Test
+	public final void testCycles() 
+	{
+		Simulation simulation = new Simulation(1);
+		
+		StopCondition cycles = StopCondition.cycles(20);
+		
+		assertSame("Incorrect condition", cycles, 
+				   simulation.run(StopCondition.extinction(), cycles));
+		assertEquals("Incorrect cycle", 20, simulation.cycle());
+		
+		// A condition already reached stops the run at once
+		assertSame("Incorrect condition", cycles, simulation.run(cycles));
+		assertEquals("Incorrect cycle", 20, simulation.cycle());
+	}
+	
+	@Test
+	public final void testPopulation() 
+	{
+		Simulation simulation = new Simulation(1);
+		
+		StopCondition population = StopCondition.populationAbove(50);
+		
+		assertSame("Incorrect condition", population, 
+				   simulation.run(population, StopCondition.cycles(1000)));
+		assertTrue("Population too small", simulation.population() >= 50);
+		assertTrue("Incorrect genome count", simulation.liveGenomes() > 0);
+		assertTrue("Incorrect largest population", 
+				   simulation.maxPopulation() <= simulation.population());
+	}
+	
+	@Test
+	public final void testGenomeShare() 
+	{
+		Simulation simulation = new Simulation(1);
+		
+		// The ancestor alone makes up the whole population at first
+		StopCondition share = StopCondition.genomeShare(0.5, 20);
+		
+		assertSame("Incorrect condition", share, 
+				   simulation.run(share, StopCondition.cycles(1000)));
+		assertTrue("Population too small", simulation.population() >= 20);
+		assertTrue("Share too small", 
+				   simulation.maxPopulation() * 2 >= simulation.population());
+		
+		assertTrue("Incorrect summary", 
+				   simulation.summary().contains("\"stoppedBy\": \"genome share"));
+	}
+	
+	@Test
+	public final void testWallTime() 
+	{
+		Simulation simulation = new Simulation(1);
+		
+		StopCondition time = StopCondition.wallTime(0);
+		
+		assertSame("Incorrect condition", time, simulation.run(time));
+		assertEquals("Cycle executed", 0, simulation.cycle());
+	}
+	
+	@Test
+	public final void testNoConditions() 
+	{
+		try
+		{
+			new Simulation(1).run();
+			
+			fail("Run without conditions");
+		}
+		catch (IllegalArgumentException e)
+		{
+			// Expected
+		}
+	}
+	
+	@Test
+	public final void testCensus() 
+	{
+		for (long seed=1; seed<=2; seed++)
+		{
+			Simulation simulation = new Simulation(seed);
+			simulation.run(StopCondition.cycles(300), StopCondition.extinction());
+			
+			// Count the living Processes of each genome directly
+			Map<Integer, Integer> counts = new HashMap<Integer, Integer>();
+			int largest = 0;
+			
+			CPU cpu = simulation.cpu();
+			
+			for (int index=0; index<cpu.processCount(); index++)
+			{
+				int genome = cpu.process(index).genome();
+				int count = counts.getOrDefault(genome, 0) + 1;
+				
+				counts.put(genome, count);
+				largest = Math.max(largest, count);
+			}
+			
+			assertEquals("Incorrect genome count", 
+					     counts.size(), simulation.liveGenomes());
+			assertEquals("Incorrect largest population", 
+					     largest, simulation.maxPopulation());
+		}
+	}
+	
+	@Test
+	public final void testSketch() 
+	{
+		// The estimates of bounded statistics never fall short
+		// of the largest true population
+		Simulation simulation = new Simulation
+			(new Random(1), new SketchStatistics(64, 50, 4));
+		simulation.run(StopCondition.cycles(300), StopCondition.extinction());
+		
+		Map<Integer, Integer> counts = new HashMap<Integer, Integer>();
+		int largest = 0;
+		
+		CPU cpu = simulation.cpu();
+		
+		for (int index=0; index<cpu.processCount(); index++)
+		{
+			int genome = cpu.process(index).genome();
+			int count = counts.getOrDefault(genome, 0) + 1;
+			
+			counts.put(genome, count);
+			largest = Math.max(largest, count);
+		}
+		
+		assertTrue("No population", largest > 0);
+		assertTrue("Largest population underestimated", 
+				   simulation.maxPopulation() >= largest);
+		assertTrue("No live genomes", simulation.liveGenomes() > 0);
+	}
+}
@@ -0,0 +1,270 @@
+package procs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Genome statistics which use a bounded amount of memory, no 
+ * matter how many distinct genomes arise. This allows long runs
+ * with mutation enabled, where the number of distinct genomes 
+ * can reach millions and exact statistics become the largest
+ * consumer of memory.
+ * 
+ * The most frequently born genomes are tracked by a Space-Saving
+ * summary, which holds the instructions of only those genomes.
+ * The living population of each genome is estimated by a 
+ * Count-Min sketch. The number of distinct genomes is estimated
+ * by HyperLogLog sketches, one for each of a ring of windows of
+ * cycles. The distinct genome count covers the most recently
+ * completed windows, and is refreshed each time a window completes.
+ * 
+ * @author richpl
+ */
+public class SketchStatistics implements GenomeStatistics
+{
+	/**
+	 * Number of hash functions used by the Count-Min sketch
+	 */
+	public static final int DEPTH = 4;
+	
+	/**
+	 * Number of counters per hash function in the Count-Min sketch
+	 */
+	public static final int WIDTH = 1 << 16;
+	
+	/**
+	 * Precision of the HyperLogLog sketches
+	 */
+	public static final int PRECISION = 12;
+	
+	// The most frequently born genomes, with their instructions
+	private SpaceSaving<String[]> heavyHitters;
+	
+	// Estimated living population of each genome
+	private CountMinSketch population;
+	
+	// Ring of sketches of the genomes born in each window
+	private HyperLogLog[] windows;
+	
+	// Position in the ring of the current window
+	private int current;
+	
+	// Number of cycles in each window
+	private int windowCycles;
+	
+	// Distinct genome estimate for the completed windows
+	private int distinctGenomes;
+	
+	// Sketch into which the completed windows are merged
+	private HyperLogLog merged;
+	
+	/**
+	 * Constructs empty statistics.
+	 * 
+	 * @param capacity The number of most frequently born 
+	 * genomes to be tracked
+	 * @param windowCycles The number of cycles in each window
+	 * over which distinct genomes are counted
+	 * @param windows The number of windows over which
+	 * distinct genomes are counted
+	 * 
+	 * @throws IllegalArgumentException Signals that a 
+	 * non-positive parameter was specified
+	 */
+	public SketchStatistics(final int capacity, final int windowCycles,
+			                final int windows)
+		throws IllegalArgumentException
+	{
+		if (windowCycles <= 0 || windows <= 0)
+		{
+			throw new IllegalArgumentException
+				("Invalid window specified");
+		}
+		
+		heavyHitters = new SpaceSaving<String[]>(capacity);
+		
+		population = new CountMinSketch(DEPTH, WIDTH);
+		
+		this.windows = new HyperLogLog[windows];
+		for (int index=0; index<windows; index++)
+		{
+			this.windows[index] = new HyperLogLog(PRECISION);
+		}
+		
+		current = 0;
+		
+		this.windowCycles = windowCycles;
+		
+		distinctGenomes = 0;
+		
+		merged = new HyperLogLog(PRECISION);
+	}
+	
+	@Override
+	public void birth(int hashVal, GenomeView genome) 
+	{
+		// Only copy the instructions of genomes as
+		// they are admitted to the summary
+		SpaceSaving.Counter<String[]> counter = heavyHitters.offer(hashVal);
+		
+		if (counter.value() == null)
+		{
+			counter.setValue(genome.toArray());
+		}
+		
+		population.add(hashVal, 1);
+		
+		windows[current].add(hashVal);
+	}
+	
+	@Override
+	public void death(int hashVal) 
+	{
+		population.add(hashVal, -1);
+	}
+	
+	@Override
+	public void endCycle(long cycle) 
+	{
+		if (cycle % windowCycles == 0)
+		{
+			// Refresh the estimate from the completed windows,
+			// including the one that has just finished
+			merged.clear();
+			
+			for (HyperLogLog window: windows)
+			{
+				merged.merge(window);
+			}
+			
+			distinctGenomes = (int) merged.estimate();
+			
+			// Move on to the oldest window, and reuse it
+			current = (current + 1) % windows.length;
+			windows[current].clear();
+		}
+	}
+	
+	/**
+	 * @return The number of genomes whose instructions are held
+	 */
+	@Override
+	public int genomeCount() 
+	{
+		return (heavyHitters.size());
+	}
+	
+	/**
+	 * @return The estimated number of distinct genomes born 
+	 * during the most recently completed windows
+	 */
+	@Override
+	public int liveGenomes() 
+	{
+		return (distinctGenomes);
+	}
+	
+	/**
+	 * @return The largest estimated population of the genomes
+	 * being tracked, which may overestimate the true population
+	 */
+	@Override
+	public int maxPopulation() 
+	{
+		int maxPopulation = 0;
+		
+		for (SpaceSaving.Counter<String[]> counter: heavyHitters.counters())
+		{
+			maxPopulation = Math.max(maxPopulation, 
+					                 population.estimate(counter.key()));
+		}
+		
+		return (maxPopulation);
+	}
+	
+	/**
+	 * Returns the genomes being tracked, in order of 
+	 * decreasing estimated population.
+	 * 
+	 * @return The counters of the tracked genomes
+	 */
+	private List<SpaceSaving.Counter<String[]>> ranked()
+	{
+		List<SpaceSaving.Counter<String[]>> ranked = 
+				new ArrayList<SpaceSaving.Counter<String[]>>
+					(heavyHitters.counters());
+		
+		Collections.sort(ranked, new Comparator<SpaceSaving.Counter<String[]>>()
+		{
+			@Override
+			public int compare(SpaceSaving.Counter<String[]> first,
+					           SpaceSaving.Counter<String[]> second) 
+			{
+				return (Integer.compare(population.estimate(second.key()), 
+						                population.estimate(first.key())));
+			}
+		});
+		
+		return (ranked);
+	}
+	
+	@Override
+	public String[] topGenomes(int number) 
+	{
+		List<SpaceSaving.Counter<String[]>> ranked = ranked();
+		
+		String[] topGenomes = new String[Math.min(number, ranked.size())];
+		
+		for (int index=0; index<topGenomes.length; index++)
+		{
+			SpaceSaving.Counter<String[]> counter = ranked.get(index);
+			
+			topGenomes[index] = population.estimate(counter.key()) + 
+					            ", " + 
+					            Arrays.deepToString(counter.value());
+		}
+		
+		return (topGenomes);
+	}
+	
+	@Override
+	public void prettyPrintGenomes() 
+	{
+		for (SpaceSaving.Counter<String[]> counter: heavyHitters.counters())
+		{
+			System.out.print(counter.key());
+			System.out.print(": ");
+			System.out.println(Arrays.deepToString(counter.value()));
+		}
+	}
+	
+	@Override
+	public void prettyPrintPopulation() 
+	{
+		for (SpaceSaving.Counter<String[]> counter: heavyHitters.counters())
+		{
+			System.out.print(counter.key());
+			System.out.print(": ");
+			System.out.println(population.estimate(counter.key()));
+		}
+	}
+	
+	@Override
+	public void prettyPrintMetrics() 
+	{
+		System.out.println("Distinct genomes in last " + 
+				           windows.length * windowCycles + 
+				           " cycles: ~" + distinctGenomes);
+		
+		for (SpaceSaving.Counter<String[]> counter: ranked())
+		{
+			System.out.print(counter.key());
+			System.out.print(": ");
+			System.out.print(population.estimate(counter.key()) + ", ");
+			System.out.println(Arrays.deepToString(counter.value()));
+		}
+	}
+}
@@ -0,0 +1,370 @@
+package procs;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving summary, which tracks the most frequently 
+ * occurring keys in a stream using a fixed number of counters.
+ * Any key occurring more often than once in every capacity
+ * occurrences is guaranteed to be held by the summary.
+ * 
+ * The counters are kept in a Stream-Summary: a list of buckets in
+ * order of increasing count, each holding the counters with that
+ * count. Incrementing a counter moves it to the next bucket, and the
+ * counter to be replaced by an unmonitored key is always found in
+ * the first bucket, so every occurrence is recorded in constant time
+ * however many keys are monitored.
+ * 
+ * A value may be held alongside each key, so that the heavy
+ * hitters can be described without storing every key seen.
+ * 
+ * @param <V> The type of value held alongside each key
+ * 
+ * @author richpl
+ */
+public class SpaceSaving<V> 
+{
+	/**
+	 * Counter for a single monitored key
+	 * 
+	 * @param <V> The type of value held alongside the key
+	 */
+	public static class Counter<V>
+	{
+		private int key;
+		private V value;
+		private long count;
+		private long error;
+		
+		// Bucket holding the counter, and its neighbours there
+		private Bucket<V> bucket;
+		private Counter<V> previous;
+		private Counter<V> next;
+		
+		/**
+		 * @return The key being counted
+		 */
+		public int key()
+		{
+			return (key);
+		}
+		
+		/**
+		 * @return The value held alongside the key, or null
+		 * if none has been given since the key was admitted
+		 */
+		public V value()
+		{
+			return (value);
+		}
+		
+		/**
+		 * @param value The value to hold alongside the key
+		 */
+		public void setValue(final V value)
+		{
+			this.value = value;
+		}
+		
+		/**
+		 * @return The number of occurrences of the key,
+		 * which may overestimate the true number by up to
+		 * the error
+		 */
+		public long count()
+		{
+			return (count);
+		}
+		
+		/**
+		 * @return The maximum overestimate in the count
+		 */
+		public long error()
+		{
+			return (error);
+		}
+	}
+	
+	/**
+	 * The counters sharing a single count
+	 * 
+	 * @param <V> The type of value held alongside each key
+	 */
+	private static class Bucket<V>
+	{
+		private long count;
+		
+		// Neighbouring buckets, with smaller and larger counts
+		private Bucket<V> previous;
+		private Bucket<V> next;
+		
+		// First of the counters in the bucket
+		private Counter<V> first;
+	}
+	
+	// Maximum number of keys monitored
+	private int capacity;
+	
+	// Counters for the monitored keys
+	private Map<Integer, Counter<V>> counters;
+	
+	// Bucket with the smallest count, or null if
+	// no keys are monitored
+	private Bucket<V> smallest;
+	
+	/**
+	 * Constructs an empty summary.
+	 * 
+	 * @param capacity The number of keys to be monitored
+	 * 
+	 * @throws IllegalArgumentException Signals that the
+	 * capacity was not positive
+	 */
+	public SpaceSaving(final int capacity)
+		throws IllegalArgumentException
+	{
+		if (capacity <= 0)
+		{
+			throw new IllegalArgumentException
+				("Invalid summary capacity specified");
+		}
+		
+		this.capacity = capacity;
+		
+		counters = new HashMap<Integer, Counter<V>>();
+		
+		smallest = null;
+	}
+	
+	/**
+	 * Records an occurrence of a key. If the key is not 
+	 * monitored and the summary is full, it replaces the key 
+	 * with the smallest count.
+	 * 
+	 * @param key The key which has occurred
+	 * @param value The value to hold alongside the key, 
+	 * if it is not already monitored
+	 */
+	public void offer(final int key, final V value)
+	{
+		Counter<V> counter = offer(key);
+		
+		if (counter.value == null)
+		{
+			counter.value = value;
+		}
+	}
+	
+	/**
+	 * Records an occurrence of a key. If the key is not 
+	 * monitored and the summary is full, it replaces the key 
+	 * with the smallest count. A key which has just been admitted
+	 * has no value, so that the caller need only build a value
+	 * for keys which are actually monitored.
+	 * 
+	 * @param key The key which has occurred
+	 * 
+	 * @return The counter of the key
+	 */
+	public Counter<V> offer(final int key)
+	{
+		Counter<V> counter = counters.get(key);
+		
+		if (counter == null)
+		{
+			if (counters.size() < capacity)
+			{
+				counter = new Counter<V>();
+				counter.count = 1;
+				counter.error = 0;
+				
+				// A count of one is the smallest of all
+				if (smallest == null || smallest.count != 1)
+				{
+					Bucket<V> bucket = new Bucket<V>();
+					bucket.count = 1;
+					bucket.next = smallest;
+					
+					if (smallest != null)
+					{
+						smallest.previous = bucket;
+					}
+					
+					smallest = bucket;
+				}
+				
+				attach(counter, smallest);
+				
+				counter.key = key;
+				counter.value = null;
+				
+				counters.put(key, counter);
+				
+				return (counter);
+			}
+			else
+			{
+				// Replace the key with the smallest count
+				counter = smallest.first;
+				
+				counters.remove(counter.key);
+				counter.error = counter.count;
+			}
+			
+			counter.key = key;
+			counter.value = null;
+			
+			counters.put(key, counter);
+		}
+		
+		increment(counter);
+		
+		return (counter);
+	}
+	
+	/**
+	 * Indicates whether a key is currently monitored.
+	 * 
+	 * @param key The key
+	 * 
+	 * @return True if the key is monitored
+	 */
+	public boolean contains(final int key)
+	{
+		return (counters.containsKey(key));
+	}
+	
+	/**
+	 * @return The number of keys currently monitored
+	 */
+	public int size()
+	{
+		return (counters.size());
+	}
+	
+	/**
+	 * @return The counters of the monitored keys, 
+	 * largest count first
+	 */
+	public List<Counter<V>> counters()
+	{
+		List<Counter<V>> list = new ArrayList<Counter<V>>(counters.size());
+		
+		for (Bucket<V> bucket=smallest; bucket!=null; bucket=bucket.next)
+		{
+			for (Counter<V> counter=bucket.first; counter!=null; counter=counter.next)
+			{
+				list.add(counter);
+			}
+		}
+		
+		Collections.reverse(list);
+		
+		return (list);
+	}
+	
+	/**
+	 * Adds one to the count of a counter, moving it to the
+	 * bucket for its new count.
+	 * 
+	 * @param counter The counter
+	 */
+	private void increment(final Counter<V> counter)
+	{
+		Bucket<V> bucket = counter.bucket;
+		long count = bucket.count + 1;
+		
+		Bucket<V> target = bucket.next;
+		
+		if (target == null || target.count != count)
+		{
+			// Insert a bucket for the new count
+			target = new Bucket<V>();
+			target.count = count;
+			target.previous = bucket;
+			target.next = bucket.next;
+			
+			if (bucket.next != null)
+			{
+				bucket.next.previous = target;
+			}
+			
+			bucket.next = target;
+		}
+		
+		detach(counter);
+		attach(counter, target);
+		
+		counter.count = count;
+	}
+	
+	/**
+	 * Adds a counter to a bucket.
+	 * 
+	 * @param counter The counter
+	 * @param bucket The bucket
+	 */
+	private void attach(final Counter<V> counter, final Bucket<V> bucket)
+	{
+		counter.bucket = bucket;
+		counter.previous = null;
+		counter.next = bucket.first;
+		
+		if (bucket.first != null)
+		{
+			bucket.first.previous = counter;
+		}
+		
+		bucket.first = counter;
+	}
+	
+	/**
+	 * Removes a counter from its bucket, removing
+	 * the bucket too once it is empty.
+	 * 
+	 * @param counter The counter
+	 */
+	private void detach(final Counter<V> counter)
+	{
+		Bucket<V> bucket = counter.bucket;
+		
+		if (counter.previous != null)
+		{
+			counter.previous.next = counter.next;
+		}
+		else
+		{
+			bucket.first = counter.next;
+		}
+		
+		if (counter.next != null)
+		{
+			counter.next.previous = counter.previous;
+		}
+		
+		counter.bucket = null;
+		counter.previous = null;
+		counter.next = null;
+		
+		if (bucket.first == null)
+		{
+			if (bucket.previous != null)
+			{
+				bucket.previous.next = bucket.next;
+			}
+			else
+			{
+				smallest = bucket.next;
+			}
+			
+			if (bucket.next != null)
+			{
+				bucket.next.previous = bucket.previous;
+			}
+		}
+	}
+}
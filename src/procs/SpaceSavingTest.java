@@ -0,0 +1,125 @@
+package procs;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class SpaceSavingTest 
+{
+	private final int CAPACITY = 4;
+	
+	@Test
+	public final void testHeavyHitters() 
+	{
+		SpaceSaving<String> summary = new SpaceSaving<String>(CAPACITY);
+		
+		// Key 1 makes up half of the stream, and key 2 a quarter,
+		// amongst many keys that only occur once
+		for (int index=0; index<1000; index++)
+		{
+			summary.offer(1, "one");
+			
+			if (index % 2 == 0)
+			{
+				summary.offer(2, "two");
+			}
+			
+			summary.offer(index + 100, "other");
+		}
+		
+		List<SpaceSaving.Counter<String>> counters = summary.counters();
+		
+		assertEquals("Too many keys monitored", CAPACITY, summary.size());
+		assertEquals("Heaviest key not found", 1, counters.get(0).key());
+		assertEquals("Value not held", "one", counters.get(0).value());
+		assertEquals("Second key not found", 2, counters.get(1).key());
+		
+		// Counts never underestimate, and overestimate by 
+		// no more than the error
+		SpaceSaving.Counter<String> counter = counters.get(0);
+		
+		assertTrue("Count underestimated", counter.count() >= 1000);
+		assertTrue("Count overestimated", 
+				   counter.count() - counter.error() <= 1000);
+	}
+	
+	@Test
+	public final void testBounds() 
+	{
+		SpaceSaving<String> summary = new SpaceSaving<String>(CAPACITY * 4);
+		Map<Integer, Integer> exact = new HashMap<Integer, Integer>();
+		
+		Random random = new Random(1);
+		
+		// A skewed stream over many keys
+		final int OFFERS = 20000;
+		
+		for (int index=0; index<OFFERS; index++)
+		{
+			int key = (int) (-Math.log(1 - random.nextDouble()) * 10);
+			
+			SpaceSaving.Counter<String> counter = summary.offer(key);
+			
+			if (counter.value() == null)
+			{
+				// Only newly admitted keys are without a value
+				assertEquals("Value missing", counter.count(), counter.error() + 1);
+				counter.setValue("key " + key);
+			}
+			
+			exact.merge(key, 1, Integer::sum);
+		}
+		
+		List<SpaceSaving.Counter<String>> counters = summary.counters();
+		assertEquals("Incorrect size", CAPACITY * 4, counters.size());
+		
+		long total = 0;
+		
+		for (int index=0; index<counters.size(); index++)
+		{
+			SpaceSaving.Counter<String> counter = counters.get(index);
+			int count = exact.get(counter.key());
+			
+			total += counter.count();
+			
+			assertEquals("Incorrect value", "key " + counter.key(), counter.value());
+			assertTrue("Count underestimated", counter.count() >= count);
+			assertTrue("Count overestimated", 
+					   counter.count() - counter.error() <= count);
+			
+			if (index > 0)
+			{
+				assertTrue("Counters out of order", 
+						   counters.get(index - 1).count() >= counter.count());
+			}
+		}
+		
+		// Every occurrence is counted by exactly one counter
+		assertEquals("Incorrect total", OFFERS, total);
+		
+		// A key making up more than one in every sixteen
+		// occurrences is always monitored
+		assertTrue("Heaviest key not found", summary.contains(0));
+	}
+	
+	@Test
+	public final void testCountMinSketch() 
+	{
+		CountMinSketch sketch = new CountMinSketch(4, 1024);
+		
+		for (int key=0; key<500; key++)
+		{
+			sketch.add(key, key % 5);
+		}
+		
+		sketch.add(7, -1);
+		
+		assertTrue("Count underestimated", sketch.estimate(7) >= 1);
+		assertTrue("Count underestimated", sketch.estimate(499) >= 4);
+	}
+}
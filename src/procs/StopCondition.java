@@ -0,0 +1,161 @@
+package procs;
+
+/**
+ * A condition under which a Simulation stops running. Conditions are
+ * checked before every cycle, so they are evaluated only from counters
+ * which the Simulation keeps up to date as Processes are born and die,
+ * never by examining every Process or genome.
+ *
+ * @author richpl
+ */
+public abstract class StopCondition
+{
+	// Description of the condition, reported when it stops a run
+	private final String description;
+	
+	/**
+	 * Constructs a condition.
+	 *
+	 * @param description A description of the condition
+	 */
+	protected StopCondition(final String description)
+	{
+		this.description = description;
+	}
+	
+	/**
+	 * @param simulation The running Simulation
+	 *
+	 * @return True if the Simulation should stop
+	 */
+	public abstract boolean reached(Simulation simulation);
+	
+	@Override
+	public String toString()
+	{
+		return (description);
+	}
+	
+	/**
+	 * @param cycles The number of cycles after which to stop
+	 *
+	 * @return A condition reached once the CPU has completed
+	 * the specified number of cycles
+	 */
+	public static StopCondition cycles(final long cycles)
+	{
+		return (new StopCondition("cycles " + cycles)
+		{
+			@Override
+			public boolean reached(final Simulation simulation)
+			{
+				return (simulation.cycle() >= cycles);
+			}
+		});
+	}
+	
+	/**
+	 * @param millis The number of milliseconds after which to stop
+	 *
+	 * @return A condition reached once the current run of the
+	 * Simulation has lasted the specified time
+	 */
+	public static StopCondition wallTime(final long millis)
+	{
+		return (new StopCondition("wall time " + millis + "ms")
+		{
+			@Override
+			public boolean reached(final Simulation simulation)
+			{
+				return (simulation.elapsedMillis() >= millis);
+			}
+		});
+	}
+	
+	/**
+	 * @return A condition reached once no Processes are executing
+	 */
+	public static StopCondition extinction()
+	{
+		return (new StopCondition("extinction")
+		{
+			@Override
+			public boolean reached(final Simulation simulation)
+			{
+				return (simulation.population() == 0);
+			}
+		});
+	}
+	
+	/**
+	 * @param population The number of Processes at which to stop
+	 *
+	 * @return A condition reached once at least the specified
+	 * number of Processes are executing
+	 */
+	public static StopCondition populationAbove(final int population)
+	{
+		return (new StopCondition("population >= " + population)
+		{
+			@Override
+			public boolean reached(final Simulation simulation)
+			{
+				return (simulation.population() >= population);
+			}
+		});
+	}
+	
+	/**
+	 * @param population The number of Processes at which to stop
+	 *
+	 * @return A condition reached once no more than the specified
+	 * number of Processes are executing
+	 */
+	public static StopCondition populationBelow(final int population)
+	{
+		return (new StopCondition("population <= " + population)
+		{
+			@Override
+			public boolean reached(final Simulation simulation)
+			{
+				return (simulation.population() <= population);
+			}
+		});
+	}
+	
+	/**
+	 * A single genome makes up the whole of a young population,
+	 * so the share is only considered once the population has
+	 * reached a minimum size.
+	 *
+	 * @param share The fraction of the population at which to stop
+	 * @param minimum The smallest population at which to stop
+	 *
+	 * @return A condition reached once the executing Processes
+	 * number at least the minimum, and the most populous genome
+	 * makes up at least the specified share of them
+	 *
+	 * @throws NumberFormatException Signals that the share is
+	 * not between zero and one
+	 */
+	public static StopCondition genomeShare(final double share, final int minimum)
+		throws NumberFormatException
+	{
+		if (!(share >= 0 && share <= 1))
+		{
+			throw new NumberFormatException("Invalid genome share specified");
+		}
+		
+		return (new StopCondition("genome share >= " + share)
+		{
+			@Override
+			public boolean reached(final Simulation simulation)
+			{
+				int population = simulation.population();
+				
+				return (population > 0 && population >= minimum &&
+						simulation.maxPopulation() >= share * population);
+			}
+		});
+	}
+}